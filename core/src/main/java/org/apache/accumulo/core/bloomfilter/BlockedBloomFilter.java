@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.bloomfilter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.util.hash.Hash;
+
+/**
+ * A Bloom filter whose bits are split into blocks the size of a cache line. Every key sets and tests all of its bits within a single block, so a membership
+ * test touches one cache line no matter how many hash functions are used, instead of one line per hash function. The price is a slightly higher false
+ * positive rate for the same number of bits, which is made up for by sizing the filter for a lower error rate than asked for.
+ * <p>
+ * The serialized form is two ints, the number of blocks and the number of hash functions, followed by the blocks as big endian longs. A serialized filter can
+ * be tested in place with {@link #BlockedBloomFilter(ByteBuffer)}, without copying its bits onto the heap.
+ */
+public class BlockedBloomFilter {
+
+  public static final int BLOCK_BITS = 512;
+  private static final int BLOCK_BYTES = BLOCK_BITS / 8;
+  private static final int HEADER_BYTES = 8;
+  private static final int MAX_HASHES = 16;
+
+  private final ByteBuffer data;
+  private final int numBlocks;
+  private final int numHashes;
+
+  /**
+   * Builds an empty filter sized to hold the given number of keys with the given false positive rate.
+   */
+  public BlockedBloomFilter(int expectedKeys, double errorRate) {
+    double bitsPerKey = bitsPerKey(errorRate);
+    long bits = (long) Math.ceil(Math.max(1, expectedKeys) * bitsPerKey);
+    this.numBlocks = (int) Math.max(1, (bits + BLOCK_BITS - 1) / BLOCK_BITS);
+    this.numHashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+    this.data = ByteBuffer.allocate(HEADER_BYTES + numBlocks * BLOCK_BYTES);
+    data.putInt(0, numBlocks);
+    data.putInt(4, numHashes);
+  }
+
+  /**
+   * @return the number of bits each key needs for the given false positive rate
+   */
+  public static double bitsPerKey(double errorRate) {
+    // blocking costs roughly a doubling of the false positive rate, so size for half of it
+    return -Math.log(errorRate / 2) / (Math.log(2) * Math.log(2));
+  }
+
+  /**
+   * Wraps a serialized filter. The buffer is read with absolute gets from its start, and is never modified by membership tests.
+   */
+  public BlockedBloomFilter(ByteBuffer serialized) {
+    this.data = serialized;
+    this.numBlocks = serialized.getInt(0);
+    this.numHashes = serialized.getInt(4);
+    if (numBlocks <= 0 || numHashes <= 0 || serialized.limit() < HEADER_BYTES + (long) numBlocks * BLOCK_BYTES)
+      throw new IllegalArgumentException("Invalid blocked bloom filter, blocks " + numBlocks + " hashes " + numHashes + " bytes " + serialized.limit());
+  }
+
+  /**
+   * Reads a serialized filter onto the heap.
+   */
+  public static BlockedBloomFilter read(DataInput in) throws IOException {
+    int numBlocks = in.readInt();
+    int numHashes = in.readInt();
+    if (numBlocks <= 0 || numHashes <= 0)
+      throw new IOException("Invalid blocked bloom filter, blocks " + numBlocks + " hashes " + numHashes);
+    byte[] b = new byte[HEADER_BYTES + numBlocks * BLOCK_BYTES];
+    ByteBuffer buf = ByteBuffer.wrap(b);
+    buf.putInt(0, numBlocks);
+    buf.putInt(4, numHashes);
+    in.readFully(b, HEADER_BYTES, b.length - HEADER_BYTES);
+    return new BlockedBloomFilter(buf);
+  }
+
+  /**
+   * Hashes a key into the 64 bit value used by {@link #add(long)} and {@link #membershipTest(long)}. The same hash may be tested against many filters.
+   */
+  public static long hash(Hash hash, byte[] key) {
+    int h1 = hash.hash(key, 0);
+    int h2 = hash.hash(key, h1);
+    return ((long) h1 << 32) | (h2 & 0xffffffffL);
+  }
+
+  private int blockOffset(long hash) {
+    // multiply and shift maps the high half of the hash evenly onto the blocks without a division
+    return HEADER_BYTES + (int) (((hash >>> 32) * numBlocks) >>> 32) * BLOCK_BYTES;
+  }
+
+  public void add(long hash) {
+    int block = blockOffset(hash);
+    int h = (int) hash;
+    // an odd step visits every bit of the block before repeating, so the bits set for a key are distinct
+    int step = (h >>> 9) | 1;
+    for (int i = 0; i < numHashes; i++) {
+      int bit = (h + i * step) & (BLOCK_BITS - 1);
+      int index = block + (bit >>> 6) * 8;
+      data.putLong(index, data.getLong(index) | (1L << (bit & 63)));
+    }
+  }
+
+  public boolean membershipTest(long hash) {
+    int block = blockOffset(hash);
+    int h = (int) hash;
+    int step = (h >>> 9) | 1;
+    for (int i = 0; i < numHashes; i++) {
+      int bit = (h + i * step) & (BLOCK_BITS - 1);
+      if ((data.getLong(block + (bit >>> 6) * 8) & (1L << (bit & 63))) == 0)
+        return false;
+    }
+    return true;
+  }
+
+  public int getNumBlocks() {
+    return numBlocks;
+  }
+
+  public int getNumHashes() {
+    return numHashes;
+  }
+
+  /**
+   * @return the number of bytes {@link #write(DataOutput)} writes
+   */
+  public int getSerializedSize() {
+    return HEADER_BYTES + numBlocks * BLOCK_BYTES;
+  }
+
+  public void write(DataOutput out) throws IOException {
+    if (data.hasArray() && data.arrayOffset() == 0) {
+      out.write(data.array(), 0, getSerializedSize());
+    } else {
+      for (int i = 0; i < getSerializedSize(); i += 8)
+        out.writeLong(data.getLong(i));
+    }
+  }
+}
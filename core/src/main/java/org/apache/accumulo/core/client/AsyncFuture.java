@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * The pending result of an asynchronous client operation. In addition to the usual {@link Future} methods, listeners can be registered to run when the result
+ * is available, so that callers do not need to dedicate a thread to waiting on each operation.
+ * 
+ * <p>
+ * If an operation fails, {@link #get()} throws an {@link java.util.concurrent.ExecutionException} whose cause is the exception the equivalent synchronous
+ * operation would have thrown, for example an {@link AccumuloSecurityException}, {@link TableDeletedException} or {@link TimedOutException}.
+ * 
+ * @since 1.7.0
+ */
+public interface AsyncFuture<V> extends Future<V> {
+
+  /**
+   * Registers a listener to be run on the given executor once this future completes, successfully or not. If the future has already completed, the listener
+   * is run right away. Listeners run on a direct executor execute on client I/O threads and should not block.
+   * 
+   * @param listener
+   *          the code to run when the result is available
+   * @param executor
+   *          the executor to run the listener on
+   */
+  void addListener(Runnable listener, Executor executor);
+}
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client;
+
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Reads from a table without tying up a thread for each outstanding request. Requests to tablet servers are sent over non-blocking connections that a small,
+ * shared set of threads multiplexes, so a client can have many lookups and scans in flight at once.
+ * 
+ * <p>
+ * When SSL is enabled for client connections, non-blocking connections can not be used, and requests are run on a shared pool of threads using the same code
+ * as {@link Scanner}.
+ * 
+ * @since 1.7.0
+ */
+public interface AsyncScanner {
+
+  /**
+   * A scan over a range whose results are read one batch at a time. The next batch is not requested from the tablet server until the previous one has been
+   * received and {@link #nextBatch()} is called again, so a slow consumer holds back the scan instead of having results queued up for it.
+   * 
+   * @since 1.7.0
+   */
+  interface BatchStream {
+
+    /**
+     * Requests the next batch of results. Only one batch may be outstanding at a time.
+     * 
+     * @return the next batch of key/value pairs in sorted order; an empty batch means the scan has finished
+     * @throws IllegalStateException
+     *           if the previous batch has not been received yet, or the stream was closed
+     */
+    AsyncFuture<List<Entry<Key,Value>>> nextBatch();
+
+    /**
+     * Stops the scan and releases its session on the tablet server. An outstanding batch request is still completed, but it stops retrying, so a batch that
+     * was waiting to retry after a failure completes empty.
+     */
+    void close();
+  }
+
+  /**
+   * Reads all of the entries in a range, for point lookups such as reading a single row. The range should be small enough for its entries to fit in memory;
+   * use {@link #scan(Range)} for larger ranges.
+   * 
+   * @param range
+   *          the range to read
+   * @return all of the key/value pairs in the range, in sorted order
+   */
+  AsyncFuture<List<Entry<Key,Value>>> lookup(Range range);
+
+  /**
+   * Starts a scan over a range. The options currently set on this scanner are used for the lifetime of the scan.
+   * 
+   * @param range
+   *          the range to scan
+   * @return a stream to read the scan's results from
+   */
+  BatchStream scan(Range range);
+
+  /**
+   * Add a server-side scan iterator.
+   * 
+   * @see ScannerBase#addScanIterator(IteratorSetting)
+   */
+  void addScanIterator(IteratorSetting cfg);
+
+  /**
+   * Remove an iterator from the list of iterators.
+   * 
+   * @see ScannerBase#removeScanIterator(String)
+   */
+  void removeScanIterator(String iteratorName);
+
+  /**
+   * Clears the configured scan iterators.
+   */
+  void clearScanIterators();
+
+  /**
+   * Adds a column family to the list of columns that will be fetched. By default when no columns have been added all columns are fetched.
+   */
+  void fetchColumnFamily(Text col);
+
+  /**
+   * Adds a column to the list of columns that will be fetched. By default when no columns have been added all columns are fetched.
+   */
+  void fetchColumn(Text colFam, Text colQual);
+
+  /**
+   * Clears the columns to be fetched. Once cleared, all columns are fetched.
+   */
+  void clearColumns();
+
+  /**
+   * Sets the number of key/value pairs that will be fetched at a time from a tablet server, which is also the most a {@link BatchStream} batch will hold.
+   */
+  void setBatchSize(int size);
+
+  /**
+   * @return the number of key/value pairs fetched at a time from a tablet server
+   */
+  int getBatchSize();
+
+  /**
+   * Determines how long a lookup or a batch request will automatically retry when a failure occurs before failing with a {@link TimedOutException}. By default
+   * requests retry forever.
+   * 
+   * @see ScannerBase#setTimeout(long, TimeUnit)
+   */
+  void setTimeout(long timeOut, TimeUnit timeUnit);
+
+  /**
+   * @return the timeout configured for this scanner
+   */
+  long getTimeout(TimeUnit timeUnit);
+}
@@ -28,7 +28,7 @@ import org.apache.accumulo.core.data.Range;
  * returned data being in sorted order.
  * 
  * If you want to lookup a few ranges and expect those ranges to contain a lot of data, then use the Scanner instead. Also, the Scanner will return data in
- * sorted order, this will not.
+ * sorted order, this will not unless {@link #setOrdered(boolean)} is used.
  */
 
 public interface BatchScanner extends ScannerBase {
@@ -61,4 +61,18 @@ public interface BatchScanner extends ScannerBase {
    */
   @Override
   void setTimeout(long timeout, TimeUnit timeUnit);
+  
+  /**
+   * Sets whether entries are returned in sorted order across all of the ranges. Tablet servers are still queried in parallel, but each reads only a few
+   * batches ahead of the entry being returned, so an ordered scan holds less in memory and may return results more slowly than an unordered one.
+   * Overlapping ranges are merged, so each entry is returned once.
+   * 
+   * <p>
+   * Takes effect for iterators created after it is called. The default is unordered.
+   * 
+   * @param ordered
+   *          true to return entries in sorted order
+   * @since 1.7.0
+   */
+  void setOrdered(boolean ordered);
 }
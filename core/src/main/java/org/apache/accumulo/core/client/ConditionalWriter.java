@@ -132,6 +132,17 @@ public interface ConditionalWriter {
 
   Result write(ConditionalMutation mutation);
 
+  /**
+   * Submits a mutation without waiting for its result. Mutations submitted this way are batched with all others sent through this writer, so many can be
+   * outstanding without a thread waiting on each. This method has the same thread safety guarantees as {@link #write(Iterator)}.
+   * 
+   * @param mutation
+   * @return the pending result for the submitted mutation. If the writer is closed before the result is known, the future fails with an
+   *         {@link AccumuloException}.
+   * @since 1.7.0
+   */
+  AsyncFuture<Result> writeAsync(ConditionalMutation mutation);
+
   /**
    * release any resources (like threads pools) used by conditional writer
    */
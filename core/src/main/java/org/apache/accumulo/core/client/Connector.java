@@ -173,6 +173,22 @@ public abstract class Connector {
    */
   public abstract Scanner createScanner(String tableName, Authorizations authorizations) throws TableNotFoundException;
 
+  /**
+   * Factory method to create an AsyncScanner connected to Accumulo, for lookups and scans that do not block a thread while waiting on tablet servers.
+   * 
+   * @param tableName
+   *          the name of the table to query data from
+   * @param authorizations
+   *          A set of authorization labels that will be checked against the column visibility of each key in order to filter data. The authorizations passed in
+   *          must be a subset of the accumulo user's set of authorizations.
+   * 
+   * @return AsyncScanner object for configuring and querying data with
+   * @throws TableNotFoundException
+   *           when the specified table doesn't exist
+   * @since 1.7.0
+   */
+  public abstract AsyncScanner createAsyncScanner(String tableName, Authorizations authorizations) throws TableNotFoundException;
+
   /**
    * Factory method to create a ConditionalWriter connected to Accumulo.
    * 
@@ -121,6 +121,12 @@ public abstract class ActiveCompaction {
    * @return the number of key/values written by the compaction
    */
   public abstract long getEntriesWritten();
+
+  /**
+   * @return the number of milliseconds the compaction has waited for the compaction throughput limits
+   * @since 1.7.0
+   */
+  public abstract long getThrottledTime();
   
   /**
    * @return the per compaction iterators configured
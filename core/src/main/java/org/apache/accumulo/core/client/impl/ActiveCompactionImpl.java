@@ -92,6 +92,11 @@ public class ActiveCompactionImpl extends ActiveCompaction {
     return tac.getEntriesWritten();
   }
 
+  @Override
+  public long getThrottledTime() {
+    return tac.getThrottledTime();
+  }
+
   @Override
   public List<IteratorSetting> getIterators() {
     ArrayList<IteratorSetting> ret = new ArrayList<IteratorSetting>();
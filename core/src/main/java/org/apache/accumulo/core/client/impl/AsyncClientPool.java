@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.accumulo.core.tabletserver.thrift.TabletClientService;
+import org.apache.accumulo.core.util.ThriftUtil;
+import org.apache.log4j.Logger;
+import org.apache.thrift.async.TAsyncClientManager;
+import org.apache.thrift.transport.TNonblockingSocket;
+import org.apache.thrift.transport.TNonblockingTransport;
+
+import com.google.common.net.HostAndPort;
+
+/**
+ * Non-blocking connections to tablet servers, shared by all asynchronous clients in the process. Every connection is serviced by a single selector thread, so
+ * requests can be outstanding to many tablet servers without a thread waiting on each. A connection carries one request at a time; once a request completes
+ * the connection is returned here and kept for reuse until it has been idle too long.
+ */
+class AsyncClientPool {
+
+  private static final Logger log = Logger.getLogger(AsyncClientPool.class);
+
+  // same as the idle time of the blocking transport pool
+  private static final long MAX_IDLE_TIME = 3000;
+  private static final int MAX_IDLE_PER_SERVER = 16;
+
+  private static AsyncClientPool instance = null;
+
+  static synchronized AsyncClientPool getInstance() throws IOException {
+    if (instance == null)
+      instance = new AsyncClientPool(new TAsyncClientManager());
+    return instance;
+  }
+
+  static class PooledClient {
+    final String server;
+    final TNonblockingTransport transport;
+    final TabletClientService.AsyncClient client;
+    long lastReturnTime;
+
+    PooledClient(String server, TNonblockingTransport transport, TabletClientService.AsyncClient client) {
+      this.server = server;
+      this.transport = transport;
+      this.client = client;
+    }
+  }
+
+  private final TAsyncClientManager manager;
+  private final ConcurrentMap<String,ConcurrentLinkedQueue<PooledClient>> idleClients = new ConcurrentHashMap<String,ConcurrentLinkedQueue<PooledClient>>();
+
+  AsyncClientPool(TAsyncClientManager manager) {
+    this.manager = manager;
+  }
+
+  /**
+   * @param timeout
+   *          how long a request may take, in milliseconds; 0 to wait forever
+   */
+  PooledClient getClient(String server, long timeout) throws IOException {
+    ConcurrentLinkedQueue<PooledClient> idle = idleClients.get(server);
+    if (idle != null) {
+      PooledClient pc;
+      while ((pc = idle.poll()) != null) {
+        if (System.currentTimeMillis() - pc.lastReturnTime < MAX_IDLE_TIME) {
+          pc.client.setTimeout(timeout);
+          return pc;
+        }
+        pc.transport.close();
+      }
+    }
+
+    HostAndPort address = HostAndPort.fromString(server);
+    TNonblockingSocket transport = new TNonblockingSocket(address.getHostText(), address.getPort());
+    TabletClientService.AsyncClient client = new TabletClientService.AsyncClient(ThriftUtil.protocolFactory(), manager, transport);
+    client.setTimeout(timeout);
+    return new PooledClient(server, transport, client);
+  }
+
+  /**
+   * Returns a client whose request has completed. Clients whose last request failed are closed, since the state of their connection is unknown.
+   */
+  void returnClient(PooledClient pc) {
+    if (pc.client.hasError()) {
+      log.trace("Closing connection to " + pc.server + " after error " + pc.client.getError());
+      pc.transport.close();
+      return;
+    }
+
+    ConcurrentLinkedQueue<PooledClient> idle = idleClients.get(pc.server);
+    if (idle == null) {
+      ConcurrentLinkedQueue<PooledClient> existing = idleClients.putIfAbsent(pc.server, idle = new ConcurrentLinkedQueue<PooledClient>());
+      if (existing != null)
+        idle = existing;
+    }
+
+    // size() walks the queue, but it is kept short
+    if (idle.size() >= MAX_IDLE_PER_SERVER) {
+      pc.transport.close();
+      return;
+    }
+
+    pc.lastReturnTime = System.currentTimeMillis();
+    idle.add(pc);
+  }
+
+  /**
+   * Closes a client that can not be reused.
+   */
+  void invalidate(PooledClient pc) {
+    pc.transport.close();
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import org.apache.accumulo.core.client.AsyncFuture;
+
+import com.google.common.util.concurrent.AbstractFuture;
+
+/**
+ * An {@link AsyncFuture} that is completed by the client code that issued the operation.
+ */
+public class AsyncFutureImpl<V> extends AbstractFuture<V> implements AsyncFuture<V> {
+
+  public static <V> AsyncFutureImpl<V> immediate(V value) {
+    AsyncFutureImpl<V> future = new AsyncFutureImpl<V>();
+    future.set(value);
+    return future;
+  }
+
+  public static <V> AsyncFutureImpl<V> immediateFailure(Throwable t) {
+    AsyncFutureImpl<V> future = new AsyncFutureImpl<V>();
+    future.setException(t);
+    return future;
+  }
+
+  @Override
+  public boolean set(V value) {
+    return super.set(value);
+  }
+
+  @Override
+  public boolean setException(Throwable t) {
+    return super.setException(t);
+  }
+}
@@ -0,0 +1,681 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.AsyncFuture;
+import org.apache.accumulo.core.client.AsyncScanner;
+import org.apache.accumulo.core.client.Instance;
+import org.apache.accumulo.core.client.TableDeletedException;
+import org.apache.accumulo.core.client.TableOfflineException;
+import org.apache.accumulo.core.client.TimedOutException;
+import org.apache.accumulo.core.client.impl.AsyncClientPool.PooledClient;
+import org.apache.accumulo.core.client.impl.TabletLocator.TabletLocation;
+import org.apache.accumulo.core.client.impl.ThriftScanner.ScanState;
+import org.apache.accumulo.core.client.impl.ThriftScanner.ScanTimedOutException;
+import org.apache.accumulo.core.client.impl.thrift.ThriftSecurityException;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.data.thrift.InitialScan;
+import org.apache.accumulo.core.data.thrift.ScanResult;
+import org.apache.accumulo.core.master.state.tables.TableState;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.Credentials;
+import org.apache.accumulo.core.tabletserver.thrift.NoSuchScanIDException;
+import org.apache.accumulo.core.tabletserver.thrift.NotServingTabletException;
+import org.apache.accumulo.core.tabletserver.thrift.TabletClientService;
+import org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException;
+import org.apache.accumulo.core.util.NamingThreadFactory;
+import org.apache.accumulo.core.util.OpTimer;
+import org.apache.accumulo.core.util.SslConnectionParams;
+import org.apache.accumulo.trace.instrument.Tracer;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.thrift.TApplicationException;
+import org.apache.thrift.TException;
+import org.apache.thrift.async.AsyncMethodCallback;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Scans a table using the non-blocking tablet server client. The work of a scan is the same as {@link ThriftScanner#scan}, but it is broken up at each request
+ * to a tablet server: the request is sent, and the rest of the batch is handled on a shared thread once the response arrives. Retries are also scheduled on
+ * the shared threads, so no thread waits on a tablet server while a request is outstanding. Locating a tablet may read the metadata table with blocking calls,
+ * so it is done on a separate pool that grows as needed rather than on the shared threads.
+ */
+public class AsyncScannerImpl extends ScannerOptions implements AsyncScanner {
+
+  private static final Logger log = Logger.getLogger(AsyncScannerImpl.class);
+
+  private static final long RETRY_DELAY = 100;
+
+  private static ScheduledExecutorService scheduler = null;
+  private static ThreadPoolExecutor blockingPool = null;
+
+  private static synchronized ScheduledExecutorService getScheduler() {
+    if (scheduler == null)
+      scheduler = Executors.newScheduledThreadPool(2, new NamingThreadFactory("Async scanner"));
+    return scheduler;
+  }
+
+  private static synchronized ThreadPoolExecutor getBlockingPool() {
+    if (blockingPool == null)
+      blockingPool = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 3L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new NamingThreadFactory(
+          "Async scanner blocking"));
+    return blockingPool;
+  }
+
+  private final Instance instance;
+  private final Credentials credentials;
+  private final Text tableId;
+  private final Authorizations authorizations;
+
+  private int size;
+
+  public AsyncScannerImpl(Instance instance, Credentials credentials, String tableId, Authorizations authorizations) {
+    checkArgument(instance != null, "instance is null");
+    checkArgument(credentials != null, "credentials is null");
+    checkArgument(tableId != null, "tableId is null");
+    checkArgument(authorizations != null, "authorizations is null");
+    this.instance = instance;
+    this.credentials = credentials;
+    this.tableId = new Text(tableId);
+    this.authorizations = authorizations;
+
+    this.size = Constants.SCAN_BATCH_SIZE;
+  }
+
+  @Override
+  public synchronized void setBatchSize(int size) {
+    if (size > 0)
+      this.size = size;
+    else
+      throw new IllegalArgumentException("size must be greater than zero");
+  }
+
+  @Override
+  public synchronized int getBatchSize() {
+    return size;
+  }
+
+  @Override
+  public synchronized BatchStream scan(Range range) {
+    checkArgument(range != null, "range is null");
+    ScannerOptions options = new ScannerOptions(this);
+    ScanState scanState = new ScanState(instance, credentials, tableId, authorizations, new Range(range), options.fetchedColumns, size,
+        options.serverSideIteratorList, options.serverSideIteratorOptions, false);
+
+    AccumuloConfiguration conf = ServerConfigurationUtil.getConfiguration(instance);
+    if (SslConnectionParams.forClient(conf) != null)
+      return new BlockingBatchStream(scanState, timeOut, conf);
+    return new NonBlockingBatchStream(scanState, timeOut, conf);
+  }
+
+  @Override
+  public AsyncFuture<List<Entry<Key,Value>>> lookup(Range range) {
+    LookupCollector collector = new LookupCollector(scan(range));
+    collector.run();
+    return collector.result;
+  }
+
+  /**
+   * Reads batches from a stream until it is exhausted. Batches that are already done are consumed in a loop, and a listener is only registered on a batch that
+   * is still pending, so a stream whose batches complete immediately does not grow the stack.
+   */
+  private static class LookupCollector implements Runnable {
+    private final BatchStream stream;
+    private final List<Entry<Key,Value>> entries = new ArrayList<Entry<Key,Value>>();
+    private final AsyncFutureImpl<List<Entry<Key,Value>>> result = new AsyncFutureImpl<List<Entry<Key,Value>>>();
+
+    LookupCollector(BatchStream stream) {
+      this.stream = stream;
+    }
+
+    @Override
+    public void run() {
+      AsyncFuture<List<Entry<Key,Value>>> batch;
+      while ((batch = stream.nextBatch()).isDone()) {
+        if (!collect(batch))
+          return;
+      }
+
+      final AsyncFuture<List<Entry<Key,Value>>> pending = batch;
+      pending.addListener(new Runnable() {
+        @Override
+        public void run() {
+          if (collect(pending))
+            LookupCollector.this.run();
+        }
+      }, MoreExecutors.sameThreadExecutor());
+    }
+
+    /**
+     * Adds the entries of a completed batch, or completes the result if the batch failed or was the last one.
+     *
+     * @return true if there are more batches to read
+     */
+    private boolean collect(AsyncFuture<List<Entry<Key,Value>>> batch) {
+      List<Entry<Key,Value>> kvs;
+      try {
+        kvs = batch.get();
+      } catch (ExecutionException e) {
+        stream.close();
+        result.setException(e.getCause());
+        return false;
+      } catch (InterruptedException e) {
+        // the batch is done, so get() does not wait
+        throw new IllegalStateException(e);
+      }
+
+      if (kvs.isEmpty()) {
+        stream.close();
+        result.set(Collections.unmodifiableList(entries));
+        return false;
+      }
+      entries.addAll(kvs);
+      return true;
+    }
+  }
+
+  /**
+   * Tracks the single outstanding batch of a stream. Subclasses fetch a batch by advancing the scan state and then completing {@link #current}.
+   */
+  private static abstract class AbstractBatchStream implements BatchStream {
+    protected final ScanState scanState;
+    protected final long timeOut;
+    protected final AccumuloConfiguration conf;
+
+    protected AsyncFutureImpl<List<Entry<Key,Value>>> current = null;
+    protected long startTime;
+    protected boolean closed = false;
+
+    AbstractBatchStream(ScanState scanState, long timeOut, AccumuloConfiguration conf) {
+      this.scanState = scanState;
+      this.timeOut = timeOut;
+      this.conf = conf;
+    }
+
+    @Override
+    public synchronized AsyncFuture<List<Entry<Key,Value>>> nextBatch() {
+      if (closed)
+        throw new IllegalStateException("stream is closed");
+      if (current != null && !current.isDone())
+        throw new IllegalStateException("previous batch has not been received");
+
+      if (scanState.finished)
+        return AsyncFutureImpl.immediate(Collections.<Entry<Key,Value>> emptyList());
+
+      current = new AsyncFutureImpl<List<Entry<Key,Value>>>();
+      startTime = System.currentTimeMillis();
+      fetch();
+      return current;
+    }
+
+    @Override
+    public synchronized void close() {
+      closed = true;
+    }
+
+    protected boolean isTimedOut() {
+      return System.currentTimeMillis() - startTime > timeOut;
+    }
+
+    protected void complete(List<KeyValue> results) {
+      current.set(Collections.<Entry<Key,Value>> unmodifiableList(results));
+    }
+
+    protected void fail(Throwable t) {
+      current.setException(t);
+    }
+
+    protected abstract void fetch();
+  }
+
+  /**
+   * Used when connections must use SSL, which the non-blocking transport does not support. Each batch is read by the same code that {@link ScannerImpl} uses,
+   * on a pooled thread.
+   */
+  private static class BlockingBatchStream extends AbstractBatchStream implements Runnable {
+
+    BlockingBatchStream(ScanState scanState, long timeOut, AccumuloConfiguration conf) {
+      super(scanState, timeOut, conf);
+    }
+
+    @Override
+    protected void fetch() {
+      getBlockingPool().execute(this);
+    }
+
+    @Override
+    public void run() {
+      int timeOutSecs = (int) Math.min(Integer.MAX_VALUE, TimeUnit.MILLISECONDS.toSeconds(timeOut));
+      try {
+        List<KeyValue> results = ThriftScanner.scan(scanState.instance, scanState.credentials, scanState, timeOutSecs, conf);
+        complete(results == null ? Collections.<KeyValue> emptyList() : results);
+      } catch (ScanTimedOutException e) {
+        fail(new TimedOutException("Timed out scanning table " + scanState.tableId));
+      } catch (Exception e) {
+        fail(e);
+      }
+    }
+  }
+
+  /**
+   * Runs the steps of {@link ThriftScanner#scan} as a sequence of callbacks. At most one step of a stream runs at a time, each one handing off to the next
+   * through the scheduler, the blocking pool or a tablet server response, so the scan state needs no further locking.
+   */
+  private static class NonBlockingBatchStream extends AbstractBatchStream {
+
+    private final AsyncClientPool pool;
+    private final long rpcTimeout;
+
+    private TabletLocation loc = null;
+    private String lastError = null;
+
+    NonBlockingBatchStream(ScanState scanState, long timeOut, AccumuloConfiguration conf) {
+      super(scanState, timeOut, conf);
+      try {
+        this.pool = AsyncClientPool.getInstance();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+      this.rpcTimeout = conf.getTimeInMillis(Property.GENERAL_RPC_TIMEOUT);
+    }
+
+    private final Runnable step = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          step();
+        } catch (Exception e) {
+          fail(e);
+        }
+      }
+    };
+
+    // looks up the tablet to scan on the blocking pool, then hands back to the scheduler
+    private final Runnable locate = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          loc = locate();
+        } catch (Exception e) {
+          fail(e);
+          return;
+        }
+
+        if (loc == null)
+          retry();
+        else
+          getScheduler().execute(step);
+      }
+    };
+
+    @Override
+    protected void fetch() {
+      getScheduler().execute(step);
+    }
+
+    private void retry() {
+      if (!stopIfClosed())
+        getScheduler().schedule(step, RETRY_DELAY, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ends the outstanding batch with no results if the stream was closed while it was being fetched, since no one will ask for the rest of the scan.
+     * 
+     * @return true if the stream was closed
+     */
+    private boolean stopIfClosed() {
+      synchronized (this) {
+        if (!closed)
+          return false;
+        closeSession();
+      }
+      complete(Collections.<KeyValue> emptyList());
+      return true;
+    }
+
+    private void logError(String error) {
+      if (!error.equals(lastError))
+        log.debug(error);
+      else if (log.isTraceEnabled())
+        log.trace(error);
+      lastError = error;
+    }
+
+    @Override
+    public synchronized void close() {
+      super.close();
+      // an outstanding batch closes the session when it arrives
+      if (current == null || current.isDone())
+        closeSession();
+    }
+
+    private void closeSession() {
+      if (scanState.scanID != null && scanState.prevLoc != null) {
+        closeScan(scanState.prevLoc.tablet_location, scanState.scanID);
+        scanState.scanID = null;
+      }
+    }
+
+    private void step() throws Exception {
+      if (stopIfClosed())
+        return;
+
+      if (isTimedOut()) {
+        fail(new TimedOutException("Timed out scanning table " + scanState.tableId));
+        return;
+      }
+
+      if (loc == null) {
+        getBlockingPool().execute(locate);
+        return;
+      }
+
+      if (scanState.prevLoc != null && !scanState.prevLoc.equals(loc))
+        scanState.scanID = null;
+      scanState.prevLoc = loc;
+
+      PooledClient pc;
+      try {
+        pc = pool.getClient(loc.tablet_location, rpcTimeout);
+      } catch (IOException e) {
+        failed(e);
+        return;
+      }
+
+      OpTimer opTimer = new OpTimer(log, Level.TRACE);
+      try {
+        if (scanState.scanID == null) {
+          opTimer.start("Starting scan tserver=" + loc.tablet_location + " tablet=" + loc.tablet_extent + " range=" + scanState.range);
+          TabletType ttype = TabletType.type(loc.tablet_extent);
+          boolean waitForWrites = !ThriftScanner.serversWaitedForWrites.get(ttype).contains(loc.tablet_location);
+          pc.client.startScan(Tracer.traceInfo(), scanState.credentials.toThrift(scanState.instance), loc.tablet_extent.toThrift(), scanState.range.toThrift(),
+              Translator.translate(scanState.columns, Translators.CT), scanState.size, scanState.serverSideIteratorList, scanState.serverSideIteratorOptions,
+              scanState.authorizations.getAuthorizationsBB(), waitForWrites, scanState.isolated, scanState.readaheadThreshold, true, new StartScanCallback(pc,
+                  opTimer, ttype, waitForWrites));
+        } else {
+          opTimer.start("Continuing scan tserver=" + loc.tablet_location + " scanid=" + scanState.scanID);
+          pc.client.continueScan(Tracer.traceInfo(), scanState.scanID, new ContinueScanCallback(pc, opTimer));
+        }
+      } catch (TException e) {
+        pool.invalidate(pc);
+        failed(e);
+      }
+    }
+
+    private TabletLocation locate() throws AccumuloException, AccumuloSecurityException {
+      while (true) {
+        TabletLocation location;
+        try {
+          location = TabletLocator.getLocator(scanState.instance, scanState.tableId).locateTablet(scanState.credentials, scanState.startRow,
+              scanState.skipStartRow, false);
+        } catch (AccumuloServerException e) {
+          log.debug("Scan failed, server side exception : " + e.getMessage());
+          throw e;
+        } catch (AccumuloException e) {
+          logError("exception from tablet loc " + e.getMessage());
+          return null;
+        }
+
+        if (location == null) {
+          if (!Tables.exists(scanState.instance, scanState.tableId.toString()))
+            throw new TableDeletedException(scanState.tableId.toString());
+          else if (Tables.getTableState(scanState.instance, scanState.tableId.toString()) == TableState.OFFLINE)
+            throw new TableOfflineException(scanState.instance, scanState.tableId.toString());
+
+          logError("Failed to locate tablet for table : " + scanState.tableId + " row : " + scanState.startRow);
+          return null;
+        }
+
+        // when a tablet splits we do want to continue scanning the low child
+        // of the split if we are already passed it
+        Range dataRange = location.tablet_extent.toDataRange();
+
+        if (scanState.range.getStartKey() != null && dataRange.afterEndKey(scanState.range.getStartKey())) {
+          // go to the next tablet
+          scanState.startRow = location.tablet_extent.getEndRow();
+          scanState.skipStartRow = true;
+        } else if (scanState.range.getEndKey() != null && dataRange.beforeStartKey(scanState.range.getEndKey())) {
+          // should not happen
+          throw new RuntimeException("Unexpected tablet, extent : " + location.tablet_extent + "  range : " + scanState.range + " startRow : "
+              + scanState.startRow);
+        } else {
+          return location;
+        }
+      }
+    }
+
+    private void received(ScanResult sr, OpTimer opTimer) {
+      List<KeyValue> results = ThriftScanner.finishBatch(loc, scanState, sr, opTimer);
+      loc = null;
+
+      boolean isClosed;
+      synchronized (this) {
+        isClosed = closed;
+        if (isClosed)
+          closeSession();
+      }
+
+      if (results.isEmpty() && !scanState.finished && !isClosed)
+        step.run();
+      else
+        complete(results);
+    }
+
+    /**
+     * Handles the failure of a request the same way {@link ThriftScanner#scan} does, either retrying or failing the batch.
+     */
+    private void failed(Exception e) {
+      try {
+        throw e;
+      } catch (ThriftSecurityException tse) {
+        AccumuloSecurityException ase = new AccumuloSecurityException(tse.user, tse.code, tse);
+        Tables.clearCache(scanState.instance);
+        if (!Tables.exists(scanState.instance, scanState.tableId.toString()))
+          fail(new TableDeletedException(scanState.tableId.toString()));
+        else {
+          ase.setTableInfo(Tables.getPrintableTableInfoFromId(scanState.instance, scanState.tableId.toString()));
+          fail(ase);
+        }
+      } catch (TApplicationException tae) {
+        fail(new AccumuloServerException(scanState.prevLoc.tablet_location, tae));
+      } catch (NotServingTabletException nste) {
+        logError("Scan failed, not serving tablet " + scanState.prevLoc);
+        TabletLocator.getLocator(scanState.instance, scanState.tableId).invalidateCache(scanState.prevLoc.tablet_extent);
+        loc = null;
+        // no need to try the current scan id somewhere else
+        scanState.scanID = null;
+        retryUnlessIsolated();
+      } catch (NoSuchScanIDException nssie) {
+        logError("Scan failed, no such scan id " + scanState.scanID + " " + scanState.prevLoc);
+        scanState.scanID = null;
+        if (scanState.isolated)
+          fail(new IsolationException());
+        else if (!stopIfClosed())
+          getScheduler().execute(step);
+      } catch (TooManyFilesException tmfe) {
+        logError("Tablet has too many files " + scanState.prevLoc + " retrying...");
+        // not sure what state the scan session on the server side is in, so start a new one
+        scanState.scanID = null;
+        retryUnlessIsolated();
+      } catch (Exception other) {
+        // transport errors, including request timeouts, are reported as TException, IOException or TimeoutException
+        TabletLocator.getLocator(scanState.instance, scanState.tableId).invalidateCache(scanState.prevLoc.tablet_location);
+        logError("Scan failed, thrift error " + other.getClass().getName() + "  " + other.getMessage() + " " + scanState.prevLoc);
+        loc = null;
+        // do not want to continue using the same scan id, if a timeout occurred could cause a batch to be skipped
+        // because a thread on the server side may still be processing the timed out continue scan
+        scanState.scanID = null;
+        retryUnlessIsolated();
+      }
+    }
+
+    private void retryUnlessIsolated() {
+      if (scanState.isolated)
+        fail(new IsolationException());
+      else
+        retry();
+    }
+
+    private void closeScan(final String server, long scanID) {
+      final PooledClient pc;
+      try {
+        pc = pool.getClient(server, rpcTimeout);
+      } catch (IOException e) {
+        log.debug("Failed to close scan on " + server + " : " + e.getMessage());
+        return;
+      }
+      try {
+        pc.client.closeScan(Tracer.traceInfo(), scanID, new AsyncMethodCallback<TabletClientService.AsyncClient.closeScan_call>() {
+          @Override
+          public void onComplete(TabletClientService.AsyncClient.closeScan_call response) {
+            pool.returnClient(pc);
+          }
+
+          @Override
+          public void onError(Exception e) {
+            log.debug("Failed to close scan on " + server + " : " + e.getMessage());
+            pool.returnClient(pc);
+          }
+        });
+      } catch (TException e) {
+        log.debug("Failed to close scan on " + server + " : " + e.getMessage());
+        pool.invalidate(pc);
+      }
+    }
+
+    /**
+     * Moves handling of a response off of the selector thread, which services every non-blocking connection in the process.
+     */
+    private abstract class Callback<T> implements AsyncMethodCallback<T> {
+      protected final PooledClient pc;
+      protected final OpTimer opTimer;
+      // a session the server is done with, closed once pc is back in the pool so that the close can reuse it
+      protected Long finishedScanID = null;
+
+      Callback(PooledClient pc, OpTimer opTimer) {
+        this.pc = pc;
+        this.opTimer = opTimer;
+      }
+
+      @Override
+      public void onComplete(final T response) {
+        getScheduler().execute(new Runnable() {
+          @Override
+          public void run() {
+            ScanResult sr;
+            try {
+              try {
+                sr = getResult(response);
+              } finally {
+                pool.returnClient(pc);
+              }
+            } catch (Exception e) {
+              failed(e);
+              return;
+            }
+
+            if (finishedScanID != null)
+              closeScan(pc.server, finishedScanID);
+
+            try {
+              received(sr, opTimer);
+            } catch (Exception e) {
+              fail(e);
+            }
+          }
+        });
+      }
+
+      @Override
+      public void onError(final Exception e) {
+        pool.returnClient(pc);
+        getScheduler().execute(new Runnable() {
+          @Override
+          public void run() {
+            failed(e);
+          }
+        });
+      }
+
+      protected abstract ScanResult getResult(T response) throws Exception;
+    }
+
+    private class StartScanCallback extends Callback<TabletClientService.AsyncClient.startScan_call> {
+      private final TabletType ttype;
+      private final boolean waitForWrites;
+
+      StartScanCallback(PooledClient pc, OpTimer opTimer, TabletType ttype, boolean waitForWrites) {
+        super(pc, opTimer);
+        this.ttype = ttype;
+        this.waitForWrites = waitForWrites;
+      }
+
+      @Override
+      protected ScanResult getResult(TabletClientService.AsyncClient.startScan_call response) throws Exception {
+        InitialScan is = response.getResult();
+        if (waitForWrites)
+          ThriftScanner.serversWaitedForWrites.get(ttype).add(pc.server);
+
+        if (is.result.more)
+          scanState.scanID = is.scanID;
+        else
+          finishedScanID = is.scanID;
+        return is.result;
+      }
+    }
+
+    private class ContinueScanCallback extends Callback<TabletClientService.AsyncClient.continueScan_call> {
+      ContinueScanCallback(PooledClient pc, OpTimer opTimer) {
+        super(pc, opTimer);
+      }
+
+      @Override
+      protected ScanResult getResult(TabletClientService.AsyncClient.continueScan_call response) throws Exception {
+        ScanResult sr = response.getResult();
+        if (!sr.more) {
+          finishedScanID = scanState.scanID;
+          scanState.scanID = null;
+        }
+        return sr;
+      }
+    }
+  }
+}
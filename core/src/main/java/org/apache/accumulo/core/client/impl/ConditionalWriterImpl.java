@@ -27,7 +27,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -38,6 +40,7 @@ import java.util.concurrent.TimeUnit;
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.AsyncFuture;
 import org.apache.accumulo.core.client.ConditionalWriter;
 import org.apache.accumulo.core.client.ConditionalWriterConfig;
 import org.apache.accumulo.core.client.Instance;
@@ -88,6 +91,8 @@ import org.apache.thrift.TException;
 import org.apache.thrift.TServiceClient;
 import org.apache.thrift.transport.TTransportException;
 
+import com.google.common.util.concurrent.MoreExecutors;
+
 class ConditionalWriterImpl implements ConditionalWriter {
   
   private static ThreadPoolExecutor cleanupThreadPool = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
@@ -117,6 +122,7 @@ class ConditionalWriterImpl implements ConditionalWriter {
   
   private Map<String,ServerQueue> serverQueues;
   private DelayQueue<QCMutation> failedMutations = new DelayQueue<QCMutation>();
+  private Set<AsyncFutureImpl<Result>> pendingFutures = Collections.newSetFromMap(new ConcurrentHashMap<AsyncFutureImpl<Result>,Boolean>());
   private ScheduledThreadPoolExecutor threadPool;
   
   private class RQIterator implements Iterator<Result> {
@@ -165,6 +171,7 @@ class ConditionalWriterImpl implements ConditionalWriter {
   
   private static class QCMutation extends ConditionalMutation implements Delayed {
     private BlockingQueue<Result> resultQueue;
+    private AsyncFutureImpl<Result> resultFuture;
     private long resetTime;
     private long delay = 50;
     private long entryTime;
@@ -175,6 +182,12 @@ class ConditionalWriterImpl implements ConditionalWriter {
       this.entryTime = entryTime;
     }
     
+    QCMutation(ConditionalMutation cm, AsyncFutureImpl<Result> resultFuture, long entryTime) {
+      super(cm);
+      this.resultFuture = resultFuture;
+      this.entryTime = entryTime;
+    }
+    
     @Override
     public int compareTo(Delayed o) {
       QCMutation oqcm = (QCMutation) o;
@@ -199,7 +212,10 @@ class ConditionalWriterImpl implements ConditionalWriter {
     }
     
     void queueResult(Result result) {
-      resultQueue.add(result);
+      if (resultFuture != null)
+        resultFuture.set(result);
+      else
+        resultQueue.add(result);
     }
   }
   
@@ -791,10 +807,44 @@ class ConditionalWriterImpl implements ConditionalWriter {
     return write(Collections.singleton(mutation).iterator()).next();
   }
   
+  @Override
+  public AsyncFuture<Result> writeAsync(ConditionalMutation mutation) {
+    if (mutation.getConditions().size() == 0)
+      throw new IllegalArgumentException("ConditionalMutation had no conditions " + new String(mutation.getRow()));
+    
+    for (Condition cond : mutation.getConditions()) {
+      if (!isVisible(cond.getVisibility())) {
+        return AsyncFutureImpl.immediate(new Result(Status.INVISIBLE_VISIBILITY, mutation, null));
+      }
+    }
+    
+    final AsyncFutureImpl<Result> future = new AsyncFutureImpl<Result>();
+    pendingFutures.add(future);
+    future.addListener(new Runnable() {
+      @Override
+      public void run() {
+        pendingFutures.remove(future);
+      }
+    }, MoreExecutors.sameThreadExecutor());
+    
+    if (threadPool.isShutdown()) {
+      future.setException(new AccumuloException("ConditionalWriter closed"));
+      return future;
+    }
+    
+    // copy the mutation so that even if caller changes it, it will not matter
+    queue(Collections.singletonList(new QCMutation(mutation, future, System.currentTimeMillis())));
+    return future;
+  }
+  
   @Override
   public void close() {
     threadPool.shutdownNow();
     cleanupThreadPool.execute(new CleanupTask(getActiveSessions()));
+    
+    // unlike the result iterators, nothing polls pending futures to notice the writer is gone
+    for (AsyncFutureImpl<Result> future : new ArrayList<AsyncFutureImpl<Result>>(pendingFutures))
+      future.setException(new AccumuloException("ConditionalWriter closed"));
   }
   
 }
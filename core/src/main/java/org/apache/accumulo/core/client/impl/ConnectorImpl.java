@@ -22,6 +22,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.AsyncScanner;
 import org.apache.accumulo.core.client.BatchDeleter;
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.BatchWriter;
@@ -155,6 +156,13 @@ public class ConnectorImpl extends Connector {
     return new ScannerImpl(instance, credentials, getTableId(tableName), authorizations);
   }
 
+  @Override
+  public AsyncScanner createAsyncScanner(String tableName, Authorizations authorizations) throws TableNotFoundException {
+    checkArgument(tableName != null, "tableName is null");
+    checkArgument(authorizations != null, "authorizations is null");
+    return new AsyncScannerImpl(instance, credentials, getTableId(tableName), authorizations);
+  }
+
   @Override
   public String whoami() {
     return credentials.getPrincipal();
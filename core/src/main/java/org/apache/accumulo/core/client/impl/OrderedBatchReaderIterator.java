@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.client.Instance;
+import org.apache.accumulo.core.client.TimedOutException;
+import org.apache.accumulo.core.client.impl.ThriftScanner.ScanState;
+import org.apache.accumulo.core.client.impl.ThriftScanner.ScanTimedOutException;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.core.security.Credentials;
+import org.apache.accumulo.trace.instrument.TraceRunnable;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+/**
+ * Reads many ranges in parallel but returns their entries in sorted order. Overlapping ranges are merged and the result is clipped to tablets, which leaves a
+ * sorted list of disjoint segments; merging the segments' streams is then a matter of reading them in order. Up to one segment per query thread is read ahead
+ * of the one being returned, each into a queue of a few batches, so memory stays bounded and a slow consumer stalls the reads instead of buffering the table.
+ */
+public class OrderedBatchReaderIterator implements Iterator<Entry<Key,Value>> {
+
+  private static final Logger log = Logger.getLogger(OrderedBatchReaderIterator.class);
+
+  // batches each segment may read ahead of the consumer
+  private static final int READ_AHEAD_BATCHES = 2;
+
+  private static final List<KeyValue> LAST_BATCH = Collections.emptyList();
+
+  private final Instance instance;
+  private final Credentials credentials;
+  private final Text tableId;
+  private final Authorizations authorizations;
+  private final int numThreads;
+  private final ExecutorService queryThreadPool;
+  private final ScannerOptions options;
+  private final AccumuloConfiguration conf;
+  private final int timeOut;
+
+  private final Iterator<Range> pendingSegments;
+  private final ArrayDeque<SegmentReader> activeSegments = new ArrayDeque<SegmentReader>();
+
+  private Iterator<KeyValue> batchIterator = Collections.<KeyValue> emptyList().iterator();
+  private boolean finished = false;
+
+  public OrderedBatchReaderIterator(Instance instance, Credentials credentials, String table, Authorizations authorizations, List<Range> ranges,
+      int numThreads, ExecutorService queryThreadPool, ScannerOptions scannerOptions, long timeout) {
+    this.instance = instance;
+    this.credentials = credentials;
+    this.tableId = new Text(table);
+    this.authorizations = authorizations;
+    this.numThreads = numThreads;
+    this.queryThreadPool = queryThreadPool;
+    this.options = new ScannerOptions(scannerOptions);
+    this.conf = ServerConfigurationUtil.getConfiguration(instance);
+    this.timeOut = (int) Math.min(Integer.MAX_VALUE, TimeUnit.MILLISECONDS.toSeconds(timeout));
+
+    if (options.fetchedColumns.size() > 0) {
+      ArrayList<Range> ranges2 = new ArrayList<Range>(ranges.size());
+      for (Range range : ranges) {
+        ranges2.add(range.bound(options.fetchedColumns.first(), options.fetchedColumns.last()));
+      }
+
+      ranges = ranges2;
+    }
+
+    try {
+      this.pendingSegments = segment(Range.mergeOverlapping(ranges)).iterator();
+    } catch (RuntimeException re) {
+      throw re;
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to create iterator", e);
+    }
+
+    startSegments();
+  }
+
+  /**
+   * Clips the ranges to the tablets currently holding them. Tablets may split or migrate later, which the scan of each segment handles, so this only
+   * determines the units of parallelism.
+   */
+  private List<Range> segment(List<Range> ranges) throws Exception {
+    TabletLocator locator = new TimeoutTabletLocator(TabletLocator.getLocator(instance, tableId), options.timeOut);
+    Map<String,Map<KeyExtent,List<Range>>> binnedRanges = new HashMap<String,Map<KeyExtent,List<Range>>>();
+    TabletServerBatchReaderIterator.binRanges(instance, credentials, tableId.toString(), locator, ranges, binnedRanges);
+
+    List<Range> segments = new ArrayList<Range>();
+    for (Map<KeyExtent,List<Range>> tabletRanges : binnedRanges.values())
+      for (List<Range> clipped : tabletRanges.values())
+        segments.addAll(clipped);
+
+    // the ranges were merged, so after clipping to tablets the segments are disjoint and sorting them orders their entries
+    Collections.sort(segments);
+    return segments;
+  }
+
+  private void startSegments() {
+    while (activeSegments.size() < numThreads && pendingSegments.hasNext()) {
+      SegmentReader reader = new SegmentReader(pendingSegments.next());
+      activeSegments.add(reader);
+      queryThreadPool.execute(new TraceRunnable(reader));
+    }
+  }
+
+  @Override
+  public synchronized boolean hasNext() {
+    while (!batchIterator.hasNext()) {
+      if (finished)
+        return false;
+
+      SegmentReader current = activeSegments.peek();
+      if (current == null) {
+        finished = true;
+        return false;
+      }
+
+      List<KeyValue> batch = current.take();
+      if (batch == LAST_BATCH) {
+        activeSegments.remove();
+        startSegments();
+      } else {
+        batchIterator = batch.iterator();
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized Entry<Key,Value> next() {
+    if (hasNext())
+      return batchIterator.next();
+    else
+      throw new NoSuchElementException();
+  }
+
+  @Override
+  public void remove() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Scans one segment in order, blocking once it has read {@link #READ_AHEAD_BATCHES} batches that have not been taken.
+   */
+  private class SegmentReader implements Runnable {
+    private final Range range;
+    private final BlockingQueue<List<KeyValue>> batches = new ArrayBlockingQueue<List<KeyValue>>(READ_AHEAD_BATCHES + 1);
+    private volatile Throwable exception = null;
+
+    SegmentReader(Range range) {
+      this.range = range;
+    }
+
+    @Override
+    public void run() {
+      try {
+        ScanState scanState = new ScanState(instance, credentials, tableId, authorizations, range, options.fetchedColumns, Constants.SCAN_BATCH_SIZE,
+            options.serverSideIteratorList, options.serverSideIteratorOptions, false);
+        while (true) {
+          List<KeyValue> batch = ThriftScanner.scan(instance, credentials, scanState, timeOut, conf);
+          if (batch == null)
+            break;
+          if (batch.size() > 0)
+            batches.put(batch);
+        }
+        batches.put(LAST_BATCH);
+      } catch (InterruptedException e) {
+        if (queryThreadPool.isShutdown())
+          log.debug("Ordered batch scan of " + range + " interrupted", e);
+        exception = e;
+      } catch (ScanTimedOutException e) {
+        exception = new TimedOutException("Timed out scanning " + range);
+      } catch (Throwable t) {
+        exception = t;
+      }
+    }
+
+    List<KeyValue> take() {
+      try {
+        List<KeyValue> batch = null;
+        while (batch == null) {
+          batch = batches.poll(1, TimeUnit.SECONDS);
+          if (batch == null) {
+            if (exception != null)
+              throw exception instanceof RuntimeException ? (RuntimeException) exception : new RuntimeException(exception);
+            if (queryThreadPool.isShutdown())
+              throw new RuntimeException("scanner closed");
+          }
+        }
+        return batch;
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    }
+  }
+}
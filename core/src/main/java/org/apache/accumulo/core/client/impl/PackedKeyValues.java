@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.core.file.rfile.RelativeKey;
+
+/**
+ * A batch of key/value pairs packed into a single buffer for the scan RPCs. Each key is written relative to the key before it using the same delta and prefix
+ * compression as RFile's {@link RelativeKey}, so a wide row sends its row, family and visibility once instead of once per entry, and the whole batch is
+ * serialized by thrift as one binary field instead of an object per entry.
+ * 
+ * <p>
+ * The buffer holds the number of entries, the last key written in full, and then the entries themselves. Keeping the last key and the count up front lets a
+ * scanner move on to its next range and size its batch without decoding anything; the entries are only decoded as they are read. Decoding is not thread safe, so a batch should be read by one thread.
+ */
+public class PackedKeyValues extends AbstractList<KeyValue> {
+
+  private final ByteBuffer buffer;
+  private final int size;
+  private final Key lastKey;
+  private final KeyValue[] decoded;
+  private final RelativeKey relativeKey = new RelativeKey();
+  private int numDecoded = 0;
+
+  /**
+   * @param packed
+   *          a buffer created by {@link #pack(List)}; its position is not changed
+   */
+  public PackedKeyValues(ByteBuffer packed) {
+    this.buffer = packed.duplicate();
+    this.size = buffer.getInt();
+    this.decoded = new KeyValue[size];
+    if (size > 0) {
+      RelativeKey rk = new RelativeKey();
+      rk.readFields(buffer);
+      this.lastKey = rk.getKey();
+    } else {
+      this.lastKey = null;
+    }
+  }
+
+  /**
+   * Packs a sorted batch of key/value pairs into a single buffer.
+   */
+  public static ByteBuffer pack(List<? extends KeyValue> entries) {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(64 + 32 * entries.size());
+    DataOutputStream out = new DataOutputStream(baos);
+    try {
+      out.writeInt(entries.size());
+      if (entries.size() > 0) {
+        new RelativeKey(null, entries.get(entries.size() - 1).getKey()).write(out);
+      }
+
+      Key prevKey = null;
+      for (KeyValue kv : entries) {
+        Key key = kv.getKey();
+        new RelativeKey(prevKey, key).write(out);
+        byte[] value = kv.getValue().get();
+        out.writeInt(value.length);
+        out.write(value);
+        prevKey = key;
+      }
+      out.close();
+    } catch (IOException e) {
+      // only writing to memory
+      throw new RuntimeException(e);
+    }
+    return ByteBuffer.wrap(baos.toByteArray());
+  }
+
+  /**
+   * @return the last key in the batch, or null if it is empty
+   */
+  public Key getLastKey() {
+    return lastKey;
+  }
+
+  @Override
+  public KeyValue get(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+    // entries can only be decoded in order, so decode up to the one asked for
+    while (numDecoded <= index) {
+      relativeKey.readFields(buffer);
+      byte[] value = new byte[buffer.getInt()];
+      buffer.get(value);
+      decoded[numDecoded++] = new KeyValue(relativeKey.getKey(), value);
+    }
+    return decoded[index];
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+}
@@ -46,6 +46,7 @@ public class TabletServerBatchReader extends ScannerOptions implements BatchScan
   private Credentials credentials;
   private Authorizations authorizations = Authorizations.EMPTY;
   private Throwable ex = null;
+  private boolean ordered = false;
   
   private static int nextBatchReaderInstance = 1;
   
@@ -102,6 +103,11 @@ public class TabletServerBatchReader extends ScannerOptions implements BatchScan
     
   }
   
+  @Override
+  public void setOrdered(boolean ordered) {
+    this.ordered = ordered;
+  }
+  
   @Override
   public Iterator<Entry<Key,Value>> iterator() {
     if (ranges == null) {
@@ -112,6 +118,9 @@ public class TabletServerBatchReader extends ScannerOptions implements BatchScan
       throw new IllegalStateException("batch reader closed");
     }
     
+    if (ordered)
+      return new OrderedBatchReaderIterator(instance, credentials, table, authorizations, ranges, numThreads, queryThreadPool, this, timeOut);
+    
     return new TabletServerBatchReaderIterator(instance, credentials, table, authorizations, ranges, numThreads, queryThreadPool, this, timeOut);
   }
 }
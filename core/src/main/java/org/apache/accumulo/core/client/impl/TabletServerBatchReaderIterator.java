@@ -62,6 +62,7 @@ import org.apache.accumulo.core.tabletserver.thrift.NoSuchScanIDException;
 import org.apache.accumulo.core.tabletserver.thrift.TabletClientService;
 import org.apache.accumulo.core.util.ByteBufferUtil;
 import org.apache.accumulo.core.util.OpTimer;
+import org.apache.accumulo.core.util.SslConnectionParams;
 import org.apache.accumulo.core.util.ThriftUtil;
 import org.apache.accumulo.trace.instrument.TraceRunnable;
 import org.apache.accumulo.trace.instrument.Tracer;
@@ -97,6 +98,8 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
   
   private Map<String,TimeoutTracker> timeoutTrackers;
   private Set<String> timedoutServers;
+  // servers connections have been opened to ahead of a lookup
+  private final Set<String> warmedServers = Collections.synchronizedSet(new HashSet<String>());
   private long timeout;
   
   private TabletLocator locator;
@@ -214,13 +217,16 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
     
     Map<String,Map<KeyExtent,List<Range>>> binnedRanges = new HashMap<String,Map<KeyExtent,List<Range>>>();
     
-    binRanges(locator, ranges, binnedRanges);
+    binRanges(instance, credentials, table, locator, ranges, binnedRanges);
     
     doLookups(binnedRanges, receiver, columns);
   }
   
-  private void binRanges(TabletLocator tabletLocator, List<Range> ranges, Map<String,Map<KeyExtent,List<Range>>> binnedRanges) throws AccumuloException,
-      AccumuloSecurityException, TableNotFoundException {
+  /**
+   * Bins ranges to the tablets that contain them, retrying until every range has a location, and clips each range to its tablet.
+   */
+  static void binRanges(Instance instance, Credentials credentials, String table, TabletLocator tabletLocator, List<Range> ranges,
+      Map<String,Map<KeyExtent,List<Range>>> binnedRanges) throws AccumuloException, AccumuloSecurityException, TableNotFoundException {
     
     int lastFailureSize = Integer.MAX_VALUE;
     
@@ -299,7 +305,7 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
     
     // since the first call to binRanges clipped the ranges to within a tablet, we should not get only
     // bin to the set of failed tablets
-    binRanges(locator, allRanges, binnedRanges);
+    binRanges(instance, credentials, table, locator, allRanges, binnedRanges);
     
     doLookups(binnedRanges, receiver, columns);
   }
@@ -496,6 +502,8 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
       }
     }
     
+    warmUp(queryTasks);
+    
     final Semaphore semaphore = new Semaphore(queryTasks.size());
     semaphore.acquireUninterruptibly(queryTasks.size());
     
@@ -505,6 +513,33 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
     }
   }
   
+  /**
+   * The first time several query tasks go to one server, opens a connection for each of them before they start, rather than having each task open one when
+   * it runs.
+   */
+  private void warmUp(List<QueryTask> queryTasks) {
+    Map<String,Integer> tasksPerServer = new HashMap<String,Integer>();
+    for (QueryTask queryTask : queryTasks) {
+      Integer count = tasksPerServer.get(queryTask.tsLocation);
+      tasksPerServer.put(queryTask.tsLocation, count == null ? 1 : count + 1);
+    }
+    
+    AccumuloConfiguration conf = ServerConfigurationUtil.getConfiguration(instance);
+    // the timeout doLookup will ask for, so the connections can be reused
+    long rpcTimeout = conf.getTimeInMillis(Property.GENERAL_RPC_TIMEOUT);
+    long connTimeout = timeout < rpcTimeout ? timeout : rpcTimeout;
+    for (Entry<String,Integer> entry : tasksPerServer.entrySet()) {
+      if (entry.getValue() > 1 && warmedServers.add(entry.getKey())) {
+        try {
+          ThriftTransportPool.getInstance().configure(conf).warmUp(entry.getKey(), connTimeout, SslConnectionParams.forClient(conf), entry.getValue());
+        } catch (TTransportException e) {
+          // the query tasks will fail and retry the same way
+          log.debug("Failed to open connections to " + entry.getKey(), e);
+        }
+      }
+    }
+  }
+  
   static void trackScanning(Map<KeyExtent,List<Range>> failures, Map<KeyExtent,List<Range>> unscanned, MultiScanResult scanResult) {
     
     // translate returned failures, remove them from unscanned, and add them to failures
@@ -536,7 +571,19 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
       }
     }
   }
-  
+
+  static List<Entry<Key,Value>> getEntries(MultiScanResult scanResult) {
+    // packed results are decoded as the consumer of the results queue reads them; servers that do not know how to pack send the list
+    if (scanResult.isSetPackedResults())
+      return Collections.<Entry<Key,Value>> unmodifiableList(new PackedKeyValues(scanResult.packedResults));
+
+    List<Entry<Key,Value>> entries = new ArrayList<Map.Entry<Key,Value>>(scanResult.results.size());
+    for (TKeyValue kv : scanResult.results) {
+      entries.add(new SimpleImmutableEntry<Key,Value>(new Key(kv.key), new Value(kv.value)));
+    }
+    return entries;
+  }
+
   private static class TimeoutTracker {
     
     String server;
@@ -631,20 +678,16 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
             Translators.RT));
         InitialMultiScan imsr = client.startMultiScan(Tracer.traceInfo(), credentials.toThrift(instance), thriftTabletRanges,
             Translator.translate(columns, Translators.CT), options.serverSideIteratorList, options.serverSideIteratorOptions,
-            ByteBufferUtil.toByteBuffers(authorizations.getAuthorizations()), waitForWrites);
+            ByteBufferUtil.toByteBuffers(authorizations.getAuthorizations()), waitForWrites, true);
         if (waitForWrites)
           ThriftScanner.serversWaitedForWrites.get(ttype).add(server);
         
         MultiScanResult scanResult = imsr.result;
+        List<Entry<Key,Value>> entries = getEntries(scanResult);
         
-        opTimer.stop("Got 1st multi scan results, #results=" + scanResult.results.size() + (scanResult.more ? "  scanID=" + imsr.scanID : "")
+        opTimer.stop("Got 1st multi scan results, #results=" + entries.size() + (scanResult.more ? "  scanID=" + imsr.scanID : "")
             + " in %DURATION%");
         
-        ArrayList<Entry<Key,Value>> entries = new ArrayList<Map.Entry<Key,Value>>(scanResult.results.size());
-        for (TKeyValue kv : scanResult.results) {
-          entries.add(new SimpleImmutableEntry<Key,Value>(new Key(kv.key), new Value(kv.value)));
-        }
-        
         if (entries.size() > 0)
           receiver.receive(entries);
         
@@ -659,14 +702,10 @@ public class TabletServerBatchReaderIterator implements Iterator<Entry<Key,Value
           
           opTimer.start("Continuing multi scan, scanid=" + imsr.scanID);
           scanResult = client.continueMultiScan(Tracer.traceInfo(), imsr.scanID);
-          opTimer.stop("Got more multi scan results, #results=" + scanResult.results.size() + (scanResult.more ? "  scanID=" + imsr.scanID : "")
+          entries = getEntries(scanResult);
+          opTimer.stop("Got more multi scan results, #results=" + entries.size() + (scanResult.more ? "  scanID=" + imsr.scanID : "")
               + " in %DURATION%");
           
-          entries = new ArrayList<Map.Entry<Key,Value>>(scanResult.results.size());
-          for (TKeyValue kv : scanResult.results) {
-            entries.add(new SimpleImmutableEntry<Key,Value>(new Key(kv.key), new Value(kv.value)));
-          }
-          
           if (entries.size() > 0)
             receiver.receive(entries);
           
@@ -83,6 +83,9 @@ import org.apache.thrift.transport.TTransportException;
  *      processing in the background
  *   + Failed mutations are held for 1000ms and then re-added to the unprocessed queue
  *   + Flush holds adding of new mutations so it does not wait indefinitely
+ *   + New mutations are buffered in stripes chosen by thread, so threads sharing a writer do not contend 
+ *      on one lock... each thread that starts processing drains and bins whatever stripes are not already 
+ *      being drained, so binning runs in parallel and the MutationWriter merges the results per server
  * 
  * Considerations
  *   + All background threads must catch and note Throwable
@@ -93,6 +96,7 @@ import org.apache.thrift.transport.TTransportException;
  * Memory accounting
  *   + when a mutation enters the system memory is incremented
  *   + when a mutation successfully leaves the system memory is decremented
+ *   + memory is counted with atomics, the writer's monitor is only taken to wait for memory or a flush
  * 
  * 
  * 
@@ -102,11 +106,13 @@ public class TabletServerBatchWriter {
   
   private static final Logger log = Logger.getLogger(TabletServerBatchWriter.class);
   
-  private long totalMemUsed = 0;
+  private final AtomicLong totalMemUsed = new AtomicLong(0);
+  // memory used by mutations sitting in the stripes, not yet passed to the writer
+  private final AtomicLong unprocessedMemUsed = new AtomicLong(0);
   private long maxMem;
-  private MutationSet mutations;
-  private boolean flushing;
-  private boolean closed;
+  private final MutationStripe[] stripes;
+  private volatile boolean flushing;
+  private volatile boolean closed;
   private MutationWriter writer;
   private FailedMutations failedMutations;
   
@@ -117,7 +123,7 @@ public class TabletServerBatchWriter {
   private Map<KeyExtent,Set<SecurityErrorCode>> authorizationFailures;
   private HashSet<String> serverSideErrors;
   private int unknownErrors = 0;
-  private boolean somethingFailed = false;
+  private volatile boolean somethingFailed = false;
   
   private Timer jtimer;
   
@@ -125,14 +131,14 @@ public class TabletServerBatchWriter {
   
   private long timeout;
   
-  private long lastProcessingStartTime;
+  private volatile long lastProcessingStartTime;
   
-  private long totalAdded = 0;
+  private AtomicLong totalAdded = new AtomicLong(0);
   private AtomicLong totalSent = new AtomicLong(0);
   private AtomicLong totalBinned = new AtomicLong(0);
   private AtomicLong totalBinTime = new AtomicLong(0);
   private AtomicLong totalSendTime = new AtomicLong(0);
-  private long startTime = 0;
+  private volatile long startTime = 0;
   private long initialGCTimes;
   private long initialCompileTimes;
   private double initialSystemLoad;
@@ -149,6 +155,13 @@ public class TabletServerBatchWriter {
   
   private Map<String,TimeoutTracker> timeoutTrackers;
   
+  /**
+   * A buffer of new mutations, guarded by its own monitor.
+   */
+  private static class MutationStripe {
+    MutationSet mutations = new MutationSet();
+  }
+  
   private static class TimeoutTracker {
     
     String server;
@@ -193,7 +206,10 @@ public class TabletServerBatchWriter {
     this.maxLatency = config.getMaxLatency(TimeUnit.MILLISECONDS) <= 0 ? Long.MAX_VALUE : config.getMaxLatency(TimeUnit.MILLISECONDS);
     this.credentials = credentials;
     this.timeout = config.getTimeout(TimeUnit.MILLISECONDS);
-    mutations = new MutationSet();
+    
+    stripes = new MutationStripe[Math.max(1, Runtime.getRuntime().availableProcessors())];
+    for (int i = 0; i < stripes.length; i++)
+      stripes[i] = new MutationStripe();
     
     violations = new Violations();
     
@@ -214,10 +230,8 @@ public class TabletServerBatchWriter {
         @Override
         public void run() {
           try {
-            synchronized (TabletServerBatchWriter.this) {
-              if ((System.currentTimeMillis() - lastProcessingStartTime) > TabletServerBatchWriter.this.maxLatency)
-                startProcessing();
-            }
+            if ((System.currentTimeMillis() - lastProcessingStartTime) > TabletServerBatchWriter.this.maxLatency)
+              startProcessing();
           } catch (Throwable t) {
             updateUnknownErrors("Max latency task failed " + t.getMessage(), t);
           }
@@ -226,39 +240,67 @@ public class TabletServerBatchWriter {
     }
   }
   
-  private synchronized void startProcessing() {
-    if (mutations.getMemoryUsed() == 0)
-      return;
-    lastProcessingStartTime = System.currentTimeMillis();
-    writer.addMutations(mutations);
-    mutations = new MutationSet();
+  /**
+   * Passes all buffered mutations to the background threads. Each stripe is swapped out under its own lock and then binned by the calling thread, so
+   * concurrent callers bin different stripes in parallel. Every stripe is checked under its lock, since a thread may be adding to one without having
+   * counted its memory yet.
+   */
+  private void startProcessing() {
+    for (MutationStripe stripe : stripes) {
+      MutationSet stripeMutations;
+      synchronized (stripe) {
+        if (stripe.mutations.getMemoryUsed() == 0)
+          continue;
+        stripeMutations = stripe.mutations;
+        stripe.mutations = new MutationSet();
+      }
+      lastProcessingStartTime = System.currentTimeMillis();
+      unprocessedMemUsed.addAndGet(-stripeMutations.getMemoryUsed());
+      writer.addMutations(stripeMutations);
+    }
   }
   
-  private synchronized void decrementMemUsed(long amount) {
-    totalMemUsed -= amount;
-    this.notifyAll();
+  private void decrementMemUsed(long amount) {
+    totalMemUsed.addAndGet(-amount);
+    synchronized (this) {
+      this.notifyAll();
+    }
   }
   
-  public synchronized void addMutation(String table, Mutation m) throws MutationsRejectedException {
-    
+  private MutationStripe getStripe() {
+    return stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+  }
+  
+  /**
+   * Waits until there is memory for new mutations and no flush is in progress. Only takes the writer's lock when it has to wait. The memory check here is
+   * only a hint, addMutation() reserves the memory itself and comes back here if another thread got it first.
+   */
+  private void waitToAdd() throws MutationsRejectedException {
     if (closed)
       throw new IllegalStateException("Closed");
-    if (m.size() == 0)
-      throw new IllegalArgumentException("Can not add empty mutations");
-    
     checkForFailures();
     
-    while ((totalMemUsed > maxMem || flushing) && !somethingFailed) {
-      waitRTE();
+    if ((totalMemUsed.get() > maxMem || flushing) && !somethingFailed) {
+      synchronized (this) {
+        while ((totalMemUsed.get() > maxMem || flushing) && !somethingFailed) {
+          waitRTE();
+        }
+      }
     }
     
-    // do checks again since things could have changed while waiting and not holding lock
+    // do checks again since things could have changed while waiting
     if (closed)
       throw new IllegalStateException("Closed");
     checkForFailures();
+  }
+  
+  private void initStartTime() {
+    if (startTime != 0)
+      return;
     
-    if (startTime == 0) {
-      startTime = System.currentTimeMillis();
+    synchronized (this) {
+      if (startTime != 0)
+        return;
       
       List<GarbageCollectorMXBean> gcmBeans = ManagementFactory.getGarbageCollectorMXBeans();
       for (GarbageCollectorMXBean garbageCollectorMXBean : gcmBeans) {
@@ -271,7 +313,19 @@ public class TabletServerBatchWriter {
       }
       
       initialSystemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+      
+      startTime = System.currentTimeMillis();
     }
+  }
+  
+  public void addMutation(String table, Mutation m) throws MutationsRejectedException {
+    
+    if (closed)
+      throw new IllegalStateException("Closed");
+    if (m.size() == 0)
+      throw new IllegalArgumentException("Can not add empty mutations");
+    
+    initStartTime();
     
     // create a copy of mutation so that after this method returns the user
     // is free to reuse the mutation object, like calling readFields... this
@@ -279,12 +333,34 @@ public class TabletServerBatchWriter {
     // to batch writer... the map reduce code will keep passing the same mutation
     // object into the reduce method
     m = new Mutation(m);
+    long memUsed = m.estimatedMemoryUsed();
+    
+    MutationStripe stripe = getStripe();
+    long unprocessed;
+    while (true) {
+      waitToAdd();
+      
+      synchronized (stripe) {
+        // flush and close set their flag before draining the stripes, so checking it while holding the stripe lock guarantees a mutation
+        // added here is either drained by them or waits for them to finish
+        if (flushing || closed)
+          continue;
+        
+        // reserve the memory with a CAS rather than a plain add, since waitToAdd() checked it without a lock. Only the one mutation that crosses
+        // maxMem gets in, the rest go back to waiting, so concurrent producers can not together overshoot it.
+        long used = totalMemUsed.get();
+        if (used > maxMem || !totalMemUsed.compareAndSet(used, used + memUsed))
+          continue;
+        
+        stripe.mutations.addMutation(table, m);
+        unprocessed = unprocessedMemUsed.addAndGet(memUsed);
+      }
+      break;
+    }
     
-    totalMemUsed += m.estimatedMemoryUsed();
-    mutations.addMutation(table, m);
-    totalAdded++;
+    totalAdded.incrementAndGet();
     
-    if (mutations.getMemoryUsed() >= maxMem / 2) {
+    if (unprocessed >= maxMem / 2) {
       startProcessing();
       checkForFailures();
     }
@@ -321,7 +397,7 @@ public class TabletServerBatchWriter {
       startProcessing();
       checkForFailures();
       
-      while (totalMemUsed > 0 && !somethingFailed) {
+      while (totalMemUsed.get() > 0 && !somethingFailed) {
         waitRTE();
       }
       
@@ -345,7 +421,7 @@ public class TabletServerBatchWriter {
       
       startProcessing();
       
-      while (totalMemUsed > 0 && !somethingFailed) {
+      while (totalMemUsed.get() > 0 && !somethingFailed) {
         waitRTE();
       }
       
@@ -376,16 +452,16 @@ public class TabletServerBatchWriter {
     }
     
     double averageRate = totalSent.get() / (totalSendTime.get() / 1000.0);
-    double overallRate = totalAdded / ((finishTime - startTime) / 1000.0);
+    double overallRate = totalAdded.get() / ((finishTime - startTime) / 1000.0);
     
     double finalSystemLoad = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
     
     if (log.isTraceEnabled()) {
       log.trace("");
       log.trace("TABLET SERVER BATCH WRITER STATISTICS");
-      log.trace(String.format("Added                : %,10d mutations", totalAdded));
+      log.trace(String.format("Added                : %,10d mutations", totalAdded.get()));
       log.trace(String.format("Sent                 : %,10d mutations", totalSent.get()));
-      log.trace(String.format("Resent percentage   : %10.2f%s", (totalSent.get() - totalAdded) / (double) totalAdded * 100.0, "%"));
+      log.trace(String.format("Resent percentage   : %10.2f%s", (totalSent.get() - totalAdded.get()) / (double) totalAdded.get() * 100.0, "%"));
       log.trace(String.format("Overall time         : %,10.2f secs", (finishTime - startTime) / 1000.0));
       log.trace(String.format("Overall send rate    : %,10.2f mutations/sec", overallRate));
       log.trace(String.format("Send efficiency      : %10.2f%s", overallRate / averageRate * 100.0, "%"));
@@ -522,20 +598,24 @@ public class TabletServerBatchWriter {
   
   private void checkForFailures() throws MutationsRejectedException {
     if (somethingFailed) {
-      List<ConstraintViolationSummary> cvsList = violations.asList();
-      HashMap<KeyExtent,Set<org.apache.accumulo.core.client.security.SecurityErrorCode>> af = new HashMap<KeyExtent,Set<org.apache.accumulo.core.client.security.SecurityErrorCode>>();
-      for (Entry<KeyExtent,Set<SecurityErrorCode>> entry : authorizationFailures.entrySet()) {
-        HashSet<org.apache.accumulo.core.client.security.SecurityErrorCode> codes = new HashSet<org.apache.accumulo.core.client.security.SecurityErrorCode>();
-        
-        for (SecurityErrorCode sce : entry.getValue()) {
-          codes.add(org.apache.accumulo.core.client.security.SecurityErrorCode.valueOf(sce.name()));
-        }
-        
-        af.put(entry.getKey(), codes);
+      throwFailures();
+    }
+  }
+  
+  private synchronized void throwFailures() throws MutationsRejectedException {
+    List<ConstraintViolationSummary> cvsList = violations.asList();
+    HashMap<KeyExtent,Set<org.apache.accumulo.core.client.security.SecurityErrorCode>> af = new HashMap<KeyExtent,Set<org.apache.accumulo.core.client.security.SecurityErrorCode>>();
+    for (Entry<KeyExtent,Set<SecurityErrorCode>> entry : authorizationFailures.entrySet()) {
+      HashSet<org.apache.accumulo.core.client.security.SecurityErrorCode> codes = new HashSet<org.apache.accumulo.core.client.security.SecurityErrorCode>();
+      
+      for (SecurityErrorCode sce : entry.getValue()) {
+        codes.add(org.apache.accumulo.core.client.security.SecurityErrorCode.valueOf(sce.name()));
       }
       
-      throw new MutationsRejectedException(instance, cvsList, af, serverSideErrors, unknownErrors, lastUnknownError);
+      af.put(entry.getKey(), codes);
     }
+    
+    throw new MutationsRejectedException(instance, cvsList, af, serverSideErrors, unknownErrors, lastUnknownError);
   }
   
   // END code for handling unrecoverable errors
@@ -545,9 +625,15 @@ public class TabletServerBatchWriter {
   /**
    * Add mutations that previously failed back into the mix
    */
-  private synchronized void addFailedMutations(MutationSet failedMutations) throws Exception {
-    mutations.addAll(failedMutations);
-    if (mutations.getMemoryUsed() >= maxMem / 2 || closed || flushing) {
+  private void addFailedMutations(MutationSet failedMutations) throws Exception {
+    // the memory of failed mutations was never released, so only the unprocessed memory grows
+    MutationStripe stripe = getStripe();
+    long unprocessed;
+    synchronized (stripe) {
+      stripe.mutations.addAll(failedMutations);
+      unprocessed = unprocessedMemUsed.addAndGet(failedMutations.getMemoryUsed());
+    }
+    if (unprocessed >= maxMem / 2 || closed || flushing) {
       startProcessing();
     }
   }
@@ -628,7 +714,7 @@ public class TabletServerBatchWriter {
       locators = new HashMap<String,TabletLocator>();
     }
     
-    private TabletLocator getLocator(String tableId) {
+    private synchronized TabletLocator getLocator(String tableId) {
       TabletLocator ret = locators.get(tableId);
       if (ret == null) {
         ret = TabletLocator.getLocator(instance, new Text(tableId));
@@ -98,14 +98,19 @@ public class ThriftScanner {
         boolean waitForWrites = !serversWaitedForWrites.get(ttype).contains(server);
         InitialScan isr = client.startScan(tinfo, scanState.credentials.toThrift(instance), extent.toThrift(), scanState.range.toThrift(),
             Translator.translate(scanState.columns, Translators.CT), scanState.size, scanState.serverSideIteratorList, scanState.serverSideIteratorOptions,
-            scanState.authorizations.getAuthorizationsBB(), waitForWrites, scanState.isolated, scanState.readaheadThreshold);
+            scanState.authorizations.getAuthorizationsBB(), waitForWrites, scanState.isolated, scanState.readaheadThreshold, true);
         if (waitForWrites)
           serversWaitedForWrites.get(ttype).add(server);
         
-        Key.decompress(isr.result.results);
-        
-        for (TKeyValue kv : isr.result.results)
-          results.put(new Key(kv.key), new Value(kv.value));
+        if (isr.result.isSetPackedResults()) {
+          for (KeyValue kv : new PackedKeyValues(isr.result.packedResults))
+            results.put(kv.getKey(), kv.getValue());
+        } else {
+          Key.decompress(isr.result.results);
+          
+          for (TKeyValue kv : isr.result.results)
+            results.put(new Key(kv.key), new Value(kv.value));
+        }
         
         client.closeScan(tinfo, isr.scanID);
         
@@ -369,6 +374,49 @@ public class ThriftScanner {
     }
   }
   
+  /**
+   * Decodes a batch of results from a tablet server and moves the scan state past it, on to the next tablet if the batch finished this one.
+   */
+  static List<KeyValue> finishBatch(TabletLocation loc, ScanState scanState, ScanResult sr, OpTimer opTimer) {
+    // servers that do not know how to pack results ignore the request and send the list
+    List<KeyValue> results;
+    Key lastKey = null;
+    if (sr.isSetPackedResults()) {
+      PackedKeyValues packed = new PackedKeyValues(sr.packedResults);
+      results = packed;
+      lastKey = packed.getLastKey();
+    } else {
+      Key.decompress(sr.results);
+      results = new ArrayList<KeyValue>(sr.results.size());
+      for (TKeyValue tkv : sr.results)
+        results.add(new KeyValue(new Key(tkv.key), tkv.value));
+      if (results.size() > 0)
+        lastKey = results.get(results.size() - 1).getKey();
+    }
+    
+    if (!sr.more) {
+      // log.debug("No more : tab end row = "+loc.tablet_extent.getEndRow()+" range = "+scanState.range);
+      if (loc.tablet_extent.getEndRow() == null) {
+        scanState.finished = true;
+        opTimer.stop("Completely finished scan in %DURATION% #results=" + results.size());
+      } else if (scanState.range.getEndKey() == null || !scanState.range.afterEndKey(new Key(loc.tablet_extent.getEndRow()).followingKey(PartialKey.ROW))) {
+        scanState.startRow = loc.tablet_extent.getEndRow();
+        scanState.skipStartRow = true;
+        opTimer.stop("Finished scanning tablet in %DURATION% #results=" + results.size());
+      } else {
+        scanState.finished = true;
+        opTimer.stop("Completely finished scan in %DURATION% #results=" + results.size());
+      }
+    } else {
+      opTimer.stop("Finished scan in %DURATION% #results=" + results.size() + " scanid=" + scanState.scanID);
+    }
+    
+    if (lastKey != null && !scanState.finished)
+      scanState.range = new Range(lastKey, false, scanState.range.getEndKey(), scanState.range.isEndKeyInclusive());
+    
+    return results;
+  }
+  
   private static List<KeyValue> scan(TabletLocation loc, ScanState scanState, AccumuloConfiguration conf) throws AccumuloSecurityException,
       NotServingTabletException, TException, NoSuchScanIDException, TooManyFilesException {
     if (scanState.finished)
@@ -398,7 +446,7 @@ public class ThriftScanner {
         boolean waitForWrites = !serversWaitedForWrites.get(ttype).contains(loc.tablet_location);
         InitialScan is = client.startScan(tinfo, scanState.credentials.toThrift(scanState.instance), loc.tablet_extent.toThrift(), scanState.range.toThrift(),
             Translator.translate(scanState.columns, Translators.CT), scanState.size, scanState.serverSideIteratorList, scanState.serverSideIteratorOptions,
-            scanState.authorizations.getAuthorizationsBB(), waitForWrites, scanState.isolated, scanState.readaheadThreshold);
+            scanState.authorizations.getAuthorizationsBB(), waitForWrites, scanState.isolated, scanState.readaheadThreshold, true);
         if (waitForWrites)
           serversWaitedForWrites.get(ttype).add(loc.tablet_location);
         
@@ -422,33 +470,7 @@ public class ThriftScanner {
         }
       }
       
-      if (!sr.more) {
-        // log.debug("No more : tab end row = "+loc.tablet_extent.getEndRow()+" range = "+scanState.range);
-        if (loc.tablet_extent.getEndRow() == null) {
-          scanState.finished = true;
-          opTimer.stop("Completely finished scan in %DURATION% #results=" + sr.results.size());
-        } else if (scanState.range.getEndKey() == null || !scanState.range.afterEndKey(new Key(loc.tablet_extent.getEndRow()).followingKey(PartialKey.ROW))) {
-          scanState.startRow = loc.tablet_extent.getEndRow();
-          scanState.skipStartRow = true;
-          opTimer.stop("Finished scanning tablet in %DURATION% #results=" + sr.results.size());
-        } else {
-          scanState.finished = true;
-          opTimer.stop("Completely finished scan in %DURATION% #results=" + sr.results.size());
-        }
-      } else {
-        opTimer.stop("Finished scan in %DURATION% #results=" + sr.results.size() + " scanid=" + scanState.scanID);
-      }
-      
-      Key.decompress(sr.results);
-      
-      if (sr.results.size() > 0 && !scanState.finished)
-        scanState.range = new Range(new Key(sr.results.get(sr.results.size() - 1).key), false, scanState.range.getEndKey(), scanState.range.isEndKeyInclusive());
-      
-      List<KeyValue> results = new ArrayList<KeyValue>(sr.results.size());
-      for (TKeyValue tkv : sr.results)
-        results.add(new KeyValue(new Key(tkv.key), tkv.value));
-      
-      return results;
+      return finishBatch(loc, scanState, sr, opTimer);
       
     } catch (ThriftSecurityException e) {
       throw new AccumuloSecurityException(e.user, e.code, e);
@@ -17,19 +17,19 @@
 package org.apache.accumulo.core.client.impl;
 
 import java.security.SecurityPermission;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Random;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
@@ -43,23 +43,36 @@ import org.apache.thrift.transport.TTransportException;
 
 import com.google.common.net.HostAndPort;
 
+/**
+ * Caches connections to servers. Each server has its own set of connections with its own lock, so threads using different servers never contend, and
+ * threads using the same server only hold its lock long enough to take or return a connection. The number of connections to a single server, counting
+ * every timeout and SSL setting, can be capped with {@link #setMaxConnectionsPerServer(int)}, in which case callers wait for a connection to be returned
+ * instead of opening another.
+ */
 public class ThriftTransportPool {
   private static SecurityPermission TRANSPORT_POOL_PERMISSION = new SecurityPermission("transportPoolPermission");
   
   private static final Random random = new Random();
-  private long killTime = 1000 * 3;
+  private volatile long killTime = 1000 * 3;
+  private volatile int maxConnectionsPerServer = 0;
+  private volatile boolean isShutdown = false;
+  private volatile boolean configured = false;
+  
+  private final ConcurrentMap<HostAndPort,ServerConnections> servers = new ConcurrentHashMap<HostAndPort,ServerConnections>();
+  
+  private final AtomicLong checkouts = new AtomicLong(0);
+  private final AtomicLong waits = new AtomicLong(0);
+  private final AtomicLong waitTime = new AtomicLong(0);
+  private final AtomicLong created = new AtomicLong(0);
+  private final AtomicLong closed = new AtomicLong(0);
   
-  private Map<ThriftTransportKey,List<CachedConnection>> cache = new HashMap<ThriftTransportKey,List<CachedConnection>>();
-  private Map<ThriftTransportKey,Long> errorCount = new HashMap<ThriftTransportKey,Long>();
-  private Map<ThriftTransportKey,Long> errorTime = new HashMap<ThriftTransportKey,Long>();
-  private Set<ThriftTransportKey> serversWarnedAbout = new HashSet<ThriftTransportKey>();
-
   private CountDownLatch closerExitLatch;
   
   private static final Logger log = Logger.getLogger(ThriftTransportPool.class);
   
   private static final Long ERROR_THRESHOLD = 20l;
   private static final int STUCK_THRESHOLD = 2 * 60 * 1000;
+  private static final int STATS_LOG_INTERVAL = 60 * 1000;
   
   private static class CachedConnection {
     
@@ -83,7 +96,245 @@ public class ThriftTransportPool {
   public static class TransportPoolShutdownException extends RuntimeException {
     private static final long serialVersionUID = 1L;
   }
-
+  
+  /**
+   * The connections to one server, whatever their timeout or SSL settings, so the connection limit applies to the server as a whole. Idle connections are
+   * kept for each {@link ThriftTransportKey}, since a caller can only reuse a connection opened with the same settings. All fields are guarded by this
+   * object's monitor, which is also used to wait for a connection when the server is at its connection limit.
+   */
+  private class ServerConnections {
+    
+    final HostAndPort server;
+    
+    // every open connection, reserved or not
+    final List<CachedConnection> connections = new ArrayList<CachedConnection>();
+    // unreserved connections for each key, most recently returned first
+    final Map<ThriftTransportKey,ArrayDeque<CachedConnection>> idle = new HashMap<ThriftTransportKey,ArrayDeque<CachedConnection>>();
+    // connections being opened, which count against the limit
+    int opening = 0;
+    
+    long errorCount = 0;
+    Long errorTime = null;
+    boolean warned = false;
+    
+    ServerConnections(HostAndPort server) {
+      this.server = server;
+    }
+    
+    synchronized CachedConnection reserveIdle(ThriftTransportKey key) {
+      ArrayDeque<CachedConnection> keyIdle = idle.get(key);
+      CachedConnection cc = keyIdle == null ? null : keyIdle.pollFirst();
+      if (cc != null) {
+        cc.setReserved(true);
+        if (log.isTraceEnabled())
+          log.trace("Using existing connection to " + key);
+      }
+      return cc;
+    }
+    
+    /**
+     * Reserves room for a new connection if the server is below the connection limit. At the limit, unless closeList is null, an idle connection opened with
+     * other settings is given up to make room, and added to closeList for the caller to close. The caller must follow a successful reservation with
+     * {@link #opened(CachedConnection, boolean)} or {@link #openFailed()}.
+     */
+    synchronized boolean reserveOpen(List<CachedConnection> closeList) {
+      int limit = maxConnectionsPerServer;
+      if (limit > 0 && connections.size() + opening >= limit) {
+        CachedConnection evicted = closeList == null ? null : evictIdle();
+        if (evicted == null)
+          return false;
+        closeList.add(evicted);
+      }
+      opening++;
+      return true;
+    }
+    
+    private CachedConnection evictIdle() {
+      Iterator<ArrayDeque<CachedConnection>> iter = idle.values().iterator();
+      while (iter.hasNext()) {
+        ArrayDeque<CachedConnection> keyIdle = iter.next();
+        CachedConnection cc = keyIdle.pollLast();
+        if (keyIdle.isEmpty())
+          iter.remove();
+        if (cc != null) {
+          connections.remove(cc);
+          return cc;
+        }
+      }
+      return null;
+    }
+    
+    /**
+     * Reserves an idle connection, waiting for one to be returned if the server is at the connection limit.
+     * 
+     * @return an idle connection, or null if the caller should open a new one as in {@link #reserveOpen(List)}
+     */
+    synchronized CachedConnection reserve(ThriftTransportKey key, List<CachedConnection> closeList) throws TTransportException {
+      long waitStart = 0;
+      try {
+        while (true) {
+          if (isShutdown)
+            throw new TransportPoolShutdownException();
+          
+          CachedConnection cc = reserveIdle(key);
+          if (cc != null || reserveOpen(closeList))
+            return cc;
+          
+          long now = System.currentTimeMillis();
+          if (waitStart == 0) {
+            waitStart = now;
+            waits.incrementAndGet();
+            if (log.isTraceEnabled())
+              log.trace("Waiting for a connection to " + key + ", " + connections.size() + " connections are in use");
+          }
+          
+          if (key.getTimeout() > 0) {
+            long remaining = key.getTimeout() - (now - waitStart);
+            if (remaining <= 0)
+              throw new TTransportException(TTransportException.TIMED_OUT, "Timed out waiting for a connection to " + key);
+            wait(remaining);
+          } else {
+            wait();
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new TTransportException("Interrupted waiting for a connection to " + key, e);
+      } finally {
+        if (waitStart != 0)
+          waitTime.addAndGet(System.currentTimeMillis() - waitStart);
+      }
+    }
+    
+    /**
+     * @param reserved
+     *          false to add the new connection to the idle connections rather than hand it to the caller
+     */
+    synchronized void opened(CachedConnection cc, boolean reserved) {
+      opening--;
+      connections.add(cc);
+      cc.setReserved(reserved);
+      if (!reserved) {
+        cc.lastReturnTime = System.currentTimeMillis();
+        addIdle(cc);
+        notify();
+      }
+    }
+    
+    synchronized void openFailed() {
+      opening--;
+      notify();
+    }
+    
+    private void addIdle(CachedConnection cc) {
+      ThriftTransportKey key = cc.transport.getCacheKey();
+      ArrayDeque<CachedConnection> keyIdle = idle.get(key);
+      if (keyIdle == null)
+        idle.put(key, keyIdle = new ArrayDeque<CachedConnection>());
+      keyIdle.addFirst(cc);
+    }
+    
+    /**
+     * @return false if the connection did not come from this server's connections
+     */
+    synchronized boolean returned(CachedTTransport ctsc, List<CachedConnection> closeList) {
+      CachedConnection cachedConnection = null;
+      for (CachedConnection cc : connections) {
+        if (cc.transport == ctsc) {
+          cachedConnection = cc;
+          break;
+        }
+      }
+      
+      if (cachedConnection == null)
+        return false;
+      
+      if (ctsc.sawError) {
+        connections.remove(cachedConnection);
+        closeList.add(cachedConnection);
+        
+        if (log.isTraceEnabled())
+          log.trace("Returned connection had error " + ctsc.getCacheKey());
+        
+        errorCount++;
+        if (errorTime == null)
+          errorTime = System.currentTimeMillis();
+        
+        if (errorCount >= ERROR_THRESHOLD && !warned) {
+          log.warn("Server " + server + " had " + errorCount + " failures in a short time period, will not complain anymore ");
+          warned = true;
+        }
+        
+        cachedConnection.setReserved(false);
+        
+        // remove all unreserved cached connection when a sever has an error, not just the connection that was returned
+        for (ArrayDeque<CachedConnection> keyIdle : idle.values()) {
+          closeList.addAll(keyIdle);
+          connections.removeAll(keyIdle);
+        }
+        idle.clear();
+        
+        // room for new connections was freed
+        notifyAll();
+      } else {
+        if (log.isTraceEnabled())
+          log.trace("Returned connection " + ctsc.getCacheKey() + " ioCount : " + cachedConnection.transport.ioCount);
+        
+        cachedConnection.lastReturnTime = System.currentTimeMillis();
+        cachedConnection.setReserved(false);
+        addIdle(cachedConnection);
+        notify();
+      }
+      return true;
+    }
+    
+    synchronized void closeIdle(long idleTime, List<CachedConnection> closeList) {
+      long now = System.currentTimeMillis();
+      int closing = closeList.size();
+      Iterator<ArrayDeque<CachedConnection>> iter = idle.values().iterator();
+      while (iter.hasNext()) {
+        ArrayDeque<CachedConnection> keyIdle = iter.next();
+        // least recently returned connections are at the end
+        while (!keyIdle.isEmpty() && now - keyIdle.peekLast().lastReturnTime > idleTime) {
+          CachedConnection cc = keyIdle.pollLast();
+          connections.remove(cc);
+          closeList.add(cc);
+        }
+        if (keyIdle.isEmpty())
+          iter.remove();
+      }
+      
+      // room for new connections was freed
+      if (closeList.size() > closing)
+        notifyAll();
+      
+      for (CachedConnection cachedConnection : connections) {
+        cachedConnection.transport.checkForStuckIO(STUCK_THRESHOLD);
+      }
+      
+      if (errorTime != null && now - errorTime >= STUCK_THRESHOLD) {
+        errorCount = 0;
+        errorTime = null;
+      }
+    }
+    
+    synchronized void closeAll(List<CachedConnection> closeList) {
+      closeList.addAll(connections);
+      connections.clear();
+      idle.clear();
+      notifyAll();
+    }
+    
+    synchronized int size() {
+      return connections.size();
+    }
+    
+    synchronized int idleCount(ThriftTransportKey key) {
+      ArrayDeque<CachedConnection> keyIdle = idle.get(key);
+      return keyIdle == null ? 0 : keyIdle.size();
+    }
+  }
+  
   private static class Closer implements Runnable {
     final ThriftTransportPool pool;
     private CountDownLatch closerExitLatch;
@@ -94,43 +345,27 @@ public class ThriftTransportPool {
     }
     
     private void closeConnections() {
+      long lastStatsLog = System.currentTimeMillis();
+      long lastCheckouts = 0;
+      
       while (true) {
         
         ArrayList<CachedConnection> connectionsToClose = new ArrayList<CachedConnection>();
         
-        synchronized (pool) {
-          for (List<CachedConnection> ccl : pool.getCache().values()) {
-            Iterator<CachedConnection> iter = ccl.iterator();
-            while (iter.hasNext()) {
-              CachedConnection cachedConnection = iter.next();
-              
-              if (!cachedConnection.isReserved() && System.currentTimeMillis() - cachedConnection.lastReturnTime > pool.killTime) {
-                connectionsToClose.add(cachedConnection);
-                iter.remove();
-              }
-            }
-          }
-          
-          for (List<CachedConnection> ccl : pool.getCache().values()) {
-            for (CachedConnection cachedConnection : ccl) {
-              cachedConnection.transport.checkForStuckIO(STUCK_THRESHOLD);
-            }
-          }
-          
-          Iterator<Entry<ThriftTransportKey,Long>> iter = pool.errorTime.entrySet().iterator();
-          while (iter.hasNext()) {
-            Entry<ThriftTransportKey,Long> entry = iter.next();
-            long delta = System.currentTimeMillis() - entry.getValue();
-            if (delta >= STUCK_THRESHOLD) {
-              pool.errorCount.remove(entry.getKey());
-              iter.remove();
-            }
-          }
+        for (ServerConnections sc : pool.getServers()) {
+          sc.closeIdle(pool.killTime, connectionsToClose);
         }
         
         // close connections outside of sync block
-        for (CachedConnection cachedConnection : connectionsToClose) {
-          cachedConnection.transport.close();
+        pool.close(connectionsToClose);
+        
+        if (log.isDebugEnabled() && System.currentTimeMillis() - lastStatsLog >= STATS_LOG_INTERVAL) {
+          Stats stats = pool.getStats();
+          // nothing to report while the pool is not being used
+          if (stats.getCheckouts() != lastCheckouts || stats.getOpen() > 0)
+            log.debug("Thrift transport pool " + stats);
+          lastCheckouts = stats.getCheckouts();
+          lastStatsLog = System.currentTimeMillis();
         }
         
         try {
@@ -152,6 +387,74 @@ public class ThriftTransportPool {
     }
   }
   
+  /**
+   * A snapshot of the pool's counters, which are cumulative since the pool was created.
+   */
+  public static class Stats {
+    private final long checkouts;
+    private final long waits;
+    private final long waitTime;
+    private final long created;
+    private final long closed;
+    private final int open;
+    
+    Stats(long checkouts, long waits, long waitTime, long created, long closed, int open) {
+      this.checkouts = checkouts;
+      this.waits = waits;
+      this.waitTime = waitTime;
+      this.created = created;
+      this.closed = closed;
+      this.open = open;
+    }
+    
+    /**
+     * @return the number of connections handed out
+     */
+    public long getCheckouts() {
+      return checkouts;
+    }
+    
+    /**
+     * @return the number of checkouts that had to wait because a server was at its connection limit
+     */
+    public long getWaits() {
+      return waits;
+    }
+    
+    /**
+     * @return the total time, in milliseconds, spent waiting for a connection
+     */
+    public long getWaitTime() {
+      return waitTime;
+    }
+    
+    /**
+     * @return the number of connections opened
+     */
+    public long getCreated() {
+      return created;
+    }
+    
+    /**
+     * @return the number of connections closed
+     */
+    public long getClosed() {
+      return closed;
+    }
+    
+    /**
+     * @return the number of connections currently open
+     */
+    public int getOpen() {
+      return open;
+    }
+    
+    @Override
+    public String toString() {
+      return String.format("checkouts=%d waits=%d waitTime=%dms created=%d closed=%d open=%d", checkouts, waits, waitTime, created, closed, open);
+    }
+  }
+  
   static class CachedTTransport extends TTransport {
     
     private ThriftTransportKey cacheKey;
@@ -387,7 +690,7 @@ public class ThriftTransportPool {
     
   }
   
-  private ThriftTransportPool() {}
+  ThriftTransportPool() {}
   
   public TTransport getTransportWithDefaultTimeout(HostAndPort addr, AccumuloConfiguration conf) throws TTransportException {
     return getTransport(String.format("%s:%d", addr.getHostText(), addr.getPort()), conf.getTimeInMillis(Property.GENERAL_RPC_TIMEOUT), SslConnectionParams.forClient(conf));
@@ -397,27 +700,42 @@ public class ThriftTransportPool {
     return getTransport(new ThriftTransportKey(location, milliseconds, sslParams));
   }
   
+  private static HostAndPort getServer(ThriftTransportKey cacheKey) {
+    return HostAndPort.fromParts(cacheKey.getLocation(), cacheKey.getPort());
+  }
+  
+  private ServerConnections getServerConnections(ThriftTransportKey cacheKey) {
+    if (isShutdown)
+      throw new TransportPoolShutdownException();
+    
+    HostAndPort server = getServer(cacheKey);
+    ServerConnections sc = servers.get(server);
+    if (sc == null) {
+      ServerConnections existing = servers.putIfAbsent(server, sc = new ServerConnections(server));
+      if (existing != null)
+        sc = existing;
+    }
+    return sc;
+  }
+  
   private TTransport getTransport(ThriftTransportKey cacheKey) throws TTransportException {
-    synchronized (this) {
-      // atomically reserve location if it exist in cache
-      List<CachedConnection> ccl = getCache().get(cacheKey);
-      
-      if (ccl == null) {
-        ccl = new LinkedList<CachedConnection>();
-        getCache().put(cacheKey, ccl);
-      }
-      
-      for (CachedConnection cachedConnection : ccl) {
-        if (!cachedConnection.isReserved()) {
-          cachedConnection.setReserved(true);
-          if (log.isTraceEnabled())
-            log.trace("Using existing connection to " + cacheKey.getLocation() + ":" + cacheKey.getPort());
-          return cachedConnection.transport;
-        }
-      }
+    ServerConnections sc = getServerConnections(cacheKey);
+    
+    List<CachedConnection> closeList = new ArrayList<CachedConnection>();
+    CachedConnection cachedConnection;
+    try {
+      cachedConnection = sc.reserve(cacheKey, closeList);
+    } finally {
+      // close outside of sync block
+      close(closeList);
     }
     
-    return createNewTransport(cacheKey);
+    if (cachedConnection != null) {
+      checkouts.incrementAndGet();
+      return cachedConnection.transport;
+    }
+    
+    return createNewTransport(sc, cacheKey);
   }
   
   Pair<String,TTransport> getAnyTransport(List<ThriftTransportKey> servers, boolean preferCachedConnection) throws TTransportException {
@@ -425,27 +743,18 @@ public class ThriftTransportPool {
     servers = new ArrayList<ThriftTransportKey>(servers);
     
     if (preferCachedConnection) {
-      HashSet<ThriftTransportKey> serversSet = new HashSet<ThriftTransportKey>(servers);
+      // randomly pick a server from the connection cache
+      ArrayList<ThriftTransportKey> cachedServers = new ArrayList<ThriftTransportKey>(servers);
+      Collections.shuffle(cachedServers, random);
       
-      synchronized (this) {
-        
-        // randomly pick a server from the connection cache
-        serversSet.retainAll(getCache().keySet());
-        
-        if (serversSet.size() > 0) {
-          ArrayList<ThriftTransportKey> cachedServers = new ArrayList<ThriftTransportKey>(serversSet);
-          Collections.shuffle(cachedServers, random);
-          
-          for (ThriftTransportKey ttk : cachedServers) {
-            for (CachedConnection cachedConnection : getCache().get(ttk)) {
-              if (!cachedConnection.isReserved()) {
-                cachedConnection.setReserved(true);
-                if (log.isTraceEnabled())
-                  log.trace("Using existing connection to " + ttk.getLocation() + ":" + ttk.getPort());
-                return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
-              }
-            }
-          }
+      for (ThriftTransportKey ttk : cachedServers) {
+        ServerConnections sc = this.servers.get(getServer(ttk));
+        if (sc == null)
+          continue;
+        CachedConnection cachedConnection = sc.reserveIdle(ttk);
+        if (cachedConnection != null) {
+          checkouts.incrementAndGet();
+          return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
         }
       }
     }
@@ -454,25 +763,32 @@ public class ThriftTransportPool {
     while (servers.size() > 0 && retryCount < 10) {
       int index = random.nextInt(servers.size());
       ThriftTransportKey ttk = servers.get(index);
+      ServerConnections sc = getServerConnections(ttk);
       
-      if (!preferCachedConnection) {
-        synchronized (this) {
-          List<CachedConnection> cachedConnList = getCache().get(ttk);
-          if (cachedConnList != null) {
-            for (CachedConnection cachedConnection : cachedConnList) {
-              if (!cachedConnection.isReserved()) {
-                cachedConnection.setReserved(true);
-                if (log.isTraceEnabled())
-                  log.trace("Using existing connection to " + ttk.getLocation() + ":" + ttk.getPort() + " timeout " + ttk.getTimeout());
-                return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
-              }
-            }
+      List<CachedConnection> closeList = new ArrayList<CachedConnection>();
+      CachedConnection cachedConnection;
+      try {
+        if (servers.size() > 1) {
+          // avoid waiting on a server at its connection limit while others may have room
+          cachedConnection = sc.reserveIdle(ttk);
+          if (cachedConnection == null && !sc.reserveOpen(closeList)) {
+            servers.remove(index);
+            continue;
           }
+        } else {
+          cachedConnection = sc.reserve(ttk, closeList);
         }
+      } finally {
+        close(closeList);
+      }
+      
+      if (cachedConnection != null) {
+        checkouts.incrementAndGet();
+        return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
       }
       
       try {
-        return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), createNewTransport(ttk));
+        return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), createNewTransport(sc, ttk));
       } catch (TTransportException tte) {
         log.debug("Failed to connect to " + servers.get(index), tte);
         servers.remove(index);
@@ -483,33 +799,62 @@ public class ThriftTransportPool {
     throw new TTransportException("Failed to connect to a server");
   }
   
-  private TTransport createNewTransport(ThriftTransportKey cacheKey) throws TTransportException {
-    TTransport transport = ThriftUtil.createClientTransport(HostAndPort.fromParts(cacheKey.getLocation(), cacheKey.getPort()), (int)cacheKey.getTimeout(), cacheKey.getSslParams());
-
+  /**
+   * Opens the socket for a new connection. Tests override this so the pool can be exercised without servers.
+   */
+  TTransport openTransport(ThriftTransportKey cacheKey) throws TTransportException {
+    return ThriftUtil.createClientTransport(getServer(cacheKey), (int) cacheKey.getTimeout(), cacheKey.getSslParams());
+  }
+  
+  /**
+   * Opens a connection for a caller that reserved room for it with {@link ServerConnections#reserveOpen(List)}.
+   */
+  private TTransport createNewTransport(ServerConnections sc, ThriftTransportKey cacheKey) throws TTransportException {
+    CachedConnection cc = openConnection(sc, cacheKey, true);
+    checkouts.incrementAndGet();
+    return cc.transport;
+  }
+  
+  private CachedConnection openConnection(ServerConnections sc, ThriftTransportKey cacheKey, boolean reserved) throws TTransportException {
+    TTransport transport;
+    boolean success = false;
+    try {
+      transport = openTransport(cacheKey);
+      success = true;
+    } finally {
+      if (!success)
+        sc.openFailed();
+    }
+    
+    created.incrementAndGet();
+    
     if (log.isTraceEnabled())
       log.trace("Creating new connection to connection to " + cacheKey.getLocation() + ":" + cacheKey.getPort());
     
-    CachedTTransport tsc = new CachedTTransport(transport, cacheKey);
-    
-    CachedConnection cc = new CachedConnection(tsc);
-    cc.setReserved(true);
+    CachedConnection cc = new CachedConnection(new CachedTTransport(transport, cacheKey));
+    sc.opened(cc, reserved);
     
-    try {
-      synchronized (this) {
-        List<CachedConnection> ccl = getCache().get(cacheKey);
-
-        if (ccl == null) {
-          ccl = new LinkedList<CachedConnection>();
-          getCache().put(cacheKey, ccl);
-        }
-      
-        ccl.add(cc);
-      }
-    } catch (TransportPoolShutdownException e) {
-      cc.transport.close();
-      throw e;
+    if (isShutdown) {
+      close(Collections.singletonList(cc));
+      throw new TransportPoolShutdownException();
     }
-    return cc.transport;
+    
+    return cc;
+  }
+  
+  /**
+   * Opens idle connections to a server ahead of a burst of requests, so the requests do not each open their own. Idle connections with the same settings
+   * count towards the number wanted, and no idle connection is closed to stay within the connection limit. The new connections are not checked out, and are
+   * closed like any other idle connection if they are not used within the idle time.
+   * 
+   * @param count
+   *          the number of idle connections wanted
+   */
+  public void warmUp(String location, long milliseconds, SslConnectionParams sslParams, int count) throws TTransportException {
+    ThriftTransportKey cacheKey = new ThriftTransportKey(location, milliseconds, sslParams);
+    ServerConnections sc = getServerConnections(cacheKey);
+    for (int wanted = count - sc.idleCount(cacheKey); wanted > 0 && sc.reserveOpen(null); wanted--)
+      openConnection(sc, cacheKey, false);
   }
   
   public void returnTransport(TTransport tsc) {
@@ -517,74 +862,15 @@ public class ThriftTransportPool {
       return;
     }
     
-    boolean existInCache = false;
     CachedTTransport ctsc = (CachedTTransport) tsc;
     
     ArrayList<CachedConnection> closeList = new ArrayList<ThriftTransportPool.CachedConnection>();
     
-    synchronized (this) {
-      List<CachedConnection> ccl = getCache().get(ctsc.getCacheKey());
-      for (Iterator<CachedConnection> iterator = ccl.iterator(); iterator.hasNext();) {
-        CachedConnection cachedConnection = iterator.next();
-        if (cachedConnection.transport == tsc) {
-          if (ctsc.sawError) {
-            closeList.add(cachedConnection);
-            iterator.remove();
-            
-            if (log.isTraceEnabled())
-              log.trace("Returned connection had error " + ctsc.getCacheKey());
-            
-            Long ecount = errorCount.get(ctsc.getCacheKey());
-            if (ecount == null)
-              ecount = 0l;
-            ecount++;
-            errorCount.put(ctsc.getCacheKey(), ecount);
-            
-            Long etime = errorTime.get(ctsc.getCacheKey());
-            if (etime == null) {
-              errorTime.put(ctsc.getCacheKey(), System.currentTimeMillis());
-            }
-            
-            if (ecount >= ERROR_THRESHOLD && !serversWarnedAbout.contains(ctsc.getCacheKey())) {
-              log.warn("Server " + ctsc.getCacheKey() + " had " + ecount + " failures in a short time period, will not complain anymore ");
-              serversWarnedAbout.add(ctsc.getCacheKey());
-            }
-            
-            cachedConnection.setReserved(false);
-            
-          } else {
-            
-            if (log.isTraceEnabled())
-              log.trace("Returned connection " + ctsc.getCacheKey() + " ioCount : " + cachedConnection.transport.ioCount);
-            
-            cachedConnection.lastReturnTime = System.currentTimeMillis();
-            cachedConnection.setReserved(false);
-          }
-          existInCache = true;
-          break;
-        }
-      }
-      
-      // remove all unreserved cached connection when a sever has an error, not just the connection that was returned
-      if (ctsc.sawError) {
-        for (Iterator<CachedConnection> iterator = ccl.iterator(); iterator.hasNext();) {
-          CachedConnection cachedConnection = iterator.next();
-          if (!cachedConnection.isReserved()) {
-            closeList.add(cachedConnection);
-            iterator.remove();
-          }
-        }
-      }
-    }
+    ServerConnections sc = servers.get(getServer(ctsc.getCacheKey()));
+    boolean existInCache = sc != null && sc.returned(ctsc, closeList);
     
     // close outside of sync block
-    for (CachedConnection cachedConnection : closeList) {
-      try {
-        cachedConnection.transport.close();
-      } catch (Exception e) {
-        log.debug("Failed to close connection w/ errors", e);
-      }
-    }
+    close(closeList);
     
     if (!existInCache) {
       log.warn("Returned tablet server connection to cache that did not come from cache");
@@ -593,14 +879,66 @@ public class ThriftTransportPool {
     }
   }
   
+  private void close(List<CachedConnection> closeList) {
+    for (CachedConnection cachedConnection : closeList) {
+      try {
+        cachedConnection.transport.close();
+      } catch (Exception e) {
+        log.debug("Failed to close connection", e);
+      }
+    }
+    closed.addAndGet(closeList.size());
+  }
+  
   /**
    * Set the time after which idle connections should be closed
    */
-  public synchronized void setIdleTime(long time) {
+  public void setIdleTime(long time) {
     this.killTime = time;
     log.debug("Set thrift transport pool idle time to " + time);
   }
   
+  /**
+   * Applies {@link Property#GENERAL_RPC_MAX_CONNECTIONS_PER_SERVER} from the configuration of the first caller. Later calls do nothing, so clients with
+   * different configurations in one process do not change the limit under each other.
+   */
+  public ThriftTransportPool configure(AccumuloConfiguration conf) {
+    if (!configured) {
+      synchronized (this) {
+        if (!configured)
+          setMaxConnectionsPerServer(conf.getCount(Property.GENERAL_RPC_MAX_CONNECTIONS_PER_SERVER));
+      }
+    }
+    return this;
+  }
+  
+  /**
+   * Set the most connections that will be open to a single server, after which callers wait for a connection to be returned. Zero or less means no limit.
+   */
+  public synchronized void setMaxConnectionsPerServer(int max) {
+    configured = true;
+    if (max != maxConnectionsPerServer) {
+      this.maxConnectionsPerServer = max;
+      log.debug("Set thrift transport pool max connections per server to " + max);
+      // waiters may now be able to open a connection
+      for (ServerConnections sc : servers.values()) {
+        synchronized (sc) {
+          sc.notifyAll();
+        }
+      }
+    }
+  }
+  
+  /**
+   * @return the pool's counters, which are also logged at debug level once a minute while the pool is in use
+   */
+  public Stats getStats() {
+    int open = 0;
+    for (ServerConnections sc : servers.values())
+      open += sc.size();
+    return new Stats(checkouts.get(), waits.get(), waitTime.get(), created.get(), closed.get(), open);
+  }
+  
   private static ThriftTransportPool instance = new ThriftTransportPool();
   private static final AtomicBoolean daemonStarted = new AtomicBoolean(false);
   
@@ -624,36 +962,35 @@ public class ThriftTransportPool {
 
   public void shutdown() {
     synchronized (this) {
-      if (cache == null)
+      if (isShutdown)
         return;
-
-      // close any connections in the pool... even ones that are in use
-      for (List<CachedConnection> ccl : getCache().values()) {
-        Iterator<CachedConnection> iter = ccl.iterator();
-        while (iter.hasNext()) {
-          CachedConnection cc = iter.next();
-          try {
-            cc.transport.close();
-          } catch (Exception e) {
-            log.debug("Error closing transport during shutdown", e);
-          }
-        }
-      }
-
+      
       // this will render the pool unusable and cause the background thread to exit
-      this.cache = null;
+      isShutdown = true;
     }
+    
+    // close any connections in the pool... even ones that are in use
+    ArrayList<CachedConnection> closeList = new ArrayList<CachedConnection>();
+    for (ServerConnections sc : servers.values())
+      sc.closeAll(closeList);
+    close(closeList);
+    
+    log.debug("Thrift transport pool shut down " + getStats());
 
     try {
+      synchronized (this) {
+        if (closerExitLatch == null)
+          return;
+      }
       closerExitLatch.await();
     } catch (InterruptedException e) {
       throw new RuntimeException(e);
     }
   }
 
-  private Map<ThriftTransportKey,List<CachedConnection>> getCache() {
-    if (cache == null)
+  private Iterable<ServerConnections> getServers() {
+    if (isShutdown)
       throw new TransportPoolShutdownException();
-    return cache;
+    return servers.values();
   }
 }
@@ -37,9 +37,10 @@ public class TimeoutTabletLocator extends TabletLocator {
   
   private TabletLocator locator;
   private long timeout;
+  // guarded by this, since the batch writer bins mutations from several threads at once
   private Long firstFailTime = null;
   
-  private void failed() {
+  private synchronized void failed() {
     if (firstFailTime == null) {
       firstFailTime = System.currentTimeMillis();
     } else if (System.currentTimeMillis() - firstFailTime > timeout) {
@@ -47,7 +48,7 @@ public class TimeoutTabletLocator extends TabletLocator {
     }
   }
   
-  private void succeeded() {
+  private synchronized void succeeded() {
     firstFailTime = null;
   }
   
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.client.AsyncFuture;
+import org.apache.accumulo.core.client.AsyncScanner;
+import org.apache.accumulo.core.client.impl.AsyncFutureImpl;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+
+/**
+ * Reads a mock table through a {@link MockScanner}. Every future is already complete when it is returned.
+ */
+public class MockAsyncScanner extends MockScannerBase implements AsyncScanner {
+
+  private int batchSize = Constants.SCAN_BATCH_SIZE;
+
+  MockAsyncScanner(MockTable table, Authorizations auths) {
+    super(table, auths);
+  }
+
+  private MockScanner createScanner(Range range) {
+    MockScanner scanner = new MockScanner(table, auths);
+    setOptions(scanner, this);
+    scanner.setRange(range);
+    return scanner;
+  }
+
+  @Override
+  public AsyncFuture<List<Entry<Key,Value>>> lookup(Range range) {
+    List<Entry<Key,Value>> entries = new ArrayList<Entry<Key,Value>>();
+    for (Entry<Key,Value> entry : createScanner(range))
+      entries.add(entry);
+    return AsyncFutureImpl.<List<Entry<Key,Value>>> immediate(Collections.unmodifiableList(entries));
+  }
+
+  @Override
+  public BatchStream scan(Range range) {
+    final Iterator<Entry<Key,Value>> iter = createScanner(range).iterator();
+    final int size = batchSize;
+    return new BatchStream() {
+      boolean closed = false;
+
+      @Override
+      public synchronized AsyncFuture<List<Entry<Key,Value>>> nextBatch() {
+        if (closed)
+          throw new IllegalStateException("stream is closed");
+        List<Entry<Key,Value>> batch = new ArrayList<Entry<Key,Value>>();
+        while (batch.size() < size && iter.hasNext())
+          batch.add(iter.next());
+        return AsyncFutureImpl.<List<Entry<Key,Value>>> immediate(Collections.unmodifiableList(batch));
+      }
+
+      @Override
+      public synchronized void close() {
+        closed = true;
+      }
+    };
+  }
+
+  @Override
+  public void setBatchSize(int size) {
+    if (size > 0)
+      this.batchSize = size;
+    else
+      throw new IllegalArgumentException("size must be greater than zero");
+  }
+
+  @Override
+  public int getBatchSize() {
+    return batchSize;
+  }
+}
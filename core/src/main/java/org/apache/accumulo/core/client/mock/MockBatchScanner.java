@@ -35,6 +35,7 @@ import org.apache.commons.collections.iterators.IteratorChain;
 public class MockBatchScanner extends MockScannerBase implements BatchScanner {
   
   List<Range> ranges = null;
+  boolean ordered = false;
   
   public MockBatchScanner(MockTable mockTable, Authorizations authorizations) {
     super(mockTable, authorizations);
@@ -49,6 +50,11 @@ public class MockBatchScanner extends MockScannerBase implements BatchScanner {
     this.ranges = new ArrayList<Range>(ranges);
   }
   
+  @Override
+  public void setOrdered(boolean ordered) {
+    this.ordered = ordered;
+  }
+  
   @SuppressWarnings("unchecked")
   @Override
   public Iterator<Entry<Key,Value>> iterator() {
@@ -57,7 +63,8 @@ public class MockBatchScanner extends MockScannerBase implements BatchScanner {
     }
 
     IteratorChain chain = new IteratorChain();
-    for (Range range : ranges) {
+    // merged ranges are sorted and disjoint, so chaining them returns entries in order
+    for (Range range : ordered ? Range.mergeOverlapping(ranges) : ranges) {
       SortedKeyValueIterator<Key,Value> i = new SortedMapIterator(table.table);
       try {
         i = createFilter(i);
@@ -19,6 +19,7 @@ package org.apache.accumulo.core.client.mock;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.AsyncScanner;
 import org.apache.accumulo.core.client.BatchDeleter;
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.BatchWriter;
@@ -112,6 +113,14 @@ public class MockConnector extends Connector {
       throw new TableNotFoundException(tableName, tableName, "no such table");
     return new MockScanner(table, authorizations);
   }
+
+  @Override
+  public AsyncScanner createAsyncScanner(String tableName, Authorizations authorizations) throws TableNotFoundException {
+    MockTable table = acu.tables.get(tableName);
+    if (table == null)
+      throw new TableNotFoundException(tableName, tableName, "no such table");
+    return new MockAsyncScanner(table, authorizations);
+  }
   
   @Override
   public Instance getInstance() {
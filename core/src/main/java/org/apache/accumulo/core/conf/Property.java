@@ -149,6 +149,9 @@ public enum Property {
   GENERAL_DYNAMIC_CLASSPATHS(AccumuloVFSClassLoader.DYNAMIC_CLASSPATH_PROPERTY_NAME, AccumuloVFSClassLoader.DEFAULT_DYNAMIC_CLASSPATH_VALUE,
       PropertyType.STRING, "A list of all of the places where changes in jars or classes will force a reload of the classloader."),
   GENERAL_RPC_TIMEOUT("general.rpc.timeout", "120s", PropertyType.TIMEDURATION, "Time to wait on I/O for simple, short RPC calls"),
+  GENERAL_RPC_MAX_CONNECTIONS_PER_SERVER("general.rpc.server.connections.max", "0", PropertyType.COUNT,
+      "The maximum number of pooled connections a process opens to a single server. When the limit is reached, callers wait for a connection to be "
+          + "returned instead of opening another. 0 means no limit."),
   GENERAL_KERBEROS_KEYTAB("general.kerberos.keytab", "", PropertyType.PATH, "Path to the kerberos keytab to use. Leave blank if not using kerberoized hdfs"),
   GENERAL_KERBEROS_PRINCIPAL("general.kerberos.principal", "", PropertyType.STRING, "Name of the kerberos principal to use. _HOST will automatically be "
       + "replaced by the machines hostname in the hostname portion of the principal. Leave blank if not using kerberoized hdfs"),
@@ -191,6 +194,14 @@ public enum Property {
   TSERV_DEFAULT_BLOCKSIZE("tserver.default.blocksize", "1M", PropertyType.MEMORY, "Specifies a default blocksize for the tserver caches"),
   TSERV_DATACACHE_SIZE("tserver.cache.data.size", "128M", PropertyType.MEMORY, "Specifies the size of the cache for file data blocks."),
   TSERV_INDEXCACHE_SIZE("tserver.cache.index.size", "512M", PropertyType.MEMORY, "Specifies the size of the cache for file indices."),
+  TSERV_DATACACHE_TYPE("tserver.cache.data.type", "lru", PropertyType.STRING,
+      "Specifies the implementation of the cache for file data blocks. Valid values are lru, which keeps blocks on the java heap, tinylfu, which keeps "
+          + "blocks on the java heap and only admits blocks that are used more often than the ones they would replace, and offheap, which keeps "
+          + "blocks in direct memory slabs. The JVM's -XX:MaxDirectMemorySize must leave room for all off-heap caches."),
+  TSERV_INDEXCACHE_TYPE("tserver.cache.index.type", "lru", PropertyType.STRING,
+      "Specifies the implementation of the cache for file indices. Valid values are lru, which keeps blocks on the java heap, tinylfu, which keeps "
+          + "blocks on the java heap and only admits blocks that are used more often than the ones they would replace, and offheap, which keeps "
+          + "blocks in direct memory slabs. The JVM's -XX:MaxDirectMemorySize must leave room for all off-heap caches."),
   TSERV_PORTSEARCH("tserver.port.search", "false", PropertyType.BOOLEAN, "if the ports above are in use, search higher ports until one is available"),
   TSERV_CLIENTPORT("tserver.port.client", "9997", PropertyType.PORT, "The port used for handling client connections on the tablet servers"),
   TSERV_MUTATION_QUEUE_MAX("tserver.mutation.queue.max", "1M", PropertyType.MEMORY,
@@ -202,6 +213,10 @@ public enum Property {
       "To find a tablets split points, all index files are opened. This setting determines how many index "
           + "files can be opened at once. When there are more index files than this setting multiple passes "
           + "must be made, which is slower. However opening too many files at once can cause problems."),
+  TSERV_TABLET_SPLIT_APPROXIMATE_SAMPLES("tserver.tablet.split.midpoint.approximate.samples", "1000", PropertyType.COUNT,
+      "When choosing a split point, at most this many index entries are sampled from each file and weighted by the file's size to estimate the "
+          + "tablet's mid point. Entries come from the upper levels of each file's index, so only a few index blocks are read per file. If the indexes "
+          + "do not contain enough information the exact method, which merges all of the indexes, is used instead. Set to 0 to always use the exact method."),
   TSERV_WALOG_MAX_SIZE("tserver.walog.max.size", "1G", PropertyType.MEMORY,
       "The maximum size for each write-ahead log. See comment for property tserver.memory.maps.max"),
   TSERV_MAJC_DELAY("tserver.compaction.major.delay", "30s", PropertyType.TIMEDURATION,
@@ -209,18 +224,30 @@ public enum Property {
   TSERV_MAJC_THREAD_MAXOPEN("tserver.compaction.major.thread.files.open.max", "10", PropertyType.COUNT,
       "Max number of files a major compaction thread can open at once. "),
   TSERV_SCAN_MAX_OPENFILES("tserver.scan.files.open.max", "100", PropertyType.COUNT,
-      "Maximum total files that all tablets in a tablet server can open for scans. "),
+      "Maximum total files that all tablets in a tablet server can open for scans. Idle files are closed, least recently used first, to stay under this. "
+          + "Scans wait for files when it is reached, except a scan that already has files open, which may go over it for a while rather than fail."),
   TSERV_MAX_IDLE("tserver.files.open.idle", "1m", PropertyType.TIMEDURATION, "Tablet servers leave previously used files open for future queries. "
       + "This setting determines how much time an unused file should be kept open until it is closed."),
   TSERV_NATIVEMAP_ENABLED("tserver.memory.maps.native.enabled", "true", PropertyType.BOOLEAN,
       "An in-memory data store for accumulo implemented in c++ that increases the amount of data accumulo can hold in memory and avoids Java GC pauses."),
+  TSERV_OFFHEAPMAP_ENABLED("tserver.memory.maps.offheap.enabled", "false", PropertyType.BOOLEAN,
+      "When the native map is disabled or can not be loaded, store in-memory data in direct byte buffers instead of on the Java heap. This avoids Java GC "
+          + "pauses without the native library, but the JVM must be given enough direct memory with -XX:MaxDirectMemorySize."),
   TSERV_MAXMEM("tserver.memory.maps.max", "1G", PropertyType.MEMORY,
       "Maximum amount of memory that can be used to buffer data written to a tablet server. There are two other properties that can effectively limit memory"
           + " usage table.compaction.minor.logs.threshold and tserver.walog.max.size. Ensure that table.compaction.minor.logs.threshold *"
           + " tserver.walog.max.size >= this property."),
+  TSERV_MEMORY_MAPS_CONCURRENT_WRITES("tserver.memory.maps.concurrent.writes", "false", PropertyType.BOOLEAN,
+      "When true, writes to the in-memory map of a single tablet are applied in parallel, so ingest into one tablet can use more than one core. Writes only "
+          + "wait for each other to become visible to scans, in the order they started."),
   TSERV_MEM_MGMT("tserver.memory.manager", "org.apache.accumulo.server.tabletserver.LargestFirstMemoryManager", PropertyType.CLASSNAME,
       "An implementation of MemoryManger that accumulo will use."),
   TSERV_SESSION_MAXIDLE("tserver.session.idle.max", "1m", PropertyType.TIMEDURATION, "maximum idle time for a session"),
+  TSERV_PREFETCH_THREADS("tserver.scan.prefetch.threads", "4", PropertyType.COUNT,
+      "The number of threads reading file blocks ahead of sequential scans, for tables that enable it. Zero disables prefetching."),
+  TSERV_PREFETCH_MEMORY("tserver.scan.prefetch.memory.max", "64M", PropertyType.MEMORY,
+      "The most memory used by file blocks that were read ahead of sequential scans and have not been read by the scans yet. When it is used up, no more "
+          + "blocks are prefetched until scans catch up."),
   TSERV_READ_AHEAD_MAXCONCURRENT("tserver.readahead.concurrent.max", "16", PropertyType.COUNT,
       "The maximum number of concurrent read ahead that will execute. This effectively"
           + " limits the number of long running scans that can run concurrently per tserver."),
@@ -228,10 +255,15 @@ public enum Property {
       "The maximum number of concurrent metadata read ahead that will execute."),
   TSERV_MIGRATE_MAXCONCURRENT("tserver.migrations.concurrent.max", "1", PropertyType.COUNT,
       "The maximum number of concurrent tablet migrations for a tablet server"),
+  TSERV_ASSIGNMENT_MAXCONCURRENT("tserver.assignment.concurrent.max", "2", PropertyType.COUNT,
+      "The number of threads available to load tablets. Recoveries of tablets loaded at the same time replay their write-ahead logs concurrently."),
   TSERV_MAJC_MAXCONCURRENT("tserver.compaction.major.concurrent.max", "3", PropertyType.COUNT,
       "The maximum number of concurrent major compactions for a tablet server"),
   TSERV_MINC_MAXCONCURRENT("tserver.compaction.minor.concurrent.max", "4", PropertyType.COUNT,
       "The maximum number of concurrent minor compactions for a tablet server"),
+  TSERV_COMPACTION_THROUGHPUT("tserver.compaction.throughput", "0B", PropertyType.MEMORY,
+      "The maximum number of bytes per second that all minor and major compactions on a tablet server may read and write together, measured as "
+          + "uncompressed key/value data. Zero means unlimited. Limiting minor compactions may cause ingest to be held while memory is flushed."),
   TSERV_COMPACTION_WARN_TIME("tserver.compaction.warn.time", "10m", PropertyType.TIMEDURATION,
       "When a compaction has not made progress for this time period, a warning will be logged"),
   TSERV_BLOOM_LOAD_MAXCONCURRENT("tserver.bloom.load.concurrent.max", "4", PropertyType.COUNT,
@@ -267,6 +299,9 @@ public enum Property {
   TSERV_RECOVERY_MAX_CONCURRENT("tserver.recovery.concurrent.max", "2", PropertyType.COUNT, "The maximum number of threads to use to sort logs during"
       + " recovery"),
   TSERV_SORT_BUFFER_SIZE("tserver.sort.buffer.size", "200M", PropertyType.MEMORY, "The amount of memory to use when sorting logs during recovery."),
+  TSERV_RECOVERY_SORT_THREADS("tserver.recovery.sort.threads", "1", PropertyType.COUNT, "The number of threads used to sort a single log during recovery."
+      + " When greater than one, the log is sorted in chunks that are spilled as runs and merged into a single sorted file that recovery reads directly."
+      + " Each thread sorts a chunk of " + TSERV_SORT_BUFFER_SIZE.getKey() + " divided by this count."),
   TSERV_ARCHIVE_WALOGS("tserver.archive.walogs", "false", PropertyType.BOOLEAN, "Keep copies of the WALOGs for debugging purposes"),
   TSERV_WORKQ_THREADS("tserver.workq.threads", "2", PropertyType.COUNT,
       "The number of threads for the distributed work queue. These threads are used for copying failed bulk files."),
@@ -276,6 +311,11 @@ public enum Property {
       "resiliency in the face of unexpected power outages, at the cost of speed. If method is not available, the legacy 'sync' method " +
       "will be used to ensure backwards compatibility with older Hadoop versions. A value of 'hflush' is the alternative to the default value " +
       "of 'hsync' which will result in faster writes, but with less durability"),
+  TSERV_WAL_SYNC_GROUP_WAIT("tserver.wal.sync.group.wait", "0ms", PropertyType.TIMEDURATION,
+      "The maximum time a write-ahead log sync waits for more writes to arrive so that a single sync can cover them all. Raising this trades a little "
+          + "latency for fewer syncs when many small writes arrive at once. Zero syncs as soon as the previous sync finishes."),
+  TSERV_WAL_SYNC_GROUP_SIZE("tserver.wal.sync.group.size", "100", PropertyType.COUNT,
+      "A write-ahead log sync stops waiting for more writes once this many are pending. Only used when tserver.wal.sync.group.wait is not zero."),
   TSERV_REPLICATION_REPLAYERS("tserver.replication.replayer.", null, PropertyType.PREFIX, "Allows configuration of implementation used to apply replicated data"),
   TSERV_REPLICATION_DEFAULT_HANDLER("tserver.replication.default.replayer", "org.apache.accumulo.tserver.replication.BatchWriterReplicationReplayer",
       PropertyType.CLASSNAME, "Default AccumuloReplicationReplayer implementation"),
@@ -349,6 +389,13 @@ public enum Property {
           + "of its files compacted into one. There is no guarantee an idle tablet will be compacted. "
           + "Compactions of idle tablets are only started when regular compactions are not running. Idle "
           + "compactions only take place for tablets that have one or more files."),
+  TABLE_MAJC_PARALLEL_GROUPS("table.compaction.major.groups.parallel", "false", PropertyType.BOOLEAN,
+      "Compact the locality groups of a tablet concurrently during major compactions. Each group after the first is compacted into a staged file on "
+          + "another thread, and the staged files are appended to the output file in order. Helps tables with several locality groups, at the cost of "
+          + "writing their data twice. The threads are limited by " + TSERV_MAJC_MAXCONCURRENT.getKey() + "."),
+  TABLE_COMPACTION_THROUGHPUT("table.compaction.throughput", "0B", PropertyType.MEMORY,
+      "The maximum number of bytes per second that compactions of this table's tablets on one tablet server may read and write together, measured as "
+          + "uncompressed key/value data. Zero means unlimited. Also limited by " + TSERV_COMPACTION_THROUGHPUT.getKey() + "."),
   TABLE_SPLIT_THRESHOLD("table.split.threshold", "1G", PropertyType.MEMORY, "When combined size of files exceeds this amount a tablet is split."),
   TABLE_MINC_LOGS_MAX("table.compaction.minor.logs.threshold", "3", PropertyType.COUNT,
       "When there are more than this many write-ahead logs against a tablet, it will be minor compacted. See comment for property tserver.memory.maps.max"),
@@ -361,7 +408,11 @@ public enum Property {
   TABLE_FILE_TYPE("table.file.type", RFile.EXTENSION, PropertyType.STRING, "Change the type of file a table writes"),
   TABLE_LOAD_BALANCER("table.balancer", "org.apache.accumulo.server.master.balancer.DefaultLoadBalancer", PropertyType.STRING,
       "This property can be set to allow the LoadBalanceByTable load balancer to change the called Load Balancer for this table"),
-  TABLE_FILE_COMPRESSION_TYPE("table.file.compress.type", "gz", PropertyType.STRING, "One of gz,lzo,none"),
+  TABLE_FILE_COMPRESSION_TYPE("table.file.compress.type", "gz", PropertyType.STRING,
+      "One of gz,lzo,snappy,lz4,zstd,none, or an algorithm added with io.compression.accumulo.codecs in the Hadoop configuration"),
+  TABLE_FILE_COMPRESSION_DICTIONARY("table.file.compress.dictionary", "", PropertyType.STRING,
+      "A dictionary, such as one trained with zstd --train on sample data, to compress the data blocks of new files with. It is copied into each file."
+          + " Only used when the compression type supports dictionaries, which zstd does when zstd-jni is on the classpath."),
   TABLE_FILE_COMPRESSED_BLOCK_SIZE("table.file.compress.blocksize", "100K", PropertyType.MEMORY,
       "Similar to the hadoop io.seqfile.compress.blocksize setting, so that files have better query performance. The maximum value for this is "
           + Integer.MAX_VALUE + ". (This setting is the size threshold prior to compression, and applies even compression is disabled.)"),
@@ -370,6 +421,9 @@ public enum Property {
           + " (This setting is the size threshold prior to compression, and applies even compression is disabled.)"),
   TABLE_FILE_BLOCK_SIZE("table.file.blocksize", "0B", PropertyType.MEMORY,
       "Overrides the hadoop dfs.block.size setting so that files have better query performance. The maximum value for this is " + Integer.MAX_VALUE),
+  TABLE_FILE_BLOCK_SUMMARIES("table.file.summaries.enabled", "false", PropertyType.BOOLEAN,
+      "Store a summary of the column families, timestamps and deletes of each data block in the index of new files, so scans can skip blocks."
+          + " Files with summaries can not be read by versions that do not support them, so only enable this once every server has been upgraded."),
   TABLE_FILE_REPLICATION("table.file.replication", "0", PropertyType.COUNT, "Determines how many replicas to keep of a tables' files in HDFS. "
       + "When this value is LTE 0, HDFS defaults are used."),
   TABLE_FILE_MAX("table.file.max", "15", PropertyType.COUNT,
@@ -388,6 +442,13 @@ public enum Property {
           + ",org.apache.accumulo.core.file.keyfunctor.ColumnFamilyFunctor, and org.apache.accumulo.core.file.keyfunctor.ColumnQualifierFunctor are"
           + " allowable values. One can extend any of the above mentioned classes to perform specialized parsing of the key. "),
   TABLE_BLOOM_HASHTYPE("table.bloom.hash.type", "murmur", PropertyType.STRING, "The bloom filter hash type"),
+  TABLE_BLOOM_BLOCKED("table.bloom.blocked", "true", PropertyType.BOOLEAN,
+      "Write bloom filters whose bits for each key fall within one cache line, split into partitions by row that are read through the index cache "
+          + "as lookups need them instead of being loaded whole onto the heap. table.bloom.size does not apply to these filters, they are sized to "
+          + "the keys written. Set to false to write the older dynamic bloom filters. Files with either kind of filter can always be read."),
+  TABLE_BLOOM_PARTITION_SIZE("table.bloom.partition.size", "128K", PropertyType.MEMORY,
+      "The approximate size of each partition of a blocked bloom filter. Partitions only end between rows, so a partition may grow past this "
+          + "size when a single row has many distinct bloom filter keys."),
   TABLE_FAILURES_IGNORE("table.failures.ignore", "false", PropertyType.BOOLEAN,
       "If you want queries for your table to hang or fail when data is missing from the system, "
           + "then set this to false. When this set to true missing data will be reported but queries "
@@ -407,7 +468,15 @@ public enum Property {
           + "For example:\ntable.constraint.1 = org.apache.accumulo.core.constraints.MyCustomConstraint\n"
           + "and:\ntable.constraint.2 = my.package.constraints.MySecondConstraint"),
   TABLE_INDEXCACHE_ENABLED("table.cache.index.enable", "true", PropertyType.BOOLEAN, "Determines whether index cache is enabled."),
+  TABLE_SCAN_PREFETCH_BLOCKS("table.scan.prefetch.blocks", "0", PropertyType.COUNT,
+      "The number of file blocks to read in the background ahead of a scan, once it has read two blocks in a row without seeking. Helps long "
+          + "sequential scans that would otherwise wait on the file system for every block. Zero disables prefetching. The threads and memory used are "
+          + "limited by " + TSERV_PREFETCH_THREADS.getKey() + " and "
+          + TSERV_PREFETCH_MEMORY.getKey() + "."),
   TABLE_BLOCKCACHE_ENABLED("table.cache.block.enable", "false", PropertyType.BOOLEAN, "Determines whether file block cache is enabled."),
+  TABLE_FLAT_BLOCK_INDEX("table.cache.block.index.flat", "true", PropertyType.BOOLEAN,
+      "Determines how seeks within cached file blocks are indexed. When true, an index of every 16th key is built the first time a cached block is seeked "
+          + "into and is searched without creating objects. When false, an index of full keys is built and refined as the block is seeked into more often."),
   TABLE_ITERATOR_PREFIX("table.iterator.", null, PropertyType.PREFIX,
       "Properties in this category specify iterators that are applied at various stages (scopes) of interaction "
           + "with a table. These properties start with the category prefix, followed by a scope (minc, majc, scan, etc.), "
@@ -689,7 +758,7 @@ public enum Property {
   }
 
   private static final EnumSet<Property> fixedProperties = EnumSet.of(Property.TSERV_CLIENTPORT, Property.TSERV_NATIVEMAP_ENABLED,
-      Property.TSERV_SCAN_MAX_OPENFILES, Property.MASTER_CLIENTPORT, Property.GC_PORT);
+      Property.TSERV_OFFHEAPMAP_ENABLED, Property.TSERV_SCAN_MAX_OPENFILES, Property.MASTER_CLIENTPORT, Property.GC_PORT);
 
   /**
    * Checks if the given property may be changed via Zookeeper, but not recognized until the restart of some relevant daemon.
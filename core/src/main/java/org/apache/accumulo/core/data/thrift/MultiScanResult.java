@@ -58,6 +58,7 @@ import org.slf4j.LoggerFactory;
   private static final org.apache.thrift.protocol.TField PART_NEXT_KEY_FIELD_DESC = new org.apache.thrift.protocol.TField("partNextKey", org.apache.thrift.protocol.TType.STRUCT, (short)5);
   private static final org.apache.thrift.protocol.TField PART_NEXT_KEY_INCLUSIVE_FIELD_DESC = new org.apache.thrift.protocol.TField("partNextKeyInclusive", org.apache.thrift.protocol.TType.BOOL, (short)6);
   private static final org.apache.thrift.protocol.TField MORE_FIELD_DESC = new org.apache.thrift.protocol.TField("more", org.apache.thrift.protocol.TType.BOOL, (short)7);
+  private static final org.apache.thrift.protocol.TField PACKED_RESULTS_FIELD_DESC = new org.apache.thrift.protocol.TField("packedResults", org.apache.thrift.protocol.TType.STRING, (short)8);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -72,6 +73,7 @@ import org.slf4j.LoggerFactory;
   public TKey partNextKey; // required
   public boolean partNextKeyInclusive; // required
   public boolean more; // required
+  public ByteBuffer packedResults; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   @SuppressWarnings("all") public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -81,7 +83,8 @@ import org.slf4j.LoggerFactory;
     PART_SCAN((short)4, "partScan"),
     PART_NEXT_KEY((short)5, "partNextKey"),
     PART_NEXT_KEY_INCLUSIVE((short)6, "partNextKeyInclusive"),
-    MORE((short)7, "more");
+    MORE((short)7, "more"),
+    PACKED_RESULTS((short)8, "packedResults");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -110,6 +113,8 @@ import org.slf4j.LoggerFactory;
           return PART_NEXT_KEY_INCLUSIVE;
         case 7: // MORE
           return MORE;
+        case 8: // PACKED_RESULTS
+          return PACKED_RESULTS;
         default:
           return null;
       }
@@ -153,6 +158,7 @@ import org.slf4j.LoggerFactory;
   private static final int __PARTNEXTKEYINCLUSIVE_ISSET_ID = 0;
   private static final int __MORE_ISSET_ID = 1;
   private byte __isset_bitfield = 0;
+  private _Fields optionals[] = {_Fields.PACKED_RESULTS};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -172,6 +178,8 @@ import org.slf4j.LoggerFactory;
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
     tmpMap.put(_Fields.MORE, new org.apache.thrift.meta_data.FieldMetaData("more", org.apache.thrift.TFieldRequirementType.DEFAULT, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
+    tmpMap.put(_Fields.PACKED_RESULTS, new org.apache.thrift.meta_data.FieldMetaData("packedResults", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING        , true)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(MultiScanResult.class, metaDataMap);
   }
@@ -230,6 +238,9 @@ import org.slf4j.LoggerFactory;
     }
     this.partNextKeyInclusive = other.partNextKeyInclusive;
     this.more = other.more;
+    if (other.isSetPackedResults()) {
+      this.packedResults = org.apache.thrift.TBaseHelper.copyBinary(other.packedResults);
+    }
   }
 
   public MultiScanResult deepCopy() {
@@ -247,6 +258,7 @@ import org.slf4j.LoggerFactory;
     this.partNextKeyInclusive = false;
     setMoreIsSet(false);
     this.more = false;
+    this.packedResults = null;
   }
 
   public int getResultsSize() {
@@ -456,6 +468,40 @@ import org.slf4j.LoggerFactory;
     __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __MORE_ISSET_ID, value);
   }
 
+  public byte[] getPackedResults() {
+    setPackedResults(org.apache.thrift.TBaseHelper.rightSize(packedResults));
+    return packedResults == null ? null : packedResults.array();
+  }
+
+  public ByteBuffer bufferForPackedResults() {
+    return packedResults;
+  }
+
+  public MultiScanResult setPackedResults(byte[] packedResults) {
+    setPackedResults(packedResults == null ? (ByteBuffer)null : ByteBuffer.wrap(packedResults));
+    return this;
+  }
+
+  public MultiScanResult setPackedResults(ByteBuffer packedResults) {
+    this.packedResults = packedResults;
+    return this;
+  }
+
+  public void unsetPackedResults() {
+    this.packedResults = null;
+  }
+
+  /** Returns true if field packedResults is set (has been assigned a value) and false otherwise */
+  public boolean isSetPackedResults() {
+    return this.packedResults != null;
+  }
+
+  public void setPackedResultsIsSet(boolean value) {
+    if (!value) {
+      this.packedResults = null;
+    }
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case RESULTS:
@@ -514,6 +560,14 @@ import org.slf4j.LoggerFactory;
       }
       break;
 
+    case PACKED_RESULTS:
+      if (value == null) {
+        unsetPackedResults();
+      } else {
+        setPackedResults((ByteBuffer)value);
+      }
+      break;
+
     }
   }
 
@@ -540,6 +594,9 @@ import org.slf4j.LoggerFactory;
     case MORE:
       return Boolean.valueOf(isMore());
 
+    case PACKED_RESULTS:
+      return getPackedResults();
+
     }
     throw new IllegalStateException();
   }
@@ -565,6 +622,8 @@ import org.slf4j.LoggerFactory;
       return isSetPartNextKeyInclusive();
     case MORE:
       return isSetMore();
+    case PACKED_RESULTS:
+      return isSetPackedResults();
     }
     throw new IllegalStateException();
   }
@@ -645,6 +704,15 @@ import org.slf4j.LoggerFactory;
         return false;
     }
 
+    boolean this_present_packedResults = true && this.isSetPackedResults();
+    boolean that_present_packedResults = true && that.isSetPackedResults();
+    if (this_present_packedResults || that_present_packedResults) {
+      if (!(this_present_packedResults && that_present_packedResults))
+        return false;
+      if (!this.packedResults.equals(that.packedResults))
+        return false;
+    }
+
     return true;
   }
 
@@ -731,6 +799,16 @@ import org.slf4j.LoggerFactory;
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetPackedResults()).compareTo(other.isSetPackedResults());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetPackedResults()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.packedResults, other.packedResults);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -798,6 +876,16 @@ import org.slf4j.LoggerFactory;
     sb.append("more:");
     sb.append(this.more);
     first = false;
+    if (isSetPackedResults()) {
+      if (!first) sb.append(", ");
+      sb.append("packedResults:");
+      if (this.packedResults == null) {
+        sb.append("null");
+      } else {
+        org.apache.thrift.TBaseHelper.toString(this.packedResults, sb);
+      }
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -953,6 +1041,14 @@ import org.slf4j.LoggerFactory;
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 8: // PACKED_RESULTS
+            if (schemeField.type == org.apache.thrift.protocol.TType.STRING) {
+              struct.packedResults = iprot.readBinary();
+              struct.setPackedResultsIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -1028,6 +1124,13 @@ import org.slf4j.LoggerFactory;
       oprot.writeFieldBegin(MORE_FIELD_DESC);
       oprot.writeBool(struct.more);
       oprot.writeFieldEnd();
+      if (struct.packedResults != null) {
+        if (struct.isSetPackedResults()) {
+          oprot.writeFieldBegin(PACKED_RESULTS_FIELD_DESC);
+          oprot.writeBinary(struct.packedResults);
+          oprot.writeFieldEnd();
+        }
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -1067,7 +1170,10 @@ import org.slf4j.LoggerFactory;
       if (struct.isSetMore()) {
         optionals.set(6);
       }
-      oprot.writeBitSet(optionals, 7);
+      if (struct.isSetPackedResults()) {
+        optionals.set(7);
+      }
+      oprot.writeBitSet(optionals, 8);
       if (struct.isSetResults()) {
         {
           oprot.writeI32(struct.results.size());
@@ -1114,12 +1220,15 @@ import org.slf4j.LoggerFactory;
       if (struct.isSetMore()) {
         oprot.writeBool(struct.more);
       }
+      if (struct.isSetPackedResults()) {
+        oprot.writeBinary(struct.packedResults);
+      }
     }
 
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, MultiScanResult struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(7);
+      BitSet incoming = iprot.readBitSet(8);
       if (incoming.get(0)) {
         {
           org.apache.thrift.protocol.TList _list45 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRUCT, iprot.readI32());
@@ -1192,6 +1301,10 @@ import org.slf4j.LoggerFactory;
         struct.more = iprot.readBool();
         struct.setMoreIsSet(true);
       }
+      if (incoming.get(7)) {
+        struct.packedResults = iprot.readBinary();
+        struct.setPackedResultsIsSet(true);
+      }
     }
   }
 
@@ -53,6 +53,7 @@ import org.slf4j.LoggerFactory;
 
   private static final org.apache.thrift.protocol.TField RESULTS_FIELD_DESC = new org.apache.thrift.protocol.TField("results", org.apache.thrift.protocol.TType.LIST, (short)1);
   private static final org.apache.thrift.protocol.TField MORE_FIELD_DESC = new org.apache.thrift.protocol.TField("more", org.apache.thrift.protocol.TType.BOOL, (short)2);
+  private static final org.apache.thrift.protocol.TField PACKED_RESULTS_FIELD_DESC = new org.apache.thrift.protocol.TField("packedResults", org.apache.thrift.protocol.TType.STRING, (short)3);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -62,11 +63,13 @@ import org.slf4j.LoggerFactory;
 
   public List<TKeyValue> results; // required
   public boolean more; // required
+  public ByteBuffer packedResults; // optional
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   @SuppressWarnings("all") public enum _Fields implements org.apache.thrift.TFieldIdEnum {
     RESULTS((short)1, "results"),
-    MORE((short)2, "more");
+    MORE((short)2, "more"),
+    PACKED_RESULTS((short)3, "packedResults");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -85,6 +88,8 @@ import org.slf4j.LoggerFactory;
           return RESULTS;
         case 2: // MORE
           return MORE;
+        case 3: // PACKED_RESULTS
+          return PACKED_RESULTS;
         default:
           return null;
       }
@@ -127,6 +132,7 @@ import org.slf4j.LoggerFactory;
   // isset id assignments
   private static final int __MORE_ISSET_ID = 0;
   private byte __isset_bitfield = 0;
+  private _Fields optionals[] = {_Fields.PACKED_RESULTS};
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
     Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> tmpMap = new EnumMap<_Fields, org.apache.thrift.meta_data.FieldMetaData>(_Fields.class);
@@ -135,6 +141,8 @@ import org.slf4j.LoggerFactory;
             new org.apache.thrift.meta_data.StructMetaData(org.apache.thrift.protocol.TType.STRUCT, TKeyValue.class))));
     tmpMap.put(_Fields.MORE, new org.apache.thrift.meta_data.FieldMetaData("more", org.apache.thrift.TFieldRequirementType.DEFAULT, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.BOOL)));
+    tmpMap.put(_Fields.PACKED_RESULTS, new org.apache.thrift.meta_data.FieldMetaData("packedResults", org.apache.thrift.TFieldRequirementType.OPTIONAL, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING        , true)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(ScanResult.class, metaDataMap);
   }
@@ -165,6 +173,9 @@ import org.slf4j.LoggerFactory;
       this.results = __this__results;
     }
     this.more = other.more;
+    if (other.isSetPackedResults()) {
+      this.packedResults = org.apache.thrift.TBaseHelper.copyBinary(other.packedResults);
+    }
   }
 
   public ScanResult deepCopy() {
@@ -176,6 +187,7 @@ import org.slf4j.LoggerFactory;
     this.results = null;
     setMoreIsSet(false);
     this.more = false;
+    this.packedResults = null;
   }
 
   public int getResultsSize() {
@@ -240,6 +252,40 @@ import org.slf4j.LoggerFactory;
     __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __MORE_ISSET_ID, value);
   }
 
+  public byte[] getPackedResults() {
+    setPackedResults(org.apache.thrift.TBaseHelper.rightSize(packedResults));
+    return packedResults == null ? null : packedResults.array();
+  }
+
+  public ByteBuffer bufferForPackedResults() {
+    return packedResults;
+  }
+
+  public ScanResult setPackedResults(byte[] packedResults) {
+    setPackedResults(packedResults == null ? (ByteBuffer)null : ByteBuffer.wrap(packedResults));
+    return this;
+  }
+
+  public ScanResult setPackedResults(ByteBuffer packedResults) {
+    this.packedResults = packedResults;
+    return this;
+  }
+
+  public void unsetPackedResults() {
+    this.packedResults = null;
+  }
+
+  /** Returns true if field packedResults is set (has been assigned a value) and false otherwise */
+  public boolean isSetPackedResults() {
+    return this.packedResults != null;
+  }
+
+  public void setPackedResultsIsSet(boolean value) {
+    if (!value) {
+      this.packedResults = null;
+    }
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case RESULTS:
@@ -258,6 +304,14 @@ import org.slf4j.LoggerFactory;
       }
       break;
 
+    case PACKED_RESULTS:
+      if (value == null) {
+        unsetPackedResults();
+      } else {
+        setPackedResults((ByteBuffer)value);
+      }
+      break;
+
     }
   }
 
@@ -269,6 +323,9 @@ import org.slf4j.LoggerFactory;
     case MORE:
       return Boolean.valueOf(isMore());
 
+    case PACKED_RESULTS:
+      return getPackedResults();
+
     }
     throw new IllegalStateException();
   }
@@ -284,6 +341,8 @@ import org.slf4j.LoggerFactory;
       return isSetResults();
     case MORE:
       return isSetMore();
+    case PACKED_RESULTS:
+      return isSetPackedResults();
     }
     throw new IllegalStateException();
   }
@@ -319,6 +378,15 @@ import org.slf4j.LoggerFactory;
         return false;
     }
 
+    boolean this_present_packedResults = true && this.isSetPackedResults();
+    boolean that_present_packedResults = true && that.isSetPackedResults();
+    if (this_present_packedResults || that_present_packedResults) {
+      if (!(this_present_packedResults && that_present_packedResults))
+        return false;
+      if (!this.packedResults.equals(that.packedResults))
+        return false;
+    }
+
     return true;
   }
 
@@ -355,6 +423,16 @@ import org.slf4j.LoggerFactory;
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetPackedResults()).compareTo(other.isSetPackedResults());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetPackedResults()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.packedResults, other.packedResults);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -386,6 +464,16 @@ import org.slf4j.LoggerFactory;
     sb.append("more:");
     sb.append(this.more);
     first = false;
+    if (isSetPackedResults()) {
+      if (!first) sb.append(", ");
+      sb.append("packedResults:");
+      if (this.packedResults == null) {
+        sb.append("null");
+      } else {
+        org.apache.thrift.TBaseHelper.toString(this.packedResults, sb);
+      }
+      first = false;
+    }
     sb.append(")");
     return sb.toString();
   }
@@ -458,6 +546,14 @@ import org.slf4j.LoggerFactory;
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 3: // PACKED_RESULTS
+            if (schemeField.type == org.apache.thrift.protocol.TType.STRING) {
+              struct.packedResults = iprot.readBinary();
+              struct.setPackedResultsIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -488,6 +584,13 @@ import org.slf4j.LoggerFactory;
       oprot.writeFieldBegin(MORE_FIELD_DESC);
       oprot.writeBool(struct.more);
       oprot.writeFieldEnd();
+      if (struct.packedResults != null) {
+        if (struct.isSetPackedResults()) {
+          oprot.writeFieldBegin(PACKED_RESULTS_FIELD_DESC);
+          oprot.writeBinary(struct.packedResults);
+          oprot.writeFieldEnd();
+        }
+      }
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -512,7 +615,10 @@ import org.slf4j.LoggerFactory;
       if (struct.isSetMore()) {
         optionals.set(1);
       }
-      oprot.writeBitSet(optionals, 2);
+      if (struct.isSetPackedResults()) {
+        optionals.set(2);
+      }
+      oprot.writeBitSet(optionals, 3);
       if (struct.isSetResults()) {
         {
           oprot.writeI32(struct.results.size());
@@ -525,12 +631,15 @@ import org.slf4j.LoggerFactory;
       if (struct.isSetMore()) {
         oprot.writeBool(struct.more);
       }
+      if (struct.isSetPackedResults()) {
+        oprot.writeBinary(struct.packedResults);
+      }
     }
 
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, ScanResult struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(2);
+      BitSet incoming = iprot.readBitSet(3);
       if (incoming.get(0)) {
         {
           org.apache.thrift.protocol.TList _list21 = new org.apache.thrift.protocol.TList(org.apache.thrift.protocol.TType.STRUCT, iprot.readI32());
@@ -549,6 +658,10 @@ import org.slf4j.LoggerFactory;
         struct.more = iprot.readBool();
         struct.setMoreIsSet(true);
       }
+      if (incoming.get(2)) {
+        struct.packedResults = iprot.readBinary();
+        struct.setPackedResultsIsSet(true);
+      }
     }
   }
 
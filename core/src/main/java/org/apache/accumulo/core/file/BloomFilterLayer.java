@@ -26,6 +26,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Random;
@@ -71,6 +72,55 @@ public class BloomFilterLayer {
   
   private static ExecutorService loadThreadPool = null;
   
+  // bloom filters of open files, shared by every open reader of the same file. An entry is dropped when the last reader of its file closes, so the
+  // filters of files that were compacted away or deleted are not kept.
+  private static final Map<String,SharedBloomFilter> sharedBloomFilters = new HashMap<String,SharedBloomFilter>();
+  
+  private static class SharedBloomFilter {
+    // guarded by sharedBloomFilters
+    int references = 0;
+    volatile LoadedBloomFilter loaded = null;
+  }
+  
+  private static class LoadedBloomFilter {
+    final KeyFunctor transformer;
+    final DynamicBloomFilter bloomFilter;
+    final PartitionedBloomFilter partitionedFilter;
+    
+    LoadedBloomFilter(KeyFunctor transformer, DynamicBloomFilter bloomFilter, PartitionedBloomFilter partitionedFilter) {
+      this.transformer = transformer;
+      this.bloomFilter = bloomFilter;
+      this.partitionedFilter = partitionedFilter;
+    }
+  }
+  
+  private static SharedBloomFilter reference(String file) {
+    synchronized (sharedBloomFilters) {
+      SharedBloomFilter shared = sharedBloomFilters.get(file);
+      if (shared == null)
+        sharedBloomFilters.put(file, shared = new SharedBloomFilter());
+      shared.references++;
+      return shared;
+    }
+  }
+  
+  private static void release(String file) {
+    synchronized (sharedBloomFilters) {
+      SharedBloomFilter shared = sharedBloomFilters.get(file);
+      if (shared != null && --shared.references == 0)
+        sharedBloomFilters.remove(file);
+    }
+  }
+  
+  /**
+   * @return the number of files whose bloom filter is shared by open readers
+   */
+  static int getSharedBloomFilterCount() {
+    synchronized (sharedBloomFilters) {
+      return sharedBloomFilters.size();
+    }
+  }
+  
   private static synchronized ExecutorService getLoadThreadPool(int maxLoadThreads) {
     if (loadThreadPool != null) {
       return loadThreadPool;
@@ -86,6 +136,7 @@ public class BloomFilterLayer {
   
   public static class Writer implements FileSKVWriter {
     private DynamicBloomFilter bloomFilter;
+    private PartitionedBloomFilter.Writer partitionedFilter;
     private int numKeys;
     private int vectorSize;
     
@@ -107,8 +158,13 @@ public class BloomFilterLayer {
       // max. error rate.
       // Our desired error rate is by default 0.005, i.e. 0.5%
       double errorRate = acuconf.getFraction(Property.TABLE_BLOOM_ERRORRATE);
-      vectorSize = (int) Math.ceil(-HASH_COUNT * numKeys / Math.log(1.0 - Math.pow(errorRate, 1.0 / HASH_COUNT)));
-      bloomFilter = new DynamicBloomFilter(vectorSize, HASH_COUNT, Hash.parseHashType(acuconf.get(Property.TABLE_BLOOM_HASHTYPE)), numKeys);
+      if (acuconf.getBoolean(Property.TABLE_BLOOM_BLOCKED)) {
+        partitionedFilter = new PartitionedBloomFilter.Writer(Hash.parseHashType(acuconf.get(Property.TABLE_BLOOM_HASHTYPE)), errorRate,
+            acuconf.getMemoryInBytes(Property.TABLE_BLOOM_PARTITION_SIZE));
+      } else {
+        vectorSize = (int) Math.ceil(-HASH_COUNT * numKeys / Math.log(1.0 - Math.pow(errorRate, 1.0 / HASH_COUNT)));
+        bloomFilter = new DynamicBloomFilter(vectorSize, HASH_COUNT, Hash.parseHashType(acuconf.get(Property.TABLE_BLOOM_HASHTYPE)), numKeys);
+      }
       
       /**
        * load KeyFunctor
@@ -136,8 +192,12 @@ public class BloomFilterLayer {
     public synchronized void append(org.apache.accumulo.core.data.Key key, Value val) throws IOException {
       writer.append(key, val);
       Key bloomKey = transformer.transform(key);
-      if (bloomKey.getBytes().length > 0)
-        bloomFilter.add(bloomKey);
+      if (bloomKey.getBytes().length > 0) {
+        if (partitionedFilter != null)
+          partitionedFilter.add(key, bloomKey.getBytes());
+        else
+          bloomFilter.add(bloomKey);
+      }
     }
     
     @Override
@@ -146,11 +206,17 @@ public class BloomFilterLayer {
       if (closed)
         return;
       
-      DataOutputStream out = writer.createMetaStore(BLOOM_FILE_NAME);
-      out.writeUTF(transformer.getClass().getName());
-      bloomFilter.write(out);
-      out.flush();
-      out.close();
+      if (partitionedFilter != null) {
+        DataOutputStream out = writer.createMetaStore(PartitionedBloomFilter.BLOOM_FILE_NAME);
+        out.writeUTF(transformer.getClass().getName());
+        partitionedFilter.write(out, writer);
+      } else {
+        DataOutputStream out = writer.createMetaStore(BLOOM_FILE_NAME);
+        out.writeUTF(transformer.getClass().getName());
+        bloomFilter.write(out);
+        out.flush();
+        out.close();
+      }
       writer.close();
       closed = true;
     }
@@ -163,12 +229,15 @@ public class BloomFilterLayer {
     @Override
     public void startDefaultLocalityGroup() throws IOException {
       writer.startDefaultLocalityGroup();
-      
+      if (partitionedFilter != null)
+        partitionedFilter.startRun();
     }
     
     @Override
     public void startNewLocalityGroup(String name, Set<ByteSequence> columnFamilies) throws IOException {
       writer.startNewLocalityGroup(name, columnFamilies);
+      if (partitionedFilter != null)
+        partitionedFilter.startRun();
     }
     
     @Override
@@ -180,17 +249,34 @@ public class BloomFilterLayer {
   static class BloomFilterLoader {
     
     private volatile DynamicBloomFilter bloomFilter;
+    private volatile PartitionedBloomFilter partitionedFilter;
+    private final FileSKVIterator reader;
     private int loadRequest = 0;
     private int loadThreshold = 1;
     private int maxLoadThreads;
     private Runnable loadTask;
     private volatile KeyFunctor transformer = null;
     private volatile boolean closed = false;
+    private final String file;
+    private final SharedBloomFilter shared;
     
-    BloomFilterLoader(final FileSKVIterator reader, AccumuloConfiguration acuconf) {
+    BloomFilterLoader(final FileSKVIterator reader, final String file, AccumuloConfiguration acuconf) {
       
+      this.reader = reader;
+      this.file = file;
+      this.shared = file == null ? null : reference(file);
       maxLoadThreads = acuconf.getCount(Property.TSERV_BLOOM_LOAD_MAXCONCURRENT);
       
+      if (shared != null) {
+        LoadedBloomFilter loaded = shared.loaded;
+        if (loaded != null) {
+          transformer = loaded.transformer;
+          bloomFilter = loaded.bloomFilter;
+          partitionedFilter = loaded.partitionedFilter;
+          return;
+        }
+      }
+      
       loadThreshold = acuconf.getCount(Property.TABLE_BLOOM_LOAD_THRESHOLD);
       
       final String context = acuconf.get(Property.TABLE_CLASSPATH);
@@ -206,7 +292,14 @@ public class BloomFilterLayer {
           DataInputStream in = null;
           
           try {
-            in = reader.getMetaStore(BLOOM_FILE_NAME);
+            boolean partitioned = true;
+            try {
+              in = reader.getMetaStore(PartitionedBloomFilter.BLOOM_FILE_NAME);
+            } catch (NoSuchMetaStoreException nsme) {
+              // written with the older format, or without a bloom filter
+              partitioned = false;
+              in = reader.getMetaStore(BLOOM_FILE_NAME);
+            }
             DynamicBloomFilter tmpBloomFilter = new DynamicBloomFilter();
             
             // check for closed again after open but before reading the bloom filter in
@@ -225,6 +318,15 @@ public class BloomFilterLayer {
               clazz = AccumuloVFSClassLoader.loadClass(ClassName, KeyFunctor.class);
             transformer = clazz.newInstance();
             
+            if (partitioned) {
+              // only the partition boundaries are read here, partitions are read as lookups need them
+              PartitionedBloomFilter tmpPartitionedFilter = PartitionedBloomFilter.read(in, transformer);
+              partitionedFilter = tmpPartitionedFilter;
+              if (shared != null)
+                shared.loaded = new LoadedBloomFilter(transformer, null, tmpPartitionedFilter);
+              return;
+            }
+            
             /**
              * read in bloom filter
              */
@@ -232,6 +334,8 @@ public class BloomFilterLayer {
             tmpBloomFilter.readFields(in);
             // only set the bloom filter after it is fully constructed
             bloomFilter = tmpBloomFilter;
+            if (shared != null)
+              shared.loaded = new LoadedBloomFilter(transformer, tmpBloomFilter, null);
           } catch (NoSuchMetaStoreException nsme) {
             // file does not have a bloom filter, ignore it
           } catch (IOException ioe) {
@@ -303,8 +407,17 @@ public class BloomFilterLayer {
      * @throws IOException
      */
     boolean probablyHasKey(Range range) throws IOException {
+      PartitionedBloomFilter pbf = partitionedFilter;
+      if (pbf != null) {
+        if (closed)
+          return true;
+        return pbf.probablyHasKey(reader, range);
+      }
+      
       if (bloomFilter == null) {
         initiateLoad(maxLoadThreads);
+        if (partitionedFilter != null)
+          return probablyHasKey(range);
         if (bloomFilter == null)
           return true;
       }
@@ -318,7 +431,14 @@ public class BloomFilterLayer {
     }
     
     public void close() {
-      this.closed = true;
+      boolean wasClosed;
+      synchronized (this) {
+        wasClosed = closed;
+        closed = true;
+      }
+      // deep copies share this loader and may close it too
+      if (!wasClosed && file != null)
+        release(file);
     }
   }
   
@@ -328,8 +448,16 @@ public class BloomFilterLayer {
     private FileSKVIterator reader;
     
     public Reader(FileSKVIterator reader, AccumuloConfiguration acuconf) {
+      this(reader, null, acuconf);
+    }
+    
+    /**
+     * @param file
+     *          the file being read, so its bloom filter can be shared with other readers of the file; may be null
+     */
+    public Reader(FileSKVIterator reader, String file, AccumuloConfiguration acuconf) {
       this.reader = reader;
-      bfl = new BloomFilterLoader(reader, acuconf);
+      bfl = new BloomFilterLoader(reader, file, acuconf);
     }
     
     private Reader(FileSKVIterator src, BloomFilterLoader bfl) {
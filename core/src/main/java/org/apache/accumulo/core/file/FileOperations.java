@@ -118,7 +118,7 @@ class DispatchingFileFactory extends FileOperations {
     
     FileSKVIterator iter = findFileFactory(file).openReader(file, seekToBeginning, fs, conf, acuconf, dataCache, indexCache);
     if (acuconf.getBoolean(Property.TABLE_BLOOM_ENABLED)) {
-      return new BloomFilterLayer.Reader(iter, acuconf);
+      return new BloomFilterLayer.Reader(iter, file, acuconf);
     }
     return iter;
   }
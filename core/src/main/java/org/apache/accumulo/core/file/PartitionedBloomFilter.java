@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.accumulo.core.bloomfilter.BlockedBloomFilter;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.file.blockfile.ABlockReader;
+import org.apache.accumulo.core.file.keyfunctor.KeyFunctor;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.util.bloom.Key;
+import org.apache.hadoop.util.hash.Hash;
+
+/**
+ * A bloom filter for a file that is split into partitions by row, each partition a {@link BlockedBloomFilter} stored in its own meta block. The header meta
+ * block only holds the first row of each partition, so opening the filter is cheap and a lookup reads just the partition covering its row. Partition meta
+ * blocks are read through the file's index cache when it has one and tested in place there, so their memory is bounded and accounted for by the cache.
+ * <p>
+ * Keys are only sorted within a locality group, so each locality group starts a new run of partitions and a lookup probes one partition per run.
+ */
+class PartitionedBloomFilter {
+
+  static final String BLOOM_FILE_NAME = "acu_bloom_blocked";
+  private static final int VERSION = 1;
+
+  // do not probe more partitions than this for a range the key functor maps to a single bloom key, just assume the key is there
+  private static final int MAX_PROBES = 8;
+
+  private static String partitionName(int partition) {
+    return BLOOM_FILE_NAME + "." + partition;
+  }
+
+  static class Writer {
+    private final int hashType;
+    private final Hash hash;
+    private final double errorRate;
+    private final int keysPerPartition;
+
+    private final List<BlockedBloomFilter> partitions = new ArrayList<BlockedBloomFilter>();
+    private final List<byte[]> firstRows = new ArrayList<byte[]>();
+    private final List<Boolean> runStarts = new ArrayList<Boolean>();
+
+    // hashes of the keys in the partition being built, the filter is sized once the partition is complete
+    private long[] hashes = new long[1024];
+    private int numKeys = 0;
+    private byte[] firstRow;
+    private ArrayByteSequence lastRow;
+    private byte[] lastBloomKey;
+    private boolean startRun = true;
+
+    Writer(int hashType, double errorRate, long partitionSize) {
+      this.hashType = hashType;
+      this.hash = Hash.getInstance(hashType);
+      this.errorRate = errorRate;
+      this.keysPerPartition = (int) Math.max(1, Math.min(Integer.MAX_VALUE / 2, partitionSize * 8 / BlockedBloomFilter.bitsPerKey(errorRate)));
+    }
+
+    /**
+     * Called when a new locality group starts, since keys may go back to an earlier row.
+     */
+    void startRun() {
+      finishPartition();
+      startRun = true;
+      lastRow = null;
+      lastBloomKey = null;
+    }
+
+    void add(org.apache.accumulo.core.data.Key key, byte[] bloomKey) {
+      ByteSequence row = key.getRowData();
+      if (lastRow == null || row.compareTo(lastRow) != 0) {
+        // partitions only end between rows, so a lookup for a row only needs one of them
+        if (numKeys >= keysPerPartition)
+          finishPartition();
+        lastRow = new ArrayByteSequence(row.toArray());
+        if (numKeys == 0)
+          firstRow = lastRow.toArray();
+      }
+
+      // consecutive keys often map to the same bloom key, such as every column of a row with the row functor
+      if (lastBloomKey != null && Arrays.equals(lastBloomKey, bloomKey))
+        return;
+      lastBloomKey = bloomKey;
+
+      if (numKeys == hashes.length)
+        hashes = Arrays.copyOf(hashes, hashes.length * 2);
+      hashes[numKeys++] = BlockedBloomFilter.hash(hash, bloomKey);
+    }
+
+    private void finishPartition() {
+      if (numKeys == 0)
+        return;
+
+      BlockedBloomFilter filter = new BlockedBloomFilter(numKeys, errorRate);
+      for (int i = 0; i < numKeys; i++)
+        filter.add(hashes[i]);
+
+      partitions.add(filter);
+      firstRows.add(firstRow);
+      runStarts.add(startRun);
+
+      startRun = false;
+      numKeys = 0;
+      if (hashes.length > keysPerPartition * 2)
+        hashes = new long[1024];
+    }
+
+    /**
+     * Writes the header, after the caller has written the key functor's class name to it, and then every partition to its own meta block.
+     */
+    void write(DataOutputStream header, FileSKVWriter writer) throws IOException {
+      finishPartition();
+
+      header.writeInt(VERSION);
+      header.writeInt(hashType);
+      header.writeInt(partitions.size());
+      for (int i = 0; i < partitions.size(); i++) {
+        header.writeBoolean(runStarts.get(i));
+        WritableUtils.writeVInt(header, firstRows.get(i).length);
+        header.write(firstRows.get(i));
+      }
+      header.close();
+
+      for (int i = 0; i < partitions.size(); i++) {
+        DataOutputStream out = writer.createMetaStore(partitionName(i));
+        partitions.get(i).write(out);
+        out.close();
+      }
+    }
+  }
+
+  private final KeyFunctor transformer;
+  private final Hash hash;
+  private final ArrayByteSequence[] firstRows;
+  // the first partition of each run, followed by the number of partitions
+  private final int[] runs;
+  // partitions read onto the heap because the file had no index cache to keep them in
+  private final AtomicReferenceArray<BlockedBloomFilter> loaded;
+
+  private PartitionedBloomFilter(KeyFunctor transformer, int hashType, ArrayByteSequence[] firstRows, int[] runs) {
+    this.transformer = transformer;
+    this.hash = Hash.getInstance(hashType);
+    this.firstRows = firstRows;
+    this.runs = runs;
+    this.loaded = new AtomicReferenceArray<BlockedBloomFilter>(firstRows.length);
+  }
+
+  /**
+   * Reads the header, after the caller has read the key functor's class name from it.
+   */
+  static PartitionedBloomFilter read(DataInput in, KeyFunctor transformer) throws IOException {
+    int version = in.readInt();
+    if (version != VERSION)
+      throw new IOException("Unknown partitioned bloom filter version " + version);
+
+    int hashType = in.readInt();
+    if (Hash.getInstance(hashType) == null)
+      throw new IOException("Unknown bloom filter hash type " + hashType);
+
+    int numPartitions = in.readInt();
+    ArrayByteSequence[] firstRows = new ArrayByteSequence[numPartitions];
+    ArrayList<Integer> runStarts = new ArrayList<Integer>();
+    for (int i = 0; i < numPartitions; i++) {
+      if (in.readBoolean())
+        runStarts.add(i);
+      byte[] row = new byte[WritableUtils.readVInt(in)];
+      in.readFully(row);
+      firstRows[i] = new ArrayByteSequence(row);
+    }
+
+    int[] runs = new int[runStarts.size() + 1];
+    for (int i = 0; i < runStarts.size(); i++)
+      runs[i] = runStarts.get(i);
+    runs[runStarts.size()] = numPartitions;
+
+    return new PartitionedBloomFilter(transformer, hashType, firstRows, runs);
+  }
+
+  KeyFunctor getTransformer() {
+    return transformer;
+  }
+
+  /**
+   * @return the last partition in [start, end) whose first row is not after the row, or start - 1 if every partition starts after it
+   */
+  private int findPartition(int start, int end, ByteSequence row) {
+    int low = start;
+    int high = end - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      if (firstRows[mid].compareTo(row) <= 0)
+        low = mid + 1;
+      else
+        high = mid - 1;
+    }
+    return high;
+  }
+
+  /**
+   * @param file
+   *          the file to read partitions from, must be the file the filter was read from
+   * @return false iff no key in the range was added to the filter
+   */
+  boolean probablyHasKey(FileSKVIterator file, Range range) throws IOException {
+    Key bloomKey = transformer.transform(range);
+
+    if (bloomKey == null || bloomKey.getBytes().length == 0 || range.getStartKey() == null || range.getEndKey() == null)
+      return true;
+
+    ByteSequence startRow = range.getStartKey().getRowData();
+    ByteSequence endRow = range.getEndKey().getRowData();
+    long h = BlockedBloomFilter.hash(hash, bloomKey.getBytes());
+
+    for (int r = 0; r + 1 < runs.length; r++) {
+      int first = Math.max(runs[r], findPartition(runs[r], runs[r + 1], startRow));
+      int last = findPartition(runs[r], runs[r + 1], endRow);
+
+      if (last - first >= MAX_PROBES)
+        return true;
+
+      for (int p = first; p <= last; p++)
+        if (getPartition(file, p).membershipTest(h))
+          return true;
+    }
+
+    return false;
+  }
+
+  private BlockedBloomFilter getPartition(FileSKVIterator file, int partition) throws IOException {
+    BlockedBloomFilter filter = loaded.get(partition);
+    if (filter != null)
+      return filter;
+
+    DataInputStream in = file.getMetaStore(partitionName(partition));
+    try {
+      if (in instanceof ABlockReader) {
+        ByteBuffer buffer = ((ABlockReader) in).getBuffer();
+        // the partition is held by the index cache, test it there rather than keep another copy
+        if (buffer != null)
+          return new BlockedBloomFilter(buffer);
+      }
+
+      filter = BlockedBloomFilter.read(in);
+      loaded.set(partition, filter);
+      return filter;
+    } finally {
+      in.close();
+    }
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.accumulo.core.file.blockfile;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /*
  * Minimal interface to read a block from a 
@@ -50,4 +51,12 @@ public interface ABlockReader extends DataInput {
   int getPosition();
 
   <T> T getIndex(Class<T> clazz);
+
+  /**
+   * Get the whole decompressed block as a buffer, for readers that want to decode it in place. The buffer shares its content with this block reader, but has
+   * its own position, which readers must keep in sync with {@link #getPosition()} and {@link #seek(int)}.
+   *
+   * @return a read only buffer over the block, or null if the block is not held in memory
+   */
+  ByteBuffer getBuffer();
 }
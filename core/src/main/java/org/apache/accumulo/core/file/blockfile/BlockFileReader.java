@@ -38,4 +38,10 @@ public interface BlockFileReader {
   
   ABlockReader getDataBlock(long offset, long compressedSize, long rawSize) throws IOException;
   
+  /**
+   * Starts reading a data block in the background, so a later {@link #getDataBlock(long, long, long)} for it does not have to wait on the file system. Does
+   * nothing if the reader does not support prefetching or has no resources to spare.
+   */
+  void prefetchDataBlock(long offset, long compressedSize, long rawSize);
+  
 }
@@ -19,6 +19,8 @@
  */
 package org.apache.accumulo.core.file.blockfile.cache;
 
+import org.apache.accumulo.core.file.blockfile.cache.LruBlockCache.CacheStats;
+
 /**
  * Block cache interface.
  */
@@ -65,4 +67,11 @@ public interface BlockCache {
    * @return max size in bytes
    */
   long getMaxSize();
+  
+  /**
+   * Get counter statistics for this cache.
+   * 
+   * @return hit, miss and eviction counts
+   */
+  CacheStats getStats();
 }
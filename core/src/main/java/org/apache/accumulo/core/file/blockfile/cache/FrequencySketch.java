@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+/**
+ * A count-min sketch of 4-bit counters used to estimate how often a block was requested recently.
+ * <p>
+ *
+ * Each item maps to one counter in each of four rows, and its frequency is the minimum of those counters. Counters saturate at 15. Once the number of
+ * increments reaches ten times the expected number of items, all counters are halved so that the sketch ages out blocks that were popular in the past.
+ * <p>
+ *
+ * Not thread safe, callers must synchronize.
+ */
+class FrequencySketch {
+
+  private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final long sampleSize;
+  private long size;
+
+  /**
+   * @param expectedItems
+   *          approximate number of distinct items the cache holds
+   */
+  FrequencySketch(long expectedItems) {
+    int items = (int) Math.max(16, Math.min(expectedItems, 1 << 28));
+    // each long holds sixteen counters, one for every item in four rows
+    int tableSize = Integer.highestOneBit(items - 1) << 1;
+    table = new long[tableSize];
+    tableMask = tableSize - 1;
+    sampleSize = 10L * items;
+  }
+
+  private static int spread(int hash) {
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+    return (hash >>> 16) ^ hash;
+  }
+
+  private int indexOf(int hash, int row) {
+    long h = (hash + SEEDS[row]) * SEEDS[row];
+    h += h >>> 32;
+    return ((int) h) & tableMask;
+  }
+
+  private static int offsetOf(int hash, int row) {
+    // every row uses its own group of four counters within a long
+    return (((hash >>> (row << 3)) & 3) + (row << 2)) << 2;
+  }
+
+  /**
+   * @return the estimated number of recent occurrences of the item, between 0 and 15
+   */
+  int frequency(Object item) {
+    int hash = spread(item.hashCode());
+    int frequency = Integer.MAX_VALUE;
+    for (int row = 0; row < 4; row++) {
+      long count = (table[indexOf(hash, row)] >>> offsetOf(hash, row)) & 0xfL;
+      frequency = Math.min(frequency, (int) count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an occurrence of the item.
+   */
+  void increment(Object item) {
+    int hash = spread(item.hashCode());
+    boolean added = false;
+    for (int row = 0; row < 4; row++) {
+      int index = indexOf(hash, row);
+      int offset = offsetOf(hash, row);
+      if (((table[index] >>> offset) & 0xfL) != 0xfL) {
+        table[index] += 1L << offset;
+        added = true;
+      }
+    }
+
+    if (added && ++size == sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Halves every counter.
+   */
+  private void reset() {
+    for (int i = 0; i < table.length; i++) {
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    size = size >>> 1;
+  }
+}
@@ -581,6 +581,7 @@ public class LruBlockCache implements BlockCache, HeapSize {
    * <p>
    * Includes: total accesses, hits, misses, evicted blocks, and runs of the eviction processes.
    */
+  @Override
   public CacheStats getStats() {
     return this.stats;
   }
@@ -592,6 +593,7 @@ public class LruBlockCache implements BlockCache, HeapSize {
     private final AtomicLong evictionCount = new AtomicLong(0);
     private final AtomicLong evictedCount = new AtomicLong(0);
     private final AtomicLong duplicateReads = new AtomicLong(0);
+    private final AtomicLong admissionRejectedCount = new AtomicLong(0);
     
     public void miss() {
       missCount.incrementAndGet();
@@ -615,6 +617,10 @@ public class LruBlockCache implements BlockCache, HeapSize {
       evictedCount.incrementAndGet();
     }
     
+    public void admissionRejected() {
+      admissionRejectedCount.incrementAndGet();
+    }
+    
     public long getRequestCount() {
       return accessCount.get();
     }
@@ -639,6 +645,13 @@ public class LruBlockCache implements BlockCache, HeapSize {
       return evictedCount.get();
     }
     
+    /**
+     * Get the number of blocks an admission policy refused to keep in favor of more frequently used blocks. Always zero for caches without an admission policy.
+     */
+    public long getAdmissionRejectedCount() {
+      return admissionRejectedCount.get();
+    }
+    
     public double getHitRatio() {
       return ((float) getHitCount() / (float) getRequestCount());
     }
@@ -23,6 +23,8 @@ import java.lang.ref.SoftReference;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.accumulo.core.file.blockfile.cache.LruBlockCache.CacheStats;
+
 /**
  * Simple one RFile soft reference cache.
  */
@@ -68,6 +70,8 @@ public class SimpleBlockCache implements BlockCache {
   private ReferenceQueue<SimpleCacheEntry> q = new ReferenceQueue<SimpleCacheEntry>();
   public int dumps = 0;
   
+  private final CacheStats stats = new CacheStats();
+  
   /**
    * Constructor
    */
@@ -94,9 +98,12 @@ public class SimpleBlockCache implements BlockCache {
   public synchronized SimpleCacheEntry getBlock(String blockName) {
     processQueue(); // clear out some crap.
     Ref ref = cache.get(blockName);
-    if (ref == null)
-      return null;
-    return ref.get();
+    SimpleCacheEntry sce = ref == null ? null : ref.get();
+    if (sce == null)
+      stats.miss();
+    else
+      stats.hit();
+    return sce;
   }
   
   public synchronized SimpleCacheEntry cacheBlock(String blockName, byte buf[]) {
@@ -119,4 +126,9 @@ public class SimpleBlockCache implements BlockCache {
   public long getMaxSize() {
     return Long.MAX_VALUE;
   }
+  
+  @Override
+  public CacheStats getStats() {
+    return stats;
+  }
 }
@@ -0,0 +1,420 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.file.blockfile.cache.LruBlockCache.CacheStats;
+import org.apache.accumulo.core.util.NamingThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A block cache that keeps block contents outside of the java heap, in direct {@link ByteBuffer} slabs.
+ * <p>
+ *
+ * The cache memory is divided into fixed size slabs which are lazily allocated and handed to size classes on demand. Each size class carves its slabs into
+ * equally sized slots (a power of two between {@link #MIN_SLOT_SIZE} and the largest block size the cache was configured for) and stores one block per slot.
+ * Blocks larger than the largest slot are not cached. Once all slabs are in use, a size class evicts its own least-recently-used blocks to make room. A size
+ * class that has no slabs at all may take a slab away from the size class holding the most slabs, evicting every block stored in it.
+ * <p>
+ *
+ * Only the block contents live off-heap. The per block bookkeeping, including any index object attached with {@link CacheEntry#setIndex(Object)}, stays on the
+ * heap. A cache hit copies the block into a new heap array, so the copy is short lived and does not add to the old generation the way long lived cached
+ * arrays do. Direct memory is bounded by {@code -XX:MaxDirectMemorySize}, which must be large enough to hold every off-heap cache in the process.
+ */
+public class SlabBlockCache implements BlockCache {
+
+  static final Log LOG = LogFactory.getLog(SlabBlockCache.class);
+
+  /** Smallest slot handed out by the cache */
+  static final int MIN_SLOT_SIZE = 4 * 1024;
+
+  /** Largest slot handed out by the cache */
+  static final int MAX_SLOT_SIZE = 1 << 28;
+
+  /** Number of largest size slots that fit in one slab */
+  static final int SLOTS_PER_SLAB = 4;
+
+  /** Statistics thread */
+  static final int statThreadPeriod = 60;
+
+  private final ConcurrentHashMap<String,SlabBlock> map = new ConcurrentHashMap<String,SlabBlock>();
+
+  private final SlabClass[] classes;
+
+  /** Slabs that were allocated, but are not currently owned by any size class */
+  private final ConcurrentLinkedQueue<ByteBuffer> freeSlabs = new ConcurrentLinkedQueue<ByteBuffer>();
+
+  /** Number of slabs that have not been allocated yet */
+  private final AtomicInteger unallocatedSlabs;
+
+  /** Serializes moving slabs between size classes */
+  private final Object rebalanceLock = new Object();
+
+  private final AtomicLong size = new AtomicLong(0);
+  private final AtomicLong elements = new AtomicLong(0);
+
+  private final CacheStats stats = new CacheStats();
+
+  private final ScheduledExecutorService scheduleThreadPool = Executors.newScheduledThreadPool(1, new NamingThreadFactory("SlabBlockCacheStats"));
+
+  private final long maxSize;
+  private final int slabSize;
+
+  /**
+   * Default constructor. Specify maximum size and expected largest block size.
+   *
+   * @param maxSize
+   *          maximum off-heap size of the cache, in bytes
+   * @param blockSize
+   *          size of the largest block the cache should hold, in bytes
+   */
+  public SlabBlockCache(long maxSize, long blockSize) {
+    int maxSlotSize = MIN_SLOT_SIZE;
+    while (maxSlotSize < blockSize && maxSlotSize < MAX_SLOT_SIZE)
+      maxSlotSize <<= 1;
+
+    long slabSize = Math.min((long) maxSlotSize * SLOTS_PER_SLAB, maxSize);
+    while (maxSlotSize > slabSize && maxSlotSize > MIN_SLOT_SIZE)
+      maxSlotSize >>= 1;
+
+    if (slabSize < MIN_SLOT_SIZE) {
+      throw new IllegalArgumentException("Cache size " + maxSize + " is smaller than the minimum slot size " + MIN_SLOT_SIZE);
+    }
+
+    this.slabSize = (int) slabSize;
+    this.maxSize = maxSize;
+    this.unallocatedSlabs = new AtomicInteger((int) Math.min(Integer.MAX_VALUE, maxSize / slabSize));
+
+    List<SlabClass> classList = new ArrayList<SlabClass>();
+    for (int slotSize = MIN_SLOT_SIZE; slotSize <= maxSlotSize; slotSize <<= 1) {
+      classList.add(new SlabClass(slotSize, this.slabSize / slotSize));
+    }
+    this.classes = classList.toArray(new SlabClass[classList.size()]);
+
+    this.scheduleThreadPool.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        logStats();
+      }
+    }, statThreadPeriod, statThreadPeriod, TimeUnit.SECONDS);
+  }
+
+  /**
+   * A block stored in a slot of a size class. Guarded by the lock of its size class.
+   */
+  private static class SlabBlock {
+    final String name;
+    final SlabClass owner;
+    final int slot;
+    final int length;
+    boolean evicted = false;
+    volatile Object index;
+
+    SlabBlock(String name, SlabClass owner, int slot, int length) {
+      this.name = name;
+      this.owner = owner;
+      this.slot = slot;
+      this.length = length;
+    }
+  }
+
+  /**
+   * The entry handed back to readers. It holds a heap copy of the block, while the index is shared with every other reader of the same cached block.
+   */
+  private static class SlabCacheEntry implements CacheEntry {
+    private final byte[] buffer;
+    private final SlabBlock block;
+
+    SlabCacheEntry(byte[] buffer, SlabBlock block) {
+      this.buffer = buffer;
+      this.block = block;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return buffer;
+    }
+
+    @Override
+    public Object getIndex() {
+      return block.index;
+    }
+
+    @Override
+    public void setIndex(Object idx) {
+      block.index = idx;
+    }
+  }
+
+  /**
+   * All slots of a single size. Keeps its blocks in access order so the least recently used one can be evicted in constant time.
+   */
+  private class SlabClass {
+    final int slotSize;
+    final int slotsPerSlab;
+    final List<ByteBuffer> slabs = new ArrayList<ByteBuffer>();
+    final ArrayDeque<Integer> freeSlots = new ArrayDeque<Integer>();
+    final LinkedHashMap<String,SlabBlock> blocks = new LinkedHashMap<String,SlabBlock>(16, 0.75f, true);
+
+    SlabClass(int slotSize, int slotsPerSlab) {
+      this.slotSize = slotSize;
+      this.slotsPerSlab = slotsPerSlab;
+    }
+
+    ByteBuffer slotBuffer(int slot) {
+      ByteBuffer bb = slabs.get(slot / slotsPerSlab).duplicate();
+      int offset = (slot % slotsPerSlab) * slotSize;
+      bb.limit(offset + slotSize);
+      bb.position(offset);
+      return bb;
+    }
+
+    void addSlab(ByteBuffer slab) {
+      int first = slabs.size() * slotsPerSlab;
+      slabs.add(slab);
+      for (int i = 0; i < slotsPerSlab; i++)
+        freeSlots.add(first + i);
+    }
+
+    /**
+     * @return a free slot, or -1 when this size class owns no slabs and none are available
+     */
+    int allocate() {
+      if (freeSlots.isEmpty()) {
+        ByteBuffer slab = takeFreeSlab();
+        if (slab != null) {
+          addSlab(slab);
+        } else if (!blocks.isEmpty()) {
+          evict(blocks.values().iterator().next());
+          stats.evict();
+        }
+      }
+
+      Integer slot = freeSlots.poll();
+      return slot == null ? -1 : slot;
+    }
+
+    void evict(SlabBlock block) {
+      blocks.remove(block.name);
+      map.remove(block.name, block);
+      freeSlots.add(block.slot);
+      block.evicted = true;
+      size.addAndGet(-block.length);
+      elements.decrementAndGet();
+      stats.evicted();
+    }
+
+    /**
+     * Evicts all blocks stored in the last slab of this class and gives the slab up.
+     */
+    ByteBuffer releaseSlab() {
+      int slabIndex = slabs.size() - 1;
+      int first = slabIndex * slotsPerSlab;
+
+      Iterator<Entry<String,SlabBlock>> iter = blocks.entrySet().iterator();
+      List<SlabBlock> toEvict = new ArrayList<SlabBlock>();
+      while (iter.hasNext()) {
+        SlabBlock block = iter.next().getValue();
+        if (block.slot >= first)
+          toEvict.add(block);
+      }
+      for (SlabBlock block : toEvict)
+        evict(block);
+      if (!toEvict.isEmpty())
+        stats.evict();
+
+      Iterator<Integer> slots = freeSlots.iterator();
+      while (slots.hasNext()) {
+        if (slots.next() >= first)
+          slots.remove();
+      }
+
+      return slabs.remove(slabIndex);
+    }
+  }
+
+  private ByteBuffer takeFreeSlab() {
+    ByteBuffer slab = freeSlabs.poll();
+    if (slab != null)
+      return slab;
+
+    if (unallocatedSlabs.getAndDecrement() > 0)
+      return ByteBuffer.allocateDirect(slabSize);
+
+    unallocatedSlabs.incrementAndGet();
+    return null;
+  }
+
+  /**
+   * Moves a slab from the size class holding the most slabs to the free slab pool. The donor keeps at least one slab, so this can not starve another size class
+   * entirely.
+   */
+  private void rebalance(SlabClass needy) {
+    synchronized (rebalanceLock) {
+      SlabClass donor = null;
+      int donorSlabs = 1;
+      for (SlabClass sc : classes) {
+        if (sc == needy)
+          continue;
+        synchronized (sc) {
+          if (sc.slabs.size() > donorSlabs) {
+            donor = sc;
+            donorSlabs = sc.slabs.size();
+          }
+        }
+      }
+
+      if (donor == null)
+        return;
+
+      synchronized (donor) {
+        if (donor.slabs.size() > 1) {
+          freeSlabs.add(donor.releaseSlab());
+        }
+      }
+    }
+  }
+
+  private SlabClass getSlabClass(int length) {
+    for (SlabClass sc : classes) {
+      if (length <= sc.slotSize)
+        return sc;
+    }
+    return null;
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf, boolean inMemory) {
+    SlabClass sc = getSlabClass(buf.length);
+    if (sc == null)
+      return null;
+
+    for (int attempt = 0; attempt < 2; attempt++) {
+      synchronized (sc) {
+        SlabBlock existing = map.get(blockName);
+        if (existing != null) {
+          stats.duplicateReads();
+          if (existing.owner == sc)
+            sc.blocks.get(blockName);
+          return new SlabCacheEntry(buf, existing);
+        }
+
+        int slot = sc.allocate();
+        if (slot >= 0) {
+          ByteBuffer bb = sc.slotBuffer(slot);
+          bb.put(buf);
+          SlabBlock block = new SlabBlock(blockName, sc, slot, buf.length);
+          sc.blocks.put(blockName, block);
+          map.put(blockName, block);
+          size.addAndGet(buf.length);
+          elements.incrementAndGet();
+          return new SlabCacheEntry(buf, block);
+        }
+      }
+
+      rebalance(sc);
+    }
+
+    return null;
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf) {
+    return cacheBlock(blockName, buf, false);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    SlabBlock block = map.get(blockName);
+    if (block != null) {
+      synchronized (block.owner) {
+        if (!block.evicted) {
+          block.owner.blocks.get(blockName);
+          byte[] buf = new byte[block.length];
+          block.owner.slotBuffer(block.slot).get(buf);
+          stats.hit();
+          return new SlabCacheEntry(buf, block);
+        }
+      }
+    }
+
+    stats.miss();
+    return null;
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Get the number of bytes of block data currently held off-heap. Does not include space lost to slot rounding.
+   */
+  public long getCurrentSize() {
+    return size.get();
+  }
+
+  /**
+   * Get the size of this cache (number of cached blocks)
+   */
+  public long size() {
+    return elements.get();
+  }
+
+  /**
+   * Get the number of bytes of direct memory allocated for slabs so far.
+   */
+  public long getAllocatedSize() {
+    return (maxSize / slabSize - Math.max(0, unallocatedSlabs.get())) * (long) slabSize;
+  }
+
+  @Override
+  public CacheStats getStats() {
+    return stats;
+  }
+
+  public void logStats() {
+    float sizeMB = ((float) getCurrentSize()) / ((float) (1024 * 1024));
+    float allocatedMB = ((float) getAllocatedSize()) / ((float) (1024 * 1024));
+    float maxMB = ((float) maxSize) / ((float) (1024 * 1024));
+    LOG.debug("Cache Stats: Sizes: " + "Total=" + sizeMB + "MB (" + getCurrentSize() + "), " + "Allocated=" + allocatedMB + "MB (" + getAllocatedSize() + "), "
+        + "Max=" + maxMB + "MB (" + maxSize + ")" + ", Counts: " + "Blocks=" + size() + ", " + "Access=" + stats.getRequestCount() + ", " + "Hit="
+        + stats.getHitCount() + ", " + "Miss=" + stats.getMissCount() + ", " + "Evictions=" + stats.getEvictionCount() + ", " + "Evicted="
+        + stats.getEvictedCount() + ", Ratios: " + "Hit Ratio=" + stats.getHitRatio() * 100 + "%, " + "Miss Ratio=" + stats.getMissRatio() * 100 + "%, "
+        + "Evicted/Run=" + stats.evictedPerEviction() + ", " + "Duplicate Reads=" + stats.getDuplicateReads());
+  }
+
+  @Override
+  public void shutdown() {
+    this.scheduleThreadPool.shutdown();
+  }
+}
@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.accumulo.core.file.blockfile.cache.LruBlockCache.CacheStats;
+import org.apache.accumulo.core.util.NamingThreadFactory;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * A scan resistant block cache using a W-TinyLFU admission and eviction policy.
+ * <p>
+ *
+ * New blocks enter a small LRU window. Blocks pushed out of the window become candidates for the main cache, which is a segmented LRU made of a probation and a
+ * protected segment. When the main cache is full, a candidate is only admitted if a {@link FrequencySketch} estimates it was requested more often than the
+ * least recently used block in probation, otherwise the candidate is dropped and counted as an admission rejection. Blocks hit while in probation are promoted
+ * to the protected segment.
+ * <p>
+ *
+ * Blocks read a single time by a large scan therefore pass through the window and are rejected, instead of pushing out blocks that are reused often. In-memory
+ * blocks skip the window and admission and go directly to the protected segment.
+ * <p>
+ *
+ * Lookups go through a {@link ConcurrentHashMap} and never wait for the policy lock. Each lookup is recorded in a bounded, lock-free buffer, and the buffered
+ * reads are applied to the sketch and the segments by whichever thread next gets the lock, either when the buffer fills past a threshold or on the next
+ * insert. If the buffer is full, reads are dropped rather than waited on; the policy only needs a sample of them.
+ */
+public class TinyLfuBlockCache implements BlockCache, HeapSize {
+
+  static final Log LOG = LogFactory.getLog(TinyLfuBlockCache.class);
+
+  /** Portion of the cache used for the admission window */
+  static final float DEFAULT_WINDOW_FACTOR = 0.01f;
+
+  /** Portion of the main cache used for the protected segment */
+  static final float DEFAULT_PROTECTED_FACTOR = 0.80f;
+
+  /** Statistics thread */
+  static final int statThreadPeriod = 60;
+
+  /** Number of reads that can be buffered before they are dropped, a power of two */
+  static final int READ_BUFFER_SIZE = 128;
+
+  /** Number of buffered reads at which a reader tries to apply them */
+  static final int READ_BUFFER_DRAIN_THRESHOLD = 32;
+
+  private static enum Segment {
+    WINDOW, PROBATION, PROTECTED
+  }
+
+  private static class Node {
+    final CachedBlock block;
+    // null once evicted, written under the policy lock and read without it by lookups
+    volatile Segment segment;
+    Node prev;
+    Node next;
+
+    Node(CachedBlock block, Segment segment) {
+      this.block = block;
+      this.segment = segment;
+    }
+  }
+
+  /**
+   * An intrusive, access ordered list of nodes. The head is the least recently used node.
+   */
+  private static class AccessOrderList {
+    Node head;
+    Node tail;
+    long size;
+
+    void add(Node node) {
+      node.prev = tail;
+      node.next = null;
+      if (tail == null)
+        head = node;
+      else
+        tail.next = node;
+      tail = node;
+      size += node.block.heapSize();
+    }
+
+    void remove(Node node) {
+      if (node.prev == null)
+        head = node.next;
+      else
+        node.prev.next = node.next;
+      if (node.next == null)
+        tail = node.prev;
+      else
+        node.next.prev = node.prev;
+      node.prev = node.next = null;
+      size -= node.block.heapSize();
+    }
+
+    void moveToTail(Node node) {
+      if (node != tail) {
+        remove(node);
+        add(node);
+      }
+    }
+  }
+
+  private final ConcurrentHashMap<String,Node> map;
+  private final ReentrantLock policyLock = new ReentrantLock();
+  private final FrequencySketch sketch;
+
+  // reads not yet applied to the policy: the node for a hit, the block name for a miss
+  private final AtomicReferenceArray<Object> readBuffer = new AtomicReferenceArray<Object>(READ_BUFFER_SIZE);
+  private final AtomicLong readBufferWriteCount = new AtomicLong();
+  // only advanced under the policy lock
+  private volatile long readBufferReadCount = 0;
+
+  private final AccessOrderList window = new AccessOrderList();
+  private final AccessOrderList probation = new AccessOrderList();
+  private final AccessOrderList protectedSegment = new AccessOrderList();
+
+  private final CacheStats stats = new CacheStats();
+
+  private final ScheduledExecutorService scheduleThreadPool = Executors.newScheduledThreadPool(1, new NamingThreadFactory("TinyLfuBlockCacheStats"));
+
+  private final long maxSize;
+  private final long windowMaxSize;
+  private final long protectedMaxSize;
+
+  private long count = 0;
+
+  /**
+   * Default constructor. Specify maximum size and expected average block size (approximation is fine).
+   *
+   * @param maxSize
+   *          maximum size of cache, in bytes
+   * @param blockSize
+   *          approximate size of each block, in bytes
+   */
+  public TinyLfuBlockCache(long maxSize, long blockSize) {
+    this(maxSize, blockSize, DEFAULT_WINDOW_FACTOR, DEFAULT_PROTECTED_FACTOR);
+  }
+
+  /**
+   * Configurable constructor.
+   *
+   * @param maxSize
+   *          maximum size of cache, in bytes
+   * @param blockSize
+   *          approximate size of each block, in bytes
+   * @param windowFactor
+   *          percentage of total size used for the admission window
+   * @param protectedFactor
+   *          percentage of the main cache used for blocks that were hit after admission
+   */
+  public TinyLfuBlockCache(long maxSize, long blockSize, float windowFactor, float protectedFactor) {
+    if (windowFactor <= 0 || windowFactor >= 1.0f || protectedFactor <= 0 || protectedFactor >= 1.0f) {
+      throw new IllegalArgumentException("window and protected factors must be between 0 and 1");
+    }
+    long expectedBlocks = (long) Math.ceil(1.2 * maxSize / blockSize);
+    this.maxSize = maxSize;
+    this.windowMaxSize = (long) (maxSize * windowFactor);
+    this.protectedMaxSize = (long) ((maxSize - windowMaxSize) * protectedFactor);
+    this.map = new ConcurrentHashMap<String,Node>((int) Math.min(Integer.MAX_VALUE, expectedBlocks), LruBlockCache.DEFAULT_LOAD_FACTOR,
+        LruBlockCache.DEFAULT_CONCURRENCY_LEVEL);
+    this.sketch = new FrequencySketch(expectedBlocks);
+
+    this.scheduleThreadPool.scheduleAtFixedRate(new Runnable() {
+      @Override
+      public void run() {
+        logStats();
+      }
+    }, statThreadPeriod, statThreadPeriod, TimeUnit.SECONDS);
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf, boolean inMemory) {
+    policyLock.lock();
+    try {
+      drainReadBuffer();
+      Node node = map.get(blockName);
+      if (node != null) {
+        stats.duplicateReads();
+        onAccess(node);
+        return node.block;
+      }
+
+      CachedBlock cb = new CachedBlock(blockName, buf, ++count, inMemory);
+      if (cb.heapSize() > maxSize - windowMaxSize)
+        return null;
+
+      if (inMemory) {
+        node = new Node(cb, Segment.PROTECTED);
+        protectedSegment.add(node);
+        map.put(blockName, node);
+        demoteProtected();
+      } else {
+        node = new Node(cb, Segment.WINDOW);
+        window.add(node);
+        map.put(blockName, node);
+      }
+
+      evict();
+      return cb;
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  @Override
+  public CacheEntry cacheBlock(String blockName, byte[] buf) {
+    return cacheBlock(blockName, buf, false);
+  }
+
+  @Override
+  public CacheEntry getBlock(String blockName) {
+    Node node = map.get(blockName);
+    if (node == null || node.segment == null) {
+      stats.miss();
+      recordRead(blockName);
+      return null;
+    }
+    stats.hit();
+    recordRead(node);
+    return node.block;
+  }
+
+  /**
+   * Adds a read to the buffer, or drops it if the buffer is full, then applies the buffered reads if there are enough of them and the policy lock is free.
+   */
+  private void recordRead(Object read) {
+    long writeCount = readBufferWriteCount.get();
+    long pending = writeCount - readBufferReadCount;
+    if (pending < READ_BUFFER_SIZE && readBufferWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+      readBuffer.lazySet((int) (writeCount & (READ_BUFFER_SIZE - 1)), read);
+      pending++;
+    }
+
+    if (pending >= READ_BUFFER_DRAIN_THRESHOLD && policyLock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        policyLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Applies the buffered reads to the policy. Must be called with the policy lock held.
+   */
+  private void drainReadBuffer() {
+    long readCount = readBufferReadCount;
+    long writeCount = readBufferWriteCount.get();
+    for (; readCount < writeCount; readCount++) {
+      int index = (int) (readCount & (READ_BUFFER_SIZE - 1));
+      Object read = readBuffer.get(index);
+      if (read == null) {
+        // the slot was claimed but the read is not stored yet, leave it for the next drain
+        break;
+      }
+      readBuffer.lazySet(index, null);
+
+      if (read instanceof Node) {
+        Node node = (Node) read;
+        sketch.increment(node.block.getName());
+        if (node.segment != null)
+          onAccess(node);
+      } else {
+        sketch.increment(read);
+      }
+    }
+    readBufferReadCount = readCount;
+  }
+
+  private void onAccess(Node node) {
+    node.block.access(++count);
+    switch (node.segment) {
+      case WINDOW:
+        window.moveToTail(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        node.segment = Segment.PROTECTED;
+        protectedSegment.add(node);
+        demoteProtected();
+        break;
+      case PROTECTED:
+        protectedSegment.moveToTail(node);
+        break;
+    }
+  }
+
+  /**
+   * Moves the least recently used protected blocks to probation until the protected segment fits.
+   */
+  private void demoteProtected() {
+    while (protectedSegment.size > protectedMaxSize && protectedSegment.head != null) {
+      Node demoted = protectedSegment.head;
+      protectedSegment.remove(demoted);
+      demoted.segment = Segment.PROBATION;
+      probation.add(demoted);
+    }
+  }
+
+  /**
+   * Moves blocks that fell out of the window into probation, then evicts from probation until the cache fits, letting each candidate compete with the least
+   * recently used probation block.
+   */
+  private void evict() {
+    Node firstCandidate = null;
+    while (window.size > windowMaxSize && window.head != null) {
+      Node candidate = window.head;
+      window.remove(candidate);
+      candidate.segment = Segment.PROBATION;
+      probation.add(candidate);
+      if (firstCandidate == null)
+        firstCandidate = candidate;
+    }
+
+    long mainMaxSize = maxSize - windowMaxSize;
+    boolean evicted = false;
+    while (probation.size + protectedSegment.size > mainMaxSize) {
+      Node victim = probation.head;
+      if (victim == null) {
+        // everything left is protected, fall back to plain LRU
+        victim = protectedSegment.head;
+        evictNode(victim);
+      } else if (firstCandidate == null || victim == firstCandidate) {
+        evictNode(victim);
+        firstCandidate = null;
+      } else {
+        Node candidate = probation.tail;
+        if (sketch.frequency(candidate.block.getName()) > sketch.frequency(victim.block.getName())) {
+          evictNode(victim);
+        } else {
+          if (candidate == firstCandidate)
+            firstCandidate = null;
+          evictNode(candidate);
+          stats.admissionRejected();
+        }
+      }
+      evicted = true;
+    }
+
+    if (evicted)
+      stats.evict();
+  }
+
+  private void evictNode(Node node) {
+    switch (node.segment) {
+      case WINDOW:
+        window.remove(node);
+        break;
+      case PROBATION:
+        probation.remove(node);
+        break;
+      case PROTECTED:
+        protectedSegment.remove(node);
+        break;
+    }
+    node.segment = null;
+    map.remove(node.block.getName());
+    stats.evicted();
+  }
+
+  @Override
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Get the current size of this cache.
+   *
+   * @return current size in bytes
+   */
+  public long getCurrentSize() {
+    policyLock.lock();
+    try {
+      drainReadBuffer();
+      return window.size + probation.size + protectedSegment.size;
+    } finally {
+      policyLock.unlock();
+    }
+  }
+
+  /**
+   * Get the size of this cache (number of cached blocks)
+   */
+  public long size() {
+    return map.size();
+  }
+
+  @Override
+  public long heapSize() {
+    return getCurrentSize();
+  }
+
+  @Override
+  public CacheStats getStats() {
+    return stats;
+  }
+
+  public void logStats() {
+    long totalSize = getCurrentSize();
+    float sizeMB = ((float) totalSize) / ((float) (1024 * 1024));
+    float maxMB = ((float) maxSize) / ((float) (1024 * 1024));
+    LOG.debug("Cache Stats: Sizes: " + "Total=" + sizeMB + "MB (" + totalSize + "), " + "Max=" + maxMB + "MB (" + maxSize + ")" + ", Counts: " + "Blocks="
+        + size() + ", " + "Access=" + stats.getRequestCount() + ", " + "Hit=" + stats.getHitCount() + ", " + "Miss=" + stats.getMissCount() + ", "
+        + "Evictions=" + stats.getEvictionCount() + ", " + "Evicted=" + stats.getEvictedCount() + ", " + "Admission Rejections="
+        + stats.getAdmissionRejectedCount() + ", Ratios: " + "Hit Ratio=" + stats.getHitRatio() * 100 + "%, " + "Miss Ratio=" + stats.getMissRatio() * 100
+        + "%, " + "Evicted/Run=" + stats.evictedPerEviction() + ", " + "Duplicate Reads=" + stats.getDuplicateReads());
+  }
+
+  @Override
+  public void shutdown() {
+    this.scheduleThreadPool.shutdown();
+  }
+}
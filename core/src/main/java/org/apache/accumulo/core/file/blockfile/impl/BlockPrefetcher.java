@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.impl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.accumulo.core.util.NamingThreadFactory;
+
+/**
+ * Threads and a memory budget shared by all readers in a process for reading data blocks ahead of sequential scans. Prefetching is disabled until
+ * {@link #configure(int, long)} is called.
+ */
+public class BlockPrefetcher {
+
+  private static ExecutorService executor = null;
+  private static final AtomicLong available = new AtomicLong(0);
+  // the budget available was last configured with, guarded by the class lock
+  private static long limit = 0;
+  private static final AtomicLong blocksUsed = new AtomicLong(0);
+
+  /**
+   * A block being read ahead. Its memory goes back to the budget only once the reader is done with it and the task is no longer running, since a task that is
+   * cancelled while running still reads in the whole block.
+   */
+  static class PrefetchTask extends FutureTask<byte[]> {
+    private final long size;
+    // the reader and the task each hold the block's memory until they are done with it
+    private final AtomicInteger holders = new AtomicInteger(2);
+
+    PrefetchTask(long size, Callable<byte[]> loader) {
+      super(loader);
+      this.size = size;
+    }
+
+    @Override
+    public void run() {
+      try {
+        super.run();
+      } finally {
+        unhold();
+      }
+    }
+
+    /**
+     * Called by the reader once it has taken the block from this task.
+     */
+    void taken() {
+      unhold();
+    }
+
+    /**
+     * Called when the executor is shut down before the task ran, in place of the task's own release.
+     */
+    void abandon() {
+      cancel(false);
+      unhold();
+    }
+
+    /**
+     * Called by the reader when it no longer wants the block.
+     */
+    void discard() {
+      cancel(false);
+      unhold();
+    }
+
+    private void unhold() {
+      if (holders.decrementAndGet() == 0)
+        release(size);
+    }
+  }
+
+  /**
+   * @param threads
+   *          the number of threads reading blocks, 0 disables prefetching
+   * @param maxMemory
+   *          the most bytes of prefetched blocks held at once, waiting to be read by scans
+   */
+  public static synchronized void configure(int threads, long maxMemory) {
+    if (executor != null) {
+      for (Runnable task : executor.shutdownNow())
+        ((PrefetchTask) task).abandon();
+      executor = null;
+    }
+    // blocks still held by readers release their memory later, so adjust the budget rather than resetting it
+    available.addAndGet(maxMemory - limit);
+    limit = maxMemory;
+    blocksUsed.set(0);
+    if (threads > 0 && maxMemory > 0) {
+      ThreadPoolExecutor tp = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamingThreadFactory(
+          "block prefetcher"));
+      tp.allowCoreThreadTimeOut(true);
+      executor = tp;
+    }
+  }
+
+  private static synchronized ExecutorService getExecutor() {
+    return executor;
+  }
+
+  static boolean isEnabled() {
+    return getExecutor() != null;
+  }
+
+  /**
+   * Reserves memory for a block and starts loading it.
+   *
+   * @return the pending block, or null if prefetching is disabled or over its memory budget
+   */
+  static PrefetchTask submit(long size, Callable<byte[]> loader) {
+    ExecutorService es = getExecutor();
+    if (es == null || !reserve(size))
+      return null;
+    PrefetchTask task = new PrefetchTask(size, loader);
+    try {
+      es.execute(task);
+      return task;
+    } catch (RejectedExecutionException e) {
+      release(size);
+      return null;
+    }
+  }
+
+  /**
+   * Counts a prefetched block that a scan read instead of going to the file.
+   */
+  static void used() {
+    blocksUsed.incrementAndGet();
+  }
+
+  /**
+   * @return the number of prefetched blocks read by scans since prefetching was last configured
+   */
+  public static long getBlocksUsed() {
+    return blocksUsed.get();
+  }
+
+  private static boolean reserve(long size) {
+    while (true) {
+      long avail = available.get();
+      if (avail < size)
+        return false;
+      if (available.compareAndSet(avail, avail - size))
+        return true;
+    }
+  }
+
+  private static void release(long size) {
+    available.addAndGet(size);
+  }
+}
@@ -22,6 +22,12 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.file.blockfile.ABlockReader;
@@ -152,9 +158,31 @@ public class CachableBlockFile {
     private boolean closed = false;
     private AccumuloConfiguration accumuloConfiguration = null;
     
+    // blocks read ahead of a scan, discarded if they are not read within PREFETCH_EXPIRATION_MS
+    private static final long PREFETCH_EXPIRATION_MS = 30 * 1000;
+    private final ConcurrentHashMap<String,PrefetchedBlock> prefetched = new ConcurrentHashMap<String,PrefetchedBlock>();
+    
+    private static class PrefetchedBlock {
+      final BlockPrefetcher.PrefetchTask block;
+      final long submitted = System.currentTimeMillis();
+      
+      PrefetchedBlock(BlockPrefetcher.PrefetchTask block) {
+        this.block = block;
+      }
+      
+      void discard() {
+        block.discard();
+      }
+    }
+    
     private interface BlockLoader {
       BlockReader get() throws IOException;
       
+      /**
+       * Reads the whole block, or returns null if it is larger than maxSize.
+       */
+      byte[] read(long maxSize) throws IOException;
+      
       String getInfo();
     }
     
@@ -171,6 +199,11 @@ public class CachableBlockFile {
         return getBCFile(accumuloConfiguration).getDataBlock(blockIndex);
       }
       
+      @Override
+      public byte[] read(long maxSize) throws IOException {
+        return getBCFile(accumuloConfiguration).readDataBlock(blockIndex, maxSize);
+      }
+      
       @Override
       public String getInfo() {
         return "" + blockIndex;
@@ -195,6 +228,11 @@ public class CachableBlockFile {
         return getBCFile(accumuloConfiguration).getDataBlock(offset, compressedSize, rawSize);
       }
       
+      @Override
+      public byte[] read(long maxSize) throws IOException {
+        return getBCFile(accumuloConfiguration).readDataBlock(offset, compressedSize, rawSize, maxSize);
+      }
+      
       @Override
       public String getInfo() {
         return "" + offset + "," + compressedSize + "," + rawSize;
@@ -216,6 +254,11 @@ public class CachableBlockFile {
         return getBCFile(accumuloConfiguration).getMetaBlock(name);
       }
       
+      @Override
+      public byte[] read(long maxSize) throws IOException {
+        return getBCFile(accumuloConfiguration).readMetaBlock(name, maxSize);
+      }
+      
       @Override
       public String getInfo() {
         return name;
@@ -309,7 +352,29 @@ public class CachableBlockFile {
         if (cb != null) {
           return new CachedBlockRead(cb, cb.getBuffer());
         }
+      }
+      
+      byte pb[] = takePrefetched(_lookup);
+      if (pb != null) {
+        if (cache == null)
+          return new BlockRead(new DataInputStream(new ByteArrayInputStream(pb)), pb.length);
+        return cacheBlock(_lookup, cache, pb);
+      }
+      
+      if (cache != null) {
+        /**
+         * read the whole block straight into the array that will be cached, unless it is bigger than the cache
+         */
+        byte b[] = null;
+        try {
+          b = loader.read(cache.getMaxSize());
+        } catch (IOException e) {
+          log.debug("Error full blockRead for file " + fileName + " for block " + loader.getInfo(), e);
+          throw e;
+        }
         
+        if (b != null)
+          return cacheBlock(_lookup, cache, b);
       }
       /**
        * grab the currBlock at this point the block is still in the data stream
@@ -345,21 +410,24 @@ public class CachableBlockFile {
           _currBlock.close();
         }
         
-        CacheEntry ce = null;
-        try {
-          ce = cache.cacheBlock(_lookup, b);
-        } catch (Exception e) {
-          log.warn("Already cached block: " + _lookup, e);
-        }
-        
-        if (ce == null)
-          return new BlockRead(new DataInputStream(new ByteArrayInputStream(b)), b.length);
-        else
-          return new CachedBlockRead(ce, ce.getBuffer());
-        
+        return cacheBlock(_lookup, cache, b);
       }
     }
     
+    private BlockRead cacheBlock(String _lookup, BlockCache cache, byte[] b) {
+      CacheEntry ce = null;
+      try {
+        ce = cache.cacheBlock(_lookup, b);
+      } catch (Exception e) {
+        log.warn("Already cached block: " + _lookup, e);
+      }
+      
+      if (ce == null)
+        return new BlockRead(new DataInputStream(new ByteArrayInputStream(b)), b.length);
+      else
+        return new CachedBlockRead(ce, ce.getBuffer());
+    }
+    
     /**
      * It is intended that once the BlockRead object is returned to the caller, that the caller will read the entire block and then call close on the BlockRead
      * class.
@@ -398,12 +466,97 @@ public class CachableBlockFile {
       return getBlock(_lookup, _dCache, new RawBlockLoader(offset, compressedSize, rawSize));
     }
     
+    @Override
+    public void prefetchDataBlock(long offset, long compressedSize, final long rawSize) {
+      if (rawSize > Integer.MAX_VALUE || !BlockPrefetcher.isEnabled())
+        return;
+      
+      expirePrefetched();
+      
+      final String _lookup = this.fileName + "R" + offset;
+      if (prefetched.containsKey(_lookup))
+        return;
+      
+      final RawBlockLoader loader = new RawBlockLoader(offset, compressedSize, rawSize);
+      BlockPrefetcher.PrefetchTask block = BlockPrefetcher.submit(rawSize, new Callable<byte[]>() {
+        @Override
+        public byte[] call() throws Exception {
+          if (_dCache != null && _dCache.getBlock(_lookup) != null)
+            return null;
+          
+          byte b[] = loader.read(rawSize);
+          if (b == null) {
+            BlockReader _currBlock = loader.get();
+            try {
+              b = new byte[(int) rawSize];
+              _currBlock.readFully(b);
+            } finally {
+              _currBlock.close();
+            }
+          }
+          return b;
+        }
+      });
+      
+      if (block != null && prefetched.putIfAbsent(_lookup, new PrefetchedBlock(block)) != null) {
+        // another scan of this file prefetched the block first
+        block.discard();
+      }
+    }
+    
+    /**
+     * @return the prefetched block, waiting for it to be read if needed, or null if it was not prefetched
+     */
+    private byte[] takePrefetched(String _lookup) {
+      if (prefetched.isEmpty())
+        return null;
+      
+      PrefetchedBlock pb = prefetched.remove(_lookup);
+      if (pb == null)
+        return null;
+      
+      try {
+        byte[] b = pb.block.get();
+        if (b != null)
+          BlockPrefetcher.used();
+        return b;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return null;
+      } catch (ExecutionException e) {
+        log.debug("Failed to prefetch block " + _lookup + ", reading it again", e.getCause());
+        return null;
+      } catch (CancellationException e) {
+        // prefetching was reconfigured before the block was read
+        return null;
+      } finally {
+        pb.block.taken();
+      }
+    }
+    
+    private void expirePrefetched() {
+      long expired = System.currentTimeMillis() - PREFETCH_EXPIRATION_MS;
+      for (Iterator<PrefetchedBlock> iter = prefetched.values().iterator(); iter.hasNext();) {
+        PrefetchedBlock pb = iter.next();
+        if (pb.submitted < expired) {
+          iter.remove();
+          pb.discard();
+        }
+      }
+    }
+    
     public synchronized void close() throws IOException {
       if (closed)
         return;
       
       closed = true;
       
+      for (Iterator<PrefetchedBlock> iter = prefetched.values().iterator(); iter.hasNext();) {
+        PrefetchedBlock pb = iter.next();
+        iter.remove();
+        pb.discard();
+      }
+      
       if (_bc != null)
         _bc.close();
       
@@ -427,8 +580,8 @@ public class CachableBlockFile {
     }
     
     public void seek(int position) {
-      if (pos < 0 || pos >= buf.length)
-        throw new IllegalArgumentException("pos = " + pos + " buf.lenght = " + buf.length);
+      if (position < 0 || position > buf.length)
+        throw new IllegalArgumentException("pos = " + position + " buf.lenght = " + buf.length);
       this.pos = position;
     }
     
@@ -441,16 +594,23 @@ public class CachableBlockFile {
   public static class CachedBlockRead extends BlockRead {
     private SeekableByteArrayInputStream seekableInput;
     private final CacheEntry cb;
+    private final byte buf[];
     
     public CachedBlockRead(CacheEntry cb, byte buf[]) {
-      this(new SeekableByteArrayInputStream(buf), buf.length, cb);
+      this(new SeekableByteArrayInputStream(buf), buf, cb);
     }
     
-    private CachedBlockRead(SeekableByteArrayInputStream seekableInput, long size, CacheEntry cb) {
-        super(seekableInput, size);
+    private CachedBlockRead(SeekableByteArrayInputStream seekableInput, byte buf[], CacheEntry cb) {
+        super(seekableInput, buf.length);
         this.seekableInput = seekableInput;
         this.cb = cb;
+        this.buf = buf;
       }
+    
+    @Override
+    public ByteBuffer getBuffer() {
+      return ByteBuffer.wrap(buf).asReadOnlyBuffer();
+    }
 
     @Override
     public void seek(int position) {
@@ -476,7 +636,8 @@ public class CachableBlockFile {
         if (softRef != null)
           bi = softRef.get();
         
-        if (bi == null) {
+        // readers configured with different kinds of index may share a cached block, the last kind asked for replaces the other
+        if (bi == null || !clazz.isInstance(bi)) {
           try {
             bi = clazz.newInstance();
           } catch (Exception e) {
@@ -541,5 +702,10 @@ public class CachableBlockFile {
       throw new UnsupportedOperationException();
     }
     
+    @Override
+    public ByteBuffer getBuffer() {
+      return null;
+    }
+    
   }
 }
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.file.rfile.bcfile.Utils;
+
+/**
+ * A small summary of the keys in an RFile data block, stored with its index entry, that lets readers skip blocks without reading them. It records a 64 bit
+ * signature of the column families in the block, the range of timestamps, and whether the block contains any delete markers.
+ */
+public class BlockSummary {
+
+  private long families = 0;
+  private long minTimestamp = Long.MAX_VALUE;
+  private long maxTimestamp = Long.MIN_VALUE;
+  private boolean hasDeletes = false;
+
+  public BlockSummary() {}
+
+  public BlockSummary(BlockSummary other) {
+    merge(other);
+  }
+
+  /**
+   * The bit a column family sets in the signature. This is persisted, so it must not change.
+   */
+  static long familyBit(byte[] data, int offset, int len) {
+    // FNV-1a
+    long hash = 0xcbf29ce484222325L;
+    for (int i = offset; i < offset + len; i++) {
+      hash ^= data[i] & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    return 1L << ((hash ^ (hash >>> 32)) & 63);
+  }
+
+  static long familyBit(ByteSequence cf) {
+    if (cf.isBackedByArray())
+      return familyBit(cf.getBackingArray(), cf.offset(), cf.length());
+    byte[] data = cf.toArray();
+    return familyBit(data, 0, data.length);
+  }
+
+  public void update(Key key) {
+    families |= familyBit(key.getColumnFamilyData());
+    long ts = key.getTimestamp();
+    if (ts < minTimestamp)
+      minTimestamp = ts;
+    if (ts > maxTimestamp)
+      maxTimestamp = ts;
+    if (key.isDeleted())
+      hasDeletes = true;
+  }
+
+  public void merge(BlockSummary other) {
+    families |= other.families;
+    minTimestamp = Math.min(minTimestamp, other.minTimestamp);
+    maxTimestamp = Math.max(maxTimestamp, other.maxTimestamp);
+    hasDeletes |= other.hasDeletes;
+  }
+
+  public void clear() {
+    families = 0;
+    minTimestamp = Long.MAX_VALUE;
+    maxTimestamp = Long.MIN_VALUE;
+    hasDeletes = false;
+  }
+
+  /**
+   * @return the signature bits of the given column families, to pass to {@link #mayContainFamilies(long)}
+   */
+  public static long familyMask(Collection<ByteSequence> columnFamilies) {
+    long mask = 0;
+    for (ByteSequence cf : columnFamilies)
+      mask |= familyBit(cf);
+    return mask;
+  }
+
+  /**
+   * @return false if no key in the block can have one of the column families in the mask
+   */
+  public boolean mayContainFamilies(long familyMask) {
+    return (families & familyMask) != 0;
+  }
+
+  /**
+   * @return false if no key in the block has a timestamp in the given inclusive range, and the block does not have any delete markers that could hide keys in
+   *         that range in other blocks or files
+   */
+  public boolean mayAffectTimestamps(long min, long max) {
+    if (maxTimestamp < min)
+      // a delete marker only hides keys with a timestamp less than or equal to its own, which are all before the range
+      return false;
+    if (minTimestamp > max)
+      return hasDeletes;
+    return true;
+  }
+
+  public long getMinTimestamp() {
+    return minTimestamp;
+  }
+
+  public long getMaxTimestamp() {
+    return maxTimestamp;
+  }
+
+  public boolean hasDeletes() {
+    return hasDeletes;
+  }
+
+  public void readFields(DataInput in) throws IOException {
+    families = in.readLong();
+    minTimestamp = Utils.readVLong(in);
+    maxTimestamp = Utils.readVLong(in);
+    hasDeletes = in.readBoolean();
+  }
+
+  public void write(DataOutput out) throws IOException {
+    out.writeLong(families);
+    Utils.writeVLong(out, minTimestamp);
+    Utils.writeVLong(out, maxTimestamp);
+    out.writeBoolean(hasDeletes);
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.ABlockReader;
+import org.apache.accumulo.core.file.rfile.BlockIndex.BlockIndexEntry;
+import org.apache.accumulo.core.file.rfile.MultiLevelIndex.IndexEntry;
+import org.apache.hadoop.io.WritableComparator;
+
+/**
+ * An index of the positions of every {@value #INTERVAL}th key in a cached data block, an alternative to {@link BlockIndex}. The index is built the first time
+ * a cached block is seeked into. The indexed keys are stored in one byte array, with the row prefix common to all of them stored only once, and searched
+ * without creating a {@link Key} for each comparison.
+ */
+public class FlatBlockIndex {
+
+  static final int INTERVAL = 16;
+
+  public static FlatBlockIndex getIndex(ABlockReader cacheBlock, IndexEntry indexEntry) throws IOException {
+    FlatBlockIndex blockIndex = cacheBlock.getIndex(FlatBlockIndex.class);
+    if (!blockIndex.built)
+      blockIndex.buildIndex(cacheBlock, indexEntry);
+
+    if (blockIndex.size > 0)
+      return blockIndex;
+
+    return null;
+  }
+
+  private volatile boolean built = false;
+
+  private int size = 0;
+  // the row prefix shared by all indexed keys
+  private byte[] rowPrefix;
+  // the rest of each indexed key's row, then its family, qualifier and visibility
+  private byte[] keyData;
+  // where the row, family, qualifier and visibility of key i start, at 4 * i; the last element is the end of the data
+  private int[] fieldOffsets;
+  private long[] timestamps;
+  private boolean[] deleted;
+  private int[] positions;
+  private int[] entriesLeft;
+
+  private synchronized void buildIndex(ABlockReader cacheBlock, IndexEntry indexEntry) throws IOException {
+    if (built)
+      return;
+
+    try {
+      int numEntries = indexEntry.getNumEntries();
+      if (numEntries < 2 * INTERVAL)
+        return;
+
+      cacheBlock.seek(0);
+
+      RelativeKey rk = new RelativeKey();
+      Value val = new Value();
+
+      ArrayList<Key> keys = new ArrayList<Key>(numEntries / INTERVAL);
+      int[] positions = new int[numEntries / INTERVAL];
+      int[] entriesLeft = new int[numEntries / INTERVAL];
+
+      int count = 0;
+      while (count < numEntries - INTERVAL + 1) {
+        Key myPrevKey = rk.getKey();
+        int pos = cacheBlock.getPosition();
+        rk.readFields(cacheBlock);
+        val.readFields(cacheBlock);
+
+        if (count > 0 && count % INTERVAL == 0) {
+          positions[keys.size()] = pos;
+          entriesLeft[keys.size()] = numEntries - count;
+          keys.add(myPrevKey);
+        }
+
+        count++;
+      }
+
+      cacheBlock.seek(0);
+
+      flatten(keys);
+      this.positions = Arrays.copyOf(positions, keys.size());
+      this.entriesLeft = Arrays.copyOf(entriesLeft, keys.size());
+      this.size = keys.size();
+    } finally {
+      built = true;
+    }
+  }
+
+  private void flatten(ArrayList<Key> keys) {
+    byte[] first = keys.get(0).getRowData().toArray();
+    int prefixLen = first.length;
+    for (Key key : keys) {
+      ByteSequence row = key.getRowData();
+      prefixLen = Math.min(prefixLen, row.length());
+      for (int i = 0; i < prefixLen; i++) {
+        if (row.byteAt(i) != first[i]) {
+          prefixLen = i;
+          break;
+        }
+      }
+    }
+    rowPrefix = Arrays.copyOf(first, prefixLen);
+
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    fieldOffsets = new int[4 * keys.size() + 1];
+    timestamps = new long[keys.size()];
+    deleted = new boolean[keys.size()];
+
+    for (int i = 0; i < keys.size(); i++) {
+      Key key = keys.get(i);
+      fieldOffsets[4 * i] = data.size();
+      append(data, key.getRowData(), prefixLen);
+      fieldOffsets[4 * i + 1] = data.size();
+      append(data, key.getColumnFamilyData(), 0);
+      fieldOffsets[4 * i + 2] = data.size();
+      append(data, key.getColumnQualifierData(), 0);
+      fieldOffsets[4 * i + 3] = data.size();
+      append(data, key.getColumnVisibilityData(), 0);
+      timestamps[i] = key.getTimestamp();
+      deleted[i] = key.isDeleted();
+    }
+    fieldOffsets[4 * keys.size()] = data.size();
+    keyData = data.toByteArray();
+  }
+
+  private static void append(ByteArrayOutputStream out, ByteSequence bs, int skip) {
+    out.write(bs.getBackingArray(), bs.offset() + skip, bs.length() - skip);
+  }
+
+  private int compareField(int entry, int field, ByteSequence bs, int skip) {
+    int start = fieldOffsets[4 * entry + field];
+    int end = fieldOffsets[4 * entry + field + 1];
+    return WritableComparator.compareBytes(keyData, start, end - start, bs.getBackingArray(), bs.offset() + skip, bs.length() - skip);
+  }
+
+  /**
+   * Compares indexed key i to the search key, in the same order as {@link Key#compareTo(Key)}. The search key's row must start with the common prefix.
+   */
+  private int compare(int i, ByteSequence row, ByteSequence cf, ByteSequence cq, ByteSequence cv, long ts, boolean del) {
+    int result = compareField(i, 0, row, rowPrefix.length);
+    if (result != 0)
+      return result;
+    result = compareField(i, 1, cf, 0);
+    if (result != 0)
+      return result;
+    result = compareField(i, 2, cq, 0);
+    if (result != 0)
+      return result;
+    result = compareField(i, 3, cv, 0);
+    if (result != 0)
+      return result;
+    if (timestamps[i] != ts)
+      return timestamps[i] < ts ? 1 : -1;
+    if (deleted[i] != del)
+      return deleted[i] ? -1 : 1;
+    return 0;
+  }
+
+  private boolean sameKey(int i, int j) {
+    if (timestamps[i] != timestamps[j] || deleted[i] != deleted[j])
+      return false;
+    int len = fieldOffsets[4 * i + 4] - fieldOffsets[4 * i];
+    if (len != fieldOffsets[4 * j + 4] - fieldOffsets[4 * j])
+      return false;
+    for (int f = 0; f < 4; f++) {
+      int si = fieldOffsets[4 * i + f], ei = fieldOffsets[4 * i + f + 1];
+      int sj = fieldOffsets[4 * j + f], ej = fieldOffsets[4 * j + f + 1];
+      if (WritableComparator.compareBytes(keyData, si, ei - si, keyData, sj, ej - sj) != 0)
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the same as {@link Arrays#binarySearch(Object[], Object)} would for the indexed keys
+   */
+  private int binarySearch(Key key) {
+    ByteSequence row = key.getRowData();
+
+    int prefixCmp;
+    int len = Math.min(row.length(), rowPrefix.length);
+    prefixCmp = WritableComparator.compareBytes(row.getBackingArray(), row.offset(), len, rowPrefix, 0, len);
+    if (prefixCmp == 0 && row.length() < rowPrefix.length)
+      prefixCmp = -1;
+
+    if (prefixCmp < 0)
+      return -1;
+    if (prefixCmp > 0)
+      return -(size + 1);
+
+    ByteSequence cf = key.getColumnFamilyData();
+    ByteSequence cq = key.getColumnQualifierData();
+    ByteSequence cv = key.getColumnVisibilityData();
+    long ts = key.getTimestamp();
+    boolean del = key.isDeleted();
+
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(mid, row, cf, cq, cv, ts, del);
+      if (cmp < 0)
+        low = mid + 1;
+      else if (cmp > 0)
+        high = mid - 1;
+      else
+        return mid;
+    }
+    return -(low + 1);
+  }
+
+  private Key getKey(int i) {
+    int o = 4 * i;
+    byte[] row = new byte[rowPrefix.length + fieldOffsets[o + 1] - fieldOffsets[o]];
+    System.arraycopy(rowPrefix, 0, row, 0, rowPrefix.length);
+    System.arraycopy(keyData, fieldOffsets[o], row, rowPrefix.length, fieldOffsets[o + 1] - fieldOffsets[o]);
+    byte[] cf = Arrays.copyOfRange(keyData, fieldOffsets[o + 1], fieldOffsets[o + 2]);
+    byte[] cq = Arrays.copyOfRange(keyData, fieldOffsets[o + 2], fieldOffsets[o + 3]);
+    byte[] cv = Arrays.copyOfRange(keyData, fieldOffsets[o + 3], fieldOffsets[o + 4]);
+    return new Key(row, cf, cq, cv, timestamps[i], deleted[i], false);
+  }
+
+  /**
+   * Positions the block just after the last indexed key that is less than the start key, as {@link BlockIndex#seekBlock(Key, ABlockReader)} does.
+   *
+   * @return the indexed key and the entries left after it, or null if the block should be read from the beginning
+   */
+  public BlockIndexEntry seekBlock(Key startKey, ABlockReader cacheBlock) {
+    int pos = binarySearch(startKey);
+
+    int index;
+
+    if (pos < 0) {
+      if (pos == -1)
+        return null; // less than the first key in index, did not index the first key in block so just return null
+      index = (pos * -1) - 2;
+    } else {
+      // found exact key in index, want the entry before it
+      index = pos;
+      while (index > 0 && compare(index, startKey.getRowData(), startKey.getColumnFamilyData(), startKey.getColumnQualifierData(),
+          startKey.getColumnVisibilityData(), startKey.getTimestamp(), startKey.isDeleted()) == 0)
+        index--;
+    }
+
+    // handle case where multiple keys in block are exactly the same, want to find the earliest key in the index
+    while (index - 1 > 0 && sameKey(index, index - 1))
+      index--;
+
+    if (index == 0 && pos >= 0 && sameKey(0, pos))
+      return null;
+
+    cacheBlock.seek(positions[index]);
+    return new BlockIndexEntry(positions[index], entriesLeft[index], getKey(index));
+  }
+
+  int size() {
+    return size;
+  }
+
+  Key getIndexedKey(int i) {
+    return getKey(i);
+  }
+}
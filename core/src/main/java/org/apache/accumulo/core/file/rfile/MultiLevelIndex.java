@@ -33,11 +33,13 @@ import java.util.Map;
 import java.util.RandomAccess;
 
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.file.blockfile.ABlockReader;
 import org.apache.accumulo.core.file.blockfile.ABlockWriter;
 import org.apache.accumulo.core.file.blockfile.BlockFileReader;
 import org.apache.accumulo.core.file.blockfile.BlockFileWriter;
 import org.apache.accumulo.core.file.rfile.bcfile.Utils;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.hadoop.io.WritableComparable;
 
 public class MultiLevelIndex {
@@ -49,18 +51,31 @@ public class MultiLevelIndex {
     private long compressedSize;
     private long rawSize;
     private boolean newFormat;
+    private boolean hasSummary;
+    private BlockSummary summary;
     
     IndexEntry(Key k, int e, long offset, long compressedSize, long rawSize) {
+      this(k, e, offset, compressedSize, rawSize, null);
+    }
+    
+    IndexEntry(Key k, int e, long offset, long compressedSize, long rawSize, BlockSummary summary) {
       this.key = k;
       this.entries = e;
       this.offset = offset;
       this.compressedSize = compressedSize;
       this.rawSize = rawSize;
+      this.summary = summary;
       newFormat = true;
+      hasSummary = summary != null;
     }
     
     public IndexEntry(boolean newFormat) {
+      this(newFormat, false);
+    }
+    
+    public IndexEntry(boolean newFormat, boolean hasSummary) {
       this.newFormat = newFormat;
+      this.hasSummary = hasSummary;
     }
     
     @Override
@@ -77,6 +92,12 @@ public class MultiLevelIndex {
         compressedSize = -1;
         rawSize = -1;
       }
+      if (hasSummary) {
+        summary = new BlockSummary();
+        summary.readFields(in);
+      } else {
+        summary = null;
+      }
     }
     
     @Override
@@ -88,6 +109,8 @@ public class MultiLevelIndex {
         Utils.writeVLong(out, compressedSize);
         Utils.writeVLong(out, rawSize);
       }
+      if (hasSummary)
+        summary.write(out);
     }
     
     public Key getKey() {
@@ -110,6 +133,13 @@ public class MultiLevelIndex {
       return rawSize;
     }
     
+    /**
+     * @return a summary of the keys in the block this entry points to, or null if the file was written without summaries
+     */
+    public BlockSummary getSummary() {
+      return summary;
+    }
+    
     @Override
     public int compareTo(IndexEntry o) {
       return key.compareTo(o.key);
@@ -135,11 +165,13 @@ public class MultiLevelIndex {
     private int[] offsets;
     private byte[] data;
     private boolean newFormat;
+    private boolean hasSummaries;
     
-    SerializedIndex(int[] offsets, byte[] data, boolean newFormat) {
+    SerializedIndex(int[] offsets, byte[] data, boolean newFormat, boolean hasSummaries) {
       this.offsets = offsets;
       this.data = data;
       this.newFormat = newFormat;
+      this.hasSummaries = hasSummaries;
     }
     
     @Override
@@ -153,7 +185,7 @@ public class MultiLevelIndex {
       ByteArrayInputStream bais = new ByteArrayInputStream(data, offsets[index], len);
       DataInputStream dis = new DataInputStream(bais);
       
-      IndexEntry ie = new IndexEntry(newFormat);
+      IndexEntry ie = new IndexEntry(newFormat, hasSummaries);
       try {
         ie.readFields(dis);
       } catch (IOException e) {
@@ -223,6 +255,8 @@ public class MultiLevelIndex {
     SerializedIndex index;
     KeyIndex keyIndex;
     private boolean hasNext;
+    // summary of all the blocks this index block points to, null when entries are added without summaries
+    private BlockSummary summary;
     
     public IndexBlock(int level, int totalAdded) {
       // System.out.println("IndexBlock("+level+","+levelCount+","+totalAdded+")");
@@ -237,9 +271,18 @@ public class MultiLevelIndex {
     
     public IndexBlock() {}
     
-    public void add(Key key, int value, long offset, long compressedSize, long rawSize) throws IOException {
+    public void add(Key key, int value, long offset, long compressedSize, long rawSize, BlockSummary blockSummary) throws IOException {
       offsets.add(indexOut.size());
-      new IndexEntry(key, value, offset, compressedSize, rawSize).write(indexOut);
+      new IndexEntry(key, value, offset, compressedSize, rawSize, blockSummary).write(indexOut);
+      if (blockSummary != null) {
+        if (summary == null)
+          summary = new BlockSummary();
+        summary.merge(blockSummary);
+      }
+    }
+    
+    BlockSummary getSummary() {
+      return summary;
     }
     
     int getSize() {
@@ -265,7 +308,7 @@ public class MultiLevelIndex {
     
     public void readFields(DataInput in, int version) throws IOException {
       
-      if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7) {
+      if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7 || version == RFile.RINDEX_VER_8) {
         level = in.readInt();
         offset = in.readInt();
         hasNext = in.readBoolean();
@@ -280,7 +323,7 @@ public class MultiLevelIndex {
         byte[] serializedIndex = new byte[indexSize];
         in.readFully(serializedIndex);
         
-        index = new SerializedIndex(offsets, serializedIndex, true);
+        index = new SerializedIndex(offsets, serializedIndex, true, version == RFile.RINDEX_VER_8);
         keyIndex = new KeyIndex(offsets, serializedIndex);
       } else if (version == RFile.RINDEX_VER_3) {
         level = 0;
@@ -308,7 +351,7 @@ public class MultiLevelIndex {
         }
         
         byte[] serializedIndex = baos.toByteArray();
-        index = new SerializedIndex(oia, serializedIndex, false);
+        index = new SerializedIndex(oia, serializedIndex, false, false);
         keyIndex = new KeyIndex(oia, serializedIndex);
       } else if (version == RFile.RINDEX_VER_4) {
         level = 0;
@@ -325,7 +368,7 @@ public class MultiLevelIndex {
         byte[] indexData = new byte[size];
         in.readFully(indexData);
         
-        index = new SerializedIndex(offsets, indexData, false);
+        index = new SerializedIndex(offsets, indexData, false, false);
         keyIndex = new KeyIndex(offsets, indexData);
       } else {
         throw new RuntimeException("Unexpected version " + version);
@@ -369,6 +412,7 @@ public class MultiLevelIndex {
     private DataOutputStream buffer;
     private int buffered;
     private ByteArrayOutputStream baos;
+    private boolean hasSummaries = false;
     
     public BufferedWriter(Writer writer) {
       this.writer = writer;
@@ -382,10 +426,10 @@ public class MultiLevelIndex {
       
       DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
       
-      IndexEntry ie = new IndexEntry(true);
+      IndexEntry ie = new IndexEntry(true, hasSummaries);
       for (int i = 0; i < buffered; i++) {
         ie.readFields(dis);
-        writer.add(ie.getKey(), ie.getNumEntries(), ie.getOffset(), ie.getCompressedSize(), ie.getRawSize());
+        writer.add(ie.getKey(), ie.getNumEntries(), ie.getOffset(), ie.getCompressedSize(), ie.getRawSize(), ie.getSummary());
       }
       
       buffered = 0;
@@ -395,17 +439,29 @@ public class MultiLevelIndex {
     }
     
     public void add(Key key, int data, long offset, long compressedSize, long rawSize) throws IOException {
+      add(key, data, offset, compressedSize, rawSize, null);
+    }
+    
+    /**
+     * Adds an entry for a data block. Either every entry in an index has a summary, or none do.
+     */
+    public void add(Key key, int data, long offset, long compressedSize, long rawSize, BlockSummary summary) throws IOException {
       if (buffer.size() > (10 * 1 << 20)) {
         flush();
       }
       
-      new IndexEntry(key, data, offset, compressedSize, rawSize).write(buffer);
+      hasSummaries = summary != null;
+      new IndexEntry(key, data, offset, compressedSize, rawSize, summary).write(buffer);
       buffered++;
     }
     
     public void addLast(Key key, int data, long offset, long compressedSize, long rawSize) throws IOException {
+      addLast(key, data, offset, compressedSize, rawSize, null);
+    }
+    
+    public void addLast(Key key, int data, long offset, long compressedSize, long rawSize, BlockSummary summary) throws IOException {
       flush();
-      writer.addLast(key, data, offset, compressedSize, rawSize);
+      writer.addLast(key, data, offset, compressedSize, rawSize, summary);
     }
     
     public void close(DataOutput out) throws IOException {
@@ -430,14 +486,14 @@ public class MultiLevelIndex {
       levels = new ArrayList<IndexBlock>();
     }
     
-    private void add(int level, Key key, int data, long offset, long compressedSize, long rawSize) throws IOException {
+    private void add(int level, Key key, int data, long offset, long compressedSize, long rawSize, BlockSummary summary) throws IOException {
       if (level == levels.size()) {
         levels.add(new IndexBlock(level, 0));
       }
       
       IndexBlock iblock = levels.get(level);
       
-      iblock.add(key, data, offset, compressedSize, rawSize);
+      iblock.add(key, data, offset, compressedSize, rawSize, summary);
     }
     
     private void flush(int level, Key lastKey, boolean last) throws IOException {
@@ -452,7 +508,7 @@ public class MultiLevelIndex {
         iblock.write(out);
         out.close();
         
-        add(level + 1, lastKey, 0, out.getStartPos(), out.getCompressedSize(), out.getRawSize());
+        add(level + 1, lastKey, 0, out.getStartPos(), out.getCompressedSize(), out.getRawSize(), iblock.getSummary());
         flush(level + 1, lastKey, last);
         
         if (last)
@@ -463,17 +519,25 @@ public class MultiLevelIndex {
     }
     
     public void add(Key key, int data, long offset, long compressedSize, long rawSize) throws IOException {
+      add(key, data, offset, compressedSize, rawSize, null);
+    }
+    
+    public void add(Key key, int data, long offset, long compressedSize, long rawSize, BlockSummary summary) throws IOException {
       totalAdded++;
-      add(0, key, data, offset, compressedSize, rawSize);
+      add(0, key, data, offset, compressedSize, rawSize, summary);
       flush(0, key, false);
     }
     
     public void addLast(Key key, int data, long offset, long compressedSize, long rawSize) throws IOException {
+      addLast(key, data, offset, compressedSize, rawSize, null);
+    }
+    
+    public void addLast(Key key, int data, long offset, long compressedSize, long rawSize, BlockSummary summary) throws IOException {
       if (addedLast)
         throw new IllegalStateException("already added last");
       
       totalAdded++;
-      add(0, key, data, offset, compressedSize, rawSize);
+      add(0, key, data, offset, compressedSize, rawSize, summary);
       flush(0, key, true);
       addedLast = true;
       
@@ -732,11 +796,59 @@ public class MultiLevelIndex {
       return new IndexIterator(node.lookup(key));
     }
     
+    /**
+     * Samples the index entries that overlap a range, reading at most maxBlocks index blocks. Starting at the root, the overlapping entries are replaced by
+     * the overlapping entries of the blocks they point to, one level at a time, until there are at least minEntries of them, the leaves are reached, or the
+     * next level would take more than the remaining blocks.
+     * 
+     * @return each sampled key with the fraction of the index it stands for, assuming the blocks at each level point to equal shares of the data
+     */
+    public List<Pair<Key,Double>> sample(Range range, int minEntries, int maxBlocks) throws IOException {
+      List<IndexEntry> entries = overlapping(rootBlock.getIndex(), range);
+      List<Double> fractions = new ArrayList<Double>(Collections.nCopies(entries.size(), 1.0 / Math.max(1, rootBlock.getIndex().size())));
+      int level = rootBlock.getLevel();
+      
+      while (level > 0 && entries.size() < minEntries && entries.size() <= maxBlocks) {
+        List<IndexEntry> children = new ArrayList<IndexEntry>();
+        List<Double> childFractions = new ArrayList<Double>();
+        for (int i = 0; i < entries.size(); i++) {
+          List<IndexEntry> index = getIndexBlock(entries.get(i)).getIndex();
+          List<IndexEntry> overlap = overlapping(index, range);
+          children.addAll(overlap);
+          childFractions.addAll(Collections.nCopies(overlap.size(), fractions.get(i) / index.size()));
+        }
+        maxBlocks -= entries.size();
+        entries = children;
+        fractions = childFractions;
+        level--;
+      }
+      
+      List<Pair<Key,Double>> samples = new ArrayList<Pair<Key,Double>>(entries.size());
+      for (int i = 0; i < entries.size(); i++)
+        samples.add(new Pair<Key,Double>(entries.get(i).getKey(), fractions.get(i)));
+      return samples;
+    }
+    
+    /**
+     * @return the entries whose blocks may hold keys in the range, each entry's block holding the keys after the previous entry's key up to its own
+     */
+    private static List<IndexEntry> overlapping(List<IndexEntry> index, Range range) {
+      List<IndexEntry> overlap = new ArrayList<IndexEntry>();
+      for (IndexEntry ie : index) {
+        if (range.beforeStartKey(ie.getKey()))
+          continue;
+        overlap.add(ie);
+        if (range.afterEndKey(ie.getKey()))
+          break;
+      }
+      return overlap;
+    }
+    
     public void readFields(DataInput in) throws IOException {
       
       size = 0;
       
-      if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7) {
+      if (version == RFile.RINDEX_VER_6 || version == RFile.RINDEX_VER_7 || version == RFile.RINDEX_VER_8) {
         size = in.readInt();
       }
       
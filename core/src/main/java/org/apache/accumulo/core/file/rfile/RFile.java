@@ -22,6 +22,7 @@ import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -63,6 +64,7 @@ import org.apache.accumulo.core.iterators.system.InterruptibleIterator;
 import org.apache.accumulo.core.iterators.system.LocalityGroupIterator;
 import org.apache.accumulo.core.iterators.system.LocalityGroupIterator.LocalityGroup;
 import org.apache.accumulo.core.util.MutableByteSequence;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.commons.lang.mutable.MutableLong;
 import org.apache.hadoop.io.Writable;
 import org.apache.log4j.Logger;
@@ -76,6 +78,7 @@ public class RFile {
   private RFile() {}
   
   private static final int RINDEX_MAGIC = 0x20637474;
+  static final int RINDEX_VER_8 = 8;
   static final int RINDEX_VER_7 = 7;
   static final int RINDEX_VER_6 = 6;
   // static final int RINDEX_VER_5 = 5; // unreleased
@@ -295,6 +298,8 @@ public class RFile {
     private int nextBlock = 0;
     
     private Key lastKeyInBlock = null;
+    // null when the file is written without block summaries
+    private BlockSummary blockSummary;
     
     private boolean dataClosed = false;
     private boolean closed = false;
@@ -308,10 +313,20 @@ public class RFile {
     }
     
     public Writer(BlockFileWriter bfw, int blockSize, int indexBlockSize) throws IOException {
+      this(bfw, blockSize, indexBlockSize, false);
+    }
+    
+    /**
+     * @param blockSummaries
+     *          true to store a {@link BlockSummary} for each data block, writing index version 8. Otherwise the index is written as version 7, which older
+     *          versions can read.
+     */
+    public Writer(BlockFileWriter bfw, int blockSize, int indexBlockSize, boolean blockSummaries) throws IOException {
       this.blockSize = blockSize;
       this.indexBlockSize = indexBlockSize;
       this.fileWriter = bfw;
       this.blockWriter = null;
+      this.blockSummary = blockSummaries ? new BlockSummary() : null;
       previousColumnFamilies = new HashSet<ByteSequence>();
     }
     
@@ -327,7 +342,7 @@ public class RFile {
       ABlockWriter mba = fileWriter.prepareMetaBlock("RFile.index");
       
       mba.writeInt(RINDEX_MAGIC);
-      mba.writeInt(RINDEX_VER_7);
+      mba.writeInt(blockSummary == null ? RINDEX_VER_7 : RINDEX_VER_8);
       
       if (currentLocalityGroup != null)
         localityGroups.add(currentLocalityGroup);
@@ -386,6 +401,8 @@ public class RFile {
       
       rk.write(blockWriter);
       value.write(blockWriter);
+      if (blockSummary != null)
+        blockSummary.update(key);
       entries++;
       
       prevKey = new Key(key);
@@ -397,12 +414,15 @@ public class RFile {
       blockWriter.close();
       
       if (lastBlock)
-        currentLocalityGroup.indexWriter.addLast(key, entries, blockWriter.getStartPos(), blockWriter.getCompressedSize(), blockWriter.getRawSize());
+        currentLocalityGroup.indexWriter.addLast(key, entries, blockWriter.getStartPos(), blockWriter.getCompressedSize(), blockWriter.getRawSize(),
+            blockSummary);
       else
-        currentLocalityGroup.indexWriter.add(key, entries, blockWriter.getStartPos(), blockWriter.getCompressedSize(), blockWriter.getRawSize());
+        currentLocalityGroup.indexWriter.add(key, entries, blockWriter.getStartPos(), blockWriter.getCompressedSize(), blockWriter.getRawSize(), blockSummary);
       
       blockWriter = null;
       lastKeyInBlock = null;
+      if (blockSummary != null)
+        blockSummary.clear();
       entries = 0;
       nextBlock++;
     }
@@ -476,6 +496,16 @@ public class RFile {
     private boolean closed = false;
     private int version;
     private boolean checkRange = true;
+    // how many blocks to read ahead of a sequential scan
+    private int prefetchBlocks = 0;
+    // blocks read in order since the last seek
+    private int sequentialBlocks = 0;
+    private int prefetchedThrough = -1;
+    // signature bits of the column families being fetched, 0 when any family may be fetched
+    private long familyMask = 0;
+    private long minTimestamp = Long.MIN_VALUE;
+    private long maxTimestamp = Long.MAX_VALUE;
+    private boolean flatBlockIndex = true;
     
     private LocalityGroupReader(BlockFileReader reader, LocalityGroupMetadata lgm, int version) throws IOException {
       super(lgm.columnFamilies, lgm.isDefaultLG);
@@ -497,6 +527,10 @@ public class RFile {
       this.blockCount = lgr.blockCount;
       this.reader = lgr.reader;
       this.version = lgr.version;
+      this.prefetchBlocks = lgr.prefetchBlocks;
+      this.minTimestamp = lgr.minTimestamp;
+      this.maxTimestamp = lgr.maxTimestamp;
+      this.flatBlockIndex = lgr.flatBlockIndex;
     }
     
     Iterator<IndexEntry> getIndex() throws IOException {
@@ -515,6 +549,8 @@ public class RFile {
     private IndexIterator iiter;
     private int entriesLeft;
     private ABlockReader currBlock;
+    // the current block as a buffer, when it is in memory, so entries can be decoded without going through streams
+    private ByteBuffer currBuffer;
     private RelativeKey rk;
     private Value val;
     private Key prevKey = null;
@@ -552,17 +588,33 @@ public class RFile {
       if (!hasTop)
         throw new IllegalStateException();
       
+      Key skippedThrough = null;
+      
       if (entriesLeft == 0) {
         currBlock.close();
         
-        if (iiter.hasNext()) {
-          IndexEntry indexEntry = iiter.next();
+        IndexEntry indexEntry = null;
+        while (iiter.hasNext()) {
+          IndexEntry ie = iiter.next();
+          if (!canSkip(ie)) {
+            indexEntry = ie;
+            break;
+          }
+          skippedThrough = ie.getKey();
+          if (range.afterEndKey(skippedThrough))
+            break;
+        }
+        
+        if (indexEntry != null) {
           entriesLeft = indexEntry.getNumEntries();
           currBlock = getDataBlock(indexEntry);
+          currBuffer = currBlock.getBuffer();
           
           checkRange = range.afterEndKey(indexEntry.getKey());
-          if (!checkRange)
+          if (!checkRange) {
             hasTop = true;
+            prefetch(indexEntry);
+          }
 
         } else {
           rk = null;
@@ -572,9 +624,17 @@ public class RFile {
         }
       }
       
-      prevKey = rk.getKey();
-      rk.readFields(currBlock);
-      val.readFields(currBlock);
+      // when blocks were skipped the previous key is the last key of the last skipped block, so that nothing in the file lies between it and the next key
+      prevKey = skippedThrough == null ? rk.getKey() : new Key(skippedThrough);
+      if (currBuffer != null) {
+        currBuffer.position(currBlock.getPosition());
+        rk.readFields(currBuffer);
+        val.set(RelativeKey.readValue(currBuffer));
+        currBlock.seek(currBuffer.position());
+      } else {
+        rk.readFields(currBlock);
+        val.readFields(currBlock);
+      }
       entriesLeft--;
       if (checkRange)
         hasTop = !range.afterEndKey(rk.getKey());
@@ -591,6 +651,44 @@ public class RFile {
       
     }
     
+    /**
+     * @return true if the block's summary shows it can not contain any keys that the current scan wants
+     */
+    private boolean canSkip(IndexEntry indexEntry) {
+      BlockSummary summary = indexEntry.getSummary();
+      if (summary == null)
+        return false;
+      if (familyMask != 0 && !summary.mayContainFamilies(familyMask))
+        return true;
+      return !summary.mayAffectTimestamps(minTimestamp, maxTimestamp);
+    }
+    
+    /**
+     * Once a scan has read a few blocks in a row, starts reading the blocks ahead of it that are within the range being scanned.
+     */
+    private void prefetch(IndexEntry current) {
+      if (prefetchBlocks <= 0 || version == RINDEX_VER_3 || version == RINDEX_VER_4 || ++sequentialBlocks < 2)
+        return;
+      
+      int currentIndex = iiter.previousIndex();
+      int moved = 0;
+      try {
+        Key prevBlockKey = current.getKey();
+        while (moved < prefetchBlocks && iiter.hasNext() && !range.afterEndKey(prevBlockKey)) {
+          IndexEntry indexEntry = iiter.next();
+          moved++;
+          if (currentIndex + moved > prefetchedThrough && !canSkip(indexEntry)) {
+            reader.prefetchDataBlock(indexEntry.getOffset(), indexEntry.getCompressedSize(), indexEntry.getRawSize());
+            prefetchedThrough = currentIndex + moved;
+          }
+          prevBlockKey = indexEntry.getKey();
+        }
+      } finally {
+        for (int i = 0; i < moved; i++)
+          iiter.previous();
+      }
+    }
+    
     @Override
     public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
       
@@ -613,6 +711,7 @@ public class RFile {
     
     private void reset() {
       rk = null;
+      currBuffer = null;
       hasTop = false;
       if (currBlock != null) {
         try {
@@ -694,6 +793,8 @@ public class RFile {
         iiter = index.lookup(startKey);
         
         reset();
+        sequentialBlocks = 0;
+        prefetchedThrough = -1;
         
         if (!iiter.hasNext()) {
           // past the last key
@@ -711,8 +812,16 @@ public class RFile {
             prevKey = new Key(); // first block in the file, so set prev key to minimal key
             
           IndexEntry indexEntry = iiter.next();
+          
+          // skip past leading blocks that can not have anything the scan wants, the last block in the range is always read
+          while (canSkip(indexEntry) && iiter.hasNext() && !range.afterEndKey(indexEntry.getKey())) {
+            prevKey = new Key(indexEntry.getKey());
+            indexEntry = iiter.next();
+          }
+          
           entriesLeft = indexEntry.getNumEntries();
           currBlock = getDataBlock(indexEntry);
+          currBuffer = currBlock.getBuffer();
 
           checkRange = range.afterEndKey(indexEntry.getKey());
           if (!checkRange)
@@ -723,25 +832,31 @@ public class RFile {
           Key currKey = null;
 
           if (currBlock.isIndexable()) {
-            BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry);
-            if (blockIndex != null) {
-              BlockIndexEntry bie = blockIndex.seekBlock(startKey, currBlock);
-              if (bie != null) {
-                // we are seeked to the current position of the key in the index
-                // need to prime the read process and read this key from the block
-                RelativeKey tmpRk = new RelativeKey();
-                tmpRk.setPrevKey(bie.getPrevKey());
-                tmpRk.readFields(currBlock);
-                val = new Value();
+            BlockIndexEntry bie = null;
+            if (flatBlockIndex) {
+              FlatBlockIndex blockIndex = FlatBlockIndex.getIndex(currBlock, indexEntry);
+              if (blockIndex != null)
+                bie = blockIndex.seekBlock(startKey, currBlock);
+            } else {
+              BlockIndex blockIndex = BlockIndex.getIndex(currBlock, indexEntry);
+              if (blockIndex != null)
+                bie = blockIndex.seekBlock(startKey, currBlock);
+            }
+            if (bie != null) {
+              // we are seeked to the current position of the key in the index
+              // need to prime the read process and read this key from the block
+              RelativeKey tmpRk = new RelativeKey();
+              tmpRk.setPrevKey(bie.getPrevKey());
+              tmpRk.readFields(currBlock);
+              val = new Value();
 
-                val.readFields(currBlock);
-                valbs = new MutableByteSequence(val.get(), 0, val.getSize());
-                
-                // just consumed one key from the input stream, so subtract one from entries left
-                entriesLeft = bie.getEntriesLeft() - 1;
-                prevKey = new Key(bie.getPrevKey());
-                currKey = tmpRk.getKey();
-              }
+              val.readFields(currBlock);
+              valbs = new MutableByteSequence(val.get(), 0, val.getSize());
+              
+              // just consumed one key from the input stream, so subtract one from entries left
+              entriesLeft = bie.getEntriesLeft() - 1;
+              prevKey = new Key(bie.getPrevKey());
+              currKey = tmpRk.getKey();
             }
           }
 
@@ -829,7 +944,7 @@ public class RFile {
       
       if (magic != RINDEX_MAGIC)
         throw new IOException("Did not see expected magic number, saw " + magic);
-      if (ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4 && ver != RINDEX_VER_3)
+      if (ver != RINDEX_VER_8 && ver != RINDEX_VER_7 && ver != RINDEX_VER_6 && ver != RINDEX_VER_4 && ver != RINDEX_VER_3)
         throw new IOException("Did not see expected version, saw " + ver);
       
       int size = mb.readInt();
@@ -869,6 +984,36 @@ public class RFile {
       }
     }
     
+    /**
+     * Sets how many data blocks to read ahead once a scan has read two blocks in a row without seeking, 0 disables it. Deep copies made after this is called
+     * inherit the setting.
+     */
+    public void setPrefetchBlocks(int blocks) {
+      for (LocalityGroupReader lgr : lgReaders)
+        lgr.prefetchBlocks = blocks;
+    }
+    
+    /**
+     * Limits the timestamps of the keys the caller is interested in, so data blocks that only have keys outside the range can be skipped. Keys outside the
+     * range may still be returned. Blocks with delete markers that could hide keys in the range are never skipped. Deep copies made after this is called
+     * inherit the setting.
+     */
+    public void setTimestampRange(long min, long max) {
+      for (LocalityGroupReader lgr : lgReaders) {
+        lgr.minTimestamp = min;
+        lgr.maxTimestamp = max;
+      }
+    }
+    
+    /**
+     * Chooses between {@link FlatBlockIndex}, the default, and {@link BlockIndex} for seeking within cached data blocks. Deep copies made after this is called
+     * inherit the setting.
+     */
+    public void setFlatBlockIndex(boolean flat) {
+      for (LocalityGroupReader lgr : lgReaders)
+        lgr.flatBlockIndex = flat;
+    }
+    
     private void closeLocalityGroupReaders() {
       for (LocalityGroupReader lgr : lgReaders) {
         try {
@@ -976,6 +1121,9 @@ public class RFile {
     
     @Override
     public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+      long familyMask = inclusive && columnFamilies.size() > 0 ? BlockSummary.familyMask(columnFamilies) : 0;
+      for (LocalityGroupReader lgr : lgReaders)
+        lgr.familyMask = familyMask;
       numLGSeeked = LocalityGroupIterator.seek(this, lgReaders, nonDefaultColumnFamilies, range, columnFamilies, inclusive);
     }
     
@@ -994,6 +1142,21 @@ public class RFile {
       return new MultiIndexIterator(this, indexes);
     }
     
+    /**
+     * Samples the index of each locality group without reading data blocks, see {@link MultiLevelIndex.Reader#sample(Range, int, int)}. The index blocks
+     * read are shared evenly among the locality groups, and each group is taken to hold an equal share of the file.
+     * 
+     * @return keys in index order within each locality group, with the fraction of the file each one stands for
+     */
+    public List<Pair<Key,Double>> sampleIndex(Range range, int minEntries, int maxBlocks) throws IOException {
+      List<Pair<Key,Double>> samples = new ArrayList<Pair<Key,Double>>();
+      for (LocalityGroupReader lgr : lgReaders) {
+        for (Pair<Key,Double> sample : lgr.index.sample(range, minEntries, maxBlocks / lgReaders.length))
+          samples.add(new Pair<Key,Double>(sample.getFirst(), sample.getSecond() / lgReaders.length));
+      }
+      return samples;
+    }
+    
     public void printInfo() throws IOException {
       for (LocalityGroupMetadata lgm : localityGroups) {
         lgm.printInfo();
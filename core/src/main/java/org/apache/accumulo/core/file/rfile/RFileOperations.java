@@ -77,6 +77,10 @@ public class RFileOperations extends FileOperations {
     
     CachableBlockFile.Reader _cbr = new CachableBlockFile.Reader(fs, path, conf, dataCache, indexCache, acuconf);
     Reader iter = new RFile.Reader(_cbr);
+    if (acuconf != null) {
+      iter.setPrefetchBlocks(acuconf.getCount(Property.TABLE_SCAN_PREFETCH_BLOCKS));
+      iter.setFlatBlockIndex(acuconf.getBoolean(Property.TABLE_FLAT_BLOCK_INDEX));
+    }
     
     if (seekToBeginning) {
       iter.seek(new Range((Key) null, null), EMPTY_CF_SET, false);
@@ -124,7 +128,7 @@ public class RFileOperations extends FileOperations {
     long indexBlockSize = acuconf.getMemoryInBytes(Property.TABLE_FILE_COMPRESSED_BLOCK_SIZE_INDEX);
     
     CachableBlockFile.Writer _cbw = new CachableBlockFile.Writer(fs.create(new Path(file), false, bufferSize, (short) rep, block), compression, conf, acuconf);
-    Writer writer = new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize);
+    Writer writer = new RFile.Writer(_cbw, (int) blockSize, (int) indexBlockSize, acuconf.getBoolean(Property.TABLE_FILE_BLOCK_SUMMARIES));
     return writer;
   }
 }
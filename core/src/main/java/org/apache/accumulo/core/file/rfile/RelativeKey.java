@@ -19,6 +19,7 @@ package org.apache.accumulo.core.file.rfile;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -175,7 +176,7 @@ public class RelativeKey implements Writable {
     long ts;
     
     if ((fieldsSame & ROW_SAME) == ROW_SAME) {
-      row = prevKey.getRowData().toArray();
+      row = sameData(prevKey.getRowData());
     } else if ((fieldsPrefixed & ROW_COMMON_PREFIX) == ROW_COMMON_PREFIX) {
       row = readPrefix(in, prevKey.getRowData());
     } else {
@@ -183,7 +184,7 @@ public class RelativeKey implements Writable {
     }
     
     if ((fieldsSame & CF_SAME) == CF_SAME) {
-      cf = prevKey.getColumnFamilyData().toArray();
+      cf = sameData(prevKey.getColumnFamilyData());
     } else if ((fieldsPrefixed & CF_COMMON_PREFIX) == CF_COMMON_PREFIX) {
       cf = readPrefix(in, prevKey.getColumnFamilyData());
     } else {
@@ -191,7 +192,7 @@ public class RelativeKey implements Writable {
     }
     
     if ((fieldsSame & CQ_SAME) == CQ_SAME) {
-      cq = prevKey.getColumnQualifierData().toArray();
+      cq = sameData(prevKey.getColumnQualifierData());
     } else if ((fieldsPrefixed & CQ_COMMON_PREFIX) == CQ_COMMON_PREFIX) {
       cq = readPrefix(in, prevKey.getColumnQualifierData());
     } else {
@@ -199,7 +200,7 @@ public class RelativeKey implements Writable {
     }
     
     if ((fieldsSame & CV_SAME) == CV_SAME) {
-      cv = prevKey.getColumnVisibilityData().toArray();
+      cv = sameData(prevKey.getColumnVisibilityData());
     } else if ((fieldsPrefixed & CV_COMMON_PREFIX) == CV_COMMON_PREFIX) {
       cv = readPrefix(in, prevKey.getColumnVisibilityData());
     } else {
@@ -218,6 +219,74 @@ public class RelativeKey implements Writable {
     this.prevKey = this.key;
   }
   
+  /**
+   * Decodes the next key directly from a buffer holding a whole block, instead of going through a {@link DataInput} stream. Fields that are the same as in the
+   * previous key share its byte arrays rather than being copied. The buffer position is advanced past the key.
+   */
+  public void readFields(ByteBuffer in) {
+    fieldsSame = in.get();
+    if ((fieldsSame & PREFIX_COMPRESSION_ENABLED) == PREFIX_COMPRESSION_ENABLED) {
+      fieldsPrefixed = in.get();
+    } else {
+      fieldsPrefixed = 0;
+    }
+    
+    byte[] row, cf, cq, cv;
+    long ts;
+    
+    if ((fieldsSame & ROW_SAME) == ROW_SAME) {
+      row = sameData(prevKey.getRowData());
+    } else if ((fieldsPrefixed & ROW_COMMON_PREFIX) == ROW_COMMON_PREFIX) {
+      row = readPrefix(in, prevKey.getRowData());
+    } else {
+      row = read(in);
+    }
+    
+    if ((fieldsSame & CF_SAME) == CF_SAME) {
+      cf = sameData(prevKey.getColumnFamilyData());
+    } else if ((fieldsPrefixed & CF_COMMON_PREFIX) == CF_COMMON_PREFIX) {
+      cf = readPrefix(in, prevKey.getColumnFamilyData());
+    } else {
+      cf = read(in);
+    }
+    
+    if ((fieldsSame & CQ_SAME) == CQ_SAME) {
+      cq = sameData(prevKey.getColumnQualifierData());
+    } else if ((fieldsPrefixed & CQ_COMMON_PREFIX) == CQ_COMMON_PREFIX) {
+      cq = readPrefix(in, prevKey.getColumnQualifierData());
+    } else {
+      cq = read(in);
+    }
+    
+    if ((fieldsSame & CV_SAME) == CV_SAME) {
+      cv = sameData(prevKey.getColumnVisibilityData());
+    } else if ((fieldsPrefixed & CV_COMMON_PREFIX) == CV_COMMON_PREFIX) {
+      cv = readPrefix(in, prevKey.getColumnVisibilityData());
+    } else {
+      cv = read(in);
+    }
+    
+    if ((fieldsSame & TS_SAME) == TS_SAME) {
+      ts = prevKey.getTimestamp();
+    } else if ((fieldsPrefixed & TS_DIFF) == TS_DIFF) {
+      ts = readVLong(in) + prevKey.getTimestamp();
+    } else {
+      ts = readVLong(in);
+    }
+    
+    this.key = new Key(row, cf, cq, cv, ts, (fieldsSame & DELETED) == DELETED, false);
+    this.prevKey = this.key;
+  }
+  
+  /**
+   * Reads a value written after a key by the RFile writer from a buffer holding a whole block.
+   */
+  static byte[] readValue(ByteBuffer in) {
+    byte[] data = new byte[in.getInt()];
+    in.get(data);
+    return data;
+  }
+  
   public static class SkippR {
     RelativeKey rk;
     int skipped;
@@ -490,6 +559,53 @@ public class RelativeKey implements Writable {
     dest.setLength(len);
   }
   
+  /**
+   * Keys never modify their byte arrays in place, so a field that is the same as in the previous key can reuse the previous key's array.
+   */
+  private static byte[] sameData(ByteSequence prev) {
+    if (prev.isBackedByArray() && prev.offset() == 0 && prev.length() == prev.getBackingArray().length)
+      return prev.getBackingArray();
+    return prev.toArray();
+  }
+  
+  private static byte[] readPrefix(ByteBuffer in, ByteSequence prefixSource) {
+    int prefixLen = (int) readVLong(in);
+    int remainingLen = (int) readVLong(in);
+    byte[] data = new byte[prefixLen + remainingLen];
+    if (prefixSource.isBackedByArray()) {
+      System.arraycopy(prefixSource.getBackingArray(), prefixSource.offset(), data, 0, prefixLen);
+    } else {
+      byte[] prefixArray = prefixSource.toArray();
+      System.arraycopy(prefixArray, 0, data, 0, prefixLen);
+    }
+    in.get(data, prefixLen, remainingLen);
+    return data;
+  }
+  
+  private static byte[] read(ByteBuffer in) {
+    byte[] data = new byte[(int) readVLong(in)];
+    in.get(data);
+    return data;
+  }
+  
+  /**
+   * Same encoding as {@link WritableUtils#readVLong(DataInput)}
+   */
+  private static long readVLong(ByteBuffer in) {
+    byte firstByte = in.get();
+    int len = WritableUtils.decodeVIntSize(firstByte);
+    if (len == 1) {
+      return firstByte;
+    }
+    long i = 0;
+    for (int idx = 0; idx < len - 1; idx++) {
+      byte b = in.get();
+      i = i << 8;
+      i = i | (b & 0xFF);
+    }
+    return (WritableUtils.isNegativeVInt(firstByte) ? (i ^ -1L) : i);
+  }
+  
   private static byte[] read(DataInput in) throws IOException {
     int len = WritableUtils.readVInt(in);
     byte[] data = new byte[len];
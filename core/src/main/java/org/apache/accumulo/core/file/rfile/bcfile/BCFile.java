@@ -23,6 +23,7 @@ import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -31,6 +32,9 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
@@ -50,6 +54,9 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.compress.Compressor;
 import org.apache.hadoop.io.compress.Decompressor;
@@ -67,6 +74,22 @@ public final class BCFile {
 
   private static final String FS_OUTPUT_BUF_SIZE_ATTR = "tfile.fs.output.buffer.size";
   private static final String FS_INPUT_BUF_SIZE_ATTR = "tfile.fs.input.buffer.size";
+  // the meta block holding the dictionary data blocks were compressed with, if there is one
+  private static final String DICTIONARY_BLOCK_NAME = "BCFile.dictionary";
+  private static final int MAX_DICTIONARY_SIZE = 16 * 1024 * 1024;
+
+  // dictionaries already read by a writer, by qualified path; few distinct dictionaries are ever configured, so entries are replaced but never removed
+  private static final Map<Path,CachedDictionary> dictionaries = new HashMap<Path,CachedDictionary>();
+
+  private static class CachedDictionary {
+    final long modificationTime;
+    final byte[] bytes;
+
+    CachedDictionary(long modificationTime, byte[] bytes) {
+      this.modificationTime = modificationTime;
+      this.bytes = bytes;
+    }
+  }
 
   private static int getFSOutputBufferSize(Configuration conf) {
     return conf.getInt(FS_OUTPUT_BUF_SIZE_ATTR, 256 * 1024);
@@ -102,6 +125,8 @@ public final class BCFile {
     long errorCount = 0;
     // reusable buffers.
     private BytesWritable fsOutputBuffer;
+    // compresses data blocks when the compression algorithm supports it, stored in the file as a meta block
+    private final byte[] dictionary;
 
     /**
      * Call-back interface to register a block after a block is closed.
@@ -138,9 +163,11 @@ public final class BCFile {
        *          The compression algorithm to be used to for compression.
        * @param cryptoModule
        *          the module to use to obtain cryptographic streams
+       * @param dictionary
+       *          the dictionary to compress the block with, or null
        */
       public WBlockState(Algorithm compressionAlgo, FSDataOutputStream fsOut, BytesWritable fsOutputBuffer, Configuration conf, CryptoModule cryptoModule,
-          CryptoModuleParameters cryptoParams) throws IOException {
+          CryptoModuleParameters cryptoParams, byte[] dictionary) throws IOException {
         this.compressAlgo = compressionAlgo;
         this.fsOut = fsOut;
         this.posStart = fsOut.getPos();
@@ -186,6 +213,11 @@ public final class BCFile {
           this.cipherOut = cryptoParams.getEncryptedOutputStream();
         }
 
+        if (dictionary != null) {
+          this.out = compressionAlgo.createCompressionStream(cipherOut, 0, dictionary);
+          return;
+        }
+
         this.compressor = compressAlgo.getCompressor();
 
         try {
@@ -351,6 +383,7 @@ public final class BCFile {
       dataIndex = new DataIndex(compressionName, trackDataBlocks);
       metaIndex = new MetaIndex();
       fsOutputBuffer = new BytesWritable();
+      dictionary = readDictionary(accumuloConfiguration, getDefaultCompressionAlgorithm(), conf);
       Magic.write(fout);
 
       // Set up crypto-related detail, including secret key generation and encryption
@@ -382,6 +415,15 @@ public final class BCFile {
             throw new IllegalStateException("Close() called with active block appender.");
           }
 
+          if (dictionary != null) {
+            BlockAppender appender = prepareMetaBlock(DICTIONARY_BLOCK_NAME, Algorithm.NONE);
+            try {
+              appender.write(dictionary);
+            } finally {
+              appender.close();
+            }
+          }
+
           // add metaBCFileIndex to metaIndex as the last meta block
           BlockAppender appender = prepareMetaBlock(DataIndex.BLOCK_NAME, getDefaultCompressionAlgorithm());
           try {
@@ -418,6 +460,51 @@ public final class BCFile {
       return dataIndex.getDefaultCompressionAlgorithm();
     }
 
+    private static byte[] readDictionary(AccumuloConfiguration accumuloConfiguration, Algorithm compressAlgo, Configuration conf) throws IOException {
+      String file = accumuloConfiguration.get(Property.TABLE_FILE_COMPRESSION_DICTIONARY);
+      if (file == null || file.isEmpty()) {
+        return null;
+      }
+      if (!compressAlgo.supportsDictionary()) {
+        LOG.debug("Not using dictionary " + file + ", compression algorithm " + compressAlgo.getName() + " does not support dictionaries");
+        return null;
+      }
+      return loadDictionary(new Path(file), conf);
+    }
+
+    /**
+     * Reads a dictionary file, or returns the copy read by an earlier writer if the file has not been modified since. The returned array is shared and must
+     * not be changed.
+     */
+    static byte[] loadDictionary(Path path, Configuration conf) throws IOException {
+      FileSystem fs = path.getFileSystem(conf);
+      path = fs.makeQualified(path);
+      FileStatus status = fs.getFileStatus(path);
+      synchronized (dictionaries) {
+        CachedDictionary cached = dictionaries.get(path);
+        if (cached != null && cached.modificationTime == status.getModificationTime() && cached.bytes.length == status.getLen()) {
+          return cached.bytes;
+        }
+      }
+
+      long length = status.getLen();
+      if (length > MAX_DICTIONARY_SIZE) {
+        throw new IOException("Compression dictionary " + path + " is larger than " + MAX_DICTIONARY_SIZE + " bytes");
+      }
+      byte[] dictionary = new byte[(int) length];
+      FSDataInputStream in = fs.open(path);
+      try {
+        in.readFully(dictionary);
+      } finally {
+        in.close();
+      }
+
+      synchronized (dictionaries) {
+        dictionaries.put(path, new CachedDictionary(status.getModificationTime(), dictionary));
+      }
+      return dictionary;
+    }
+
     private BlockAppender prepareMetaBlock(String name, Algorithm compressAlgo) throws IOException, MetaBlockAlreadyExists {
       if (blkInProgress == true) {
         throw new IllegalStateException("Cannot create Meta Block until previous block is closed.");
@@ -428,7 +515,7 @@ public final class BCFile {
       }
 
       MetaBlockRegister mbr = new MetaBlockRegister(name, compressAlgo);
-      WBlockState wbs = new WBlockState(compressAlgo, out, fsOutputBuffer, conf, cryptoModule, cryptoParams);
+      WBlockState wbs = new WBlockState(compressAlgo, out, fsOutputBuffer, conf, cryptoModule, cryptoParams, null);
       BlockAppender ba = new BlockAppender(mbr, wbs);
       blkInProgress = true;
       metaBlkSeen = true;
@@ -483,7 +570,7 @@ public final class BCFile {
 
       DataBlockRegister dbr = new DataBlockRegister();
 
-      WBlockState wbs = new WBlockState(getDefaultCompressionAlgorithm(), out, fsOutputBuffer, conf, cryptoModule, cryptoParams);
+      WBlockState wbs = new WBlockState(getDefaultCompressionAlgorithm(), out, fsOutputBuffer, conf, cryptoModule, cryptoParams, dictionary);
       BlockAppender ba = new BlockAppender(dbr, wbs);
       blkInProgress = true;
       return ba;
@@ -572,6 +659,14 @@ public final class BCFile {
   static public class Reader implements Closeable {
     private static final String META_NAME = "BCFile.metaindex";
     private static final String CRYPTO_BLOCK_NAME = "BCFile.cryptoparams";
+    // buffers that whole compressed blocks are read into, shared by all readers
+    private static final int MAX_POOLED_BUFFERS = 32;
+    private static final int MAX_POOLED_BUFFER_SIZE = 1024 * 1024;
+    private static final int MIN_BUFFER_SIZE = 64 * 1024;
+    private static final BlockingQueue<byte[]> readBuffers = new ArrayBlockingQueue<byte[]>(MAX_POOLED_BUFFERS);
+    // loaded when the first data block is read
+    private byte[] dictionary;
+    private boolean dictionaryLoaded = false;
     private final FSDataInputStream in;
     private final Configuration conf;
     final DataIndex dataIndex;
@@ -581,6 +676,8 @@ public final class BCFile {
     private BCFileCryptoModuleParameters cryptoParams;
     private CryptoModule cryptoModule;
     private SecretKeyEncryptionStrategy secretKeyEncryptionStrategy;
+    // blocks read by readBlock that were decompressed whole, rather than through a BlockReader
+    private final AtomicLong wholeBlockReads = new AtomicLong();
 
     /**
      * Intermediate class that maintain the state of a Readable Compression Block.
@@ -592,10 +689,10 @@ public final class BCFile {
       private final InputStream in;
 
       public RBlockState(Algorithm compressionAlgo, FSDataInputStream fsin, BlockRegion region, Configuration conf, CryptoModule cryptoModule,
-          Version bcFileVersion, CryptoModuleParameters cryptoParams) throws IOException {
+          Version bcFileVersion, CryptoModuleParameters cryptoParams, byte[] dictionary) throws IOException {
         this.compressAlgo = compressionAlgo;
         this.region = region;
-        this.decompressor = compressionAlgo.getDecompressor();
+        this.decompressor = dictionary == null ? compressionAlgo.getDecompressor() : null;
 
         BoundedRangeFileInputStream boundedRangeFileInputStream = new BoundedRangeFileInputStream(fsin, this.region.getOffset(),
             this.region.getCompressedSize());
@@ -622,7 +719,10 @@ public final class BCFile {
         }
 
         try {
-          this.in = compressAlgo.createDecompressionStream(inputStreamToBeCompressed, decompressor, getFSInputBufferSize(conf));
+          if (dictionary != null)
+            this.in = compressAlgo.createDecompressionStream(inputStreamToBeCompressed, getFSInputBufferSize(conf), dictionary);
+          else
+            this.in = compressAlgo.createDecompressionStream(inputStreamToBeCompressed, decompressor, getFSInputBufferSize(conf));
         } catch (IOException e) {
           compressAlgo.returnDecompressor(decompressor);
           throw e;
@@ -1004,7 +1104,7 @@ public final class BCFile {
       }
 
       BlockRegion region = imeBCIndex.getRegion();
-      return createReader(imeBCIndex.getCompressionAlgorithm(), region);
+      return createReader(imeBCIndex.getCompressionAlgorithm(), region, null);
     }
 
     /**
@@ -1020,16 +1120,129 @@ public final class BCFile {
       }
 
       BlockRegion region = dataIndex.getBlockRegionList().get(blockIndex);
-      return createReader(dataIndex.getDefaultCompressionAlgorithm(), region);
+      return createReader(dataIndex.getDefaultCompressionAlgorithm(), region, getDictionary());
     }
 
     public BlockReader getDataBlock(long offset, long compressedSize, long rawSize) throws IOException {
       BlockRegion region = new BlockRegion(offset, compressedSize, rawSize);
-      return createReader(dataIndex.getDefaultCompressionAlgorithm(), region);
+      return createReader(dataIndex.getDefaultCompressionAlgorithm(), region, getDictionary());
+    }
+
+    private synchronized byte[] getDictionary() throws IOException {
+      if (!dictionaryLoaded) {
+        MetaIndexEntry entry = metaIndex.getMetaByName(DICTIONARY_BLOCK_NAME);
+        if (entry != null) {
+          byte[] bytes = new byte[(int) entry.getRegion().getRawSize()];
+          BlockReader reader = createReader(entry.getCompressionAlgorithm(), entry.getRegion(), null);
+          try {
+            reader.readFully(bytes);
+          } finally {
+            reader.close();
+          }
+          dictionary = bytes;
+        }
+        dictionaryLoaded = true;
+      }
+      return dictionary;
+    }
+
+    /**
+     * Reads a whole meta block into a new array, see {@link #readDataBlock(int, long)}.
+     */
+    public byte[] readMetaBlock(String name, long maxSize) throws IOException, MetaBlockDoesNotExist {
+      MetaIndexEntry imeBCIndex = metaIndex.getMetaByName(name);
+      if (imeBCIndex == null) {
+        throw new MetaBlockDoesNotExist("name=" + name);
+      }
+
+      return readBlock(imeBCIndex.getCompressionAlgorithm(), imeBCIndex.getRegion(), null, maxSize);
+    }
+
+    /**
+     * Reads a whole data block into a new array, as is done before caching a block. When the block is not encrypted or compressed with a dictionary, the
+     * compressed block is read into a pooled buffer and decompressed straight into the new array, without the buffers a {@link BlockReader} allocates.
+     * 
+     * @param maxSize
+     *          the largest uncompressed block to read
+     * @return the uncompressed block, or null if it is larger than maxSize
+     */
+    public byte[] readDataBlock(int blockIndex, long maxSize) throws IOException {
+      if (blockIndex < 0 || blockIndex >= getBlockCount()) {
+        throw new IndexOutOfBoundsException(String.format("blockIndex=%d, numBlocks=%d", blockIndex, getBlockCount()));
+      }
+
+      BlockRegion region = dataIndex.getBlockRegionList().get(blockIndex);
+      return readBlock(dataIndex.getDefaultCompressionAlgorithm(), region, getDictionary(), maxSize);
+    }
+
+    /**
+     * Reads a whole data block into a new array, see {@link #readDataBlock(int, long)}.
+     */
+    public byte[] readDataBlock(long offset, long compressedSize, long rawSize, long maxSize) throws IOException {
+      BlockRegion region = new BlockRegion(offset, compressedSize, rawSize);
+      return readBlock(dataIndex.getDefaultCompressionAlgorithm(), region, getDictionary(), maxSize);
+    }
+
+    private byte[] readBlock(Algorithm compressAlgo, BlockRegion region, byte[] dictionary, long maxSize) throws IOException {
+      if (region.getRawSize() > maxSize) {
+        return null;
+      }
+
+      byte[] block = new byte[(int) region.getRawSize()];
+      // files written without encryption are version 1 and have no crypto parameters; any other block starts with an IV that RBlockState reads
+      boolean encrypted = cryptoParams != null && cryptoModule != null;
+      if (dictionary == null && !encrypted && compressAlgo.canDecompressBlocks() && region.getCompressedSize() <= Integer.MAX_VALUE) {
+        int compressedSize = (int) region.getCompressedSize();
+        byte[] buffer = borrowBuffer(compressedSize);
+        Decompressor decompressor = compressAlgo.getDecompressor();
+        try {
+          InputStream bounded = new BoundedRangeFileInputStream(in, region.getOffset(), compressedSize);
+          int read = 0;
+          while (read < compressedSize) {
+            int n = bounded.read(buffer, read, compressedSize - read);
+            if (n < 0) {
+              throw new EOFException("Block at " + region.getOffset() + " ended after " + read + " of " + compressedSize + " bytes");
+            }
+            read += n;
+          }
+          compressAlgo.decompress(buffer, 0, compressedSize, block, decompressor);
+          wholeBlockReads.incrementAndGet();
+        } finally {
+          compressAlgo.returnDecompressor(decompressor);
+          returnBuffer(buffer);
+        }
+      } else {
+        BlockReader reader = createReader(compressAlgo, region, dictionary);
+        try {
+          reader.readFully(block);
+        } finally {
+          reader.close();
+        }
+      }
+      return block;
+    }
+
+    long getWholeBlockReads() {
+      return wholeBlockReads.get();
+    }
+
+    private static byte[] borrowBuffer(int size) {
+      byte[] buffer = readBuffers.poll();
+      if (buffer == null || buffer.length < size) {
+        // a pooled buffer that is too small is dropped, so the pool grows to the size of the blocks being read
+        buffer = new byte[Math.max(size, MIN_BUFFER_SIZE)];
+      }
+      return buffer;
+    }
+
+    private static void returnBuffer(byte[] buffer) {
+      if (buffer.length <= MAX_POOLED_BUFFER_SIZE) {
+        readBuffers.offer(buffer);
+      }
     }
 
-    private BlockReader createReader(Algorithm compressAlgo, BlockRegion region) throws IOException {
-      RBlockState rbs = new RBlockState(compressAlgo, in, region, conf, cryptoModule, version, cryptoParams);
+    private BlockReader createReader(Algorithm compressAlgo, BlockRegion region, byte[] dictionary) throws IOException {
+      RBlockState rbs = new RBlockState(compressAlgo, in, region, conf, cryptoModule, version, cryptoParams, dictionary);
       return new BlockReader(rbs);
     }
 
@@ -18,11 +18,17 @@ package org.apache.accumulo.core.file.rfile.bcfile;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -74,83 +80,57 @@ public final class Compression {
   public static final String COMPRESSION_GZ = "gz";
   /** compression: lzo */
   public static final String COMPRESSION_LZO = "lzo";
+  /** compression: lz4 */
+  public static final String COMPRESSION_LZ4 = "lz4";
+  /** compression: zstandard */
+  public static final String COMPRESSION_ZSTD = "zstd";
   /** compression: none */
   public static final String COMPRESSION_NONE = "none";
   
   /**
-   * Compression algorithms.
+   * How a codec's streams lay out compressed data, which decides whether a whole block can be decompressed without going through the codec's streams.
    */
-  public static enum Algorithm {
-    LZO(COMPRESSION_LZO) {
-      private transient boolean checked = false;
-      private static final String defaultClazz = "org.apache.hadoop.io.compress.LzoCodec";
-      private transient CompressionCodec codec = null;
-      
-      @Override
-      public synchronized boolean isSupported() {
-        if (!checked) {
-          checked = true;
-          String extClazz = (conf.get(CONF_LZO_CLASS) == null ? System.getProperty(CONF_LZO_CLASS) : null);
-          String clazz = (extClazz != null) ? extClazz : defaultClazz;
-          try {
-            LOG.info("Trying to load Lzo codec class: " + clazz);
-            codec = (CompressionCodec) ReflectionUtils.newInstance(Class.forName(clazz), conf);
-          } catch (ClassNotFoundException e) {
-            // that is okay
-          }
-        }
-        return codec != null;
-      }
-      
-      @Override
-      CompressionCodec getCodec() throws IOException {
-        if (!isSupported()) {
-          throw new IOException("LZO codec class not specified. Did you forget to set property " + CONF_LZO_CLASS + "?");
-        }
-        
-        return codec;
-      }
-      
-      @Override
-      public synchronized InputStream createDecompressionStream(InputStream downStream, Decompressor decompressor, int downStreamBufferSize) throws IOException {
-        if (!isSupported()) {
-          throw new IOException("LZO codec class not specified. Did you forget to set property " + CONF_LZO_CLASS + "?");
-        }
-        InputStream bis1 = null;
-        if (downStreamBufferSize > 0) {
-          bis1 = new BufferedInputStream(downStream, downStreamBufferSize);
-        } else {
-          bis1 = downStream;
-        }
-        conf.setInt("io.compression.codec.lzo.buffersize", 64 * 1024);
-        CompressionInputStream cis = codec.createInputStream(bis1, decompressor);
-        BufferedInputStream bis2 = new BufferedInputStream(cis, DATA_IBUF_SIZE);
-        return bis2;
-      }
-      
-      @Override
-      public synchronized OutputStream createCompressionStream(OutputStream downStream, Compressor compressor, int downStreamBufferSize) throws IOException {
-        if (!isSupported()) {
-          throw new IOException("LZO codec class not specified. Did you forget to set property " + CONF_LZO_CLASS + "?");
-        }
-        OutputStream bos1 = null;
-        if (downStreamBufferSize > 0) {
-          bos1 = new BufferedOutputStream(downStream, downStreamBufferSize);
-        } else {
-          bos1 = downStream;
-        }
-        conf.setInt("io.compression.codec.lzo.buffersize", 64 * 1024);
-        CompressionOutputStream cos = codec.createOutputStream(bos1, compressor);
-        BufferedOutputStream bos2 = new BufferedOutputStream(new FinishOnFlushCompressionStream(cos), DATA_OBUF_SIZE);
-        return bos2;
-      }
-    },
+  enum Framing {
+    /** The decompressor consumes the output of the compressor as is, as for zlib and zstandard */
+    STREAM,
+    /** Each block of uncompressed data is written as its length followed by length prefixed compressed chunks, as for snappy, lz4 and lzo */
+    BLOCK,
+    /** Unknown, blocks are always read through the codec's streams */
+    UNKNOWN
+  }
+  
+  /**
+   * Adds compression algorithms, as a comma separated list of name=class pairs where each class is a Hadoop {@link CompressionCodec}. May be set in the
+   * Hadoop configuration or as a system property, and must be set the same way everywhere files are read.
+   */
+  public static final String CONF_CODECS = "io.compression.accumulo.codecs";
+  
+  private static final Map<String,Algorithm> algorithms = new LinkedHashMap<String,Algorithm>();
+  
+  /**
+   * Compression algorithms. Besides the built in algorithms, any Hadoop codec can be added through {@link #CONF_CODECS} or {@link #register(Algorithm)}.
+   */
+  public static abstract class Algorithm {
+    // We require that all compression related settings are configured
+    // statically in the Configuration object.
+    protected static final Configuration conf = new Configuration();
+    // data input buffer size to absorb small reads from application.
+    private static final int DATA_IBUF_SIZE = 1 * 1024;
+    // data output buffer size to absorb small writes from application.
+    private static final int DATA_OBUF_SIZE = 4 * 1024;
+    public static final String CONF_LZO_CLASS = "io.compression.codec.lzo.class";
+    public static final String CONF_SNAPPY_CLASS = "io.compression.codec.snappy.class";
+    public static final String CONF_LZ4_CLASS = "io.compression.codec.lz4.class";
+    public static final String CONF_ZSTD_CLASS = "io.compression.codec.zstd.class";
     
-    GZ(COMPRESSION_GZ) {
+    public static final Algorithm LZO = new CodecAlgorithm(COMPRESSION_LZO, CONF_LZO_CLASS, "org.apache.hadoop.io.compress.LzoCodec",
+        "io.compression.codec.lzo.buffersize", Framing.BLOCK);
+    
+    public static final Algorithm GZ = new Algorithm(COMPRESSION_GZ) {
       private transient DefaultCodec codec;
       
       @Override
-      synchronized CompressionCodec getCodec() {
+      protected synchronized CompressionCodec getCodec() {
         if (codec == null) {
           codec = new DefaultCodec();
           codec.setConf(conf);
@@ -188,11 +168,21 @@ public final class Compression {
       public boolean isSupported() {
         return true;
       }
-    },
+      
+      @Override
+      public boolean canDecompressBlocks() {
+        return true;
+      }
+      
+      @Override
+      public void decompress(byte[] src, int off, int len, byte[] dest, Decompressor decompressor) throws IOException {
+        decompressStream(src, off, len, dest, decompressor);
+      }
+    };
     
-    NONE(COMPRESSION_NONE) {
+    public static final Algorithm NONE = new Algorithm(COMPRESSION_NONE) {
       @Override
-      CompressionCodec getCodec() {
+      protected CompressionCodec getCodec() {
         return null;
       }
       
@@ -217,84 +207,36 @@ public final class Compression {
       public boolean isSupported() {
         return true;
       }
-    },
-    
-    SNAPPY(COMPRESSION_SNAPPY) {
-      // Use base type to avoid compile-time dependencies.
-      private transient CompressionCodec snappyCodec = null;
-      private transient boolean checked = false;
-      private static final String defaultClazz = "org.apache.hadoop.io.compress.SnappyCodec";
-      
-      public CompressionCodec getCodec() throws IOException {
-        if (!isSupported()) {
-          throw new IOException("SNAPPY codec class not specified. Did you forget to set property " + CONF_SNAPPY_CLASS + "?");
-        }
-        return snappyCodec;
-      }
-      
-      @Override
-      public synchronized OutputStream createCompressionStream(OutputStream downStream, Compressor compressor, int downStreamBufferSize) throws IOException {
-        
-        if (!isSupported()) {
-          throw new IOException("SNAPPY codec class not specified. Did you forget to set property " + CONF_SNAPPY_CLASS + "?");
-        }
-        OutputStream bos1 = null;
-        if (downStreamBufferSize > 0) {
-          bos1 = new BufferedOutputStream(downStream, downStreamBufferSize);
-        } else {
-          bos1 = downStream;
-        }
-        conf.setInt("io.compression.codec.snappy.buffersize", 64 * 1024);
-        CompressionOutputStream cos = snappyCodec.createOutputStream(bos1, compressor);
-        BufferedOutputStream bos2 = new BufferedOutputStream(new FinishOnFlushCompressionStream(cos), DATA_OBUF_SIZE);
-        return bos2;
-      }
       
       @Override
-      public synchronized InputStream createDecompressionStream(InputStream downStream, Decompressor decompressor, int downStreamBufferSize) throws IOException {
-        if (!isSupported()) {
-          throw new IOException("SNAPPY codec class not specified. Did you forget to set property " + CONF_SNAPPY_CLASS + "?");
-        }
-        if (downStreamBufferSize > 0) {
-          conf.setInt("io.file.buffer.size", downStreamBufferSize);
-        }
-        CompressionInputStream cis = snappyCodec.createInputStream(downStream, decompressor);
-        BufferedInputStream bis2 = new BufferedInputStream(cis, DATA_IBUF_SIZE);
-        return bis2;
+      public boolean canDecompressBlocks() {
+        return true;
       }
       
       @Override
-      public synchronized boolean isSupported() {
-        if (!checked) {
-          checked = true;
-          String extClazz = (conf.get(CONF_SNAPPY_CLASS) == null ? System.getProperty(CONF_SNAPPY_CLASS) : null);
-          String clazz = (extClazz != null) ? extClazz : defaultClazz;
-          try {
-            LOG.info("Trying to load snappy codec class: " + clazz);
-            snappyCodec = (CompressionCodec) ReflectionUtils.newInstance(Class.forName(clazz), conf);
-          } catch (ClassNotFoundException e) {
-            // that is okay
-          }
+      public void decompress(byte[] src, int off, int len, byte[] dest, Decompressor decompressor) throws IOException {
+        if (len != dest.length) {
+          throw new IOException("Uncompressed block is " + len + " bytes, expected " + dest.length);
         }
-        return snappyCodec != null;
+        System.arraycopy(src, off, dest, 0, len);
       }
     };
-    // We require that all compression related settings are configured
-    // statically in the Configuration object.
-    protected static final Configuration conf = new Configuration();
+    
+    public static final Algorithm SNAPPY = new CodecAlgorithm(COMPRESSION_SNAPPY, CONF_SNAPPY_CLASS, "org.apache.hadoop.io.compress.SnappyCodec",
+        "io.compression.codec.snappy.buffersize", Framing.BLOCK);
+    
+    public static final Algorithm LZ4 = new CodecAlgorithm(COMPRESSION_LZ4, CONF_LZ4_CLASS, "org.apache.hadoop.io.compress.Lz4Codec",
+        "io.compression.codec.lz4.buffersize", Framing.BLOCK);
+    
+    public static final Algorithm ZSTANDARD = new ZstandardAlgorithm();
+    
     private final String compressName;
-    // data input buffer size to absorb small reads from application.
-    private static final int DATA_IBUF_SIZE = 1 * 1024;
-    // data output buffer size to absorb small writes from application.
-    private static final int DATA_OBUF_SIZE = 4 * 1024;
-    public static final String CONF_LZO_CLASS = "io.compression.codec.lzo.class";
-    public static final String CONF_SNAPPY_CLASS = "io.compression.codec.snappy.class";
     
-    Algorithm(String name) {
+    protected Algorithm(String name) {
       this.compressName = name;
     }
     
-    abstract CompressionCodec getCodec() throws IOException;
+    protected abstract CompressionCodec getCodec() throws IOException;
     
     public abstract InputStream createDecompressionStream(InputStream downStream, Decompressor decompressor, int downStreamBufferSize) throws IOException;
     
@@ -302,6 +244,102 @@ public final class Compression {
     
     public abstract boolean isSupported();
     
+    /**
+     * @return true if blocks can be compressed with a dictionary that is stored once per file
+     */
+    public boolean supportsDictionary() {
+      return false;
+    }
+    
+    /**
+     * Creates a decompression stream for a block that was compressed with a dictionary. No compressor is used.
+     */
+    public InputStream createDecompressionStream(InputStream downStream, int downStreamBufferSize, byte[] dictionary) throws IOException {
+      throw new IOException("Compression algorithm " + getName() + " does not support dictionaries");
+    }
+    
+    /**
+     * Creates a compression stream that compresses a block with a dictionary. No compressor is used.
+     */
+    public OutputStream createCompressionStream(OutputStream downStream, int downStreamBufferSize, byte[] dictionary) throws IOException {
+      throw new IOException("Compression algorithm " + getName() + " does not support dictionaries");
+    }
+    
+    /**
+     * @return true if {@link #decompress(byte[], int, int, byte[], Decompressor)} can be used instead of a decompression stream
+     */
+    public boolean canDecompressBlocks() {
+      return false;
+    }
+    
+    /**
+     * Decompresses a whole block that has already been read into memory straight into dest, without the buffers of a decompression stream.
+     * 
+     * @param dest
+     *          sized to hold exactly the uncompressed block
+     * @param decompressor
+     *          from {@link #getDecompressor()}
+     */
+    public void decompress(byte[] src, int off, int len, byte[] dest, Decompressor decompressor) throws IOException {
+      throw new UnsupportedOperationException("Compression algorithm " + getName() + " can only decompress through a stream");
+    }
+    
+    /**
+     * Decompresses data laid out as {@link Framing#STREAM}, the same way as Hadoop's DecompressorStream.
+     */
+    static void decompressStream(byte[] src, int off, int len, byte[] dest, Decompressor decompressor) throws IOException {
+      decompressor.setInput(src, off, len);
+      int written = 0;
+      while (written < dest.length) {
+        int n = decompressor.decompress(dest, written, dest.length - written);
+        if (n == 0 && (decompressor.finished() || decompressor.needsDictionary() || decompressor.needsInput())) {
+          throw new EOFException("Block ended after " + written + " of " + dest.length + " bytes");
+        }
+        written += n;
+      }
+    }
+    
+    /**
+     * Decompresses data laid out as {@link Framing#BLOCK}, the same way as Hadoop's BlockDecompressorStream.
+     */
+    static void decompressBlocks(byte[] src, int off, int len, byte[] dest, Decompressor decompressor) throws IOException {
+      int pos = off;
+      int end = off + len;
+      int written = 0;
+      while (written < dest.length) {
+        pos = checkAvailable(pos, 4, end);
+        int blockEnd = written + readInt(src, pos - 4);
+        if (blockEnd > dest.length || blockEnd <= written) {
+          throw new IOException("Corrupt compressed block, bad uncompressed length " + (blockEnd - written));
+        }
+        while (written < blockEnd) {
+          int n = decompressor.decompress(dest, written, blockEnd - written);
+          if (n == 0) {
+            if (decompressor.needsInput()) {
+              pos = checkAvailable(pos, 4, end);
+              int chunk = readInt(src, pos - 4);
+              pos = checkAvailable(pos, chunk, end);
+              decompressor.setInput(src, pos - chunk, chunk);
+            } else if (decompressor.finished() || decompressor.needsDictionary()) {
+              throw new EOFException("Block ended after " + written + " of " + dest.length + " bytes");
+            }
+          }
+          written += n;
+        }
+      }
+    }
+    
+    private static int checkAvailable(int pos, int needed, int end) throws IOException {
+      if (needed < 0 || needed > end - pos) {
+        throw new EOFException("Compressed block ended unexpectedly");
+      }
+      return pos + needed;
+    }
+    
+    private static int readInt(byte[] b, int pos) {
+      return ((b[pos] & 0xff) << 24) | ((b[pos + 1] & 0xff) << 16) | ((b[pos + 2] & 0xff) << 8) | (b[pos + 3] & 0xff);
+    }
+    
     public Compressor getCompressor() throws IOException {
       CompressionCodec codec = getCodec();
       if (codec != null) {
@@ -364,25 +402,271 @@ public final class Compression {
     public String getName() {
       return compressName;
     }
+    
+    @Override
+    public String toString() {
+      return compressName;
+    }
   }
   
-  static Algorithm getCompressionAlgorithmByName(String compressName) {
-    Algorithm[] algos = Algorithm.class.getEnumConstants();
+  /**
+   * An algorithm backed by a Hadoop codec, which is loaded when first used so that there is no compile-time dependency on it. The codec class can be changed
+   * with a property in the Hadoop configuration or a system property.
+   */
+  static class CodecAlgorithm extends Algorithm {
+    private final String classProperty;
+    private final String defaultClass;
+    private final String bufferSizeProperty;
+    private final Framing framing;
+    // Use base type to avoid compile-time dependencies.
+    private transient CompressionCodec codec = null;
+    private transient boolean checked = false;
+    
+    CodecAlgorithm(String name, String classProperty, String defaultClass, String bufferSizeProperty) {
+      this(name, classProperty, defaultClass, bufferSizeProperty, Framing.UNKNOWN);
+    }
     
-    for (Algorithm a : algos) {
-      if (a.getName().equals(compressName)) {
-        return a;
+    /**
+     * @param framing
+     *          how the default codec class frames compressed data, which is not assumed for other codec classes
+     */
+    CodecAlgorithm(String name, String classProperty, String defaultClass, String bufferSizeProperty, Framing framing) {
+      super(name);
+      this.classProperty = classProperty;
+      this.defaultClass = defaultClass;
+      this.bufferSizeProperty = bufferSizeProperty;
+      this.framing = framing;
+    }
+    
+    @Override
+    public synchronized boolean isSupported() {
+      if (!checked) {
+        checked = true;
+        String extClazz = conf.get(classProperty) != null ? conf.get(classProperty) : System.getProperty(classProperty);
+        String clazz = (extClazz != null) ? extClazz : defaultClass;
+        try {
+          LOG.info("Trying to load " + getName() + " codec class: " + clazz);
+          codec = (CompressionCodec) ReflectionUtils.newInstance(Class.forName(clazz), conf);
+        } catch (ClassNotFoundException e) {
+          // that is okay
+        }
       }
+      return codec != null;
     }
     
-    throw new IllegalArgumentException("Unsupported compression algorithm name: " + compressName);
+    @Override
+    protected CompressionCodec getCodec() throws IOException {
+      if (!isSupported()) {
+        throw new IOException(getName() + " codec class not specified. Did you forget to set property " + classProperty + "?");
+      }
+      return codec;
+    }
+    
+    @Override
+    public boolean canDecompressBlocks() {
+      return framing != Framing.UNKNOWN && isSupported() && codec.getClass().getName().equals(defaultClass);
+    }
+    
+    @Override
+    public void decompress(byte[] src, int off, int len, byte[] dest, Decompressor decompressor) throws IOException {
+      if (!canDecompressBlocks()) {
+        super.decompress(src, off, len, dest, decompressor);
+      } else if (framing == Framing.BLOCK) {
+        decompressBlocks(src, off, len, dest, decompressor);
+      } else {
+        decompressStream(src, off, len, dest, decompressor);
+      }
+    }
+    
+    @Override
+    public synchronized InputStream createDecompressionStream(InputStream downStream, Decompressor decompressor, int downStreamBufferSize) throws IOException {
+      CompressionCodec codec = getCodec();
+      InputStream bis1 = null;
+      if (downStreamBufferSize > 0) {
+        bis1 = new BufferedInputStream(downStream, downStreamBufferSize);
+      } else {
+        bis1 = downStream;
+      }
+      conf.setInt(bufferSizeProperty, 64 * 1024);
+      CompressionInputStream cis = codec.createInputStream(bis1, decompressor);
+      BufferedInputStream bis2 = new BufferedInputStream(cis, Algorithm.DATA_IBUF_SIZE);
+      return bis2;
+    }
+    
+    @Override
+    public synchronized OutputStream createCompressionStream(OutputStream downStream, Compressor compressor, int downStreamBufferSize) throws IOException {
+      CompressionCodec codec = getCodec();
+      OutputStream bos1 = null;
+      if (downStreamBufferSize > 0) {
+        bos1 = new BufferedOutputStream(downStream, downStreamBufferSize);
+      } else {
+        bos1 = downStream;
+      }
+      conf.setInt(bufferSizeProperty, 64 * 1024);
+      CompressionOutputStream cos = codec.createOutputStream(bos1, compressor);
+      BufferedOutputStream bos2 = new BufferedOutputStream(new FinishOnFlushCompressionStream(cos), Algorithm.DATA_OBUF_SIZE);
+      return bos2;
+    }
+  }
+  
+  /**
+   * Zstandard, using the Hadoop codec. When zstd-jni is on the classpath, blocks can also be compressed with a dictionary, which mostly helps the small blocks
+   * typical of RFiles. The Hadoop codec has no way to use a dictionary.
+   */
+  static class ZstandardAlgorithm extends CodecAlgorithm {
+    private static final String JNI_OUTPUT_CLASS = "com.github.luben.zstd.ZstdOutputStream";
+    private static final String JNI_INPUT_CLASS = "com.github.luben.zstd.ZstdInputStream";
+    public static final String CONF_ZSTD_LEVEL = "io.compression.codec.zstd.level";
+    
+    private transient boolean jniChecked = false;
+    private transient Constructor<?> jniOutput;
+    private transient Method jniOutputDictionary;
+    private transient Constructor<?> jniInput;
+    private transient Method jniInputDictionary;
+    
+    ZstandardAlgorithm() {
+      super(COMPRESSION_ZSTD, Algorithm.CONF_ZSTD_CLASS, "org.apache.hadoop.io.compress.ZStandardCodec", "io.compression.codec.zstd.buffersize",
+          Framing.STREAM);
+    }
+    
+    private synchronized boolean isJniAvailable() {
+      if (!jniChecked) {
+        jniChecked = true;
+        try {
+          Class<?> output = Class.forName(JNI_OUTPUT_CLASS);
+          Class<?> input = Class.forName(JNI_INPUT_CLASS);
+          jniOutput = output.getConstructor(OutputStream.class, int.class);
+          jniOutputDictionary = output.getMethod("setDict", byte[].class);
+          jniInput = input.getConstructor(InputStream.class);
+          jniInputDictionary = input.getMethod("setDict", byte[].class);
+        } catch (ClassNotFoundException e) {
+          // that is okay
+          jniOutput = null;
+        } catch (NoSuchMethodException e) {
+          LOG.warn("Unsupported version of zstd-jni, dictionaries can not be used", e);
+          jniOutput = null;
+        }
+      }
+      return jniOutput != null;
+    }
+    
+    @Override
+    public boolean supportsDictionary() {
+      return isJniAvailable();
+    }
+    
+    private static IOException unwrap(Exception e) {
+      Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+      if (cause instanceof IOException)
+        return (IOException) cause;
+      return new IOException(cause);
+    }
+    
+    @Override
+    public InputStream createDecompressionStream(InputStream downStream, int downStreamBufferSize, byte[] dictionary) throws IOException {
+      if (!isJniAvailable()) {
+        throw new IOException("zstd-jni is needed to read blocks compressed with a dictionary");
+      }
+      InputStream bis1 = downStream;
+      if (downStreamBufferSize > 0) {
+        bis1 = new BufferedInputStream(downStream, downStreamBufferSize);
+      }
+      try {
+        InputStream zin = (InputStream) jniInput.newInstance(bis1);
+        jniInputDictionary.invoke(zin, (Object) dictionary);
+        return new BufferedInputStream(zin, Algorithm.DATA_IBUF_SIZE);
+      } catch (Exception e) {
+        throw unwrap(e);
+      }
+    }
+    
+    @Override
+    public OutputStream createCompressionStream(OutputStream downStream, int downStreamBufferSize, byte[] dictionary) throws IOException {
+      if (!isJniAvailable()) {
+        throw new IOException("zstd-jni is needed to compress blocks with a dictionary");
+      }
+      OutputStream bos1 = downStream;
+      if (downStreamBufferSize > 0) {
+        bos1 = new BufferedOutputStream(downStream, downStreamBufferSize);
+      }
+      // closing the zstd stream ends the frame, but must not close the file underneath
+      final OutputStream unclosable = new FilterOutputStream(bos1) {
+        @Override
+        public void write(byte b[], int off, int len) throws IOException {
+          out.write(b, off, len);
+        }
+        
+        @Override
+        public void close() throws IOException {
+          flush();
+        }
+      };
+      try {
+        final OutputStream zout = (OutputStream) jniOutput.newInstance(unclosable, conf.getInt(CONF_ZSTD_LEVEL, 3));
+        jniOutputDictionary.invoke(zout, (Object) dictionary);
+        return new BufferedOutputStream(new FilterOutputStream(zout) {
+          @Override
+          public void write(byte b[], int off, int len) throws IOException {
+            out.write(b, off, len);
+          }
+          
+          @Override
+          public void flush() throws IOException {
+            // like FinishOnFlushCompressionStream, the block is finished when flushed
+            out.close();
+          }
+        }, Algorithm.DATA_OBUF_SIZE);
+      } catch (Exception e) {
+        throw unwrap(e);
+      }
+    }
+  }
+  
+  /**
+   * Makes an algorithm available by name. The same algorithms must be registered everywhere files that use them are read.
+   */
+  public static synchronized void register(Algorithm algorithm) {
+    if (algorithms.containsKey(algorithm.getName())) {
+      throw new IllegalArgumentException("Compression algorithm " + algorithm.getName() + " is already registered");
+    }
+    algorithms.put(algorithm.getName(), algorithm);
   }
   
-  public static String[] getSupportedAlgorithms() {
-    Algorithm[] algos = Algorithm.class.getEnumConstants();
+  static {
+    for (Algorithm a : new Algorithm[] {Algorithm.LZO, Algorithm.GZ, Algorithm.NONE, Algorithm.SNAPPY, Algorithm.LZ4, Algorithm.ZSTANDARD}) {
+      register(a);
+    }
     
+    String codecs = Algorithm.conf.get(CONF_CODECS) != null ? Algorithm.conf.get(CONF_CODECS) : System.getProperty(CONF_CODECS);
+    if (codecs != null) {
+      for (String codec : codecs.split(",")) {
+        String[] parts = codec.trim().split("=");
+        if (parts.length != 2) {
+          LOG.warn("Ignoring malformed entry in " + CONF_CODECS + " : " + codec);
+          continue;
+        }
+        String name = parts[0].trim();
+        if (algorithms.containsKey(name)) {
+          LOG.warn("Ignoring codec " + parts[1].trim() + " in " + CONF_CODECS + ", compression algorithm " + name + " is already registered");
+          continue;
+        }
+        register(new CodecAlgorithm(name, "io.compression.codec." + name + ".class", parts[1].trim(), "io.compression.codec." + name + ".buffersize"));
+      }
+    }
+  }
+  
+  static synchronized Algorithm getCompressionAlgorithmByName(String compressName) {
+    Algorithm a = algorithms.get(compressName);
+    if (a != null) {
+      return a;
+    }
+    
+    throw new IllegalArgumentException("Unsupported compression algorithm name: " + compressName);
+  }
+  
+  public static synchronized String[] getSupportedAlgorithms() {
     ArrayList<String> ret = new ArrayList<String>();
-    for (Algorithm a : algos) {
+    for (Algorithm a : algorithms.values()) {
       if (a.isSupported()) {
         ret.add(a.getName());
       }
@@ -62,6 +62,7 @@ import org.slf4j.LoggerFactory;
   private static final org.apache.thrift.protocol.TField ENTRIES_WRITTEN_FIELD_DESC = new org.apache.thrift.protocol.TField("entriesWritten", org.apache.thrift.protocol.TType.I64, (short)9);
   private static final org.apache.thrift.protocol.TField SSI_LIST_FIELD_DESC = new org.apache.thrift.protocol.TField("ssiList", org.apache.thrift.protocol.TType.LIST, (short)10);
   private static final org.apache.thrift.protocol.TField SSIO_FIELD_DESC = new org.apache.thrift.protocol.TField("ssio", org.apache.thrift.protocol.TType.MAP, (short)11);
+  private static final org.apache.thrift.protocol.TField THROTTLED_TIME_FIELD_DESC = new org.apache.thrift.protocol.TField("throttledTime", org.apache.thrift.protocol.TType.I64, (short)12);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -88,6 +89,7 @@ import org.slf4j.LoggerFactory;
   public long entriesWritten; // required
   public List<org.apache.accumulo.core.data.thrift.IterInfo> ssiList; // required
   public Map<String,Map<String,String>> ssio; // required
+  public long throttledTime; // required
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   @SuppressWarnings("all") public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -109,7 +111,8 @@ import org.slf4j.LoggerFactory;
     ENTRIES_READ((short)8, "entriesRead"),
     ENTRIES_WRITTEN((short)9, "entriesWritten"),
     SSI_LIST((short)10, "ssiList"),
-    SSIO((short)11, "ssio");
+    SSIO((short)11, "ssio"),
+    THROTTLED_TIME((short)12, "throttledTime");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -146,6 +149,8 @@ import org.slf4j.LoggerFactory;
           return SSI_LIST;
         case 11: // SSIO
           return SSIO;
+        case 12: // THROTTLED_TIME
+          return THROTTLED_TIME;
         default:
           return null;
       }
@@ -189,6 +194,7 @@ import org.slf4j.LoggerFactory;
   private static final int __AGE_ISSET_ID = 0;
   private static final int __ENTRIESREAD_ISSET_ID = 1;
   private static final int __ENTRIESWRITTEN_ISSET_ID = 2;
+  private static final int __THROTTLEDTIME_ISSET_ID = 3;
   private byte __isset_bitfield = 0;
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
@@ -221,6 +227,8 @@ import org.slf4j.LoggerFactory;
             new org.apache.thrift.meta_data.MapMetaData(org.apache.thrift.protocol.TType.MAP, 
                 new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING), 
                 new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.STRING)))));
+    tmpMap.put(_Fields.THROTTLED_TIME, new org.apache.thrift.meta_data.FieldMetaData("throttledTime", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I64)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(ActiveCompaction.class, metaDataMap);
   }
@@ -239,7 +247,8 @@ import org.slf4j.LoggerFactory;
     long entriesRead,
     long entriesWritten,
     List<org.apache.accumulo.core.data.thrift.IterInfo> ssiList,
-    Map<String,Map<String,String>> ssio)
+    Map<String,Map<String,String>> ssio,
+    long throttledTime)
   {
     this();
     this.extent = extent;
@@ -256,6 +265,8 @@ import org.slf4j.LoggerFactory;
     setEntriesWrittenIsSet(true);
     this.ssiList = ssiList;
     this.ssio = ssio;
+    this.throttledTime = throttledTime;
+    setThrottledTimeIsSet(true);
   }
 
   /**
@@ -307,6 +318,7 @@ import org.slf4j.LoggerFactory;
       }
       this.ssio = __this__ssio;
     }
+    this.throttledTime = other.throttledTime;
   }
 
   public ActiveCompaction deepCopy() {
@@ -329,6 +341,8 @@ import org.slf4j.LoggerFactory;
     this.entriesWritten = 0;
     this.ssiList = null;
     this.ssio = null;
+    setThrottledTimeIsSet(false);
+    this.throttledTime = 0;
   }
 
   public org.apache.accumulo.core.data.thrift.TKeyExtent getExtent() {
@@ -649,6 +663,29 @@ import org.slf4j.LoggerFactory;
     }
   }
 
+  public long getThrottledTime() {
+    return this.throttledTime;
+  }
+
+  public ActiveCompaction setThrottledTime(long throttledTime) {
+    this.throttledTime = throttledTime;
+    setThrottledTimeIsSet(true);
+    return this;
+  }
+
+  public void unsetThrottledTime() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __THROTTLEDTIME_ISSET_ID);
+  }
+
+  /** Returns true if field throttledTime is set (has been assigned a value) and false otherwise */
+  public boolean isSetThrottledTime() {
+    return EncodingUtils.testBit(__isset_bitfield, __THROTTLEDTIME_ISSET_ID);
+  }
+
+  public void setThrottledTimeIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __THROTTLEDTIME_ISSET_ID, value);
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case EXTENT:
@@ -739,6 +776,14 @@ import org.slf4j.LoggerFactory;
       }
       break;
 
+    case THROTTLED_TIME:
+      if (value == null) {
+        unsetThrottledTime();
+      } else {
+        setThrottledTime((Long)value);
+      }
+      break;
+
     }
   }
 
@@ -777,6 +822,9 @@ import org.slf4j.LoggerFactory;
     case SSIO:
       return getSsio();
 
+    case THROTTLED_TIME:
+      return Long.valueOf(getThrottledTime());
+
     }
     throw new IllegalStateException();
   }
@@ -810,6 +858,8 @@ import org.slf4j.LoggerFactory;
       return isSetSsiList();
     case SSIO:
       return isSetSsio();
+    case THROTTLED_TIME:
+      return isSetThrottledTime();
     }
     throw new IllegalStateException();
   }
@@ -926,6 +976,15 @@ import org.slf4j.LoggerFactory;
         return false;
     }
 
+    boolean this_present_throttledTime = true;
+    boolean that_present_throttledTime = true;
+    if (this_present_throttledTime || that_present_throttledTime) {
+      if (!(this_present_throttledTime && that_present_throttledTime))
+        return false;
+      if (this.throttledTime != that.throttledTime)
+        return false;
+    }
+
     return true;
   }
 
@@ -1052,6 +1111,16 @@ import org.slf4j.LoggerFactory;
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetThrottledTime()).compareTo(other.isSetThrottledTime());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetThrottledTime()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.throttledTime, other.throttledTime);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -1147,6 +1216,10 @@ import org.slf4j.LoggerFactory;
       sb.append(this.ssio);
     }
     first = false;
+    if (!first) sb.append(", ");
+    sb.append("throttledTime:");
+    sb.append(this.throttledTime);
+    first = false;
     sb.append(")");
     return sb.toString();
   }
@@ -1329,6 +1402,14 @@ import org.slf4j.LoggerFactory;
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 12: // THROTTLED_TIME
+            if (schemeField.type == org.apache.thrift.protocol.TType.I64) {
+              struct.throttledTime = iprot.readI64();
+              struct.setThrottledTimeIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -1423,6 +1504,9 @@ import org.slf4j.LoggerFactory;
         }
         oprot.writeFieldEnd();
       }
+      oprot.writeFieldBegin(THROTTLED_TIME_FIELD_DESC);
+      oprot.writeI64(struct.throttledTime);
+      oprot.writeFieldEnd();
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -1474,7 +1558,10 @@ import org.slf4j.LoggerFactory;
       if (struct.isSetSsio()) {
         optionals.set(10);
       }
-      oprot.writeBitSet(optionals, 11);
+      if (struct.isSetThrottledTime()) {
+        optionals.set(11);
+      }
+      oprot.writeBitSet(optionals, 12);
       if (struct.isSetExtent()) {
         struct.extent.write(oprot);
       }
@@ -1534,12 +1621,15 @@ import org.slf4j.LoggerFactory;
           }
         }
       }
+      if (struct.isSetThrottledTime()) {
+        oprot.writeI64(struct.throttledTime);
+      }
     }
 
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, ActiveCompaction struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(11);
+      BitSet incoming = iprot.readBitSet(12);
       if (incoming.get(0)) {
         struct.extent = new org.apache.accumulo.core.data.thrift.TKeyExtent();
         struct.extent.read(iprot);
@@ -1626,6 +1716,10 @@ import org.slf4j.LoggerFactory;
         }
         struct.setSsioIsSet(true);
       }
+      if (incoming.get(11)) {
+        struct.throttledTime = iprot.readI64();
+        struct.setThrottledTimeIsSet(true);
+      }
     }
   }
 
@@ -59,6 +59,8 @@ import org.slf4j.LoggerFactory;
   private static final org.apache.thrift.protocol.TField INGEST_RATE_FIELD_DESC = new org.apache.thrift.protocol.TField("ingestRate", org.apache.thrift.protocol.TType.DOUBLE, (short)6);
   private static final org.apache.thrift.protocol.TField QUERY_RATE_FIELD_DESC = new org.apache.thrift.protocol.TField("queryRate", org.apache.thrift.protocol.TType.DOUBLE, (short)7);
   private static final org.apache.thrift.protocol.TField SPLIT_CREATION_TIME_FIELD_DESC = new org.apache.thrift.protocol.TField("splitCreationTime", org.apache.thrift.protocol.TType.I64, (short)8);
+  private static final org.apache.thrift.protocol.TField WRITE_AMPLIFICATION_FIELD_DESC = new org.apache.thrift.protocol.TField("writeAmplification", org.apache.thrift.protocol.TType.DOUBLE, (short)9);
+  private static final org.apache.thrift.protocol.TField MAJOR_COMPACTION_SCORE_FIELD_DESC = new org.apache.thrift.protocol.TField("majorCompactionScore", org.apache.thrift.protocol.TType.DOUBLE, (short)10);
 
   private static final Map<Class<? extends IScheme>, SchemeFactory> schemes = new HashMap<Class<? extends IScheme>, SchemeFactory>();
   static {
@@ -74,6 +76,8 @@ import org.slf4j.LoggerFactory;
   public double ingestRate; // required
   public double queryRate; // required
   public long splitCreationTime; // required
+  public double writeAmplification; // required
+  public double majorCompactionScore; // required
 
   /** The set of fields this struct contains, along with convenience methods for finding and manipulating them. */
   @SuppressWarnings("all") public enum _Fields implements org.apache.thrift.TFieldIdEnum {
@@ -84,7 +88,9 @@ import org.slf4j.LoggerFactory;
     NUM_ENTRIES((short)5, "numEntries"),
     INGEST_RATE((short)6, "ingestRate"),
     QUERY_RATE((short)7, "queryRate"),
-    SPLIT_CREATION_TIME((short)8, "splitCreationTime");
+    SPLIT_CREATION_TIME((short)8, "splitCreationTime"),
+    WRITE_AMPLIFICATION((short)9, "writeAmplification"),
+    MAJOR_COMPACTION_SCORE((short)10, "majorCompactionScore");
 
     private static final Map<String, _Fields> byName = new HashMap<String, _Fields>();
 
@@ -115,6 +121,10 @@ import org.slf4j.LoggerFactory;
           return QUERY_RATE;
         case 8: // SPLIT_CREATION_TIME
           return SPLIT_CREATION_TIME;
+        case 9: // WRITE_AMPLIFICATION
+          return WRITE_AMPLIFICATION;
+        case 10: // MAJOR_COMPACTION_SCORE
+          return MAJOR_COMPACTION_SCORE;
         default:
           return null;
       }
@@ -159,6 +169,8 @@ import org.slf4j.LoggerFactory;
   private static final int __INGESTRATE_ISSET_ID = 1;
   private static final int __QUERYRATE_ISSET_ID = 2;
   private static final int __SPLITCREATIONTIME_ISSET_ID = 3;
+  private static final int __WRITEAMPLIFICATION_ISSET_ID = 4;
+  private static final int __MAJORCOMPACTIONSCORE_ISSET_ID = 5;
   private byte __isset_bitfield = 0;
   public static final Map<_Fields, org.apache.thrift.meta_data.FieldMetaData> metaDataMap;
   static {
@@ -179,6 +191,10 @@ import org.slf4j.LoggerFactory;
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.DOUBLE)));
     tmpMap.put(_Fields.SPLIT_CREATION_TIME, new org.apache.thrift.meta_data.FieldMetaData("splitCreationTime", org.apache.thrift.TFieldRequirementType.DEFAULT, 
         new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.I64)));
+    tmpMap.put(_Fields.WRITE_AMPLIFICATION, new org.apache.thrift.meta_data.FieldMetaData("writeAmplification", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.DOUBLE)));
+    tmpMap.put(_Fields.MAJOR_COMPACTION_SCORE, new org.apache.thrift.meta_data.FieldMetaData("majorCompactionScore", org.apache.thrift.TFieldRequirementType.DEFAULT, 
+        new org.apache.thrift.meta_data.FieldValueMetaData(org.apache.thrift.protocol.TType.DOUBLE)));
     metaDataMap = Collections.unmodifiableMap(tmpMap);
     org.apache.thrift.meta_data.FieldMetaData.addStructMetaDataMap(TabletStats.class, metaDataMap);
   }
@@ -194,7 +210,9 @@ import org.slf4j.LoggerFactory;
     long numEntries,
     double ingestRate,
     double queryRate,
-    long splitCreationTime)
+    long splitCreationTime,
+    double writeAmplification,
+    double majorCompactionScore)
   {
     this();
     this.extent = extent;
@@ -209,6 +227,10 @@ import org.slf4j.LoggerFactory;
     setQueryRateIsSet(true);
     this.splitCreationTime = splitCreationTime;
     setSplitCreationTimeIsSet(true);
+    this.writeAmplification = writeAmplification;
+    setWriteAmplificationIsSet(true);
+    this.majorCompactionScore = majorCompactionScore;
+    setMajorCompactionScoreIsSet(true);
   }
 
   /**
@@ -232,6 +254,8 @@ import org.slf4j.LoggerFactory;
     this.ingestRate = other.ingestRate;
     this.queryRate = other.queryRate;
     this.splitCreationTime = other.splitCreationTime;
+    this.writeAmplification = other.writeAmplification;
+    this.majorCompactionScore = other.majorCompactionScore;
   }
 
   public TabletStats deepCopy() {
@@ -252,6 +276,10 @@ import org.slf4j.LoggerFactory;
     this.queryRate = 0.0;
     setSplitCreationTimeIsSet(false);
     this.splitCreationTime = 0;
+    setWriteAmplificationIsSet(false);
+    this.writeAmplification = 0.0;
+    setMajorCompactionScoreIsSet(false);
+    this.majorCompactionScore = 0.0;
   }
 
   public org.apache.accumulo.core.data.thrift.TKeyExtent getExtent() {
@@ -442,6 +470,52 @@ import org.slf4j.LoggerFactory;
     __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __SPLITCREATIONTIME_ISSET_ID, value);
   }
 
+  public double getWriteAmplification() {
+    return this.writeAmplification;
+  }
+
+  public TabletStats setWriteAmplification(double writeAmplification) {
+    this.writeAmplification = writeAmplification;
+    setWriteAmplificationIsSet(true);
+    return this;
+  }
+
+  public void unsetWriteAmplification() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __WRITEAMPLIFICATION_ISSET_ID);
+  }
+
+  /** Returns true if field writeAmplification is set (has been assigned a value) and false otherwise */
+  public boolean isSetWriteAmplification() {
+    return EncodingUtils.testBit(__isset_bitfield, __WRITEAMPLIFICATION_ISSET_ID);
+  }
+
+  public void setWriteAmplificationIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __WRITEAMPLIFICATION_ISSET_ID, value);
+  }
+
+  public double getMajorCompactionScore() {
+    return this.majorCompactionScore;
+  }
+
+  public TabletStats setMajorCompactionScore(double majorCompactionScore) {
+    this.majorCompactionScore = majorCompactionScore;
+    setMajorCompactionScoreIsSet(true);
+    return this;
+  }
+
+  public void unsetMajorCompactionScore() {
+    __isset_bitfield = EncodingUtils.clearBit(__isset_bitfield, __MAJORCOMPACTIONSCORE_ISSET_ID);
+  }
+
+  /** Returns true if field majorCompactionScore is set (has been assigned a value) and false otherwise */
+  public boolean isSetMajorCompactionScore() {
+    return EncodingUtils.testBit(__isset_bitfield, __MAJORCOMPACTIONSCORE_ISSET_ID);
+  }
+
+  public void setMajorCompactionScoreIsSet(boolean value) {
+    __isset_bitfield = EncodingUtils.setBit(__isset_bitfield, __MAJORCOMPACTIONSCORE_ISSET_ID, value);
+  }
+
   public void setFieldValue(_Fields field, Object value) {
     switch (field) {
     case EXTENT:
@@ -508,6 +582,22 @@ import org.slf4j.LoggerFactory;
       }
       break;
 
+    case WRITE_AMPLIFICATION:
+      if (value == null) {
+        unsetWriteAmplification();
+      } else {
+        setWriteAmplification((Double)value);
+      }
+      break;
+
+    case MAJOR_COMPACTION_SCORE:
+      if (value == null) {
+        unsetMajorCompactionScore();
+      } else {
+        setMajorCompactionScore((Double)value);
+      }
+      break;
+
     }
   }
 
@@ -537,6 +627,12 @@ import org.slf4j.LoggerFactory;
     case SPLIT_CREATION_TIME:
       return Long.valueOf(getSplitCreationTime());
 
+    case WRITE_AMPLIFICATION:
+      return Double.valueOf(getWriteAmplification());
+
+    case MAJOR_COMPACTION_SCORE:
+      return Double.valueOf(getMajorCompactionScore());
+
     }
     throw new IllegalStateException();
   }
@@ -564,6 +660,10 @@ import org.slf4j.LoggerFactory;
       return isSetQueryRate();
     case SPLIT_CREATION_TIME:
       return isSetSplitCreationTime();
+    case WRITE_AMPLIFICATION:
+      return isSetWriteAmplification();
+    case MAJOR_COMPACTION_SCORE:
+      return isSetMajorCompactionScore();
     }
     throw new IllegalStateException();
   }
@@ -653,6 +753,24 @@ import org.slf4j.LoggerFactory;
         return false;
     }
 
+    boolean this_present_writeAmplification = true;
+    boolean that_present_writeAmplification = true;
+    if (this_present_writeAmplification || that_present_writeAmplification) {
+      if (!(this_present_writeAmplification && that_present_writeAmplification))
+        return false;
+      if (this.writeAmplification != that.writeAmplification)
+        return false;
+    }
+
+    boolean this_present_majorCompactionScore = true;
+    boolean that_present_majorCompactionScore = true;
+    if (this_present_majorCompactionScore || that_present_majorCompactionScore) {
+      if (!(this_present_majorCompactionScore && that_present_majorCompactionScore))
+        return false;
+      if (this.majorCompactionScore != that.majorCompactionScore)
+        return false;
+    }
+
     return true;
   }
 
@@ -749,6 +867,26 @@ import org.slf4j.LoggerFactory;
         return lastComparison;
       }
     }
+    lastComparison = Boolean.valueOf(isSetWriteAmplification()).compareTo(other.isSetWriteAmplification());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetWriteAmplification()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.writeAmplification, other.writeAmplification);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
+    lastComparison = Boolean.valueOf(isSetMajorCompactionScore()).compareTo(other.isSetMajorCompactionScore());
+    if (lastComparison != 0) {
+      return lastComparison;
+    }
+    if (isSetMajorCompactionScore()) {
+      lastComparison = org.apache.thrift.TBaseHelper.compareTo(this.majorCompactionScore, other.majorCompactionScore);
+      if (lastComparison != 0) {
+        return lastComparison;
+      }
+    }
     return 0;
   }
 
@@ -816,6 +954,14 @@ import org.slf4j.LoggerFactory;
     sb.append("splitCreationTime:");
     sb.append(this.splitCreationTime);
     first = false;
+    if (!first) sb.append(", ");
+    sb.append("writeAmplification:");
+    sb.append(this.writeAmplification);
+    first = false;
+    if (!first) sb.append(", ");
+    sb.append("majorCompactionScore:");
+    sb.append(this.majorCompactionScore);
+    first = false;
     sb.append(")");
     return sb.toString();
   }
@@ -941,6 +1087,22 @@ import org.slf4j.LoggerFactory;
               org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
             }
             break;
+          case 9: // WRITE_AMPLIFICATION
+            if (schemeField.type == org.apache.thrift.protocol.TType.DOUBLE) {
+              struct.writeAmplification = iprot.readDouble();
+              struct.setWriteAmplificationIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
+          case 10: // MAJOR_COMPACTION_SCORE
+            if (schemeField.type == org.apache.thrift.protocol.TType.DOUBLE) {
+              struct.majorCompactionScore = iprot.readDouble();
+              struct.setMajorCompactionScoreIsSet(true);
+            } else { 
+              org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
+            }
+            break;
           default:
             org.apache.thrift.protocol.TProtocolUtil.skip(iprot, schemeField.type);
         }
@@ -988,6 +1150,12 @@ import org.slf4j.LoggerFactory;
       oprot.writeFieldBegin(SPLIT_CREATION_TIME_FIELD_DESC);
       oprot.writeI64(struct.splitCreationTime);
       oprot.writeFieldEnd();
+      oprot.writeFieldBegin(WRITE_AMPLIFICATION_FIELD_DESC);
+      oprot.writeDouble(struct.writeAmplification);
+      oprot.writeFieldEnd();
+      oprot.writeFieldBegin(MAJOR_COMPACTION_SCORE_FIELD_DESC);
+      oprot.writeDouble(struct.majorCompactionScore);
+      oprot.writeFieldEnd();
       oprot.writeFieldStop();
       oprot.writeStructEnd();
     }
@@ -1030,7 +1198,13 @@ import org.slf4j.LoggerFactory;
       if (struct.isSetSplitCreationTime()) {
         optionals.set(7);
       }
-      oprot.writeBitSet(optionals, 8);
+      if (struct.isSetWriteAmplification()) {
+        optionals.set(8);
+      }
+      if (struct.isSetMajorCompactionScore()) {
+        optionals.set(9);
+      }
+      oprot.writeBitSet(optionals, 10);
       if (struct.isSetExtent()) {
         struct.extent.write(oprot);
       }
@@ -1055,12 +1229,18 @@ import org.slf4j.LoggerFactory;
       if (struct.isSetSplitCreationTime()) {
         oprot.writeI64(struct.splitCreationTime);
       }
+      if (struct.isSetWriteAmplification()) {
+        oprot.writeDouble(struct.writeAmplification);
+      }
+      if (struct.isSetMajorCompactionScore()) {
+        oprot.writeDouble(struct.majorCompactionScore);
+      }
     }
 
     @Override
     public void read(org.apache.thrift.protocol.TProtocol prot, TabletStats struct) throws org.apache.thrift.TException {
       TTupleProtocol iprot = (TTupleProtocol) prot;
-      BitSet incoming = iprot.readBitSet(8);
+      BitSet incoming = iprot.readBitSet(10);
       if (incoming.get(0)) {
         struct.extent = new org.apache.accumulo.core.data.thrift.TKeyExtent();
         struct.extent.read(iprot);
@@ -1097,6 +1277,14 @@ import org.slf4j.LoggerFactory;
         struct.splitCreationTime = iprot.readI64();
         struct.setSplitCreationTimeIsSet(true);
       }
+      if (incoming.get(8)) {
+        struct.writeAmplification = iprot.readDouble();
+        struct.setWriteAmplificationIsSet(true);
+      }
+      if (incoming.get(9)) {
+        struct.majorCompactionScore = iprot.readDouble();
+        struct.setMajorCompactionScoreIsSet(true);
+      }
     }
   }
 
@@ -92,7 +92,7 @@ public class ThriftUtil {
 
   static public <T extends TServiceClient> T getClient(TServiceClientFactory<T> factory, HostAndPort address, AccumuloConfiguration conf)
       throws TTransportException {
-    return createClient(factory, ThriftTransportPool.getInstance().getTransportWithDefaultTimeout(address, conf));
+    return createClient(factory, getTransportPool(conf).getTransportWithDefaultTimeout(address, conf));
   }
 
   static public <T extends TServiceClient> T getClientNoTimeout(TServiceClientFactory<T> factory, String address, AccumuloConfiguration configuration)
@@ -103,16 +103,20 @@ public class ThriftUtil {
   static public <T extends TServiceClient> T getClient(TServiceClientFactory<T> factory, String address, Property timeoutProperty,
       AccumuloConfiguration configuration) throws TTransportException {
     long timeout = configuration.getTimeInMillis(timeoutProperty);
-    TTransport transport = ThriftTransportPool.getInstance().getTransport(address, timeout, SslConnectionParams.forClient(configuration));
+    TTransport transport = getTransportPool(configuration).getTransport(address, timeout, SslConnectionParams.forClient(configuration));
     return createClient(factory, transport);
   }
 
   static public <T extends TServiceClient> T getClient(TServiceClientFactory<T> factory, String address, long timeout, AccumuloConfiguration configuration)
       throws TTransportException {
-    TTransport transport = ThriftTransportPool.getInstance().getTransport(address, timeout, SslConnectionParams.forClient(configuration));
+    TTransport transport = getTransportPool(configuration).getTransport(address, timeout, SslConnectionParams.forClient(configuration));
     return createClient(factory, transport);
   }
 
+  static private ThriftTransportPool getTransportPool(AccumuloConfiguration conf) {
+    return ThriftTransportPool.getInstance().configure(conf);
+  }
+
   static public void returnClient(TServiceClient iface) { // Eew... the typing here is horrible
     if (iface != null) {
       ThriftTransportPool.getInstance().returnTransport(iface.getInputProtocol().getTransport());
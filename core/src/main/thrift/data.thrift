@@ -58,7 +58,8 @@ struct TKeyValue {
 
 struct ScanResult {
 	1:list<TKeyValue> results,
-	2:bool more
+	2:bool more,
+	3:optional binary packedResults
 }
 
 struct TRange {
@@ -79,7 +80,8 @@ struct MultiScanResult {
 	4:TKeyExtent partScan,
 	5:TKey partNextKey,
 	6:bool partNextKeyInclusive,
-	7:bool more
+	7:bool more,
+	8:optional binary packedResults
 }
 
 struct InitialScan {
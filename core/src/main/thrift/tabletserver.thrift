@@ -59,6 +59,10 @@ struct TabletStats {
     7:double queryRate
     // zero if loaded by the master, currentTimeMillis when the split was created
     8:i64 splitCreationTime
+    // bytes written by minor and major compactions divided by bytes written by minor compactions
+    9:double writeAmplification
+    // priority of the queued major compaction, 0 if none is queued
+    10:double majorCompactionScore
 }
 
 enum ScanType {
@@ -114,6 +118,8 @@ struct ActiveCompaction {
     9:i64 entriesWritten
     10:list<data.IterInfo> ssiList
     11:map<string, map<string, string>> ssio 
+    // milliseconds the compaction has waited for its read and write rate limits
+    12:i64 throttledTime
 }
 
 struct TIteratorSetting {
@@ -140,7 +146,8 @@ service TabletClientService extends client.ClientService {
                              8:list<binary> authorizations
                              9:bool waitForWrites,
                              10:bool isolated,
-                             12:i64 readaheadThreshold)  throws (1:client.ThriftSecurityException sec, 2:NotServingTabletException nste, 3:TooManyFilesException tmfe),
+                             12:i64 readaheadThreshold,
+                             13:bool packResults)  throws (1:client.ThriftSecurityException sec, 2:NotServingTabletException nste, 3:TooManyFilesException tmfe),
                              
   data.ScanResult continueScan(2:trace.TInfo tinfo, 1:data.ScanID scanID)  throws (1:NoSuchScanIDException nssi, 2:NotServingTabletException nste, 3:TooManyFilesException tmfe),
   oneway void closeScan(2:trace.TInfo tinfo, 1:data.ScanID scanID),
@@ -153,7 +160,8 @@ service TabletClientService extends client.ClientService {
                                   4:list<data.IterInfo> ssiList,
                                   5:map<string, map<string, string>> ssio,
                                   6:list<binary> authorizations
-                                  7:bool waitForWrites)  throws (1:client.ThriftSecurityException sec),
+                                  7:bool waitForWrites,
+                                  9:bool packResults)  throws (1:client.ThriftSecurityException sec),
   data.MultiScanResult continueMultiScan(2:trace.TInfo tinfo, 1:data.ScanID scanID) throws (1:NoSuchScanIDException nssi),
   void closeMultiScan(2:trace.TInfo tinfo, 1:data.ScanID scanID) throws (1:NoSuchScanIDException nssi),
   
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.bloomfilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.hadoop.util.hash.Hash;
+import org.junit.Test;
+
+public class BlockedBloomFilterTest {
+
+  private static final Hash HASH = Hash.getInstance(Hash.MURMUR_HASH);
+
+  private static long hash(String key) {
+    return BlockedBloomFilter.hash(HASH, key.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static BlockedBloomFilter create(int keys, double errorRate) {
+    BlockedBloomFilter filter = new BlockedBloomFilter(keys, errorRate);
+    for (int i = 0; i < keys; i++)
+      filter.add(hash("row" + i));
+    return filter;
+  }
+
+  private static int falsePositives(BlockedBloomFilter filter, int tests) {
+    int count = 0;
+    for (int i = 0; i < tests; i++)
+      if (filter.membershipTest(hash("other" + i)))
+        count++;
+    return count;
+  }
+
+  @Test
+  public void testMembership() {
+    BlockedBloomFilter filter = create(100000, .005);
+
+    for (int i = 0; i < 100000; i++)
+      assertTrue(filter.membershipTest(hash("row" + i)));
+
+    int falsePositives = falsePositives(filter, 100000);
+    assertTrue("false positives " + falsePositives, falsePositives < 1000);
+  }
+
+  @Test
+  public void testSizing() {
+    BlockedBloomFilter filter = new BlockedBloomFilter(100000, .005);
+    double bitsPerKey = BlockedBloomFilter.bitsPerKey(.005);
+    assertEquals(Math.ceil(100000 * bitsPerKey / BlockedBloomFilter.BLOCK_BITS), filter.getNumBlocks(), 1);
+    assertEquals(Math.round(bitsPerKey * Math.log(2)), filter.getNumHashes());
+
+    // always at least one block
+    filter = new BlockedBloomFilter(0, .005);
+    assertEquals(1, filter.getNumBlocks());
+    assertFalse(filter.membershipTest(hash("row")));
+  }
+
+  @Test
+  public void testSerialization() throws IOException {
+    BlockedBloomFilter filter = create(10000, .01);
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(baos);
+    filter.write(out);
+    out.close();
+    byte[] serialized = baos.toByteArray();
+    assertEquals(filter.getSerializedSize(), serialized.length);
+
+    BlockedBloomFilter read = BlockedBloomFilter.read(new DataInputStream(new ByteArrayInputStream(serialized)));
+    BlockedBloomFilter wrapped = new BlockedBloomFilter(ByteBuffer.wrap(serialized).asReadOnlyBuffer());
+
+    for (BlockedBloomFilter copy : new BlockedBloomFilter[] {read, wrapped}) {
+      assertEquals(filter.getNumBlocks(), copy.getNumBlocks());
+      assertEquals(filter.getNumHashes(), copy.getNumHashes());
+      for (int i = 0; i < 10000; i++)
+        assertTrue(copy.membershipTest(hash("row" + i)));
+      for (int i = 0; i < 10000; i++)
+        assertEquals(filter.membershipTest(hash("other" + i)), copy.membershipTest(hash("other" + i)));
+    }
+
+    // writing a wrapped filter gives the same bytes
+    baos = new ByteArrayOutputStream();
+    out = new DataOutputStream(baos);
+    wrapped.write(out);
+    out.close();
+    assertTrue(Arrays.equals(serialized, baos.toByteArray()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTruncated() {
+    BlockedBloomFilter filter = new BlockedBloomFilter(1000, .01);
+    ByteBuffer buf = ByteBuffer.allocate(filter.getSerializedSize() - 8);
+    buf.putInt(0, filter.getNumBlocks());
+    buf.putInt(4, filter.getNumHashes());
+    new BlockedBloomFilter(buf);
+  }
+}
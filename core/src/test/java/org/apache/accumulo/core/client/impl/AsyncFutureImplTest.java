@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.util.concurrent.MoreExecutors;
+
+public class AsyncFutureImplTest {
+
+  private static class CountingListener implements Runnable {
+    final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public void run() {
+      count.incrementAndGet();
+    }
+  }
+
+  @Test
+  public void testListenerRunsOnCompletion() throws Exception {
+    AsyncFutureImpl<String> future = new AsyncFutureImpl<String>();
+    CountingListener listener = new CountingListener();
+    future.addListener(listener, MoreExecutors.sameThreadExecutor());
+
+    assertFalse(future.isDone());
+    assertEquals(0, listener.count.get());
+
+    assertTrue(future.set("a"));
+    assertTrue(future.isDone());
+    assertEquals(1, listener.count.get());
+    assertEquals("a", future.get());
+
+    // only the first completion counts
+    assertFalse(future.set("b"));
+    assertEquals("a", future.get());
+    assertEquals(1, listener.count.get());
+  }
+
+  @Test
+  public void testListenerAddedAfterCompletion() throws Exception {
+    AsyncFutureImpl<String> future = AsyncFutureImpl.immediate("a");
+    CountingListener listener = new CountingListener();
+    future.addListener(listener, MoreExecutors.sameThreadExecutor());
+    assertEquals(1, listener.count.get());
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    RuntimeException cause = new RuntimeException("expected");
+    AsyncFutureImpl<String> future = AsyncFutureImpl.immediateFailure(cause);
+    assertTrue(future.isDone());
+    try {
+      future.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertSame(cause, e.getCause());
+    }
+  }
+}
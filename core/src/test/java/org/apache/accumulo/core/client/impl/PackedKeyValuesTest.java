@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyValue;
+import org.apache.accumulo.core.data.Value;
+import org.junit.Test;
+
+public class PackedKeyValuesTest {
+
+  private static List<KeyValue> wideRows() {
+    List<KeyValue> entries = new ArrayList<KeyValue>();
+    for (int r = 0; r < 5; r++) {
+      for (int c = 0; c < 100; c++) {
+        Key key = new Key(String.format("row_%05d", r), "family", String.format("qual_%04d", c), "A&B", 1000 + c);
+        if (c % 17 == 0)
+          key.setDeleted(true);
+        entries.add(new KeyValue(key, new Value(("v" + r + "_" + c).getBytes(StandardCharsets.UTF_8))));
+      }
+    }
+    // an empty value and an empty qualifier
+    entries.add(new KeyValue(new Key("row_99999", "f", "", "", 5), new byte[0]));
+    return entries;
+  }
+
+  private static void assertSameEntries(List<KeyValue> expected, List<KeyValue> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getKey(), actual.get(i).getKey());
+      assertEquals(expected.get(i).getKey().isDeleted(), actual.get(i).getKey().isDeleted());
+      assertEquals(expected.get(i).getValue(), actual.get(i).getValue());
+    }
+  }
+
+  @Test
+  public void testRoundTrip() {
+    List<KeyValue> entries = wideRows();
+    PackedKeyValues packed = new PackedKeyValues(PackedKeyValues.pack(entries));
+
+    assertEquals(entries.get(entries.size() - 1).getKey(), packed.getLastKey());
+    assertSameEntries(entries, packed);
+
+    List<KeyValue> iterated = new ArrayList<KeyValue>();
+    for (KeyValue kv : new PackedKeyValues(PackedKeyValues.pack(entries)))
+      iterated.add(kv);
+    assertSameEntries(entries, iterated);
+  }
+
+  @Test
+  public void testRandomAccess() {
+    List<KeyValue> entries = wideRows();
+    PackedKeyValues packed = new PackedKeyValues(PackedKeyValues.pack(entries));
+
+    // reading out of order decodes up to the entry asked for and keeps what was decoded
+    assertEquals(entries.get(250).getKey(), packed.get(250).getKey());
+    assertEquals(entries.get(3).getKey(), packed.get(3).getKey());
+    assertEquals(entries.get(entries.size() - 1).getKey(), packed.get(entries.size() - 1).getKey());
+    assertSameEntries(entries, packed);
+  }
+
+  @Test
+  public void testEmpty() {
+    PackedKeyValues packed = new PackedKeyValues(PackedKeyValues.pack(Collections.<KeyValue> emptyList()));
+    assertEquals(0, packed.size());
+    assertTrue(packed.isEmpty());
+    assertNull(packed.getLastKey());
+  }
+
+  @Test
+  public void testBufferNotConsumed() {
+    List<KeyValue> entries = wideRows();
+    ByteBuffer buffer = PackedKeyValues.pack(entries);
+    int position = buffer.position();
+
+    assertSameEntries(entries, new PackedKeyValues(buffer));
+    assertEquals(position, buffer.position());
+    // can be decoded again, like when thrift hands the same buffer to a retry
+    assertSameEntries(entries, new PackedKeyValues(buffer));
+  }
+
+  @Test
+  public void testSmallerThanThriftList() {
+    List<KeyValue> entries = wideRows();
+    int listBytes = 0;
+    for (KeyValue kv : entries) {
+      Key key = kv.getKey();
+      listBytes += key.getRowData().length() + key.getColumnFamilyData().length() + key.getColumnQualifierData().length()
+          + key.getColumnVisibilityData().length() + 8 + kv.getValue().getSize();
+    }
+    assertTrue(PackedKeyValues.pack(entries).remaining() < listBytes / 2);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testOutOfBounds() {
+    new PackedKeyValues(PackedKeyValues.pack(wideRows())).get(501);
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.accumulo.core.client.impl.ThriftTransportPool.TransportPoolShutdownException;
+import org.apache.accumulo.core.util.Pair;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ThriftTransportPoolTest {
+
+  private static class FakeTransport extends TTransport {
+    volatile boolean open = true;
+    volatile boolean failIO = false;
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public void open() {}
+
+    @Override
+    public void close() {
+      open = false;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws TTransportException {
+      if (failIO)
+        throw new TTransportException("expected");
+      return 0;
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) throws TTransportException {
+      if (failIO)
+        throw new TTransportException("expected");
+    }
+
+    @Override
+    public void flush() throws TTransportException {
+      if (failIO)
+        throw new TTransportException("expected");
+    }
+  }
+
+  /**
+   * A pool that opens fake transports. The first open can be made to block until released and then fail.
+   */
+  private static class TestPool extends ThriftTransportPool {
+    final List<FakeTransport> opened = new CopyOnWriteArrayList<FakeTransport>();
+    final AtomicInteger openAttempts = new AtomicInteger();
+    volatile CountDownLatch failFirstOpen = null;
+
+    @Override
+    TTransport openTransport(ThriftTransportKey cacheKey) throws TTransportException {
+      if (openAttempts.incrementAndGet() == 1 && failFirstOpen != null) {
+        try {
+          failFirstOpen.await();
+        } catch (InterruptedException e) {
+          throw new TTransportException(e);
+        }
+        throw new TTransportException("expected");
+      }
+      FakeTransport transport = new FakeTransport();
+      opened.add(transport);
+      return transport;
+    }
+  }
+
+  private TestPool pool;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    pool = new TestPool();
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    pool.shutdown();
+    executor.shutdownNow();
+  }
+
+  private Future<TTransport> getInBackground(final String location, final long timeout) {
+    return executor.submit(new Callable<TTransport>() {
+      @Override
+      public TTransport call() throws Exception {
+        return pool.getTransport(location, timeout, null);
+      }
+    });
+  }
+
+  private void waitForWaiters(long waiters) throws InterruptedException {
+    while (pool.getStats().getWaits() < waiters)
+      Thread.sleep(10);
+  }
+
+  @Test(timeout = 30000)
+  public void testWaiterWokenOnReturn() throws Exception {
+    pool.setMaxConnectionsPerServer(1);
+    TTransport first = pool.getTransport("a:1", 0, null);
+
+    Future<TTransport> waiter = getInBackground("a:1", 0);
+    waitForWaiters(1);
+    pool.returnTransport(first);
+
+    assertSame(first, waiter.get());
+    assertEquals(1, pool.getStats().getCreated());
+    pool.returnTransport(first);
+  }
+
+  @Test(timeout = 30000)
+  public void testWaiterWokenOnOpenFailed() throws Exception {
+    pool.setMaxConnectionsPerServer(1);
+    pool.failFirstOpen = new CountDownLatch(1);
+
+    Future<TTransport> opener = getInBackground("a:1", 0);
+    while (pool.openAttempts.get() == 0)
+      Thread.sleep(10);
+
+    Future<TTransport> waiter = getInBackground("a:1", 0);
+    waitForWaiters(1);
+    pool.failFirstOpen.countDown();
+
+    try {
+      opener.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TTransportException);
+    }
+    pool.returnTransport(waiter.get());
+    assertEquals(1, pool.getStats().getCreated());
+  }
+
+  @Test(timeout = 30000)
+  public void testWaiterWokenOnErrorReturn() throws Exception {
+    pool.setMaxConnectionsPerServer(1);
+    TTransport first = pool.getTransport("a:1", 0, null);
+
+    Future<TTransport> waiter = getInBackground("a:1", 0);
+    waitForWaiters(1);
+
+    pool.opened.get(0).failIO = true;
+    try {
+      first.flush();
+      fail();
+    } catch (TTransportException e) {}
+    pool.returnTransport(first);
+
+    TTransport second = waiter.get();
+    assertNotSame(first, second);
+    assertFalse(pool.opened.get(0).isOpen());
+    pool.returnTransport(second);
+
+    ThriftTransportPool.Stats stats = pool.getStats();
+    assertEquals(2, stats.getCreated());
+    assertEquals(1, stats.getClosed());
+  }
+
+  @Test(timeout = 30000)
+  public void testTimeoutWaitingForConnection() throws Exception {
+    pool.setMaxConnectionsPerServer(1);
+    TTransport first = pool.getTransport("a:1", 100, null);
+
+    try {
+      pool.getTransport("a:1", 100, null);
+      fail();
+    } catch (TTransportException e) {
+      assertEquals(TTransportException.TIMED_OUT, e.getType());
+    }
+
+    // other servers are not affected
+    pool.returnTransport(pool.getTransport("b:1", 100, null));
+    pool.returnTransport(first);
+    assertEquals(1, pool.getStats().getWaits());
+  }
+
+  @Test(timeout = 30000)
+  public void testLimitCountsEveryTimeout() throws Exception {
+    pool.setMaxConnectionsPerServer(1);
+    TTransport first = pool.getTransport("a:1", 100, null);
+
+    // a connection with another timeout is still a connection to the same server
+    try {
+      pool.getTransport("a:1", 200, null);
+      fail();
+    } catch (TTransportException e) {
+      assertEquals(TTransportException.TIMED_OUT, e.getType());
+    }
+
+    // once idle, a connection opened with other settings gives way to a new one
+    pool.returnTransport(first);
+    TTransport second = pool.getTransport("a:1", 200, null);
+    assertNotSame(first, second);
+    pool.returnTransport(second);
+
+    ThriftTransportPool.Stats stats = pool.getStats();
+    assertEquals(2, stats.getCreated());
+    assertEquals(1, stats.getClosed());
+    assertEquals(1, stats.getOpen());
+  }
+
+  @Test(timeout = 30000)
+  public void testShutdownReleasesWaiters() throws Exception {
+    pool.setMaxConnectionsPerServer(1);
+    pool.getTransport("a:1", 0, null);
+
+    Future<TTransport> waiter = getInBackground("a:1", 0);
+    waitForWaiters(1);
+    pool.shutdown();
+
+    try {
+      waiter.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TransportPoolShutdownException);
+    }
+  }
+
+  @Test(timeout = 30000)
+  public void testGetAnyTransportSkipsSaturatedServers() throws Exception {
+    pool.setMaxConnectionsPerServer(1);
+    TTransport held = pool.getTransport("a:1", 1000, null);
+
+    List<ThriftTransportKey> servers = Arrays.asList(new ThriftTransportKey("a:1", 1000, null), new ThriftTransportKey("b:1", 1000, null));
+    for (int i = 0; i < 20; i++) {
+      Pair<String,TTransport> pair = pool.getAnyTransport(servers, i % 2 == 0);
+      assertEquals("b:1", pair.getFirst());
+      pool.returnTransport(pair.getSecond());
+    }
+    pool.returnTransport(held);
+
+    assertEquals(0, pool.getStats().getWaits());
+    assertEquals(2, pool.getStats().getCreated());
+  }
+
+  @Test
+  public void testStats() throws Exception {
+    TTransport first = pool.getTransport("a:1", 0, null);
+    TTransport second = pool.getTransport("a:1", 0, null);
+    pool.returnTransport(first);
+    assertSame(first, pool.getTransport("a:1", 0, null));
+
+    ThriftTransportPool.Stats stats = pool.getStats();
+    assertEquals(3, stats.getCheckouts());
+    assertEquals(2, stats.getCreated());
+    assertEquals(0, stats.getClosed());
+    assertEquals(2, stats.getOpen());
+    assertEquals(0, stats.getWaits());
+    assertEquals(0, stats.getWaitTime());
+
+    pool.returnTransport(first);
+    pool.returnTransport(second);
+    pool.shutdown();
+
+    stats = pool.getStats();
+    assertEquals(3, stats.getCheckouts());
+    assertEquals(2, stats.getClosed());
+    assertEquals(0, stats.getOpen());
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    pool.setMaxConnectionsPerServer(3);
+    TTransport held = pool.getTransport("a:1", 0, null);
+
+    // held connections do not count towards the idle ones wanted, and the limit is not exceeded
+    pool.warmUp("a:1", 0, null, 3);
+    ThriftTransportPool.Stats stats = pool.getStats();
+    assertEquals(3, stats.getCreated());
+    assertEquals(1, stats.getCheckouts());
+    assertEquals(3, stats.getOpen());
+
+    // the warmed connections are handed out without opening more
+    TTransport warm1 = pool.getTransport("a:1", 0, null);
+    TTransport warm2 = pool.getTransport("a:1", 0, null);
+    assertNotSame(held, warm1);
+    assertNotSame(warm1, warm2);
+    assertEquals(3, pool.getStats().getCreated());
+    assertEquals(3, pool.getStats().getCheckouts());
+
+    // idle connections with the same settings already count
+    pool.returnTransport(warm1);
+    pool.returnTransport(warm2);
+    pool.warmUp("a:1", 0, null, 2);
+    assertEquals(3, pool.getStats().getCreated());
+    pool.returnTransport(held);
+  }
+}
@@ -21,6 +21,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
@@ -30,6 +31,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
+import org.apache.accumulo.core.client.AsyncScanner;
+import org.apache.accumulo.core.client.AsyncScanner.BatchStream;
 import org.apache.accumulo.core.client.BatchDeleter;
 import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.BatchWriter;
@@ -84,6 +87,42 @@ public class MockConnectorTest {
     assertEquals(100, count);
   }
   
+  @Test
+  public void testOrderedBatchScanner() throws Exception {
+    Connector c = new MockConnector("root", new MockInstance());
+    c.tableOperations().create("test");
+    BatchWriter bw = c.createBatchWriter("test", new BatchWriterConfig());
+    for (int i = 0; i < 100; i++) {
+      Mutation m = new Mutation(String.format("%03d", i));
+      m.put("cf", "cq", new Value(Integer.toString(i).getBytes()));
+      bw.addMutation(m);
+    }
+    bw.close();
+    
+    // out of order and overlapping
+    List<Range> ranges = new ArrayList<Range>();
+    ranges.add(new Range("070", "079"));
+    ranges.add(new Range("010", "019"));
+    ranges.add(new Range("015", "030"));
+    ranges.add(new Range("050"));
+    
+    BatchScanner s = c.createBatchScanner("test", Authorizations.EMPTY, 2);
+    s.setRanges(ranges);
+    s.setOrdered(true);
+    List<String> rows = new ArrayList<String>();
+    for (Entry<Key,Value> entry : s)
+      rows.add(entry.getKey().getRow().toString());
+    s.close();
+    
+    List<String> expected = new ArrayList<String>();
+    for (int i = 10; i <= 30; i++)
+      expected.add(String.format("%03d", i));
+    expected.add("050");
+    for (int i = 70; i <= 79; i++)
+      expected.add(String.format("%03d", i));
+    assertEquals(expected, rows);
+  }
+  
   @Test
   public void testChangeAuths() throws Exception {
     Connector c = new MockConnector("root", new MockInstance());
@@ -387,4 +426,31 @@ public class MockConnectorTest {
     assertEquals(name, mockInstance.getConnector("foo", new PasswordToken("bar")).getInstance().getInstanceName());
   }
   
+  @Test
+  public void testAsyncScanner() throws Exception {
+    Connector c = new MockConnector("root", new MockInstance());
+    c.tableOperations().create("test");
+    BatchWriter bw = c.createBatchWriter("test", new BatchWriterConfig());
+    for (int i = 0; i < 10; i++) {
+      Mutation m = new Mutation(String.format("r%02d", i));
+      m.put("cf", "cq", new Value(("" + i).getBytes()));
+      bw.addMutation(m);
+    }
+    bw.close();
+    
+    AsyncScanner scanner = c.createAsyncScanner("test", Authorizations.EMPTY);
+    List<Entry<Key,Value>> row = scanner.lookup(new Range("r05")).get();
+    assertEquals(1, row.size());
+    assertEquals("5", row.get(0).getValue().toString());
+    
+    scanner.setBatchSize(4);
+    BatchStream stream = scanner.scan(new Range("r02", "r08"));
+    List<Integer> batchSizes = new ArrayList<Integer>();
+    List<Entry<Key,Value>> batch;
+    while (!(batch = stream.nextBatch().get()).isEmpty())
+      batchSizes.add(batch.size());
+    stream.close();
+    assertEquals(Arrays.asList(4, 3), batchSizes);
+  }
+  
 }
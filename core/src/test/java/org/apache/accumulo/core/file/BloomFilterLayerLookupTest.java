@@ -16,6 +16,7 @@
  */
 package org.apache.accumulo.core.file;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -58,6 +59,15 @@ public class BloomFilterLayerLookupTest {
 
   @Test
   public void test() throws IOException {
+    test(true);
+  }
+
+  @Test
+  public void testDynamicBloomFilter() throws IOException {
+    test(false);
+  }
+
+  private void test(boolean blocked) throws IOException {
     HashSet<Integer> valsSet = new HashSet<Integer>();
     for (int i = 0; i < 100000; i++) {
       valsSet.add(random.nextInt(Integer.MAX_VALUE));
@@ -72,6 +82,7 @@ public class BloomFilterLayerLookupTest {
     acuconf.set(Property.TABLE_FILE_TYPE, RFile.EXTENSION);
     acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "1");
     acuconf.set(Property.TSERV_BLOOM_LOAD_MAXCONCURRENT, "1");
+    acuconf.set(Property.TABLE_BLOOM_BLOCKED, Boolean.toString(blocked));
 
     Configuration conf = CachedConfiguration.getInstance();
     FileSystem fs = FileSystem.get(conf);
@@ -135,6 +146,39 @@ public class BloomFilterLayerLookupTest {
     assertTrue(rate1 > rate2);
   }
 
+  @Test
+  public void testSharedBloomFilterReleasedOnClose() throws IOException {
+    ConfigurationCopy acuconf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    acuconf.set(Property.TABLE_BLOOM_ENABLED, "true");
+    acuconf.set(Property.TABLE_FILE_TYPE, RFile.EXTENSION);
+    acuconf.set(Property.TABLE_BLOOM_LOAD_THRESHOLD, "1");
+    acuconf.set(Property.TSERV_BLOOM_LOAD_MAXCONCURRENT, "1");
+
+    Configuration conf = CachedConfiguration.getInstance();
+    FileSystem fs = FileSystem.get(conf);
+
+    String fname = new File(tempDir.getRoot(), testName.getMethodName() + "." + FileOperations.getNewFileExtension(acuconf)).getAbsolutePath();
+    FileSKVWriter bmfw = FileOperations.getInstance().openWriter(fname, fs, conf, acuconf);
+    bmfw.startDefaultLocalityGroup();
+    for (int i = 0; i < 1000; i++) {
+      bmfw.append(new Key(new Text(String.format("r%010d", i)), new Text("cf1")), new Value(("v" + i).getBytes()));
+    }
+    bmfw.close();
+
+    int before = BloomFilterLayer.getSharedBloomFilterCount();
+
+    // readers of the same file share one entry
+    FileSKVIterator reader1 = FileOperations.getInstance().openReader(fname, false, fs, conf, acuconf);
+    FileSKVIterator reader2 = FileOperations.getInstance().openReader(fname, false, fs, conf, acuconf);
+    assertEquals(before + 1, BloomFilterLayer.getSharedBloomFilterCount());
+
+    reader1.close();
+    assertEquals(before + 1, BloomFilterLayer.getSharedBloomFilterCount());
+
+    reader2.close();
+    assertEquals(before, BloomFilterLayer.getSharedBloomFilterCount());
+  }
+
   private void seek(FileSKVIterator bmfr, int row) throws IOException {
     String fi = String.format("%010d", row);
     // bmfr.seek(new Range(new Text("r"+fi)));
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.keyfunctor.ColumnFamilyFunctor;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.util.CachedConfiguration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PartitionedBloomFilterTest {
+
+  private static final int ROWS = 20000;
+
+  @Rule
+  public TemporaryFolder tempDir = new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private static String row(int i) {
+    return String.format("r%06d", i);
+  }
+
+  private static Range range(String row, String cf) {
+    Key key = new Key(row, cf);
+    return new Range(key, true, key.followingKey(PartialKey.ROW_COLFAM), false);
+  }
+
+  @Test
+  public void testPartitionsAndLocalityGroups() throws IOException {
+    ConfigurationCopy acuconf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    acuconf.set(Property.TABLE_BLOOM_ENABLED, "true");
+    acuconf.set(Property.TABLE_BLOOM_BLOCKED, "true");
+    acuconf.set(Property.TABLE_BLOOM_KEY_FUNCTOR, ColumnFamilyFunctor.class.getName());
+    acuconf.set(Property.TABLE_BLOOM_PARTITION_SIZE, "1K");
+    acuconf.set(Property.TABLE_FILE_TYPE, RFile.EXTENSION);
+
+    Configuration conf = CachedConfiguration.getInstance();
+    FileSystem fs = FileSystem.getLocal(conf);
+    String fname = new File(tempDir.getRoot(), "bloom." + RFile.EXTENSION).getAbsolutePath();
+
+    // only even rows are written, cf1 to its own locality group
+    FileSKVWriter writer = FileOperations.getInstance().openWriter(fname, fs, conf, acuconf);
+    writer.startNewLocalityGroup("lg1", Collections.<ByteSequence> singleton(new ArrayByteSequence("cf1")));
+    for (int i = 0; i < ROWS; i += 2)
+      writer.append(new Key(row(i), "cf1"), new Value(new byte[0]));
+    writer.startDefaultLocalityGroup();
+    for (int i = 0; i < ROWS; i += 2) {
+      writer.append(new Key(row(i), "cf2", "q1"), new Value(new byte[0]));
+      writer.append(new Key(row(i), "cf2", "q2"), new Value(new byte[0]));
+    }
+    writer.close();
+
+    FileSKVIterator reader = FileOperations.getInstance().openReader(fname, false, fs, conf, acuconf);
+    try {
+      DataInputStream in = reader.getMetaStore(PartitionedBloomFilter.BLOOM_FILE_NAME);
+      assertTrue(ColumnFamilyFunctor.class.getName().equals(in.readUTF()));
+      PartitionedBloomFilter filter = PartitionedBloomFilter.read(in, new ColumnFamilyFunctor());
+      in.close();
+
+      for (int i = 0; i < ROWS; i += 2) {
+        assertTrue(filter.probablyHasKey(reader, range(row(i), "cf1")));
+        assertTrue(filter.probablyHasKey(reader, range(row(i), "cf2")));
+      }
+
+      int falsePositives = 0;
+      for (int i = 1; i < ROWS; i += 2) {
+        if (filter.probablyHasKey(reader, range(row(i), "cf1")))
+          falsePositives++;
+        if (filter.probablyHasKey(reader, range(row(i), "cf3")))
+          falsePositives++;
+      }
+      assertTrue("false positives " + falsePositives, falsePositives < ROWS * .03);
+
+      // rows before the first partition of every locality group
+      assertFalse(filter.probablyHasKey(reader, range("a", "cf1")));
+
+      // ranges the functor can not turn into a bloom key are always possible
+      assertTrue(filter.probablyHasKey(reader, new Range(row(1), row(3))));
+    } finally {
+      reader.close();
+    }
+  }
+}
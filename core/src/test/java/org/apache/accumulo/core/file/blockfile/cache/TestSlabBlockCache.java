@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestSlabBlockCache extends TestCase {
+
+  private static byte[] randomBlock(Random r, int size) {
+    byte[] b = new byte[size];
+    r.nextBytes(b);
+    return b;
+  }
+
+  public void testCacheSimple() throws Exception {
+    SlabBlockCache cache = new SlabBlockCache(1 << 20, 64 * 1024);
+    try {
+      Random r = new Random(42);
+      byte[][] blocks = new byte[10][];
+      for (int i = 0; i < blocks.length; i++) {
+        blocks[i] = randomBlock(r, 1000 + r.nextInt(60000));
+        assertNull(cache.getBlock("b" + i));
+        assertNotNull(cache.cacheBlock("b" + i, blocks[i]));
+      }
+
+      for (int i = 0; i < blocks.length; i++) {
+        CacheEntry ce = cache.getBlock("b" + i);
+        assertNotNull(ce);
+        assertTrue(Arrays.equals(blocks[i], ce.getBuffer()));
+      }
+
+      assertEquals(10, cache.size());
+      assertEquals(10, cache.getStats().getHitCount());
+      assertEquals(10, cache.getStats().getMissCount());
+      assertEquals(0, cache.getStats().getEvictedCount());
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testIndexSharedAcrossHits() throws Exception {
+    SlabBlockCache cache = new SlabBlockCache(1 << 20, 64 * 1024);
+    try {
+      cache.cacheBlock("b", new byte[100]).setIndex("idx");
+      assertEquals("idx", cache.getBlock("b").getIndex());
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testTooLarge() throws Exception {
+    SlabBlockCache cache = new SlabBlockCache(1 << 20, 64 * 1024);
+    try {
+      assertNull(cache.cacheBlock("big", new byte[128 * 1024]));
+      assertNull(cache.getBlock("big"));
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testLruEviction() throws Exception {
+    // one slab of four 64k slots
+    SlabBlockCache cache = new SlabBlockCache(256 * 1024, 64 * 1024);
+    try {
+      Random r = new Random(7);
+      for (int i = 0; i < 4; i++) {
+        cache.cacheBlock("b" + i, randomBlock(r, 40000));
+      }
+
+      // make b0 the most recently used
+      assertNotNull(cache.getBlock("b0"));
+
+      byte[] b4 = randomBlock(r, 40000);
+      assertNotNull(cache.cacheBlock("b4", b4));
+
+      assertNotNull(cache.getBlock("b0"));
+      assertNull(cache.getBlock("b1"));
+      assertTrue(Arrays.equals(b4, cache.getBlock("b4").getBuffer()));
+      assertEquals(1, cache.getStats().getEvictedCount());
+      assertEquals(4, cache.size());
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testSlabRebalance() throws Exception {
+    // two slabs of 256k
+    SlabBlockCache cache = new SlabBlockCache(512 * 1024, 64 * 1024);
+    try {
+      Random r = new Random(11);
+      for (int i = 0; i < 8; i++) {
+        assertNotNull(cache.cacheBlock("large" + i, randomBlock(r, 60000)));
+      }
+
+      // small blocks have no slab left, so one must be taken from the large size class
+      byte[] small = randomBlock(r, 1000);
+      assertNotNull(cache.cacheBlock("small", small));
+      assertTrue(Arrays.equals(small, cache.getBlock("small").getBuffer()));
+      assertEquals(4, cache.getStats().getEvictedCount());
+      assertEquals(5, cache.size());
+    } finally {
+      cache.shutdown();
+    }
+  }
+}
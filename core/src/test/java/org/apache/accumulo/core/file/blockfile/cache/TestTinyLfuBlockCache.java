@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestTinyLfuBlockCache extends TestCase {
+
+  private static final int BLOCK_SIZE = 1000;
+
+  private static CacheEntry read(BlockCache cache, String name) {
+    CacheEntry ce = cache.getBlock(name);
+    if (ce == null)
+      ce = cache.cacheBlock(name, new byte[BLOCK_SIZE]);
+    return ce;
+  }
+
+  public void testCacheSimple() throws Exception {
+    TinyLfuBlockCache cache = new TinyLfuBlockCache(100 * BLOCK_SIZE * 2, BLOCK_SIZE);
+    try {
+      for (int i = 0; i < 50; i++) {
+        assertNull(cache.getBlock("b" + i));
+        cache.cacheBlock("b" + i, new byte[BLOCK_SIZE]);
+      }
+      for (int i = 0; i < 50; i++) {
+        CacheEntry ce = cache.getBlock("b" + i);
+        assertNotNull(ce);
+        assertEquals(BLOCK_SIZE, ce.getBuffer().length);
+      }
+      assertEquals(50, cache.size());
+      assertEquals(50, cache.getStats().getHitCount());
+      assertEquals(50, cache.getStats().getMissCount());
+      assertEquals(0, cache.getStats().getEvictedCount());
+      assertTrue(cache.getCurrentSize() <= cache.getMaxSize());
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testScanResistance() throws Exception {
+    long maxSize = 100 * (BLOCK_SIZE + CachedBlock.PER_BLOCK_OVERHEAD + 100);
+    TinyLfuBlockCache cache = new TinyLfuBlockCache(maxSize, BLOCK_SIZE);
+    try {
+      // a working set that is read repeatedly
+      for (int round = 0; round < 5; round++) {
+        for (int i = 0; i < 50; i++) {
+          read(cache, "hot" + i);
+        }
+      }
+
+      // a large scan that touches every block once
+      for (int i = 0; i < 1000; i++) {
+        read(cache, "scan" + i);
+      }
+
+      assertTrue(cache.getCurrentSize() <= maxSize);
+      assertTrue(cache.getStats().getAdmissionRejectedCount() > 0);
+
+      int hot = 0;
+      for (int i = 0; i < 50; i++) {
+        if (cache.getBlock("hot" + i) != null)
+          hot++;
+      }
+      assertEquals(50, hot);
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testFrequentBlocksAdmitted() throws Exception {
+    long maxSize = 20 * (BLOCK_SIZE + CachedBlock.PER_BLOCK_OVERHEAD + 100);
+    TinyLfuBlockCache cache = new TinyLfuBlockCache(maxSize, BLOCK_SIZE);
+    try {
+      for (int i = 0; i < 100; i++) {
+        read(cache, "old" + i);
+      }
+
+      // a new working set replaces the old one once it is used more often
+      for (int round = 0; round < 10; round++) {
+        for (int i = 0; i < 10; i++) {
+          read(cache, "new" + i);
+        }
+      }
+
+      for (int i = 0; i < 10; i++) {
+        assertNotNull(cache.getBlock("new" + i));
+      }
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testInMemory() throws Exception {
+    long maxSize = 20 * (BLOCK_SIZE + CachedBlock.PER_BLOCK_OVERHEAD + 100);
+    TinyLfuBlockCache cache = new TinyLfuBlockCache(maxSize, BLOCK_SIZE);
+    try {
+      cache.cacheBlock("mem", new byte[BLOCK_SIZE], true);
+      for (int i = 0; i < 100; i++) {
+        read(cache, "scan" + i);
+      }
+      assertNotNull(cache.getBlock("mem"));
+    } finally {
+      cache.shutdown();
+    }
+  }
+
+  public void testSketch() throws Exception {
+    FrequencySketch sketch = new FrequencySketch(1000);
+    for (int i = 0; i < 5; i++)
+      sketch.increment("a");
+    sketch.increment("b");
+    assertTrue(sketch.frequency("a") >= 5);
+    assertTrue(sketch.frequency("a") > sketch.frequency("b"));
+    for (int i = 0; i < 100; i++)
+      sketch.increment("a");
+    assertEquals(15, sketch.frequency("a"));
+
+    // aging halves the counters
+    for (int i = 0; i < 20000; i++)
+      sketch.increment("x" + i);
+    assertTrue(sketch.frequency("a") < 15);
+  }
+
+  public void testConcurrentReads() throws Exception {
+    long maxSize = 100 * (BLOCK_SIZE + CachedBlock.PER_BLOCK_OVERHEAD + 100);
+    final TinyLfuBlockCache cache = new TinyLfuBlockCache(maxSize, BLOCK_SIZE);
+    final int threadCount = 8;
+    final int readsPerThread = 20000;
+    try {
+      final List<Throwable> errors = new ArrayList<Throwable>();
+      List<Thread> threads = new ArrayList<Thread>();
+      for (int t = 0; t < threadCount; t++) {
+        final long seed = t;
+        threads.add(new Thread() {
+          @Override
+          public void run() {
+            try {
+              Random random = new Random(seed);
+              for (int i = 0; i < readsPerThread; i++) {
+                // skewed so some blocks are read far more often than others
+                String name = "b" + (random.nextInt(20) * random.nextInt(20));
+                assertEquals(BLOCK_SIZE, read(cache, name).getBuffer().length);
+              }
+            } catch (Throwable e) {
+              synchronized (errors) {
+                errors.add(e);
+              }
+            }
+          }
+        });
+      }
+      for (Thread thread : threads)
+        thread.start();
+      for (Thread thread : threads)
+        thread.join();
+
+      assertTrue(errors.toString(), errors.isEmpty());
+      // reads may be dropped from the policy buffer, but never from the statistics
+      assertEquals(threadCount * readsPerThread, cache.getStats().getRequestCount());
+      assertTrue(cache.getCurrentSize() <= maxSize);
+    } finally {
+      cache.shutdown();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.blockfile.impl;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.accumulo.core.file.blockfile.impl.BlockPrefetcher.PrefetchTask;
+import org.junit.After;
+import org.junit.Test;
+
+public class BlockPrefetcherTest {
+
+  private static final Callable<byte[]> EMPTY = new Callable<byte[]>() {
+    @Override
+    public byte[] call() {
+      return new byte[0];
+    }
+  };
+
+  @After
+  public void disable() {
+    BlockPrefetcher.configure(0, 0);
+  }
+
+  /**
+   * Submits a block of the given size, waiting for memory released by tasks that are still finishing.
+   */
+  private static PrefetchTask submitEventually(long size) throws InterruptedException {
+    PrefetchTask task;
+    while ((task = BlockPrefetcher.submit(size, EMPTY)) == null)
+      Thread.sleep(10);
+    return task;
+  }
+
+  @Test(timeout = 10 * 1000)
+  public void testReconfigureKeepsHeldMemory() throws Exception {
+    BlockPrefetcher.configure(1, 100);
+    PrefetchTask held = BlockPrefetcher.submit(60, EMPTY);
+    assertNotNull(held);
+    held.get();
+    assertNull(BlockPrefetcher.submit(60, EMPTY));
+
+    // the block waiting for its reader still counts against the new budget
+    BlockPrefetcher.configure(1, 100);
+    assertNull(BlockPrefetcher.submit(60, EMPTY));
+
+    // and once it is taken the budget is whole again, but no larger
+    held.taken();
+    PrefetchTask all = submitEventually(100);
+    assertNull(BlockPrefetcher.submit(1, EMPTY));
+    all.taken();
+  }
+
+  @Test(timeout = 10 * 1000)
+  public void testReconfigureAbandonsQueuedBlocks() throws Exception {
+    BlockPrefetcher.configure(1, 100);
+
+    // keep the only thread busy so the next block stays queued
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    PrefetchTask running = BlockPrefetcher.submit(10, new Callable<byte[]>() {
+      @Override
+      public byte[] call() throws Exception {
+        started.countDown();
+        release.await();
+        return new byte[0];
+      }
+    });
+    assertNotNull(running);
+    started.await();
+    PrefetchTask queued = BlockPrefetcher.submit(10, EMPTY);
+    assertNotNull(queued);
+
+    // the queued block never runs, so a reader must not wait on it and its memory must still come back
+    BlockPrefetcher.configure(1, 100);
+    assertTrue(queued.isCancelled());
+    queued.taken();
+    running.taken();
+    submitEventually(100).taken();
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.junit.Test;
+
+public class BlockSummaryTest {
+
+  private static Key nk(String row, String cf, long ts, boolean deleted) {
+    Key k = new Key(row, cf, "cq", ts);
+    k.setDeleted(deleted);
+    return k;
+  }
+
+  private static long mask(String cf) {
+    return BlockSummary.familyMask(Collections.singleton(new ArrayByteSequence(cf)));
+  }
+
+  @Test
+  public void testFamilies() {
+    BlockSummary summary = new BlockSummary();
+    summary.update(nk("r1", "cf1", 5, false));
+    summary.update(nk("r2", "cf2", 5, false));
+
+    assertTrue(summary.mayContainFamilies(mask("cf1")));
+    assertTrue(summary.mayContainFamilies(mask("cf2")));
+    assertTrue(summary.mayContainFamilies(mask("cf2") | mask("cf3")));
+
+    // a family is ruled out unless it collides with one in the block
+    int ruledOut = 0;
+    for (int i = 0; i < 100; i++) {
+      long m = mask("other" + i);
+      if ((m & (mask("cf1") | mask("cf2"))) == 0) {
+        assertFalse(summary.mayContainFamilies(m));
+        ruledOut++;
+      }
+    }
+    assertTrue(ruledOut > 80);
+  }
+
+  @Test
+  public void testTimestamps() {
+    BlockSummary summary = new BlockSummary();
+    summary.update(nk("r1", "cf1", 10, false));
+    summary.update(nk("r2", "cf1", 20, false));
+
+    assertEquals(10, summary.getMinTimestamp());
+    assertEquals(20, summary.getMaxTimestamp());
+
+    assertTrue(summary.mayAffectTimestamps(0, 10));
+    assertTrue(summary.mayAffectTimestamps(15, 16));
+    assertTrue(summary.mayAffectTimestamps(20, 30));
+    assertFalse(summary.mayAffectTimestamps(0, 9));
+    assertFalse(summary.mayAffectTimestamps(21, 30));
+
+    // a delete can hide older keys elsewhere, so a block with deletes newer than the range can not be skipped
+    summary.update(nk("r3", "cf1", 15, true));
+    assertTrue(summary.hasDeletes());
+    assertTrue(summary.mayAffectTimestamps(0, 9));
+    assertFalse(summary.mayAffectTimestamps(21, 30));
+  }
+
+  @Test
+  public void testMergeAndSerialize() throws IOException {
+    BlockSummary s1 = new BlockSummary();
+    s1.update(nk("r1", "cf1", -5, false));
+    BlockSummary s2 = new BlockSummary();
+    s2.update(nk("r2", "cf2", Long.MAX_VALUE, true));
+
+    BlockSummary merged = new BlockSummary(s1);
+    merged.merge(s2);
+
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    merged.write(new DataOutputStream(baos));
+    BlockSummary read = new BlockSummary();
+    read.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+
+    assertEquals(-5, read.getMinTimestamp());
+    assertEquals(Long.MAX_VALUE, read.getMaxTimestamp());
+    assertTrue(read.hasDeletes());
+    assertTrue(read.mayContainFamilies(mask("cf1")));
+    assertTrue(read.mayContainFamilies(mask("cf2")));
+  }
+}
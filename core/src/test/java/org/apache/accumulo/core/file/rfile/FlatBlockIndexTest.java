@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.rfile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.ABlockReader;
+import org.apache.accumulo.core.file.blockfile.cache.CacheEntry;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
+import org.apache.accumulo.core.file.rfile.BlockIndex.BlockIndexEntry;
+import org.apache.accumulo.core.file.rfile.MultiLevelIndex.IndexEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatBlockIndexTest {
+
+  private static class MyCacheEntry implements CacheEntry {
+    Object idx;
+    byte[] data;
+
+    MyCacheEntry(byte[] d) {
+      this.data = d;
+    }
+
+    @Override
+    public void setIndex(Object idx) {
+      this.idx = idx;
+    }
+
+    @Override
+    public Object getIndex() {
+      return idx;
+    }
+
+    @Override
+    public byte[] getBuffer() {
+      return data;
+    }
+  }
+
+  private static ABlockReader createBlock(List<Key> keys) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(baos);
+
+    Key prevKey = null;
+    for (Key key : keys) {
+      new RelativeKey(prevKey, key).write(out);
+      new Value(new byte[0]).write(out);
+      prevKey = key;
+    }
+
+    out.close();
+    byte[] data = baos.toByteArray();
+    return new CachableBlockFile.CachedBlockRead(new MyCacheEntry(data), data);
+  }
+
+  /**
+   * Seeks with the index and then reads forward to the first key at or after the seek key, the way RFile does.
+   */
+  private static Key seek(FlatBlockIndex blockIndex, ABlockReader cacheBlock, Key seekKey, int numEntries) throws IOException {
+    BlockIndexEntry bie = blockIndex.seekBlock(seekKey, cacheBlock);
+    RelativeKey rk = new RelativeKey();
+    Value val = new Value();
+    int entriesLeft = numEntries;
+    if (bie == null) {
+      cacheBlock.seek(0);
+    } else {
+      Assert.assertTrue(bie.getPrevKey().compareTo(seekKey) < 0);
+      rk.setPrevKey(bie.getPrevKey());
+      entriesLeft = bie.getEntriesLeft();
+    }
+
+    while (entriesLeft > 0) {
+      rk.readFields(cacheBlock);
+      val.readFields(cacheBlock);
+      entriesLeft--;
+      if (rk.getKey().compareTo(seekKey) >= 0)
+        return rk.getKey();
+    }
+    return null;
+  }
+
+  @Test
+  public void test1() throws IOException {
+    int num = 1000;
+    ArrayList<Key> keys = new ArrayList<Key>();
+    for (int i = 0; i < num; i++)
+      keys.add(new Key(RFileTest.nf("", i), "cf1", "cq1"));
+
+    ABlockReader cacheBlock = createBlock(keys);
+    FlatBlockIndex blockIndex = FlatBlockIndex.getIndex(cacheBlock, new IndexEntry(keys.get(num - 1), num, 0, 0, 0));
+
+    // built on first use
+    Assert.assertNotNull(blockIndex);
+    Assert.assertEquals((num - FlatBlockIndex.INTERVAL) / FlatBlockIndex.INTERVAL, blockIndex.size());
+    Assert.assertSame(blockIndex, FlatBlockIndex.getIndex(cacheBlock, new IndexEntry(keys.get(num - 1), num, 0, 0, 0)));
+
+    for (int i = 0; i < blockIndex.size(); i++) {
+      Key indexed = blockIndex.getIndexedKey(i);
+      Assert.assertEquals(keys.get((i + 1) * FlatBlockIndex.INTERVAL - 1), indexed);
+
+      int row = Integer.parseInt(indexed.getRowData().toString());
+
+      BlockIndexEntry bie = blockIndex.seekBlock(new Key(RFileTest.nf("", row), "cf1", "cq1"), cacheBlock);
+      if (i == 0)
+        Assert.assertNull(bie);
+      else
+        Assert.assertEquals(blockIndex.getIndexedKey(i - 1), bie.getPrevKey());
+
+      bie = blockIndex.seekBlock(new Key(RFileTest.nf("", row + 1), "cf1", "cq1"), cacheBlock);
+      Assert.assertEquals(indexed, bie.getPrevKey());
+      Assert.assertEquals(num - row - 1, bie.getEntriesLeft());
+
+      RelativeKey rk = new RelativeKey();
+      rk.setPrevKey(bie.getPrevKey());
+      rk.readFields(cacheBlock);
+
+      Assert.assertEquals(rk.getKey(), new Key(RFileTest.nf("", row + 1), "cf1", "cq1"));
+    }
+
+    for (int i = 0; i < num; i++) {
+      Assert.assertEquals(keys.get(i), seek(blockIndex, cacheBlock, keys.get(i), num));
+      Assert.assertEquals(keys.get(i), seek(blockIndex, cacheBlock, new Key(keys.get(i).getRow()), num));
+    }
+
+    // before and after everything in the block, where the common row prefix decides the search
+    Assert.assertNull(blockIndex.seekBlock(new Key(""), cacheBlock));
+    Assert.assertNull(blockIndex.seekBlock(new Key("0"), cacheBlock));
+    Assert.assertNull(seek(blockIndex, cacheBlock, new Key("1"), num));
+
+    cacheBlock.close();
+  }
+
+  @Test
+  public void testColumnsAndTimestamps() throws IOException {
+    // a single row, so the whole row is the common prefix and columns and timestamps decide the search
+    ArrayList<Key> keys = new ArrayList<Key>();
+    for (int cf = 0; cf < 10; cf++)
+      for (int cq = 0; cq < 10; cq++)
+        for (int ts = 5; ts > 0; ts--) {
+          Key k = new Key("row", RFileTest.nf("cf", cf), RFileTest.nf("cq", cq), ts);
+          k.setDeleted(true);
+          keys.add(k);
+          keys.add(new Key("row", RFileTest.nf("cf", cf), RFileTest.nf("cq", cq), ts));
+        }
+
+    ABlockReader cacheBlock = createBlock(keys);
+    FlatBlockIndex blockIndex = FlatBlockIndex.getIndex(cacheBlock, new IndexEntry(keys.get(keys.size() - 1), keys.size(), 0, 0, 0));
+
+    for (Key key : keys)
+      Assert.assertEquals(key, seek(blockIndex, cacheBlock, key, keys.size()));
+
+    Assert.assertNull(blockIndex.seekBlock(new Key("ro"), cacheBlock));
+    Assert.assertEquals(keys.get(0), seek(blockIndex, cacheBlock, new Key("row"), keys.size()));
+    Assert.assertNull(seek(blockIndex, cacheBlock, new Key("row0"), keys.size()));
+
+    cacheBlock.close();
+  }
+
+  @Test
+  public void testSame() throws IOException {
+    int num = 1000;
+    ArrayList<Key> keys = new ArrayList<Key>();
+    for (int r = 1; r < 6; r += 2)
+      for (int i = 0; i < num; i++)
+        keys.add(new Key(RFileTest.nf("", r), "cf1", "cq1"));
+
+    ABlockReader cacheBlock = createBlock(keys);
+    FlatBlockIndex blockIndex = FlatBlockIndex.getIndex(cacheBlock, new IndexEntry(keys.get(keys.size() - 1), keys.size(), 0, 0, 0));
+
+    Assert.assertNull(blockIndex.seekBlock(new Key(RFileTest.nf("", 0), "cf1", "cq1"), cacheBlock));
+    Assert.assertNull(blockIndex.seekBlock(new Key(RFileTest.nf("", 1), "cf1", "cq1"), cacheBlock));
+
+    for (int i = 2; i < 6; i++) {
+      Key seekKey = new Key(RFileTest.nf("", i), "cf1", "cq1");
+      BlockIndexEntry bie = blockIndex.seekBlock(seekKey, cacheBlock);
+
+      Assert.assertTrue(bie.getPrevKey().compareTo(seekKey) < 0);
+
+      RelativeKey rk = new RelativeKey();
+      rk.setPrevKey(bie.getPrevKey());
+      rk.readFields(cacheBlock);
+
+      Assert.assertTrue(rk.getKey().compareTo(seekKey) <= 0);
+    }
+    cacheBlock.close();
+  }
+
+  @Test
+  public void testSmallBlock() throws IOException {
+    ArrayList<Key> keys = new ArrayList<Key>();
+    for (int i = 0; i < 2 * FlatBlockIndex.INTERVAL - 1; i++)
+      keys.add(new Key(RFileTest.nf("", i)));
+
+    ABlockReader cacheBlock = createBlock(keys);
+    Assert.assertNull(FlatBlockIndex.getIndex(cacheBlock, new IndexEntry(keys.get(keys.size() - 1), keys.size(), 0, 0, 0)));
+    cacheBlock.close();
+  }
+}
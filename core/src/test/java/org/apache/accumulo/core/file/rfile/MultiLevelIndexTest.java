@@ -18,12 +18,14 @@ package org.apache.accumulo.core.file.rfile;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.List;
 import java.util.Random;
 
 import junit.framework.TestCase;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.file.blockfile.ABlockWriter;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile.BlockRead;
@@ -34,6 +36,7 @@ import org.apache.accumulo.core.file.rfile.MultiLevelIndex.Reader.IndexIterator;
 import org.apache.accumulo.core.file.rfile.MultiLevelIndex.Writer;
 import org.apache.accumulo.core.file.rfile.RFileTest.SeekableByteArrayInputStream;
 import org.apache.accumulo.core.util.CachedConfiguration;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileSystem;
@@ -51,7 +54,7 @@ public class MultiLevelIndexTest extends TestCase {
     runTest(1, 100);
   }
   
-  private void runTest(int maxBlockSize, int num) throws IOException {
+  private Reader writeIndex(int maxBlockSize, int num) throws IOException {
     AccumuloConfiguration aconf = AccumuloConfiguration.getDefaultConfiguration();
     ByteArrayOutputStream baos = new ByteArrayOutputStream();
     FSDataOutputStream dos = new FSDataOutputStream(baos, new FileSystem.Statistics("a"));
@@ -81,6 +84,11 @@ public class MultiLevelIndexTest extends TestCase {
     BlockRead rootIn = _cbr.getMetaBlock("root");
     reader.readFields(rootIn);
     rootIn.close();
+    return reader;
+  }
+  
+  private void runTest(int maxBlockSize, int num) throws IOException {
+    Reader reader = writeIndex(maxBlockSize, num);
     IndexIterator liter = reader.lookup(new Key("000000"));
     int count = 0;
     while (liter.hasNext()) {
@@ -120,4 +128,41 @@ public class MultiLevelIndexTest extends TestCase {
     
   }
   
+  public void testSample() throws Exception {
+    Reader reader = writeIndex(500, 10000);
+    
+    // only the root is read
+    List<Pair<Key,Double>> root = reader.sample(new Range(), 1, 0);
+    assertTrue(root.size() < 10001);
+    assertEquals(1.0, totalFraction(root), .0001);
+    
+    // going down to the leaves finds every entry
+    List<Pair<Key,Double>> leaves = reader.sample(new Range(), Integer.MAX_VALUE, Integer.MAX_VALUE);
+    assertEquals(10001, leaves.size());
+    assertEquals(1.0, totalFraction(leaves), .0001);
+    
+    // the blocks read are bounded, so the leaves are not reached
+    List<Pair<Key,Double>> bounded = reader.sample(new Range(), Integer.MAX_VALUE, root.size());
+    assertTrue(bounded.size() > root.size() && bounded.size() < 10001);
+    assertEquals(1.0, totalFraction(bounded), .0001);
+    
+    // within a range, only the last entry may end past it
+    Range range = new Range(new Key("04000000"), true, new Key("05000000"), true);
+    List<Pair<Key,Double>> sample = reader.sample(range, 100, 200);
+    assertTrue(sample.size() >= 100);
+    for (int i = 0; i < sample.size() - 1; i++)
+      assertTrue(range.contains(sample.get(i).getFirst()));
+    assertFalse(range.beforeStartKey(sample.get(sample.size() - 1).getFirst()));
+    // the range holds a tenth of the entries, the estimate assumes every index block below an entry is full
+    double fraction = totalFraction(sample);
+    assertTrue(fraction > .05 && fraction < .2);
+  }
+  
+  private static double totalFraction(List<Pair<Key,Double>> samples) {
+    double total = 0;
+    for (Pair<Key,Double> sample : samples)
+      total += sample.getSecond();
+    return total;
+  }
+  
 }
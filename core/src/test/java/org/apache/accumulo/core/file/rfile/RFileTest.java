@@ -50,6 +50,7 @@ import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.blockfile.cache.LruBlockCache;
+import org.apache.accumulo.core.file.blockfile.impl.BlockPrefetcher;
 import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
 import org.apache.accumulo.core.file.rfile.RFile.Reader;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
@@ -190,7 +191,7 @@ public class RFileTest {
       baos = new ByteArrayOutputStream();
       dos = new FSDataOutputStream(baos, new FileSystem.Statistics("a"));
       CachableBlockFile.Writer _cbw = new CachableBlockFile.Writer(dos, "gz", conf, accumuloConfiguration);
-      writer = new RFile.Writer(_cbw, 1000, 1000);
+      writer = new RFile.Writer(_cbw, 1000, 1000, accumuloConfiguration.getBoolean(Property.TABLE_FILE_BLOCK_SUMMARIES));
 
       if (startDLG)
         writer.startDefaultLocalityGroup();
@@ -1846,4 +1847,128 @@ public class RFileTest {
 
     conf = null;
   }
+
+  @Test
+  public void testPrefetch() throws IOException {
+    // sequential scans spanning many blocks should return the same data with prefetching enabled
+    BlockPrefetcher.configure(2, 1 << 20);
+    try {
+      TestRFile trf = new TestRFile(conf);
+
+      trf.openWriter();
+      ArrayList<Key> expectedKeys = new ArrayList<Key>(10000);
+      for (int row = 0; row < 10000; row++) {
+        Key k = nk(nf("r_", row), "cf", "cq", "", 1);
+        trf.writer.append(k, nv("" + row));
+        expectedKeys.add(k);
+      }
+      trf.closeWriter();
+
+      trf.openReader();
+      trf.reader.setPrefetchBlocks(3);
+
+      trf.iter.seek(new Range((Key) null, null), EMPTY_COL_FAMS, false);
+      Iterator<Key> eki = expectedKeys.iterator();
+      int count = 0;
+      while (trf.iter.hasTop()) {
+        assertEquals(eki.next(), trf.iter.getTopKey());
+        assertEquals(nv("" + count), trf.iter.getTopValue());
+        trf.iter.next();
+        count++;
+      }
+      assertEquals(expectedKeys.size(), count);
+      // the data cache starts out empty, so the blocks after the first come from the prefetcher
+      assertTrue("no prefetched blocks were used", BlockPrefetcher.getBlocksUsed() > 0);
+
+      // a bounded scan starting mid file should stop prefetching at the end of its range
+      int start = 2500, end = 7500;
+      trf.iter.seek(new Range(expectedKeys.get(start), true, expectedKeys.get(end), false), EMPTY_COL_FAMS, false);
+      for (int i = start; i < end; i++) {
+        assertTrue(trf.iter.hasTop());
+        assertEquals(expectedKeys.get(i), trf.iter.getTopKey());
+        trf.iter.next();
+      }
+      assertFalse(trf.iter.hasTop());
+
+      trf.closeReader();
+    } finally {
+      BlockPrefetcher.configure(0, 0);
+    }
+  }
+
+  private TestRFile writeSummaryTestFile(AccumuloConfiguration acuconf) throws IOException {
+    TestRFile trf = new TestRFile(acuconf);
+
+    trf.openWriter();
+    for (int row = 0; row < 3000; row++) {
+      String cf = row < 1000 ? "a" : (row < 2000 ? "b" : "c");
+      trf.writer.append(nk(nf("r_", row), cf, "cq", "", row), nv("" + row));
+    }
+    trf.closeWriter();
+
+    trf.openReader();
+    return trf;
+  }
+
+  @Test
+  public void testBlockSummariesOffByDefault() throws IOException {
+    // without summaries the file is written as version 7 and nothing can be skipped
+    TestRFile trf = writeSummaryTestFile(conf);
+
+    trf.reader.setTimestampRange(2500, 2600);
+    trf.iter.seek(new Range((Key) null, null), EMPTY_COL_FAMS, false);
+    int count = 0;
+    while (trf.iter.hasTop()) {
+      trf.iter.next();
+      count++;
+    }
+    assertEquals(3000, count);
+
+    trf.closeReader();
+  }
+
+  @Test
+  public void testBlockSummaries() throws IOException {
+    // blocks whose summaries rule out the fetched families or timestamps should be skipped without changing what the scan sees
+    ConfigurationCopy acuconf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    acuconf.set(Property.TABLE_FILE_BLOCK_SUMMARIES, "true");
+    TestRFile trf = writeSummaryTestFile(acuconf);
+
+    trf.iter.seek(new Range((Key) null, null), ncfs("b"), true);
+    for (int row = 1000; row < 2000; row++) {
+      assertTrue(trf.iter.hasTop());
+      assertEquals(nk(nf("r_", row), "b", "cq", "", row), trf.iter.getTopKey());
+      trf.iter.next();
+    }
+    assertFalse(trf.iter.hasTop());
+
+    // seeking within the skipped blocks should land on the next wanted key
+    trf.iter.seek(new Range(new Key(nf("r_", 500)), null), ncfs("c"), true);
+    assertTrue(trf.iter.hasTop());
+    assertEquals(nk(nf("r_", 2000), "c", "cq", "", 2000), trf.iter.getTopKey());
+
+    trf.reader.setTimestampRange(2500, 2600);
+    trf.iter.seek(new Range((Key) null, null), EMPTY_COL_FAMS, false);
+    int count = 0;
+    Set<Long> timestamps = new HashSet<Long>();
+    while (trf.iter.hasTop()) {
+      timestamps.add(trf.iter.getTopKey().getTimestamp());
+      trf.iter.next();
+      count++;
+    }
+    for (long ts = 2500; ts <= 2600; ts++)
+      assertTrue(timestamps.contains(ts));
+    assertTrue(count < 3000);
+
+    trf.reader.setTimestampRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    trf.iter.seek(new Range((Key) null, null), EMPTY_COL_FAMS, false);
+    count = 0;
+    while (trf.iter.hasTop()) {
+      trf.iter.next();
+      count++;
+    }
+    assertEquals(3000, count);
+
+    trf.closeReader();
+  }
 }
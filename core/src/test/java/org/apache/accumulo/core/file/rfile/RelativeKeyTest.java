@@ -17,6 +17,7 @@
 package org.apache.accumulo.core.file.rfile;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -24,6 +25,7 @@ import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import org.apache.accumulo.core.data.ArrayByteSequence;
@@ -109,6 +111,28 @@ public class RelativeKeyTest {
     assertEquals(expected.getKey(), actual.getKey());
   }
   
+  @Test
+  public void testReadFromBuffer() throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray()).asReadOnlyBuffer();
+    RelativeKey rk = new RelativeKey();
+    rk.setPrevKey(new Key());
+    Key prev = null;
+    for (int i = 0; i < expectedKeys.size(); i++) {
+      assertEquals(expectedPositions.get(i).intValue(), buffer.position());
+      rk.readFields(buffer);
+      assertEquals(expectedKeys.get(i), rk.getKey());
+      assertEquals(expectedKeys.get(i).isDeleted(), rk.getKey().isDeleted());
+      assertEquals(expectedValues.get(i), new Value(RelativeKey.readValue(buffer)));
+      
+      if (prev != null && prev.getRowData().equals(rk.getKey().getRowData())) {
+        // fields that did not change are shared with the previous key instead of copied
+        assertSame(prev.getRowData().getBackingArray(), rk.getKey().getRowData().getBackingArray());
+      }
+      prev = rk.getKey();
+    }
+    assertEquals(0, buffer.remaining());
+  }
+  
   private static ArrayList<Key> expectedKeys;
   private static ArrayList<Value> expectedValues;
   private static ArrayList<Integer> expectedPositions;
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.rfile.bcfile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.security.crypto.CryptoTest;
+import org.apache.accumulo.core.util.CachedConfiguration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BCFileTest {
+
+  @Rule
+  public TemporaryFolder tempDir = new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private Path writeRFile(String name, AccumuloConfiguration acuconf) throws IOException {
+    Configuration conf = CachedConfiguration.getInstance();
+    FileSystem fs = FileSystem.getLocal(conf);
+    Path path = new Path(new File(tempDir.getRoot(), name).getAbsolutePath());
+
+    RFile.Writer writer = new RFile.Writer(new CachableBlockFile.Writer(fs, path, "gz", conf, acuconf), 1000);
+    writer.startDefaultLocalityGroup();
+    for (int i = 0; i < 1000; i++) {
+      writer.append(new Key(String.format("r%06d", i), "cf", "cq"), new Value(("v" + i).getBytes()));
+    }
+    writer.close();
+    return path;
+  }
+
+  private BCFile.Reader openReader(Path path, AccumuloConfiguration acuconf) throws IOException {
+    Configuration conf = CachedConfiguration.getInstance();
+    FileSystem fs = FileSystem.getLocal(conf);
+    FSDataInputStream in = fs.open(path);
+    return new BCFile.Reader(in, fs.getFileStatus(path).getLen(), conf, acuconf);
+  }
+
+  private static byte[] readThroughStream(BCFile.Reader reader, int blockIndex) throws IOException {
+    BCFile.Reader.BlockReader blockReader = reader.getDataBlock(blockIndex);
+    try {
+      byte[] block = new byte[(int) blockReader.getRawSize()];
+      blockReader.readFully(block);
+      return block;
+    } finally {
+      blockReader.close();
+    }
+  }
+
+  @Test
+  public void testUnencryptedBlocksReadWhole() throws IOException {
+    AccumuloConfiguration acuconf = AccumuloConfiguration.getDefaultConfiguration();
+    BCFile.Reader reader = openReader(writeRFile("plain.rf", acuconf), acuconf);
+    try {
+      // without encryption the file is written as version 1, which has no crypto parameters and no IV before each block
+      assertEquals(BCFile.API_VERSION_1, reader.getBCFileVersion());
+      int blocks = reader.getBlockCount();
+      assertTrue(blocks > 1);
+      for (int i = 0; i < blocks; i++) {
+        assertArrayEquals(readThroughStream(reader, i), reader.readDataBlock(i, Long.MAX_VALUE));
+      }
+      assertEquals(blocks, reader.getWholeBlockReads());
+
+      // a block larger than maxSize is not read at all
+      assertNull(reader.readDataBlock(0, 1));
+      assertEquals(blocks, reader.getWholeBlockReads());
+    } finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testEncryptedBlocksReadThroughStreams() throws IOException {
+    ConfigurationCopy acuconf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    Configuration cryptoConf = new Configuration(false);
+    cryptoConf.addResource(CryptoTest.CRYPTO_ON_CONF);
+    for (Entry<String,String> e : cryptoConf) {
+      acuconf.set(e.getKey(), e.getValue());
+    }
+
+    BCFile.Reader reader = openReader(writeRFile("encrypted.rf", acuconf), acuconf);
+    try {
+      // every block of a version 2 file starts with an IV, so only a BlockReader can read it
+      assertEquals(BCFile.API_VERSION, reader.getBCFileVersion());
+      int blocks = reader.getBlockCount();
+      for (int i = 0; i < blocks; i++) {
+        assertArrayEquals(readThroughStream(reader, i), reader.readDataBlock(i, Long.MAX_VALUE));
+      }
+      assertEquals(0, reader.getWholeBlockReads());
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void writeDictionary(FileSystem fs, Path path, byte[] bytes) throws IOException {
+    FSDataOutputStream out = fs.create(path, true);
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+  }
+
+  @Test
+  public void testDictionaryCached() throws IOException {
+    Configuration conf = CachedConfiguration.getInstance();
+    FileSystem fs = FileSystem.getLocal(conf);
+    Path path = new Path(new File(tempDir.getRoot(), "dictionary").getAbsolutePath());
+
+    writeDictionary(fs, path, "first dictionary".getBytes());
+    byte[] first = BCFile.Writer.loadDictionary(path, conf);
+    assertArrayEquals("first dictionary".getBytes(), first);
+    // an unmodified dictionary is not read again
+    assertSame(first, BCFile.Writer.loadDictionary(path, conf));
+
+    // a modified dictionary is, even if its length is unchanged
+    writeDictionary(fs, path, "other dictionary".getBytes());
+    fs.setTimes(path, fs.getFileStatus(path).getModificationTime() + 2000, -1);
+    byte[] second = BCFile.Writer.loadDictionary(path, conf);
+    assertNotSame(first, second);
+    assertArrayEquals("other dictionary".getBytes(), second);
+  }
+}
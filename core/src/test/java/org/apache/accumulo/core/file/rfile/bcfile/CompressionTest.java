@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.file.rfile.bcfile;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.accumulo.core.file.rfile.bcfile.Compression.Algorithm;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.junit.Test;
+
+public class CompressionTest {
+
+  @Test
+  public void testBuiltInAlgorithms() {
+    assertSame(Algorithm.GZ, Compression.getCompressionAlgorithmByName("gz"));
+    assertSame(Algorithm.NONE, Compression.getCompressionAlgorithmByName("none"));
+    assertSame(Algorithm.LZ4, Compression.getCompressionAlgorithmByName("lz4"));
+    assertSame(Algorithm.ZSTANDARD, Compression.getCompressionAlgorithmByName("zstd"));
+
+    List<String> supported = Arrays.asList(Compression.getSupportedAlgorithms());
+    assertTrue(supported.contains("gz"));
+    assertTrue(supported.contains("none"));
+    assertFalse(Algorithm.GZ.supportsDictionary());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownAlgorithm() {
+    Compression.getCompressionAlgorithmByName("unknown");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRegisterTwice() {
+    Compression.register(new Compression.CodecAlgorithm("gz", "io.compression.codec.gz.class", "org.apache.hadoop.io.compress.DefaultCodec", "unused"));
+  }
+
+  @Test
+  public void testRegisteredCodec() throws IOException {
+    Algorithm deflate = new Compression.CodecAlgorithm("test-deflate", "io.compression.codec.test-deflate.class",
+        "org.apache.hadoop.io.compress.DefaultCodec", "io.compression.codec.test-deflate.buffersize");
+    Compression.register(deflate);
+    assertSame(deflate, Compression.getCompressionAlgorithmByName("test-deflate"));
+    assertTrue(Arrays.asList(Compression.getSupportedAlgorithms()).contains("test-deflate"));
+
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++)
+      data[i] = (byte) (i % 17);
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    Compressor compressor = deflate.getCompressor();
+    OutputStream out = deflate.createCompressionStream(compressed, compressor, 0);
+    out.write(data);
+    out.flush();
+    deflate.returnCompressor(compressor);
+    assertTrue(compressed.size() < data.length);
+
+    Decompressor decompressor = deflate.getDecompressor();
+    DataInputStream in = new DataInputStream(deflate.createDecompressionStream(new ByteArrayInputStream(compressed.toByteArray()), decompressor, 0));
+    byte[] read = new byte[data.length];
+    in.readFully(read);
+    assertEquals(-1, in.read());
+    deflate.returnDecompressor(decompressor);
+    assertArrayEquals(data, read);
+
+    // the framing of codecs added by name is not known, so their blocks are always read through streams
+    assertFalse(deflate.canDecompressBlocks());
+  }
+
+  private static byte[] compress(Algorithm algorithm, byte[] data) throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    Compressor compressor = algorithm.getCompressor();
+    OutputStream out = algorithm.createCompressionStream(compressed, compressor, 0);
+    out.write(data);
+    out.flush();
+    algorithm.returnCompressor(compressor);
+    return compressed.toByteArray();
+  }
+
+  @Test
+  public void testDecompressBlocks() throws IOException {
+    byte[] data = new byte[100000];
+    for (int i = 0; i < data.length; i++)
+      data[i] = (byte) (i % 31);
+
+    for (Algorithm algorithm : new Algorithm[] {Algorithm.GZ, Algorithm.NONE}) {
+      assertTrue(algorithm.canDecompressBlocks());
+      byte[] compressed = compress(algorithm, data);
+      // the compressed block may sit anywhere in the read buffer
+      byte[] buffer = new byte[compressed.length + 10];
+      System.arraycopy(compressed, 0, buffer, 5, compressed.length);
+
+      byte[] read = new byte[data.length];
+      Decompressor decompressor = algorithm.getDecompressor();
+      algorithm.decompress(buffer, 5, compressed.length, read, decompressor);
+      algorithm.returnDecompressor(decompressor);
+      assertArrayEquals(data, read);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testDecompressTruncatedBlock() throws IOException {
+    byte[] data = new byte[10000];
+    for (int i = 0; i < data.length; i++)
+      data[i] = (byte) (i % 31);
+    byte[] compressed = compress(Algorithm.GZ, data);
+
+    Decompressor decompressor = Algorithm.GZ.getDecompressor();
+    try {
+      Algorithm.GZ.decompress(compressed, 0, compressed.length / 2, new byte[data.length], decompressor);
+    } finally {
+      Algorithm.GZ.returnDecompressor(decompressor);
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testDictionaryNotSupported() throws IOException {
+    Algorithm.GZ.createCompressionStream(new ByteArrayOutputStream(), 0, new byte[] {1, 2, 3});
+  }
+}
@@ -20,6 +20,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,12 +41,15 @@ import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
 import org.apache.accumulo.core.file.rfile.RFile;
 import org.apache.accumulo.core.file.rfile.RFileOperations;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.system.MultiIterator;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
 import org.apache.accumulo.core.util.CachedConfiguration;
 import org.apache.accumulo.core.util.LocalityGroupUtil;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.core.volume.Volume;
 import org.apache.accumulo.server.ServerConstants;
 import org.apache.accumulo.server.fs.FileRef;
@@ -78,6 +83,9 @@ public class FileUtil {
   
   private static final Logger log = Logger.getLogger(FileUtil.class);
   
+  // index blocks below the root that findApproximateMidPoint reads from each file
+  static final int APPROXIMATE_MIDPOINT_INDEX_BLOCKS = 16;
+  
   private static Path createTmpDir(AccumuloConfiguration acuConf, VolumeManager fs) throws IOException {
     String accumuloDir = fs.choose(ServerConstants.getTemporaryDirs());
     
@@ -363,6 +371,148 @@ public class FileUtil {
     }
   }
 
+  /**
+   * Estimates the mid point of a tablet without merging the indexes of its files. For each file only the root of the index and at most
+   * {@value #APPROXIMATE_MIDPOINT_INDEX_BLOCKS} index blocks below it are read, going down a level while fewer than
+   * {@link Property#TSERV_TABLET_SPLIT_APPROXIMATE_SAMPLES} entries overlap the tablet. Each kept key is weighted by the share of the file's size it stands
+   * for. The work per file is bounded, where {@link #findMidPoint(VolumeManager, AccumuloConfiguration, Text, Text, Collection, double)} reads every index
+   * entry of every file, but it still grows with the number of files. Index blocks are not read through the index cache.
+   * 
+   * @return a map in the same form as the exact method returns, or null if a file is not an RFile or the indexes do not hold enough entries within the
+   *         tablet to make an estimate
+   */
+  public static SortedMap<Double,Key> findApproximateMidPoint(VolumeManager fs, AccumuloConfiguration acuConf, Text prevEndRow, Text endRow,
+      Map<FileRef,DataFileValue> files, double minSplit) throws IOException {
+    int maxSamples = acuConf.getCount(Property.TSERV_TABLET_SPLIT_APPROXIMATE_SAMPLES);
+    if (maxSamples <= 0)
+      return null;
+
+    long t1 = System.currentTimeMillis();
+
+    Range tabletRange = new Range(prevEndRow, false, endRow, true);
+    List<Pair<Key,Double>> samples = new ArrayList<Pair<Key,Double>>();
+
+    for (Entry<FileRef,DataFileValue> entry : files.entrySet()) {
+      Path path = entry.getKey().path();
+      if (!path.getName().endsWith("." + RFile.EXTENSION))
+        return null;
+
+      FileSystem ns = fs.getVolumeByPath(path).getFileSystem();
+      RFile.Reader reader = new RFile.Reader(new CachableBlockFile.Reader(ns, path, ns.getConf(), null, null, acuConf));
+
+      List<Pair<Key,Double>> fileSamples = new ArrayList<Pair<Key,Double>>();
+      try {
+        for (Pair<Key,Double> sample : reader.sampleIndex(tabletRange, maxSamples, APPROXIMATE_MIDPOINT_INDEX_BLOCKS)) {
+          // the last overlapping entry may end past the tablet, its key is not a split candidate
+          if (tabletRange.contains(sample.getFirst()))
+            fileSamples.add(new Pair<Key,Double>(sample.getFirst(), sample.getSecond() * entry.getValue().getSize()));
+        }
+      } finally {
+        try {
+          reader.close();
+        } catch (IOException e) {
+          log.error(e, e);
+        }
+      }
+
+      samples.addAll(thin(fileSamples, maxSamples));
+    }
+
+    SortedMap<Double,Key> ret = chooseMidPoint(samples, minSplit);
+
+    long t2 = System.currentTimeMillis();
+
+    log.debug(String.format("Estimated midPoint from %d index samples in %6.2f secs.", samples.size(), ((t2 - t1) / 1000.0)));
+
+    return ret;
+  }
+
+  /**
+   * Reduces weighted keys to at most maxSamples by merging runs of adjacent keys into the last key of each run, which carries the run's total weight.
+   */
+  static List<Pair<Key,Double>> thin(List<Pair<Key,Double>> samples, int maxSamples) {
+    if (samples.size() <= maxSamples)
+      return samples;
+
+    sortByKey(samples);
+    int run = (samples.size() + maxSamples - 1) / maxSamples;
+    List<Pair<Key,Double>> thinned = new ArrayList<Pair<Key,Double>>();
+    for (int i = 0; i < samples.size(); i += run) {
+      int last = Math.min(i + run, samples.size()) - 1;
+      double weight = 0;
+      for (int j = i; j <= last; j++)
+        weight += samples.get(j).getSecond();
+      thinned.add(new Pair<Key,Double>(samples.get(last).getFirst(), weight));
+    }
+    return thinned;
+  }
+
+  private static void sortByKey(List<Pair<Key,Double>> samples) {
+    Collections.sort(samples, new Comparator<Pair<Key,Double>>() {
+      @Override
+      public int compare(Pair<Key,Double> o1, Pair<Key,Double> o2) {
+        return o1.getFirst().compareTo(o2.getFirst());
+      }
+    });
+  }
+
+  /**
+   * Finds the key at the middle of a set of weighted keys, along with the last key before it that ends a row and is at least minSplit into the weight.
+   * 
+   * @return null if there are too few keys to choose from
+   */
+  static SortedMap<Double,Key> chooseMidPoint(List<Pair<Key,Double>> samples, double minSplit) {
+    if (samples.size() < 2)
+      return null;
+
+    sortByKey(samples);
+
+    double totalWeight = 0;
+    for (Pair<Key,Double> sample : samples)
+      totalWeight += sample.getSecond();
+
+    if (!(totalWeight > 0))
+      return null;
+
+    TreeMap<Double,Key> ret = new TreeMap<Double,Key>();
+    Key lastKey = null;
+    double lastPosition = 0;
+    double weightRead = 0;
+
+    Key keyBeforeMidPoint = null;
+    double keyBeforeMidPointPosition = 0;
+
+    Key midPoint = null;
+
+    // an index entry is the last key of its block, so the mid point is the entry whose weight spans the middle
+    for (Pair<Key,Double> sample : samples) {
+      Key key = sample.getFirst();
+      if (lastKey != null && !lastKey.equals(key, PartialKey.ROW) && lastPosition >= minSplit) {
+        keyBeforeMidPoint = lastKey;
+        keyBeforeMidPointPosition = lastPosition;
+      }
+
+      if (weightRead + sample.getSecond() >= totalWeight / 2) {
+        midPoint = key;
+        break;
+      }
+
+      weightRead += sample.getSecond();
+      lastKey = key;
+      lastPosition = weightRead / totalWeight;
+    }
+
+    if (midPoint == null)
+      return null;
+
+    if (keyBeforeMidPoint != null)
+      ret.put(keyBeforeMidPointPosition, keyBeforeMidPoint);
+
+    ret.put(.5, midPoint);
+
+    return ret;
+  }
+
   protected static void cleanupIndexOp(AccumuloConfiguration acuConf, Path tmpDir, VolumeManager fs, ArrayList<FileSKVIterator> readers) throws IOException {
     // close all of the index sequence files
     for (FileSKVIterator r : readers) {
@@ -78,7 +78,7 @@ public class DefaultLoadBalancerTest {
       List<TabletStats> result = new ArrayList<TabletStats>();
       for (KeyExtent extent : servers.get(tserver).extents) {
         if (extent.getTableId().toString().equals(table)) {
-          result.add(new TabletStats(extent.toThrift(), null, null, null, 0l, 0., 0., 0));
+          result.add(new TabletStats(extent.toThrift(), null, null, null, 0l, 0., 0., 0, 0., 0.));
         }
       }
       return result;
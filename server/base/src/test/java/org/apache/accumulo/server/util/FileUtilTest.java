@@ -22,12 +22,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.SortedMap;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.DefaultConfiguration;
 import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.server.fs.FileRef;
 import org.apache.accumulo.server.fs.VolumeManager;
 import org.apache.accumulo.server.fs.VolumeManagerImpl;
@@ -66,6 +70,68 @@ public class FileUtilTest {
     Assert.assertEquals("/bar", iter.next());
   }
 
+  @Test
+  public void testChooseMidPoint() {
+    List<Pair<Key,Double>> samples = new ArrayList<Pair<Key,Double>>();
+    // a large file with rows 00-09 and a small file covering the same rows
+    for (int i = 9; i >= 0; i--) {
+      samples.add(new Pair<Key,Double>(new Key(String.format("%02d", i), "cf1"), 100.0));
+      samples.add(new Pair<Key,Double>(new Key(String.format("%02d", i), "cf2"), 1.0));
+    }
+
+    SortedMap<Double,Key> ret = FileUtil.chooseMidPoint(samples, .25);
+    Assert.assertEquals(2, ret.size());
+    Assert.assertEquals(new Key("04", "cf2"), ret.get(.5));
+    Assert.assertEquals(new Key("03", "cf2"), ret.get(ret.firstKey()));
+    Assert.assertEquals(404 / 1010.0, ret.firstKey(), 0.0001);
+
+    // weight pushes the mid point towards the heavier rows
+    samples.clear();
+    samples.add(new Pair<Key,Double>(new Key("a"), 1.0));
+    samples.add(new Pair<Key,Double>(new Key("b"), 1.0));
+    samples.add(new Pair<Key,Double>(new Key("c"), 1.0));
+    samples.add(new Pair<Key,Double>(new Key("d"), 10.0));
+    samples.add(new Pair<Key,Double>(new Key("e"), 1.0));
+    ret = FileUtil.chooseMidPoint(samples, .1);
+    Assert.assertEquals(new Key("d"), ret.get(.5));
+    Assert.assertEquals(new Key("c"), ret.get(ret.firstKey()));
+
+    // nothing before the mid point is far enough in
+    ret = FileUtil.chooseMidPoint(samples, .3);
+    Assert.assertEquals(1, ret.size());
+    Assert.assertEquals(new Key("d"), ret.get(.5));
+  }
+
+  @Test
+  public void testThin() {
+    List<Pair<Key,Double>> samples = new ArrayList<Pair<Key,Double>>();
+    for (int i = 9; i >= 0; i--)
+      samples.add(new Pair<Key,Double>(new Key(String.format("%02d", i)), (double) i));
+
+    Assert.assertSame(samples, FileUtil.thin(samples, 10));
+
+    // runs of three keys are merged into their last key, which carries their weight
+    List<Pair<Key,Double>> thinned = FileUtil.thin(samples, 4);
+    Assert.assertEquals(4, thinned.size());
+    Assert.assertEquals(new Key("02"), thinned.get(0).getFirst());
+    Assert.assertEquals(3.0, thinned.get(0).getSecond(), 0.0);
+    Assert.assertEquals(new Key("05"), thinned.get(1).getFirst());
+    Assert.assertEquals(12.0, thinned.get(1).getSecond(), 0.0);
+    Assert.assertEquals(new Key("09"), thinned.get(3).getFirst());
+    Assert.assertEquals(9.0, thinned.get(3).getSecond(), 0.0);
+  }
+
+  @Test
+  public void testChooseMidPointTooFewSamples() {
+    List<Pair<Key,Double>> samples = new ArrayList<Pair<Key,Double>>();
+    Assert.assertNull(FileUtil.chooseMidPoint(samples, .25));
+    samples.add(new Pair<Key,Double>(new Key("a"), 1.0));
+    Assert.assertNull(FileUtil.chooseMidPoint(samples, .25));
+    samples.add(new Pair<Key,Double>(new Key("b"), 0.0));
+    samples.set(0, new Pair<Key,Double>(new Key("a"), 0.0));
+    Assert.assertNull(FileUtil.chooseMidPoint(samples, .25));
+  }
+
   @SuppressWarnings("deprecation")
   @Test
   public void testCleanupIndexOpWithDfsDir() throws IOException {
@@ -118,10 +118,10 @@ public class TServersServlet extends BasicServlet {
     double currentMajorAvg = 0;
     double currentMinorStdDev = 0;
     double currentMajorStdDev = 0;
-    TabletStats total = new TabletStats(null, new ActionStats(), new ActionStats(), new ActionStats(), 0, 0, 0, 0);
+    TabletStats total = new TabletStats(null, new ActionStats(), new ActionStats(), new ActionStats(), 0, 0, 0, 0, 0, 0);
     
     HostAndPort address = HostAndPort.fromString(tserverAddress);
-    TabletStats historical = new TabletStats(null, new ActionStats(), new ActionStats(), new ActionStats(), 0, 0, 0, 0);
+    TabletStats historical = new TabletStats(null, new ActionStats(), new ActionStats(), new ActionStats(), 0, 0, 0, 0, 0, 0);
     List<TabletStats> tsStats = new ArrayList<TabletStats>();
     try {
       TabletClientService.Client client = ThriftUtil.getClient(new TabletClientService.Client.Factory(), address, Monitor.getSystemConfiguration());
@@ -152,6 +152,7 @@ public class TServersServlet extends BasicServlet {
     perTabletResults.addSortableColumn("Major&nbsp;Avg", new SecondType(), null);
     perTabletResults.addSortableColumn("Major&nbsp;Std&nbsp;Dev", new SecondType(), null);
     perTabletResults.addSortableColumn("Major&nbsp;Avg&nbsp;e/s", new NumberType<Double>(), null);
+    perTabletResults.addSortableColumn("Major&nbsp;Queue&nbsp;Score", new NumberType<Double>(), "The priority of the tablet's queued major compaction.");
     
     for (TabletStats info : tsStats) {
       if (info.extent == null) {
@@ -183,6 +184,7 @@ public class TServersServlet extends BasicServlet {
       row.add(info.majors.num != 0 ? info.majors.elapsed / info.majors.num : null);
       row.add(stddev(info.majors.elapsed, info.majors.num, info.majors.sumDev));
       row.add(info.majors.elapsed != 0 ? info.majors.count / info.majors.elapsed : null);
+      row.add(info.majorCompactionScore > 0 ? info.majorCompactionScore : null);
       perTabletResults.addRow(row);
     }
     
@@ -17,27 +17,109 @@
 package org.apache.accumulo.tserver;
 
 import java.util.AbstractQueue;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
-@SuppressWarnings({"rawtypes", "unchecked"})
+/**
+ * Orders queued major compactions by priority. Scores change while tasks wait, as files are added and scan rates and queue times change, so tasks are
+ * scored again every time one is taken from the queue. This lets a busy tablet with many files move ahead of tablets from any table that were queued
+ * earlier.
+ */
 public class CompactionQueue extends AbstractQueue<Runnable> implements BlockingQueue<Runnable> {
   
-  private List<Comparable> task = new LinkedList<Comparable>();
+  /**
+   * A queued task. Tasks in a lower priority class always run first. Within a class, the task with the highest score runs first, then the one queued
+   * earliest.
+   */
+  public static interface Prioritized {
+    int getPriorityClass();
+    
+    long getQueuedTime();
+    
+    double getScore(long now);
+  }
+  
+  /**
+   * A task and its score at one point in time.
+   */
+  private static class ScoredTask {
+    private final Runnable task;
+    private final int priorityClass;
+    private final long queued;
+    private final double score;
+    
+    private ScoredTask(Runnable task, long now) {
+      this.task = task;
+      if (task instanceof Prioritized) {
+        Prioritized p = (Prioritized) task;
+        priorityClass = p.getPriorityClass();
+        queued = p.getQueuedTime();
+        score = p.getScore(now);
+      } else {
+        priorityClass = Integer.MAX_VALUE;
+        queued = now;
+        score = 0;
+      }
+    }
+  }
+  
+  private static final Comparator<ScoredTask> PRIORITY_ORDER = new Comparator<ScoredTask>() {
+    @Override
+    public int compare(ScoredTask o1, ScoredTask o2) {
+      if (o1.priorityClass != o2.priorityClass)
+        return o1.priorityClass < o2.priorityClass ? -1 : 1;
+      int cmp = Double.compare(o2.score, o1.score);
+      if (cmp != 0)
+        return cmp;
+      return o1.queued < o2.queued ? -1 : (o1.queued == o2.queued ? 0 : 1);
+    }
+  };
+  
+  private List<Runnable> task = new ArrayList<Runnable>();
+  
+  private List<ScoredTask> score() {
+    long now = System.currentTimeMillis();
+    List<ScoredTask> scored = new ArrayList<ScoredTask>(task.size());
+    for (Runnable r : task)
+      scored.add(new ScoredTask(r, now));
+    return scored;
+  }
+  
+  private int best() {
+    long now = System.currentTimeMillis();
+    int best = -1;
+    ScoredTask bestScore = null;
+    for (int i = 0; i < task.size(); i++) {
+      ScoredTask st = new ScoredTask(task.get(i), now);
+      if (bestScore == null || PRIORITY_ORDER.compare(st, bestScore) < 0) {
+        best = i;
+        bestScore = st;
+      }
+    }
+    return best;
+  }
+  
+  /**
+   * @return the queued tasks with their current scores, in the order they would run
+   */
+  private List<ScoredTask> sortedTasks() {
+    List<ScoredTask> scored = score();
+    Collections.sort(scored, PRIORITY_ORDER);
+    return scored;
+  }
   
   @Override
   public synchronized Runnable poll() {
     if (task.size() == 0)
       return null;
     
-    Comparable min = Collections.min(task);
-    task.remove(min);
-    return (Runnable) min;
+    return task.remove(best());
   }
   
   @Override
@@ -45,26 +127,25 @@ public class CompactionQueue extends AbstractQueue<Runnable> implements Blocking
     if (task.size() == 0)
       return null;
     
-    Comparable min = Collections.min(task);
-    return (Runnable) min;
+    return task.get(best());
   }
   
   @Override
   public synchronized boolean offer(Runnable e) {
-    task.add((Comparable) e);
+    task.add(e);
     notify();
     return true;
   }
   
   @Override
   public synchronized void put(Runnable e) throws InterruptedException {
-    task.add((Comparable) e);
+    task.add(e);
     notify();
   }
   
   @Override
   public synchronized boolean offer(Runnable e, long timeout, TimeUnit unit) throws InterruptedException {
-    task.add((Comparable) e);
+    task.add(e);
     notify();
     return true;
   }
@@ -102,27 +183,38 @@ public class CompactionQueue extends AbstractQueue<Runnable> implements Blocking
   
   @Override
   public synchronized int drainTo(Collection<? super Runnable> c, int maxElements) {
-    Collections.sort(task);
+    List<ScoredTask> scored = sortedTasks();
     
-    int num = Math.min(task.size(), maxElements);
+    int num = Math.min(scored.size(), maxElements);
     
-    Iterator<Comparable> iter = task.iterator();
     for (int i = 0; i < num; i++) {
-      c.add((Runnable) iter.next());
-      iter.remove();
+      Runnable r = scored.get(i).task;
+      c.add(r);
+      removeTask(r);
     }
     
     return num;
   }
   
+  private void removeTask(Runnable r) {
+    for (Iterator<Runnable> iter = task.iterator(); iter.hasNext();) {
+      if (iter.next() == r) {
+        iter.remove();
+        return;
+      }
+    }
+  }
+  
   @Override
   public synchronized Iterator<Runnable> iterator() {
-    Collections.sort(task);
+    List<ScoredTask> scored = sortedTasks();
     
-    final Iterator<Comparable> iter = task.iterator();
+    final Iterator<ScoredTask> iter = scored.iterator();
     
     return new Iterator<Runnable>() {
       
+      Runnable last = null;
+      
       @Override
       public boolean hasNext() {
         return iter.hasNext();
@@ -130,12 +222,18 @@ public class CompactionQueue extends AbstractQueue<Runnable> implements Blocking
       
       @Override
       public Runnable next() {
-        return (Runnable) iter.next();
+        last = iter.next().task;
+        return last;
       }
       
       @Override
       public void remove() {
-        iter.remove();
+        if (last == null)
+          throw new IllegalStateException();
+        synchronized (CompactionQueue.this) {
+          removeTask(last);
+        }
+        last = null;
       }
     };
   }
@@ -26,7 +26,6 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.Semaphore;
 
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Key;
@@ -100,7 +99,16 @@ public class FileManager {
   private Map<String,List<OpenReader>> openFiles;
   private HashMap<FileSKVIterator,String> reservedReaders;
   
-  private Semaphore filePermits;
+  // readers that scans have been allowed to reserve, guarded by this. This may go over maxOpen, see acquirePermits()
+  private int permitsInUse = 0;
+  // requests for permits are granted in order
+  private long nextTicket = 0;
+  private long servingTicket = 0;
+  
+  // counts of readers opened, reused from the idle pool, and closed to make room for others, guarded by this
+  private long opens = 0;
+  private long reuses = 0;
+  private long evictions = 0;
   
   private VolumeManager fs;
   
@@ -169,7 +177,6 @@ public class FileManager {
     this.dataCache = dataCache;
     this.indexCache = indexCache;
     
-    this.filePermits = new Semaphore(maxOpen, true);
     this.maxOpen = maxOpen;
     this.fs = fs;
     
@@ -203,6 +210,10 @@ public class FileManager {
     
     ArrayList<FileSKVIterator> ret = new ArrayList<FileSKVIterator>();
     
+    // when scans have reserved more than maxOpen readers, there may be fewer idle readers than requested
+    numToTake = Math.min(numToTake, openReaders.size());
+    evictions += numToTake;
+    
     for (int i = 0; i < numToTake; i++) {
       OpenReader or = openReaders.get(i);
       
@@ -265,12 +276,53 @@ public class FileManager {
     return reservedReaders.get(reader);
   }
   
-  private List<FileSKVIterator> reserveReaders(Text table, Collection<String> files, boolean continueOnFailure) throws IOException {
-    
-    if (files.size() >= maxOpen) {
-      throw new IllegalArgumentException("requested files exceeds max open");
+  /**
+   * Waits, in the order requests arrive, until reserving more readers would not take the number reserved over maxOpen. A request is never refused: one that
+   * is larger than maxOpen goes ahead once no other readers are reserved, and a scan that already holds readers goes ahead immediately, since it could
+   * otherwise wait forever on its own readers. Idle readers are closed to bring the total back down as readers are released.
+   */
+  private synchronized void acquirePermits(int count, boolean holdingReaders) {
+    if (!holdingReaders) {
+      long ticket = nextTicket++;
+      boolean interrupted = false;
+      while (ticket != servingTicket || (permitsInUse > 0 && permitsInUse + count > maxOpen)) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      servingTicket++;
+      notifyAll();
+      if (interrupted)
+        Thread.currentThread().interrupt();
     }
     
+    permitsInUse += count;
+    if (permitsInUse > maxOpen)
+      log.debug("Reserved file readers " + permitsInUse + " exceed " + Property.TSERV_SCAN_MAX_OPENFILES.getKey() + " " + maxOpen);
+  }
+  
+  private synchronized void releasePermits(int count) {
+    permitsInUse -= count;
+    notifyAll();
+  }
+  
+  /**
+   * Opens a new reader for a file. Tests override this to run without a file system.
+   */
+  FileSKVIterator openReader(String file, Text table) throws IOException {
+    if (!file.contains(":"))
+      throw new IllegalArgumentException("Expected uri, got : " + file);
+    Path path = new Path(file);
+    FileSystem ns = fs.getVolumeByPath(path).getFileSystem();
+    //log.debug("Opening "+file + " path " + path);
+    return FileOperations.getInstance().openReader(path.toString(), false, ns, ns.getConf(), conf.getTableConfiguration(table.toString()), dataCache,
+        indexCache);
+  }
+  
+  List<FileSKVIterator> reserveReaders(Text table, Collection<String> files, boolean continueOnFailure, boolean holdingReaders) throws IOException {
+    
     if (files.size() == 0) {
       return Collections.emptyList();
     }
@@ -280,9 +332,9 @@ public class FileManager {
     List<FileSKVIterator> reservedFiles = new ArrayList<FileSKVIterator>();
     Map<FileSKVIterator,String> readersReserved = new HashMap<FileSKVIterator,String>();
     
-    filePermits.acquireUninterruptibly(files.size());
+    acquirePermits(files.size(), holdingReaders);
     
-    // now that the we are past the semaphore, we have the authority
+    // now that the we have permits, we have the authority
     // to open files.size() files
     
     // determine what work needs to be done in sync block
@@ -291,6 +343,7 @@ public class FileManager {
     synchronized (this) {
       
       filesToOpen = takeOpenFiles(files, reservedFiles, readersReserved);
+      reuses += reservedFiles.size();
       
       int numOpen = countReaders(openFiles);
       
@@ -306,13 +359,7 @@ public class FileManager {
     // open any files that need to be opened
     for (String file : filesToOpen) {
       try {
-        if (!file.contains(":"))
-          throw new IllegalArgumentException("Expected uri, got : " + file);
-        Path path = new Path(file);
-        FileSystem ns = fs.getVolumeByPath(path).getFileSystem();
-        //log.debug("Opening "+file + " path " + path);
-        FileSKVIterator reader = FileOperations.getInstance().openReader(path.toString(), false, ns, ns.getConf(), conf.getTableConfiguration(table.toString()),
-            dataCache, indexCache);
+        FileSKVIterator reader = openReader(file, table);
         reservedFiles.add(reader);
         readersReserved.put(reader, file);
       } catch (Exception e) {
@@ -321,13 +368,13 @@ public class FileManager {
         
         if (continueOnFailure) {
           // release the permit for the file that failed to open
-          filePermits.release(1);
+          releasePermits(1);
           log.warn("Failed to open file " + file + " " + e.getMessage() + " continuing...");
         } else {
           // close whatever files were opened
           closeReaders(reservedFiles);
           
-          filePermits.release(files.size());
+          releasePermits(files.size());
           
           log.error("Failed to open file " + file + " " + e.getMessage());
           throw new IOException("Failed to open " + file, e);
@@ -338,14 +385,17 @@ public class FileManager {
     synchronized (this) {
       // update set of reserved readers
       reservedReaders.putAll(readersReserved);
+      opens += readersReserved.size() - (files.size() - filesToOpen.size());
     }
     
     return reservedFiles;
   }
   
-  private void releaseReaders(List<FileSKVIterator> readers, boolean sawIOException) {
+  void releaseReaders(List<FileSKVIterator> readers, boolean sawIOException) {
     // put files in openFiles
     
+    List<FileSKVIterator> filesToClose = Collections.emptyList();
+    
     synchronized (this) {
       
       // check that readers were actually reserved ... want to make sure a thread does
@@ -368,16 +418,49 @@ public class FileManager {
         if (!sawIOException)
           getFileList(fileName, openFiles).add(new OpenReader(fileName, reader));
       }
+      
+      // if scans went over the limit, close the least recently used idle readers to get back under it
+      int excess = countReaders(openFiles) + permitsInUse - readers.size() - maxOpen;
+      if (excess > 0)
+        filesToClose = takeLRUOpenFiles(excess);
     }
     
     if (sawIOException)
       closeReaders(readers);
+    closeReaders(filesToClose);
     
-    // decrement the semaphore
-    filePermits.release(readers.size());
+    releasePermits(readers.size());
     
   }
   
+  /**
+   * @return the number of readers open, both idle and reserved by scans
+   */
+  public synchronized int getOpenReaders() {
+    return countReaders(openFiles) + reservedReaders.size();
+  }
+  
+  /**
+   * @return the number of readers opened since the tablet server started
+   */
+  public synchronized long getReaderOpens() {
+    return opens;
+  }
+  
+  /**
+   * @return the number of times a scan was given an idle reader instead of opening one
+   */
+  public synchronized long getReaderReuses() {
+    return reuses;
+  }
+  
+  /**
+   * @return the number of idle readers closed to make room for other readers
+   */
+  public synchronized long getReaderEvictions() {
+    return evictions;
+  }
+  
   static class FileDataSource implements DataSource {
     
     private SortedKeyValueIterator<Key,Value> iter;
@@ -459,23 +542,17 @@ public class FileManager {
       }
     }
     
-    private List<FileSKVIterator> openFileRefs(Collection<FileRef> files) throws TooManyFilesException, IOException {
+    private List<FileSKVIterator> openFileRefs(Collection<FileRef> files) throws IOException {
       List<String> strings = new ArrayList<String>(files.size());
       for (FileRef ref : files)
         strings.add(ref.path().toString());
       return openFiles(strings);
     }
     
-    private List<FileSKVIterator> openFiles(Collection<String> files) throws TooManyFilesException, IOException {
-      // one tablet can not open more than maxOpen files, otherwise it could get stuck
+    private List<FileSKVIterator> openFiles(Collection<String> files) throws IOException {
+      // a tablet that already holds readers does not wait for more, otherwise it could get stuck
       // forever waiting on itself to release files
-      
-      if (tabletReservedReaders.size() + files.size() >= maxOpen) {
-        throw new TooManyFilesException("Request to open files would exceed max open files reservedReaders.size()=" + tabletReservedReaders.size()
-            + " files.size()=" + files.size() + " maxOpen=" + maxOpen + " tablet = " + tablet);
-      }
-      
-      List<FileSKVIterator> newlyReservedReaders = reserveReaders(tablet.getTableId(), files, continueOnFailure);
+      List<FileSKVIterator> newlyReservedReaders = reserveReaders(tablet.getTableId(), files, continueOnFailure, tabletReservedReaders.size() > 0);
       
       tabletReservedReaders.addAll(newlyReservedReaders);
       return newlyReservedReaders;
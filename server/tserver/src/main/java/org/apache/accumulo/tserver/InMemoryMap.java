@@ -194,25 +194,44 @@ public class InMemoryMap {
 
   private Map<String,Set<ByteSequence>> lggroups;
   
+  private final boolean concurrentWrites;
+  
   public InMemoryMap(boolean useNativeMap, String memDumpDir) {
     this(new HashMap<String,Set<ByteSequence>>(), useNativeMap, memDumpDir);
   }
 
   public InMemoryMap(Map<String,Set<ByteSequence>> lggroups, boolean useNativeMap, String memDumpDir) {
+    this(lggroups, useNativeMap, false, false, memDumpDir);
+  }
+  
+  public InMemoryMap(Map<String,Set<ByteSequence>> lggroups, boolean useNativeMap, boolean concurrentWrites, String memDumpDir) {
+    this(lggroups, useNativeMap, false, concurrentWrites, memDumpDir);
+  }
+  
+  /**
+   * @param useOffHeapMap
+   *          if true, data is stored in an {@link OffHeapMap} when the native map is not used
+   * @param concurrentWrites
+   *          if true, calls to {@link #mutate(List)} from different threads apply their mutations to the map in parallel, and only wait for each other when making
+   *          their changes visible to readers
+   */
+  public InMemoryMap(Map<String,Set<ByteSequence>> lggroups, boolean useNativeMap, boolean useOffHeapMap, boolean concurrentWrites, String memDumpDir) {
     this.memDumpDir = memDumpDir;
     this.lggroups = lggroups;
+    this.concurrentWrites = concurrentWrites;
     
     if (lggroups.size() == 0)
-      map = newMap(useNativeMap);
+      map = newMap(useNativeMap, useOffHeapMap);
     else
-      map = new LocalityGroupMap(lggroups, useNativeMap);
+      map = new LocalityGroupMap(lggroups, useNativeMap, useOffHeapMap, concurrentWrites);
   }
   
   public InMemoryMap(AccumuloConfiguration config) throws LocalityGroupConfigurationError {
-    this(LocalityGroupUtil.getLocalityGroups(config), config.getBoolean(Property.TSERV_NATIVEMAP_ENABLED), config.get(Property.TSERV_MEMDUMP_DIR));
+    this(LocalityGroupUtil.getLocalityGroups(config), config.getBoolean(Property.TSERV_NATIVEMAP_ENABLED), config.getBoolean(Property.TSERV_OFFHEAPMAP_ENABLED),
+        config.getBoolean(Property.TSERV_MEMORY_MAPS_CONCURRENT_WRITES), config.get(Property.TSERV_MEMDUMP_DIR));
   }
   
-  private static SimpleMap newMap(boolean useNativeMap) {
+  private static SimpleMap newMap(boolean useNativeMap, boolean useOffHeapMap) {
     if (useNativeMap && NativeMap.isLoaded()) {
       try {
         return new NativeMapWrapper();
@@ -221,6 +240,9 @@ public class InMemoryMap {
       }
     }
     
+    if (useOffHeapMap)
+      return new OffHeapMapWrapper();
+    
     return new DefaultMap();
   }
   
@@ -249,16 +271,18 @@ public class InMemoryMap {
     private Partitioner partitioner;
     private List<Mutation>[] partitioned;
     private Set<ByteSequence> nonDefaultColumnFamilies;
+    private final boolean concurrentWrites;
     
     @SuppressWarnings("unchecked")
-    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, boolean useNativeMap) {
+    LocalityGroupMap(Map<String,Set<ByteSequence>> groups, boolean useNativeMap, boolean useOffHeapMap, boolean concurrentWrites) {
       this.groupFams = new Map[groups.size()];
       this.maps = new SimpleMap[groups.size() + 1];
       this.partitioned = new List[groups.size() + 1];
       this.nonDefaultColumnFamilies = new HashSet<ByteSequence>();
+      this.concurrentWrites = concurrentWrites;
       
       for (int i = 0; i < maps.length; i++) {
-        maps[i] = newMap(useNativeMap);
+        maps[i] = newMap(useNativeMap, useOffHeapMap);
       }
 
       int count = 0;
@@ -324,11 +348,26 @@ public class InMemoryMap {
     }
     
     @Override
-    public synchronized void mutate(List<Mutation> mutations, int kvCount) {
-      // this method is synchronized because it reuses objects to avoid allocation,
-      // currently, the method that calls this is synchronized so there is no
-      // loss in parallelism.... synchronization was added here for future proofing
-      
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      if (concurrentWrites) {
+        // the maps for each group are thread safe, so only the partition lists need to be private to this call
+        @SuppressWarnings("unchecked")
+        List<Mutation>[] parts = new List[partitioned.length];
+        for (int i = 0; i < parts.length; i++) {
+          parts[i] = new ArrayList<Mutation>();
+        }
+        mutate(mutations, kvCount, parts);
+      } else {
+        synchronized (this) {
+          // synchronized because it reuses objects to avoid allocation,
+          // currently, the method that calls this is synchronized so there is no
+          // loss in parallelism.... synchronization was added here for future proofing
+          mutate(mutations, kvCount, partitioned);
+        }
+      }
+    }
+    
+    private void mutate(List<Mutation> mutations, int kvCount, List<Mutation>[] partitioned) {
       try{
         partitioner.partition(mutations, partitioned);
         
@@ -452,6 +491,43 @@ public class InMemoryMap {
     }
   }
   
+  private static class OffHeapMapWrapper implements SimpleMap {
+    private OffHeapMap offHeapMap;
+    
+    OffHeapMapWrapper() {
+      offHeapMap = new OffHeapMap();
+    }
+    
+    public Value get(Key key) {
+      return offHeapMap.get(key);
+    }
+    
+    public Iterator<Entry<Key,Value>> iterator(Key startKey) {
+      return offHeapMap.iterator(startKey);
+    }
+    
+    public int size() {
+      return offHeapMap.size();
+    }
+    
+    public InterruptibleIterator skvIterator() {
+      return (InterruptibleIterator) offHeapMap.skvIterator();
+    }
+    
+    public void delete() {
+      offHeapMap.delete();
+    }
+    
+    public long getMemoryUsed() {
+      return offHeapMap.getMemoryUsed();
+    }
+    
+    @Override
+    public void mutate(List<Mutation> mutations, int kvCount) {
+      offHeapMap.mutate(mutations, kvCount);
+    }
+  }
+  
   private AtomicInteger nextKVCount = new AtomicInteger(1);
   private AtomicInteger kvCount = new AtomicInteger(0);
 
@@ -466,6 +542,11 @@ public class InMemoryMap {
     for (int i = 0; i < mutations.size(); i++)
       numKVs += mutations.get(i).size();
     
+    if (concurrentWrites) {
+      mutateConcurrently(mutations, numKVs);
+      return;
+    }
+    
     // Can not update mutationCount while writes that started before
     // are in progress, this would cause partial mutations to be seen.
     // Also, can not continue until mutation count is updated, because
@@ -483,6 +564,39 @@ public class InMemoryMap {
     }
   }
   
+  /**
+   * Each writer reserves its own range of kv counts and applies its mutations in parallel with other writers. Since readers only see keys with a kv count at or
+   * below {@link #kvCount}, the mutations stay invisible until the writer publishes its range. Ranges are published in the order they were reserved, so a
+   * writer that finishes early waits for the writers that reserved ranges before it. This keeps readers from seeing partial mutations, the same as when writes
+   * are serialized.
+   */
+  private void mutateConcurrently(List<Mutation> mutations, int numKVs) {
+    int kv = nextKVCount.getAndAdd(numKVs);
+    try {
+      map.mutate(mutations, kv);
+    } finally {
+      publishKVCount(kv, numKVs);
+    }
+  }
+  
+  private void publishKVCount(int kv, int numKVs) {
+    boolean interrupted = false;
+    synchronized (writeSerializer) {
+      while (kvCount.get() != kv - 1) {
+        try {
+          writeSerializer.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      kvCount.set(kv + numKVs - 1);
+      writeSerializer.notifyAll();
+    }
+    
+    if (interrupted)
+      Thread.currentThread().interrupt();
+  }
+  
   /**
    * Returns a long representing the size of the InMemoryMap
    * 
@@ -0,0 +1,625 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IterationInterruptedException;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.system.InterruptibleIterator;
+
+/**
+ * This class stores data in direct byte buffers, outside of the Java heap. It is a pure Java alternative to {@link NativeMap} for when the native library is
+ * not available, and like the native map it avoids the per entry heap overhead and GC pauses of a {@link java.util.concurrent.ConcurrentSkipListMap}.
+ *
+ * Keys and values are appended to arena chunks, and a skip list is threaded through the entries using the arena offsets of the next entries, so the map only
+ * holds a handful of heap objects regardless of how many entries it contains. Entries are sorted the same way as {@link MemKeyComparator} and are never
+ * removed, so iterators can continue from where they left off after releasing the read lock.
+ *
+ * Java has no way to free a direct buffer on demand, so the chunks of a map are kept in a pool when it is deleted and reused by later maps. Code using this map
+ * should call delete() as soon as it is finished with it. The JVM must be allowed enough direct memory (-XX:MaxDirectMemorySize) for all in memory maps.
+ */
+public class OffHeapMap implements Iterable<Map.Entry<Key,Value>> {
+
+  static final int MIN_CHUNK_SIZE = 1 << 16;
+  static final int MAX_CHUNK_SIZE = 1 << 20;
+
+  private static final int MAX_LEVEL = 24;
+  private static final long NIL = -1;
+
+  // offsets of the fields that follow the next pointers of an entry
+  private static final int KVCOUNT_OFFSET = 0;
+  private static final int TIMESTAMP_OFFSET = 4;
+  private static final int DELETED_OFFSET = 12;
+  private static final int ROW_LEN_OFFSET = 13;
+  private static final int CF_LEN_OFFSET = 17;
+  private static final int CQ_LEN_OFFSET = 21;
+  private static final int CV_LEN_OFFSET = 25;
+  private static final int VAL_LEN_OFFSET = 29;
+  private static final int HEADER_SIZE = 33;
+
+  // chunks released by deleted maps, indexed by log2(size / MIN_CHUNK_SIZE)
+  @SuppressWarnings("unchecked")
+  private static final ConcurrentLinkedQueue<ByteBuffer>[] freeChunks = new ConcurrentLinkedQueue[Integer.numberOfTrailingZeros(MAX_CHUNK_SIZE
+      / MIN_CHUNK_SIZE) + 1];
+  static {
+    for (int i = 0; i < freeChunks.length; i++)
+      freeChunks[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+  }
+
+  private final ReadWriteLock rwLock;
+  private final Lock rlock;
+  private final Lock wlock;
+
+  private final ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+  private ByteBuffer currentChunk = null;
+  private int allocOffset = 0;
+  private long memoryUsed = 0;
+
+  private final long head[] = new long[MAX_LEVEL];
+  private int level = 1;
+  private int size = 0;
+  private boolean deleted = false;
+
+  private final Random random = new Random();
+  private final long update[] = new long[MAX_LEVEL];
+
+  public OffHeapMap() {
+    for (int i = 0; i < MAX_LEVEL; i++)
+      head[i] = NIL;
+
+    rwLock = new ReentrantReadWriteLock();
+    rlock = rwLock.readLock();
+    wlock = rwLock.writeLock();
+  }
+
+  private static ByteBuffer allocateChunk(int size) {
+    if (size <= MAX_CHUNK_SIZE && Integer.bitCount(size) == 1 && size >= MIN_CHUNK_SIZE) {
+      ByteBuffer chunk = freeChunks[Integer.numberOfTrailingZeros(size / MIN_CHUNK_SIZE)].poll();
+      if (chunk != null)
+        return chunk;
+    }
+    return ByteBuffer.allocateDirect(size);
+  }
+
+  private static void releaseChunk(ByteBuffer chunk) {
+    int size = chunk.capacity();
+    if (size <= MAX_CHUNK_SIZE && Integer.bitCount(size) == 1 && size >= MIN_CHUNK_SIZE)
+      freeChunks[Integer.numberOfTrailingZeros(size / MIN_CHUNK_SIZE)].add(chunk);
+  }
+
+  // it is assumed the write lock is held when this method is called
+  private long allocate(int len) {
+    if (currentChunk == null || allocOffset + len > currentChunk.capacity()) {
+      // start small so that maps of tablets with little data do not use much memory
+      int chunkSize = currentChunk == null ? MIN_CHUNK_SIZE : Math.min(currentChunk.capacity() * 2, MAX_CHUNK_SIZE);
+      while (chunkSize < len)
+        chunkSize *= 2;
+      currentChunk = allocateChunk(chunkSize);
+      chunks.add(currentChunk);
+      allocOffset = 0;
+      memoryUsed += chunkSize;
+    }
+
+    long addr = ((long) (chunks.size() - 1) << 32) | allocOffset;
+    allocOffset += len;
+    return addr;
+  }
+
+  private ByteBuffer chunk(long addr) {
+    return chunks.get((int) (addr >>> 32));
+  }
+
+  private static int offset(long addr) {
+    return (int) addr;
+  }
+
+  private long getNext(long addr, int lvl) {
+    return chunk(addr).getLong(offset(addr) + 1 + 8 * lvl);
+  }
+
+  private void setNext(long addr, int lvl, long next) {
+    chunk(addr).putLong(offset(addr) + 1 + 8 * lvl, next);
+  }
+
+  private static int headerOffset(ByteBuffer chunk, int off) {
+    return off + 1 + 8 * chunk.get(off);
+  }
+
+  private static byte[] getBytes(ByteBuffer chunk, int off, int len) {
+    byte b[] = new byte[len];
+    ByteBuffer dup = chunk.duplicate();
+    dup.position(off);
+    dup.get(b);
+    return b;
+  }
+
+  private static int compareBytes(ByteBuffer chunk, int off, int len, byte[] b) {
+    int end = Math.min(len, b.length);
+    for (int i = 0; i < end; i++) {
+      int cmp = (chunk.get(off + i) & 0xff) - (b[i] & 0xff);
+      if (cmp != 0)
+        return cmp;
+    }
+    return len - b.length;
+  }
+
+  /**
+   * Compares the entry at addr to a key, using the same order as {@link MemKeyComparator}. The fields of the key are passed in separately so that searches only
+   * get them once.
+   */
+  private int compare(long addr, Key key, byte[] row, byte[] cf, byte[] cq, byte[] cv) {
+    ByteBuffer chunk = chunk(addr);
+    int hdr = headerOffset(chunk, offset(addr));
+    int data = hdr + HEADER_SIZE;
+
+    int len = chunk.getInt(hdr + ROW_LEN_OFFSET);
+    int cmp = compareBytes(chunk, data, len, row);
+    if (cmp != 0)
+      return cmp;
+    data += len;
+
+    len = chunk.getInt(hdr + CF_LEN_OFFSET);
+    cmp = compareBytes(chunk, data, len, cf);
+    if (cmp != 0)
+      return cmp;
+    data += len;
+
+    len = chunk.getInt(hdr + CQ_LEN_OFFSET);
+    cmp = compareBytes(chunk, data, len, cq);
+    if (cmp != 0)
+      return cmp;
+    data += len;
+
+    len = chunk.getInt(hdr + CV_LEN_OFFSET);
+    cmp = compareBytes(chunk, data, len, cv);
+    if (cmp != 0)
+      return cmp;
+
+    long ts = chunk.getLong(hdr + TIMESTAMP_OFFSET);
+    if (ts != key.getTimestamp())
+      return ts < key.getTimestamp() ? 1 : -1;
+
+    boolean del = chunk.get(hdr + DELETED_OFFSET) != 0;
+    if (del != key.isDeleted())
+      return del ? -1 : 1;
+
+    if (key instanceof MemKey)
+      return ((MemKey) key).kvCount - chunk.getInt(hdr + KVCOUNT_OFFSET);
+
+    return 1;
+  }
+
+  /**
+   * Finds the first entry that is greater than or equal to key, optionally recording the last entry before key on each level.
+   *
+   * @return the address of the entry or NIL
+   */
+  private long find(Key key, long[] preds) {
+    byte[] row = key.getRowData().toArray();
+    byte[] cf = key.getColumnFamilyData().toArray();
+    byte[] cq = key.getColumnQualifierData().toArray();
+    byte[] cv = key.getColumnVisibilityData().toArray();
+
+    long pred = NIL;
+    long next = NIL;
+    for (int i = level - 1; i >= 0; i--) {
+      next = pred == NIL ? head[i] : getNext(pred, i);
+      while (next != NIL && compare(next, key, row, cf, cq, cv) < 0) {
+        pred = next;
+        next = getNext(pred, i);
+      }
+      if (preds != null)
+        preds[i] = pred;
+    }
+    return next;
+  }
+
+  private int randomLevel() {
+    int lvl = 1;
+    while (lvl < MAX_LEVEL && random.nextInt(4) == 0)
+      lvl++;
+    return lvl;
+  }
+
+  // it is assumed the write lock is held when this method is called
+  private void insert(byte[] row, ColumnUpdate cvp, int kvCount) {
+    byte[] cf = cvp.getColumnFamily();
+    byte[] cq = cvp.getColumnQualifier();
+    byte[] cv = cvp.getColumnVisibility();
+    byte[] val = cvp.getValue();
+
+    find(new MemKey(row, cf, cq, cv, cvp.getTimestamp(), cvp.isDeleted(), false, kvCount), update);
+
+    int lvl = randomLevel();
+    if (lvl > level) {
+      for (int i = level; i < lvl; i++)
+        update[i] = NIL;
+      level = lvl;
+    }
+
+    long addr = allocate(1 + 8 * lvl + HEADER_SIZE + row.length + cf.length + cq.length + cv.length + val.length);
+    ByteBuffer chunk = chunk(addr);
+    int off = offset(addr);
+    chunk.put(off, (byte) lvl);
+
+    int hdr = off + 1 + 8 * lvl;
+    chunk.putInt(hdr + KVCOUNT_OFFSET, kvCount);
+    chunk.putLong(hdr + TIMESTAMP_OFFSET, cvp.getTimestamp());
+    chunk.put(hdr + DELETED_OFFSET, (byte) (cvp.isDeleted() ? 1 : 0));
+    chunk.putInt(hdr + ROW_LEN_OFFSET, row.length);
+    chunk.putInt(hdr + CF_LEN_OFFSET, cf.length);
+    chunk.putInt(hdr + CQ_LEN_OFFSET, cq.length);
+    chunk.putInt(hdr + CV_LEN_OFFSET, cv.length);
+    chunk.putInt(hdr + VAL_LEN_OFFSET, val.length);
+
+    ByteBuffer dup = chunk.duplicate();
+    dup.position(hdr + HEADER_SIZE);
+    dup.put(row);
+    dup.put(cf);
+    dup.put(cq);
+    dup.put(cv);
+    dup.put(val);
+
+    for (int i = 0; i < lvl; i++) {
+      long pred = update[i];
+      if (pred == NIL) {
+        setNext(addr, i, head[i]);
+        head[i] = addr;
+      } else {
+        setNext(addr, i, getNext(pred, i));
+        setNext(pred, i, addr);
+      }
+    }
+
+    size++;
+  }
+
+  // it is assumed the read lock is held when this method is called
+  private Entry<Key,Value> readEntry(long addr) {
+    ByteBuffer chunk = chunk(addr);
+    int hdr = headerOffset(chunk, offset(addr));
+    int data = hdr + HEADER_SIZE;
+
+    int len = chunk.getInt(hdr + ROW_LEN_OFFSET);
+    byte[] row = getBytes(chunk, data, len);
+    data += len;
+    len = chunk.getInt(hdr + CF_LEN_OFFSET);
+    byte[] cf = getBytes(chunk, data, len);
+    data += len;
+    len = chunk.getInt(hdr + CQ_LEN_OFFSET);
+    byte[] cq = getBytes(chunk, data, len);
+    data += len;
+    len = chunk.getInt(hdr + CV_LEN_OFFSET);
+    byte[] cv = getBytes(chunk, data, len);
+    data += len;
+    byte[] val = getBytes(chunk, data, chunk.getInt(hdr + VAL_LEN_OFFSET));
+
+    MemKey key = new MemKey(row, cf, cq, cv, chunk.getLong(hdr + TIMESTAMP_OFFSET), chunk.get(hdr + DELETED_OFFSET) != 0, false, chunk.getInt(hdr
+        + KVCOUNT_OFFSET));
+    return new SimpleImmutableEntry<Key,Value>(key, new Value(val, false));
+  }
+
+  private void checkDeleted() {
+    if (deleted)
+      throw new IllegalStateException("Off heap map deleted");
+  }
+
+  public void mutate(Mutation mutation, int kvCount) {
+    wlock.lock();
+    try {
+      checkDeleted();
+      byte[] row = mutation.getRow();
+      for (ColumnUpdate cvp : mutation.getUpdates())
+        insert(row, cvp, kvCount++);
+    } finally {
+      wlock.unlock();
+    }
+  }
+
+  public void mutate(List<Mutation> mutations, int kvCount) {
+    Iterator<Mutation> iter = mutations.iterator();
+    while (iter.hasNext()) {
+      // like the native map, release the write lock every few mutations to let readers in
+      wlock.lock();
+      try {
+        checkDeleted();
+        for (int i = 0; i < 10 && iter.hasNext(); i++) {
+          Mutation mutation = iter.next();
+          byte[] row = mutation.getRow();
+          for (ColumnUpdate cvp : mutation.getUpdates())
+            insert(row, cvp, kvCount++);
+        }
+      } finally {
+        wlock.unlock();
+      }
+    }
+  }
+
+  public Value get(Key key) {
+    rlock.lock();
+    try {
+      checkDeleted();
+      long addr = find(key, null);
+      if (addr != NIL && compare(addr, key, key.getRowData().toArray(), key.getColumnFamilyData().toArray(), key.getColumnQualifierData().toArray(), key
+          .getColumnVisibilityData().toArray()) == 0)
+        return readEntry(addr).getValue();
+      return null;
+    } finally {
+      rlock.unlock();
+    }
+  }
+
+  public int size() {
+    rlock.lock();
+    try {
+      checkDeleted();
+      return size;
+    } finally {
+      rlock.unlock();
+    }
+  }
+
+  /**
+   * @return the amount of direct memory allocated for this map, in bytes
+   */
+  public long getMemoryUsed() {
+    rlock.lock();
+    try {
+      checkDeleted();
+      return memoryUsed;
+    } finally {
+      rlock.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<Map.Entry<Key,Value>> iterator() {
+    return new ConcurrentIterator(new MemKey());
+  }
+
+  public Iterator<Map.Entry<Key,Value>> iterator(Key startKey) {
+    return new ConcurrentIterator(startKey);
+  }
+
+  public void delete() {
+    wlock.lock();
+    try {
+      checkDeleted();
+      deleted = true;
+      for (ByteBuffer chunk : chunks)
+        releaseChunk(chunk);
+      chunks.clear();
+      currentChunk = null;
+    } finally {
+      wlock.unlock();
+    }
+  }
+
+  private class ConcurrentIterator implements Iterator<Map.Entry<Key,Value>> {
+
+    // read a batch of entries each time the read lock is acquired, see NativeMap
+    private static final int MAX_READ_AHEAD_ENTRIES = 16;
+    private static final int READ_AHEAD_BYTES = 4096;
+
+    private long nextAddr;
+
+    private Entry<Key,Value> nextEntries[];
+    private int index;
+    private int end;
+
+    @SuppressWarnings("unchecked")
+    ConcurrentIterator(Key key) {
+      // start off with a small read ahead
+      nextEntries = new Entry[1];
+
+      rlock.lock();
+      try {
+        checkDeleted();
+        nextAddr = find(key, null);
+        fill();
+      } finally {
+        rlock.unlock();
+      }
+    }
+
+    // it is assumed the read lock is held when this method is called
+    @SuppressWarnings("unchecked")
+    private void fill() {
+      end = 0;
+      index = 0;
+
+      int amountRead = 0;
+
+      // as we keep filling, increase the read ahead buffer
+      if (nextEntries.length < MAX_READ_AHEAD_ENTRIES)
+        nextEntries = new Entry[Math.min(nextEntries.length * 2, MAX_READ_AHEAD_ENTRIES)];
+
+      while (nextAddr != NIL && end < nextEntries.length) {
+        Entry<Key,Value> ne = readEntry(nextAddr);
+        nextAddr = getNext(nextAddr, 0);
+        nextEntries[end++] = ne;
+        amountRead += ne.getKey().getSize() + ne.getValue().getSize();
+
+        if (amountRead > READ_AHEAD_BYTES)
+          break;
+      }
+    }
+
+    @Override
+    public boolean hasNext() {
+      return end != 0;
+    }
+
+    @Override
+    public Entry<Key,Value> next() {
+      if (end == 0) {
+        throw new NoSuchElementException();
+      }
+
+      Entry<Key,Value> ret = nextEntries[index++];
+
+      if (index == end) {
+        rlock.lock();
+        try {
+          checkDeleted();
+          fill();
+        } finally {
+          rlock.unlock();
+        }
+      }
+
+      return ret;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static class OHMSKVIter implements InterruptibleIterator {
+
+    private Iterator<Entry<Key,Value>> iter;
+    private Entry<Key,Value> entry;
+
+    private OffHeapMap map;
+    private Range range;
+    private AtomicBoolean interruptFlag;
+    private int interruptCheckCount = 0;
+
+    private OHMSKVIter(OffHeapMap map, AtomicBoolean interruptFlag) {
+      this.map = map;
+      this.range = new Range();
+      iter = map.iterator();
+      if (iter.hasNext())
+        entry = iter.next();
+      else
+        entry = null;
+
+      this.interruptFlag = interruptFlag;
+    }
+
+    public OHMSKVIter(OffHeapMap map) {
+      this(map, null);
+    }
+
+    @Override
+    public Key getTopKey() {
+      return entry.getKey();
+    }
+
+    @Override
+    public Value getTopValue() {
+      return entry.getValue();
+    }
+
+    @Override
+    public boolean hasTop() {
+      return entry != null;
+    }
+
+    @Override
+    public void next() throws IOException {
+
+      if (entry == null)
+        throw new IllegalStateException();
+
+      // checking the interrupt flag for every call to next had bad a bad performance impact
+      // so check it every 100th time
+      if (interruptFlag != null && interruptCheckCount++ % 100 == 0 && interruptFlag.get())
+        throw new IterationInterruptedException();
+
+      if (iter.hasNext()) {
+        entry = iter.next();
+        if (range.afterEndKey(entry.getKey())) {
+          entry = null;
+        }
+      } else
+        entry = null;
+
+    }
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+
+      if (interruptFlag != null && interruptFlag.get())
+        throw new IterationInterruptedException();
+
+      this.range = range;
+
+      Key key = range.getStartKey();
+      if (key == null) {
+        key = new MemKey();
+      }
+
+      iter = map.iterator(key);
+      if (iter.hasNext()) {
+        entry = iter.next();
+        if (range.afterEndKey(entry.getKey())) {
+          entry = null;
+        }
+      } else
+        entry = null;
+
+      while (hasTop() && range.beforeStartKey(getTopKey())) {
+        next();
+      }
+    }
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+      return new OHMSKVIter(map, interruptFlag);
+    }
+
+    @Override
+    public void setInterruptFlag(AtomicBoolean flag) {
+      this.interruptFlag = flag;
+    }
+  }
+
+  public SortedKeyValueIterator<Key,Value> skvIterator() {
+    return new OHMSKVIter(this);
+  }
+}
@@ -59,6 +59,7 @@ import org.apache.accumulo.core.client.AccumuloSecurityException;
 import org.apache.accumulo.core.client.Instance;
 import org.apache.accumulo.core.client.impl.CompressedIterators;
 import org.apache.accumulo.core.client.impl.CompressedIterators.IterConfig;
+import org.apache.accumulo.core.client.impl.PackedKeyValues;
 import org.apache.accumulo.core.client.impl.ScannerImpl;
 import org.apache.accumulo.core.client.impl.Tables;
 import org.apache.accumulo.core.client.impl.TabletType;
@@ -400,7 +401,7 @@ public class TabletServer implements Runnable {
     @Override
     public InitialScan startScan(TInfo tinfo, TCredentials credentials, TKeyExtent textent, TRange range, List<TColumn> columns, int batchSize,
         List<IterInfo> ssiList, Map<String,Map<String,String>> ssio, List<ByteBuffer> authorizations, boolean waitForWrites, boolean isolated,
-        long readaheadThreshold) throws NotServingTabletException, ThriftSecurityException, org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException {
+        long readaheadThreshold, boolean packResults) throws NotServingTabletException, ThriftSecurityException, org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException {
 
       String tableId = new String(textent.getTable(), StandardCharsets.UTF_8);
       if (!security.canScan(credentials, tableId, Tables.getNamespaceId(getInstance(), tableId), range, columns, ssiList, ssio, authorizations))
@@ -432,7 +433,8 @@ public class TabletServer implements Runnable {
       for (TColumn tcolumn : columns) {
         columnSet.add(new Column(tcolumn));
       }
-      final ScanSession scanSession = new ScanSession(credentials, extent, columnSet, ssiList, ssio, new Authorizations(authorizations), readaheadThreshold);
+      final ScanSession scanSession = new ScanSession(credentials, extent, columnSet, ssiList, ssio, new Authorizations(authorizations), readaheadThreshold,
+          packResults);
       scanSession.scanner = tablet.createScanner(new Range(range), batchSize, scanSession.columnSet, scanSession.auths, ssiList, ssio, isolated,
           scanSession.interruptFlag);
 
@@ -482,8 +484,6 @@ public class TabletServer implements Runnable {
         sessionManager.removeSession(scanID);
         if (e.getCause() instanceof NotServingTabletException)
           throw (NotServingTabletException) e.getCause();
-        else if (e.getCause() instanceof TooManyFilesException)
-          throw new org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException(scanSession.extent.toThrift());
         else
           throw new RuntimeException(e);
       } catch (CancellationException ce) {
@@ -504,9 +504,15 @@ public class TabletServer implements Runnable {
         throw new RuntimeException(t);
       }
 
-      ScanResult scanResult = new ScanResult(Key.compress(bresult.getResults()), bresult.isMore());
+      ScanResult scanResult;
+      if (scanSession.packResults) {
+        scanResult = new ScanResult(Collections.<TKeyValue> emptyList(), bresult.isMore());
+        scanResult.setPackedResults(PackedKeyValues.pack(bresult.getResults()));
+      } else {
+        scanResult = new ScanResult(Key.compress(bresult.getResults()), bresult.isMore());
+      }
 
-      scanSession.entriesReturned += scanResult.results.size();
+      scanSession.entriesReturned += bresult.getResults().size();
 
       scanSession.batchCount++;
 
@@ -540,7 +546,7 @@ public class TabletServer implements Runnable {
 
     @Override
     public InitialMultiScan startMultiScan(TInfo tinfo, TCredentials credentials, Map<TKeyExtent,List<TRange>> tbatch, List<TColumn> tcolumns,
-        List<IterInfo> ssiList, Map<String,Map<String,String>> ssio, List<ByteBuffer> authorizations, boolean waitForWrites) throws ThriftSecurityException {
+        List<IterInfo> ssiList, Map<String,Map<String,String>> ssio, List<ByteBuffer> authorizations, boolean waitForWrites, boolean packResults) throws ThriftSecurityException {
       // find all of the tables that need to be scanned
       final HashSet<String> tables = new HashSet<String>();
       for (TKeyExtent keyExtent : tbatch.keySet()) {
@@ -571,7 +577,7 @@ public class TabletServer implements Runnable {
       if (waitForWrites)
         writeTracker.waitForWrites(TabletType.type(batch.keySet()));
 
-      final MultiScanSession mss = new MultiScanSession(credentials, threadPoolExtent, batch, ssiList, ssio, new Authorizations(authorizations));
+      final MultiScanSession mss = new MultiScanSession(credentials, threadPoolExtent, batch, ssiList, ssio, new Authorizations(authorizations), packResults);
 
       mss.numTablets = batch.size();
       for (List<Range> ranges : batch.values()) {
@@ -1077,10 +1083,6 @@ public class TabletServer implements Runnable {
           results.add(new TCMResult(scm.getID(), TCMStatus.IGNORED));
           add = false;
           break;
-        } catch (TooManyFilesException tmfe) {
-          results.add(new TCMResult(scm.getID(), TCMStatus.IGNORED));
-          add = false;
-          break;
         }
       }
       return add;
@@ -1345,6 +1347,8 @@ public class TabletServer implements Runnable {
           stats.ingestRate = tablet.ingestRate();
           stats.queryRate = tablet.queryRate();
           stats.splitCreationTime = tablet.getSplitCreationTime();
+          stats.writeAmplification = tablet.writeAmplification();
+          stats.majorCompactionScore = tablet.majorCompactionScore();
           stats.numEntries = tablet.getNumEntries();
           result.add(stats);
         }
@@ -2939,6 +2943,11 @@ public class TabletServer implements Runnable {
       public AccumuloConfiguration getConfiguration() {
         return getSystemConfiguration();
       }
+
+      @Override
+      public TabletServerUpdateMetrics getUpdateMetrics() {
+        return updateMetrics;
+      }
     };
   }
 
@@ -2967,4 +2976,8 @@ public class TabletServer implements Runnable {
     return resourceManager.holdTime();
   }
 
+  public FileManager getFileManager() {
+    return resourceManager.getFileManager();
+  }
+
 }
@@ -20,15 +20,19 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -38,7 +42,11 @@ import org.apache.accumulo.core.client.Instance;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.file.blockfile.cache.BlockCache;
 import org.apache.accumulo.core.file.blockfile.cache.LruBlockCache;
+import org.apache.accumulo.core.file.blockfile.cache.SlabBlockCache;
+import org.apache.accumulo.core.file.blockfile.cache.TinyLfuBlockCache;
+import org.apache.accumulo.core.file.blockfile.impl.BlockPrefetcher;
 import org.apache.accumulo.core.metadata.schema.DataFileValue;
 import org.apache.accumulo.core.util.Daemon;
 import org.apache.accumulo.core.util.LoggingRunnable;
@@ -58,6 +66,8 @@ import org.apache.accumulo.tserver.compaction.CompactionStrategy;
 import org.apache.accumulo.tserver.compaction.DefaultCompactionStrategy;
 import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
 import org.apache.accumulo.tserver.compaction.MajorCompactionRequest;
+import org.apache.accumulo.tserver.compaction.RateLimiter;
+import org.apache.accumulo.tserver.compaction.WriteStatistics;
 import org.apache.accumulo.tserver.tablet.Tablet;
 import org.apache.log4j.Logger;
 
@@ -75,6 +85,7 @@ public class TabletServerResourceManager {
   private final ExecutorService majorCompactionThreadPool;
   private final ExecutorService rootMajorCompactionThreadPool;
   private final ExecutorService defaultMajorCompactionThreadPool;
+  private final ExecutorService localityGroupCompactionThreadPool;
   private final ExecutorService splitThreadPool;
   private final ExecutorService defaultSplitThreadPool;
   private final ExecutorService defaultMigrationPool;
@@ -93,10 +104,26 @@ public class TabletServerResourceManager {
 
   private final MemoryManagementFramework memMgmt;
 
-  private final LruBlockCache _dCache;
-  private final LruBlockCache _iCache;
+  private final BlockCache _dCache;
+  private final BlockCache _iCache;
   private final ServerConfiguration conf;
 
+  private final RateLimiter compactionRateLimiter;
+  private final Map<String,TableRateLimiter> tableCompactionRateLimiters = new HashMap<String,TableRateLimiter>();
+
+  /**
+   * A table's compaction limiter, shared by the tablets of the table that have compacted here. It is dropped once the last of them closes, so deleted or
+   * migrated tables do not leave limiters behind.
+   */
+  private static class TableRateLimiter {
+    final RateLimiter limiter;
+    int tablets = 0;
+
+    TableRateLimiter(RateLimiter limiter) {
+      this.limiter = limiter;
+    }
+  }
+
   private ExecutorService addEs(String name, ExecutorService tp) {
     if (threadPools.containsKey(name)) {
       throw new IllegalArgumentException("Cannot create two executor services with same name " + name);
@@ -145,32 +172,55 @@ public class TabletServerResourceManager {
     return addEs(name, new ThreadPoolExecutor(min, max, timeout, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamingThreadFactory(name)));
   }
 
+  private static BlockCache createBlockCache(AccumuloConfiguration acuConf, Property typeProp, long cacheSize, long blockSize) {
+    String type = acuConf.get(typeProp);
+    if (type.equals("lru")) {
+      return new LruBlockCache(cacheSize, blockSize);
+    } else if (type.equals("tinylfu")) {
+      return new TinyLfuBlockCache(cacheSize, blockSize);
+    } else if (type.equals("offheap")) {
+      return new SlabBlockCache(cacheSize, blockSize);
+    }
+    throw new IllegalArgumentException("Unknown block cache type " + type + " for " + typeProp.getKey());
+  }
+
+  private static long heapSize(BlockCache cache) {
+    return cache instanceof SlabBlockCache ? 0 : cache.getMaxSize();
+  }
+
   public TabletServerResourceManager(Instance instance, VolumeManager fs) {
     this.conf = new ServerConfiguration(instance);
+    this.compactionRateLimiter = new RateLimiter(conf.getConfiguration(), Property.TSERV_COMPACTION_THROUGHPUT);
     this.fs = fs;
     final AccumuloConfiguration acuConf = conf.getConfiguration();
 
     long maxMemory = acuConf.getMemoryInBytes(Property.TSERV_MAXMEM);
     boolean usingNativeMap = acuConf.getBoolean(Property.TSERV_NATIVEMAP_ENABLED) && NativeMap.isLoaded();
+    // the off heap map does not use the java heap either
+    boolean mapsOffHeap = usingNativeMap || acuConf.getBoolean(Property.TSERV_OFFHEAPMAP_ENABLED);
 
     long blockSize = acuConf.getMemoryInBytes(Property.TSERV_DEFAULT_BLOCKSIZE);
     long dCacheSize = acuConf.getMemoryInBytes(Property.TSERV_DATACACHE_SIZE);
     long iCacheSize = acuConf.getMemoryInBytes(Property.TSERV_INDEXCACHE_SIZE);
 
-    _iCache = new LruBlockCache(iCacheSize, blockSize);
-    _dCache = new LruBlockCache(dCacheSize, blockSize);
+    _iCache = createBlockCache(acuConf, Property.TSERV_INDEXCACHE_TYPE, iCacheSize, blockSize);
+    _dCache = createBlockCache(acuConf, Property.TSERV_DATACACHE_TYPE, dCacheSize, blockSize);
+    BlockPrefetcher.configure(acuConf.getCount(Property.TSERV_PREFETCH_THREADS), acuConf.getMemoryInBytes(Property.TSERV_PREFETCH_MEMORY));
+
+    // off-heap caches do not compete with the in-memory map for heap
+    long heapCacheSize = heapSize(_iCache) + heapSize(_dCache);
 
     Runtime runtime = Runtime.getRuntime();
-    if (!usingNativeMap && maxMemory + dCacheSize + iCacheSize > runtime.maxMemory()) {
+    if (!mapsOffHeap && maxMemory + heapCacheSize > runtime.maxMemory()) {
       throw new IllegalArgumentException(String.format(
-          "Maximum tablet server map memory %,d and block cache sizes %,d is too large for this JVM configuration %,d", maxMemory, dCacheSize + iCacheSize,
+          "Maximum tablet server map memory %,d and block cache sizes %,d is too large for this JVM configuration %,d", maxMemory, heapCacheSize,
           runtime.maxMemory()));
     }
     runtime.gc();
 
     // totalMemory - freeMemory = memory in use
     // maxMemory - memory in use = max available memory
-    if (!usingNativeMap && maxMemory > runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory())) {
+    if (!mapsOffHeap && maxMemory > runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory())) {
       log.warn("In-memory map may not fit into local memory space.");
     }
 
@@ -181,6 +231,8 @@ public class TabletServerResourceManager {
     majorCompactionThreadPool = createEs(Property.TSERV_MAJC_MAXCONCURRENT, "major compactor", new CompactionQueue());
     rootMajorCompactionThreadPool = createEs(0, 1, 300, "md root major compactor");
     defaultMajorCompactionThreadPool = createEs(0, 1, 300, "md major compactor");
+    // locality groups compacted in parallel only ever wait on the major compactor thread that submitted them, so sharing a bounded pool can not deadlock
+    localityGroupCompactionThreadPool = createEs(Property.TSERV_MAJC_MAXCONCURRENT, "locality group compactor");
 
     splitThreadPool = createEs(1, "splitter");
     defaultSplitThreadPool = createEs(0, 1, 60, "md splitter");
@@ -188,10 +240,9 @@ public class TabletServerResourceManager {
     defaultMigrationPool = createEs(0, 1, 60, "metadata tablet migration");
     migrationPool = createEs(Property.TSERV_MIGRATE_MAXCONCURRENT, "tablet migration");
 
-    // not sure if concurrent assignments can run safely... even if they could there is probably no benefit at startup because
-    // individual tablet servers are already running assignments concurrently... having each individual tablet server run
-    // concurrent assignments would put more load on the metadata table at startup
-    assignmentPool = createEs(1, "tablet assignment");
+    // assignments are checked against the unopened, opening, and online tablet sets under their locks, so they can run concurrently... this mostly helps
+    // when many tablets need write-ahead log recovery, since each recovery reads only its own entries from the sorted logs
+    assignmentPool = createEs(Property.TSERV_ASSIGNMENT_MAXCONCURRENT, "tablet assignment");
 
     assignMetaDataPool = createEs(0, 1, 60, "metadata tablet assignment");
 
@@ -430,6 +481,10 @@ public class TabletServerResourceManager {
     }
   }
 
+  public FileManager getFileManager() {
+    return fileManager;
+  }
+
   public long holdTime() {
     if (!holdCommits)
       return 0;
@@ -473,6 +528,8 @@ public class TabletServerResourceManager {
 
     private final AccumuloConfiguration tableConf;
 
+    private RateLimiter tableCompactionRateLimiter = null;
+
     TabletResourceManager(KeyExtent extent, AccumuloConfiguration tableConf) {
       checkNotNull(extent, "extent is null");
       checkNotNull(tableConf, "tableConf is null");
@@ -543,7 +600,7 @@ public class TabletServerResourceManager {
     // BEGIN methods that Tablets call to make decisions about major compaction
     // when too many files are open, we may want tablets to compact down
     // to one map file
-    public boolean needsMajorCompaction(SortedMap<FileRef,DataFileValue> tabletFiles, MajorCompactionReason reason) {
+    public boolean needsMajorCompaction(SortedMap<FileRef,DataFileValue> tabletFiles, WriteStatistics writeStatistics, MajorCompactionReason reason) {
       if (closed)
         return false;// throw new IOException("closed");
 
@@ -572,6 +629,7 @@ public class TabletServerResourceManager {
       strategy.init(Property.getCompactionStrategyOptions(tableConf));
       MajorCompactionRequest request = new MajorCompactionRequest(extent, reason, TabletServerResourceManager.this.fs, tableConf);
       request.setFiles(tabletFiles);
+      request.setWriteStatistics(writeStatistics);
       try {
         return strategy.shouldCompact(request);
       } catch (IOException ex) {
@@ -599,6 +657,8 @@ public class TabletServerResourceManager {
 
           memMgmt.tabletClosed(extent);
           memoryManager.tabletClosed(extent);
+          if (tableCompactionRateLimiter != null)
+            releaseTableCompactionRateLimiter(extent.getTableId().toString());
 
           closed = true;
         }
@@ -613,6 +673,22 @@ public class TabletServerResourceManager {
       TabletServerResourceManager.this.executeMajorCompaction(tablet, compactionTask);
     }
 
+    public <T> Future<T> submitLocalityGroupCompaction(Callable<T> task) {
+      return TabletServerResourceManager.this.submitLocalityGroupCompaction(task);
+    }
+
+    /**
+     * @return the limiters compactions of this tablet must acquire bytes from, the table's limiter first
+     */
+    public synchronized List<RateLimiter> getCompactionRateLimiters() {
+      if (tableCompactionRateLimiter == null) {
+        if (closed)
+          throw new IllegalStateException("closed");
+        tableCompactionRateLimiter = reserveTableCompactionRateLimiter(extent.getTableId().toString(), tableConf);
+      }
+      return Arrays.asList(tableCompactionRateLimiter, compactionRateLimiter);
+    }
+
   }
 
   public void executeSplit(KeyExtent tablet, Runnable splitTask) {
@@ -637,6 +713,30 @@ public class TabletServerResourceManager {
     }
   }
 
+  public <T> Future<T> submitLocalityGroupCompaction(Callable<T> task) {
+    return localityGroupCompactionThreadPool.submit(task);
+  }
+
+  private RateLimiter reserveTableCompactionRateLimiter(String tableId, AccumuloConfiguration tableConf) {
+    synchronized (tableCompactionRateLimiters) {
+      TableRateLimiter trl = tableCompactionRateLimiters.get(tableId);
+      if (trl == null) {
+        trl = new TableRateLimiter(new RateLimiter(tableConf, Property.TABLE_COMPACTION_THROUGHPUT));
+        tableCompactionRateLimiters.put(tableId, trl);
+      }
+      trl.tablets++;
+      return trl.limiter;
+    }
+  }
+
+  private void releaseTableCompactionRateLimiter(String tableId) {
+    synchronized (tableCompactionRateLimiters) {
+      TableRateLimiter trl = tableCompactionRateLimiters.get(tableId);
+      if (trl != null && --trl.tablets == 0)
+        tableCompactionRateLimiters.remove(tableId);
+    }
+  }
+
   public void executeReadAhead(KeyExtent tablet, Runnable task) {
     if (tablet.isRootTablet()) {
       task.run();
@@ -711,11 +811,11 @@ public class TabletServerResourceManager {
     }
   }
 
-  public LruBlockCache getIndexCache() {
+  public BlockCache getIndexCache() {
     return _iCache;
   }
 
-  public LruBlockCache getDataCache() {
+  public BlockCache getDataCache() {
     return _dCache;
   }
 
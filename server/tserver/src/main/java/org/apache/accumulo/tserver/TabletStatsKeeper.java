@@ -114,6 +114,6 @@ public class TabletStatsKeeper {
   }
   
   public TabletStats getTabletStats() {
-    return new TabletStats(null, major, minor, split, 0, 0, 0, 0);
+    return new TabletStats(null, major, minor, split, 0, 0, 0, 0, 0, 0);
   }
 }
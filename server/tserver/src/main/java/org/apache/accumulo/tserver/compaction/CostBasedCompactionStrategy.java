@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.compaction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.accumulo.server.fs.FileRef;
+import org.apache.log4j.Logger;
+
+/**
+ * A compaction strategy that trades how many times data is rewritten (write amplification) against how many files a scan reads (read amplification).
+ * <p>
+ * In <tt>tiered</tt> mode, files are grouped into tiers by size, each tier holding files up to {@value #FANOUT_OPT} times larger than the one below, starting
+ * at {@value #MIN_FILE_SIZE_OPT}. Once a tier holds {@value #FANOUT_OPT} files they are compacted into one file of the next tier, so data is rewritten about
+ * once per tier. In <tt>leveled</tt> mode, every file must be at least {@value #FANOUT_OPT} times larger than all smaller files together. The largest file
+ * that breaks this rule is compacted together with every smaller file, which keeps few files at the cost of rewriting data more often.
+ * <p>
+ * Whatever the mode, when a tablet has more than {@value #MAX_READ_AMP_OPT} files its smallest files are compacted, as they are the cheapest to rewrite. When a
+ * tablet's write amplification has reached {@value #MAX_WRITE_AMP_OPT}, only those compactions are done. Write amplification is tracked per tablet since it
+ * was loaded, see {@link WriteStatistics}.
+ */
+public class CostBasedCompactionStrategy extends CompactionStrategy {
+  private static final Logger log = Logger.getLogger(CostBasedCompactionStrategy.class);
+
+  public static final String MODE_OPT = "mode";
+  public static final String FANOUT_OPT = "fanout";
+  public static final String MIN_FILE_SIZE_OPT = "minFileSize";
+  public static final String MAX_READ_AMP_OPT = "maxReadAmplification";
+  public static final String MAX_WRITE_AMP_OPT = "maxWriteAmplification";
+
+  public static enum Mode {
+    TIERED, LEVELED
+  }
+
+  private Mode mode = Mode.TIERED;
+  private int fanout = 0;
+  private long minFileSize = 1024 * 1024;
+  private int maxReadAmplification = 0;
+  private double maxWriteAmplification = 0;
+
+  @Override
+  public void init(Map<String,String> options) {
+    if (options.containsKey(MODE_OPT))
+      mode = Mode.valueOf(options.get(MODE_OPT).toUpperCase());
+    if (options.containsKey(FANOUT_OPT))
+      fanout = Integer.parseInt(options.get(FANOUT_OPT));
+    else
+      fanout = mode == Mode.TIERED ? 4 : 10;
+    if (fanout < 2)
+      throw new IllegalArgumentException(FANOUT_OPT + " must be at least 2");
+    if (options.containsKey(MIN_FILE_SIZE_OPT))
+      minFileSize = Math.max(1, AccumuloConfiguration.getMemoryInBytes(options.get(MIN_FILE_SIZE_OPT)));
+    if (options.containsKey(MAX_READ_AMP_OPT))
+      maxReadAmplification = Integer.parseInt(options.get(MAX_READ_AMP_OPT));
+    if (options.containsKey(MAX_WRITE_AMP_OPT))
+      maxWriteAmplification = Double.parseDouble(options.get(MAX_WRITE_AMP_OPT));
+  }
+
+  @Override
+  public boolean shouldCompact(MajorCompactionRequest request) throws IOException {
+    CompactionPlan plan = getCompactionPlan(request);
+    return plan != null && !plan.inputFiles.isEmpty();
+  }
+
+  @Override
+  public CompactionPlan getCompactionPlan(MajorCompactionRequest request) throws IOException {
+    CompactionPlan result = new CompactionPlan();
+
+    MajorCompactionReason reason = request.getReason();
+    if (reason == MajorCompactionReason.USER || reason == MajorCompactionReason.CHOP) {
+      result.inputFiles.addAll(request.getFiles().keySet());
+      return result;
+    }
+
+    List<Entry<FileRef,DataFileValue>> files = new ArrayList<Entry<FileRef,DataFileValue>>(request.getFiles().entrySet());
+    Collections.sort(files, new Comparator<Entry<FileRef,DataFileValue>>() {
+      @Override
+      public int compare(Entry<FileRef,DataFileValue> o1, Entry<FileRef,DataFileValue> o2) {
+        long s1 = o1.getValue().getSize();
+        long s2 = o2.getValue().getSize();
+        if (s1 != s2)
+          return s1 < s2 ? -1 : 1;
+        return o1.getKey().compareTo(o2.getKey());
+      }
+    });
+
+    double writeAmplification = request.getWriteStatistics().getWriteAmplification();
+    List<Entry<FileRef,DataFileValue>> toCompact;
+    if (maxWriteAmplification > 0 && writeAmplification >= maxWriteAmplification) {
+      toCompact = new ArrayList<Entry<FileRef,DataFileValue>>();
+    } else if (mode == Mode.TIERED) {
+      toCompact = planTiered(files);
+    } else {
+      toCompact = planLeveled(files);
+    }
+
+    // merge the cheapest files until the tablet is within its read amplification target
+    int maxFiles = maxReadAmplification > 0 ? Math.min(maxReadAmplification, request.getMaxFilesPerTablet()) : request.getMaxFilesPerTablet();
+    int filesAfter = files.size() - Math.max(0, toCompact.size() - 1);
+    if (filesAfter > maxFiles) {
+      for (Entry<FileRef,DataFileValue> file : files) {
+        if (filesAfter <= maxFiles)
+          break;
+        if (!toCompact.contains(file)) {
+          toCompact.add(file);
+          if (toCompact.size() > 1)
+            filesAfter--;
+        }
+      }
+    }
+
+    if (toCompact.size() < 2)
+      return result;
+
+    long bytes = 0;
+    for (Entry<FileRef,DataFileValue> file : toCompact) {
+      result.inputFiles.add(file.getKey());
+      bytes += file.getValue().getSize();
+    }
+    if (log.isDebugEnabled())
+      log.debug(String.format("%s %s compaction of %d of %d files rewrites %,d bytes, write amplification so far %.2f", request.getExtent(), mode,
+          toCompact.size(), files.size(), bytes, writeAmplification));
+    return result;
+  }
+
+  private int tier(long size) {
+    int tier = 0;
+    for (long limit = minFileSize; size > limit && limit < Long.MAX_VALUE / fanout; limit *= fanout)
+      tier++;
+    return tier;
+  }
+
+  /**
+   * @param files
+   *          sorted by size
+   * @return the files in the smallest tier holding at least fanout files
+   */
+  private List<Entry<FileRef,DataFileValue>> planTiered(List<Entry<FileRef,DataFileValue>> files) {
+    List<Entry<FileRef,DataFileValue>> tier = new ArrayList<Entry<FileRef,DataFileValue>>();
+    int current = -1;
+    for (Entry<FileRef,DataFileValue> file : files) {
+      int t = tier(file.getValue().getSize());
+      if (t != current) {
+        if (tier.size() >= fanout)
+          break;
+        tier.clear();
+        current = t;
+      }
+      tier.add(file);
+    }
+    if (tier.size() >= fanout)
+      return tier;
+    return new ArrayList<Entry<FileRef,DataFileValue>>();
+  }
+
+  /**
+   * @param files
+   *          sorted by size
+   * @return the smallest files up to and including the largest file that is less than fanout times larger than all smaller files together
+   */
+  private List<Entry<FileRef,DataFileValue>> planLeveled(List<Entry<FileRef,DataFileValue>> files) {
+    int last = -1;
+    long smaller = 0;
+    for (int i = 0; i < files.size(); i++) {
+      long size = files.get(i).getValue().getSize();
+      if (i > 0 && size < smaller * fanout)
+        last = i;
+      smaller += size;
+    }
+    return new ArrayList<Entry<FileRef,DataFileValue>>(files.subList(0, last + 1));
+  }
+}
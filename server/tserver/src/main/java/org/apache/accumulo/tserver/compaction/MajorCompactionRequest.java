@@ -41,6 +41,7 @@ public class MajorCompactionRequest implements Cloneable {
   final private VolumeManager volumeManager;
   final private AccumuloConfiguration tableConfig;
   private Map<FileRef,DataFileValue> files;
+  private WriteStatistics writeStatistics = new WriteStatistics();
 
   public MajorCompactionRequest(KeyExtent extent, MajorCompactionReason reason, VolumeManager manager, AccumuloConfiguration tabletConfig) {
     this.extent = extent;
@@ -54,6 +55,7 @@ public class MajorCompactionRequest implements Cloneable {
     this(mcr.extent, mcr.reason, mcr.volumeManager, mcr.tableConfig);
     // know this is already unmodifiable, no need to wrap again
     this.files = mcr.files;
+    this.writeStatistics = mcr.writeStatistics;
   }
 
   public KeyExtent getExtent() {
@@ -72,6 +74,17 @@ public class MajorCompactionRequest implements Cloneable {
     this.files = Collections.unmodifiableMap(update);
   }
 
+  /**
+   * @return the bytes the tablet has written since it was loaded
+   */
+  public WriteStatistics getWriteStatistics() {
+    return writeStatistics;
+  }
+
+  public void setWriteStatistics(WriteStatistics writeStatistics) {
+    this.writeStatistics = writeStatistics;
+  }
+
   public FileStatus[] listStatus(Path path) throws IOException {
     // @TODO verify the file isn't some random file in HDFS
     return volumeManager.listStatus(path);
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.compaction;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.Property;
+
+/**
+ * A token bucket limiting the bytes per second that compactions read and write. The rate is read from a property, so it can be changed while compactions
+ * are running. A rate of zero means unlimited. Up to one second of unused rate may be saved up, allowing short bursts.
+ */
+public class RateLimiter {
+
+  private static final long REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final AccumuloConfiguration conf;
+  private final Property property;
+
+  private long rate = 0;
+  private long lastRefresh;
+  private double available = 0;
+  private long lastUpdate;
+
+  public RateLimiter(AccumuloConfiguration conf, Property property) {
+    this.conf = conf;
+    this.property = property;
+    lastUpdate = System.nanoTime();
+    lastRefresh = lastUpdate - REFRESH_NANOS;
+  }
+
+  public synchronized long getRate() {
+    refresh(System.nanoTime());
+    return rate;
+  }
+
+  private void refresh(long now) {
+    if (now - lastRefresh >= REFRESH_NANOS) {
+      long newRate = Math.max(0, conf.getMemoryInBytes(property));
+      if (newRate != rate) {
+        rate = newRate;
+        available = Math.min(available, rate);
+      }
+      lastRefresh = now;
+    }
+  }
+
+  /**
+   * Reserves the given number of bytes, and returns how long the caller must wait before using them.
+   */
+  private synchronized long reserve(long bytes) {
+    long now = System.nanoTime();
+    refresh(now);
+    if (rate == 0) {
+      lastUpdate = now;
+      available = 0;
+      return 0;
+    }
+
+    available = Math.min(rate, available + (now - lastUpdate) * rate / 1e9);
+    lastUpdate = now;
+    available -= bytes;
+    if (available >= 0)
+      return 0;
+    return (long) (-available * 1e9 / rate);
+  }
+
+  /**
+   * Waits until the given number of bytes may be read or written.
+   *
+   * @return the number of milliseconds spent waiting
+   */
+  public long acquire(long bytes) throws InterruptedException {
+    if (bytes <= 0)
+      return 0;
+    long waitNanos = reserve(bytes);
+    if (waitNanos <= 0)
+      return 0;
+    TimeUnit.NANOSECONDS.sleep(waitNanos);
+    return TimeUnit.NANOSECONDS.toMillis(waitNanos);
+  }
+}
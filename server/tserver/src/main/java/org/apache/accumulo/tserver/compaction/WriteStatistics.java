@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.compaction;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the bytes a tablet has written since it was loaded. Write amplification is the number of bytes written by minor and major compactions for every
+ * byte written by minor compactions, so it is 1 for a tablet that has never been major compacted.
+ */
+public class WriteStatistics {
+  private final AtomicLong flushedBytes = new AtomicLong(0);
+  private final AtomicLong compactedBytes = new AtomicLong(0);
+
+  public void minorCompacted(long bytes) {
+    flushedBytes.addAndGet(bytes);
+  }
+
+  public void majorCompacted(long bytes) {
+    compactedBytes.addAndGet(bytes);
+  }
+
+  public long getFlushedBytes() {
+    return flushedBytes.get();
+  }
+
+  public long getCompactedBytes() {
+    return compactedBytes.get();
+  }
+
+  /**
+   * @return the write amplification, or 0 when nothing has been minor compacted
+   */
+  public double getWriteAmplification() {
+    long flushed = flushedBytes.get();
+    if (flushed == 0)
+      return 0;
+    return (flushed + compactedBytes.get()) / (double) flushed;
+  }
+}
@@ -22,6 +22,7 @@ import static org.apache.accumulo.tserver.logger.LogEvents.DEFINE_TABLET;
 import static org.apache.accumulo.tserver.logger.LogEvents.MANY_MUTATIONS;
 import static org.apache.accumulo.tserver.logger.LogEvents.OPEN;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -38,8 +39,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
 import org.apache.accumulo.core.conf.Property;
@@ -59,6 +62,7 @@ import org.apache.accumulo.server.master.state.TServerInstance;
 import org.apache.accumulo.tserver.TabletMutations;
 import org.apache.accumulo.tserver.logger.LogFileKey;
 import org.apache.accumulo.tserver.logger.LogFileValue;
+import org.apache.accumulo.tserver.metrics.TabletServerUpdateMetrics;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Path;
@@ -118,13 +122,15 @@ public class DfsLogger {
     VolumeManager getFileSystem();
 
     Set<TServerInstance> getCurrentTServers();
+
+    TabletServerUpdateMetrics getUpdateMetrics();
   }
 
   private final LinkedBlockingQueue<DfsLogger.LogWork> workQueue = new LinkedBlockingQueue<DfsLogger.LogWork>();
 
   private final Object closeLock = new Object();
 
-  private static final DfsLogger.LogWork CLOSED_MARKER = new DfsLogger.LogWork(null);
+  static final DfsLogger.LogWork CLOSED_MARKER = new DfsLogger.LogWork(null);
 
   private static final LogFileValue EMPTY = new LogFileValue();
 
@@ -140,12 +146,13 @@ public class DfsLogger {
         work.clear();
 
         try {
-          work.add(workQueue.take());
+          takeBatch(workQueue, work, groupCommitWait, groupCommitSize);
         } catch (InterruptedException ex) {
-          continue;
+          if (work.isEmpty())
+            continue;
         }
-        workQueue.drainTo(work);
 
+        long t1 = System.currentTimeMillis();
         try {
           sync.invoke(logFile);
         } catch (Exception ex) {
@@ -154,6 +161,13 @@ public class DfsLogger {
             logWork.exception = ex;
           }
         }
+        long t2 = System.currentTimeMillis();
+
+        TabletServerUpdateMetrics metrics = conf.getUpdateMetrics();
+        if (metrics != null && metrics.isEnabled()) {
+          metrics.add(TabletServerUpdateMetrics.waLogSyncBatchSize, countWrites(work));
+          metrics.add(TabletServerUpdateMetrics.waLogSyncTime, t2 - t1);
+        }
 
         for (DfsLogger.LogWork logWork : work)
           if (logWork == CLOSED_MARKER)
@@ -164,6 +178,38 @@ public class DfsLogger {
     }
   }
 
+  /**
+   * Waits for the next write and adds it, along with everything else already queued, to the batch. Writes that arrive shortly after the first one share its
+   * sync: more are waited for until the batch holds groupCommitSize writes, groupCommitWait has passed, or the log is closed.
+   */
+  static void takeBatch(BlockingQueue<DfsLogger.LogWork> queue, List<DfsLogger.LogWork> work, long groupCommitWait, int groupCommitSize)
+      throws InterruptedException {
+    work.add(queue.take());
+    queue.drainTo(work);
+    if (groupCommitWait <= 0)
+      return;
+
+    long deadline = System.currentTimeMillis() + groupCommitWait;
+    // the closed marker is always the last thing queued, so nothing more can come once it is in the batch
+    while (!work.contains(CLOSED_MARKER) && countWrites(work) < groupCommitSize) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0)
+        break;
+      DfsLogger.LogWork next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+      if (next == null)
+        break;
+      work.add(next);
+      queue.drainTo(work);
+    }
+  }
+
+  /**
+   * @return the number of writes in a batch, not counting the closed marker
+   */
+  static int countWrites(List<DfsLogger.LogWork> work) {
+    return work.contains(CLOSED_MARKER) ? work.size() - 1 : work.size();
+  }
+
   static class LogWork {
     CountDownLatch latch;
     volatile Exception exception;
@@ -220,6 +266,8 @@ public class DfsLogger {
   private Method sync;
   private String logPath;
   private Daemon syncThread;
+  private long groupCommitWait = 0;
+  private int groupCommitSize = 0;
 
   /* Track what's actually in +r/!0 for this logger ref */
   private String metaReference;
@@ -397,6 +445,9 @@ public class DfsLogger {
       throw new IOException(ex);
     }
 
+    groupCommitWait = conf.getConfiguration().getTimeInMillis(Property.TSERV_WAL_SYNC_GROUP_WAIT);
+    groupCommitSize = conf.getConfiguration().getCount(Property.TSERV_WAL_SYNC_GROUP_SIZE);
+
     syncThread = new Daemon(new LoggingRunnable(log, new LogSyncingTask()));
     syncThread.setName("Accumulo WALog thread " + toString());
     syncThread.start();
@@ -505,11 +556,20 @@ public class DfsLogger {
 
   private LoggerOperation logFileData(List<Pair<LogFileKey,LogFileValue>> keys) throws IOException {
     DfsLogger.LogWork work = new DfsLogger.LogWork(new CountDownLatch(1));
+
+    // serialize before taking the lock, so that threads only wait on each other for the copy into the log
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(buffer);
+    for (Pair<LogFileKey,LogFileValue> pair : keys) {
+      pair.getFirst().write(out);
+      pair.getSecond().write(out);
+    }
+    out.flush();
+
     synchronized (DfsLogger.this) {
       try {
-        for (Pair<LogFileKey,LogFileValue> pair : keys) {
-          write(pair.getFirst(), pair.getSecond());
-        }
+        buffer.writeTo(encryptingLogFile);
+        encryptingLogFile.flush();
       } catch (ClosedChannelException ex) {
         throw new LogClosedException();
       } catch (Exception e) {
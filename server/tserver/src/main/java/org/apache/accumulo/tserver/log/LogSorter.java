@@ -26,6 +26,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.accumulo.core.Constants;
@@ -58,6 +63,13 @@ public class LogSorter {
   VolumeManager fs;
   AccumuloConfiguration conf;
 
+  private static final Comparator<Pair<LogFileKey,LogFileValue>> keyComparator = new Comparator<Pair<LogFileKey,LogFileValue>>() {
+    @Override
+    public int compare(Pair<LogFileKey,LogFileValue> o1, Pair<LogFileKey,LogFileValue> o2) {
+      return o1.getFirst().compareTo(o2.getFirst());
+    }
+  };
+
   private final Map<String,LogProcessor> currentWork = Collections.synchronizedMap(new HashMap<String,LogProcessor>());
 
   class LogProcessor implements Processor {
@@ -115,23 +127,28 @@ public class LogSorter {
         this.decryptingInput = inputStreams.getDecryptingInputStream();
 
         final long bufferSize = conf.getMemoryInBytes(Property.TSERV_SORT_BUFFER_SIZE);
+        final int sortThreads = conf.getCount(Property.TSERV_RECOVERY_SORT_THREADS);
         Thread.currentThread().setName("Sorting " + name + " for recovery");
-        while (true) {
-          final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<Pair<LogFileKey,LogFileValue>>();
-          try {
-            long start = input.getPos();
-            while (input.getPos() - start < bufferSize) {
-              LogFileKey key = new LogFileKey();
-              LogFileValue value = new LogFileValue();
-              key.readFields(decryptingInput);
-              value.readFields(decryptingInput);
-              buffer.add(new Pair<LogFileKey,LogFileValue>(key, value));
+        if (sortThreads > 1) {
+          part = sortInParallel(new Path(destPath), bufferSize, sortThreads);
+        } else {
+          while (true) {
+            final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<Pair<LogFileKey,LogFileValue>>();
+            try {
+              long start = input.getPos();
+              while (input.getPos() - start < bufferSize) {
+                LogFileKey key = new LogFileKey();
+                LogFileValue value = new LogFileValue();
+                key.readFields(decryptingInput);
+                value.readFields(decryptingInput);
+                buffer.add(new Pair<LogFileKey,LogFileValue>(key, value));
+              }
+              writeBuffer(destPath, buffer, part++);
+              buffer.clear();
+            } catch (EOFException ex) {
+              writeBuffer(destPath, buffer, part++);
+              break;
             }
-            writeBuffer(destPath, buffer, part++);
-            buffer.clear();
-          } catch (EOFException ex) {
-            writeBuffer(destPath, buffer, part++);
-            break;
           }
         }
         fs.create(new Path(destPath, "finished")).close();
@@ -158,6 +175,83 @@ public class LogSorter {
       }
     }
 
+    /**
+     * Reads the log in chunks, sorting each chunk and spilling it as a run on another thread while the next chunk is read, then merges the runs into a
+     * {@link MergedLogFile}. Decoding stays on this thread because entries in the log can only be found by reading the ones before them.
+     *
+     * @return the number of runs
+     */
+    private int sortInParallel(Path destPath, long bufferSize, int sortThreads) throws IOException, InterruptedException {
+      // at most sortThreads chunks are held in memory, including the one being read
+      final long chunkSize = Math.max(1, bufferSize / sortThreads);
+      final Semaphore chunks = new Semaphore(sortThreads);
+      ExecutorService sorters = new SimpleThreadPool(sortThreads, "recovery sort");
+      List<Future<Path>> futures = new ArrayList<Future<Path>>();
+      List<Path> runs = new ArrayList<Path>();
+      try {
+        boolean done = false;
+        while (!done) {
+          chunks.acquire();
+          final ArrayList<Pair<LogFileKey,LogFileValue>> buffer = new ArrayList<Pair<LogFileKey,LogFileValue>>();
+          try {
+            long start = input.getPos();
+            while (input.getPos() - start < chunkSize) {
+              LogFileKey key = new LogFileKey();
+              LogFileValue value = new LogFileValue();
+              key.readFields(decryptingInput);
+              value.readFields(decryptingInput);
+              buffer.add(new Pair<LogFileKey,LogFileValue>(key, value));
+            }
+          } catch (EOFException ex) {
+            done = true;
+          }
+
+          if (buffer.isEmpty()) {
+            chunks.release();
+            continue;
+          }
+
+          final Path run = new Path(destPath, String.format("_run-%05d", runs.size()));
+          runs.add(run);
+          futures.add(sorters.submit(new Callable<Path>() {
+            @Override
+            public Path call() throws Exception {
+              try {
+                Collections.sort(buffer, keyComparator);
+                MergedLogFile.Writer output = new MergedLogFile.Writer(fs.create(run), null);
+                try {
+                  for (Pair<LogFileKey,LogFileValue> entry : buffer) {
+                    output.append(entry.getFirst(), entry.getSecond());
+                  }
+                } finally {
+                  output.close();
+                }
+                return run;
+              } finally {
+                chunks.release();
+              }
+            }
+          }));
+        }
+
+        for (Future<Path> future : futures) {
+          try {
+            future.get();
+          } catch (ExecutionException e) {
+            throw new IOException("Failed to sort run of " + destPath, e.getCause());
+          }
+        }
+      } finally {
+        sorters.shutdownNow();
+      }
+
+      MergedLogFile.merge(fs, runs, destPath);
+      for (Path run : runs) {
+        fs.delete(run);
+      }
+      return runs.size();
+    }
+
     private void writeBuffer(String destPath, ArrayList<Pair<LogFileKey,LogFileValue>> buffer, int part) throws IOException {
       Path path = new Path(destPath, String.format("part-r-%05d", part++));
       FileSystem ns = fs.getVolumeByPath(path).getFileSystem();
@@ -165,12 +259,7 @@ public class LogSorter {
       @SuppressWarnings("deprecation")
       MapFile.Writer output = new MapFile.Writer(ns.getConf(), ns, path.toString(), LogFileKey.class, LogFileValue.class);
       try {
-        Collections.sort(buffer, new Comparator<Pair<LogFileKey,LogFileValue>>() {
-          @Override
-          public int compare(Pair<LogFileKey,LogFileValue> o1, Pair<LogFileKey,LogFileValue> o2) {
-            return o1.getFirst().compareTo(o2.getFirst());
-          }
-        });
+        Collections.sort(buffer, keyComparator);
         for (Pair<LogFileKey,LogFileValue> entry : buffer) {
           output.append(entry.getFirst(), entry.getSecond());
         }
@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.log;
+
+import static org.apache.accumulo.tserver.logger.LogEvents.DEFINE_TABLET;
+import static org.apache.accumulo.tserver.logger.LogEvents.OPEN;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.server.fs.VolumeManager;
+import org.apache.accumulo.tserver.logger.LogFileKey;
+import org.apache.accumulo.tserver.logger.LogFileValue;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * A write-ahead log sorted for recovery, stored as one file of sorted entries and a sparse index, instead of a directory of map files.
+ *
+ * Each entry is written as the serialized {@link LogFileKey}, the length of the serialized {@link LogFileValue}, and the value bytes. Keeping the value length
+ * lets runs be merged and seeks skip entries without decoding their mutations. The index holds the offset and key of every tablet definition, of the
+ * first compaction and mutation of each tablet, and of an entry about every {@value #INDEX_INTERVAL} bytes. Runs spilled during a sort use the same entry
+ * format without an index.
+ */
+public class MergedLogFile {
+
+  static final String DATA_FILE = "sorted";
+  static final String INDEX_FILE = "sorted.index";
+
+  private static final int INDEX_INTERVAL = 64 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int INDEX_CACHE_SIZE = 100;
+
+  /**
+   * Reads entries one at a time, leaving the value serialized.
+   */
+  static class EntryReader {
+    private final DataInputStream in;
+    private LogFileKey key;
+    private byte[] value = new byte[1024];
+    private int valueLength;
+
+    EntryReader(InputStream in) {
+      this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+    }
+
+    /**
+     * @return false at the end of the file
+     */
+    boolean next() throws IOException {
+      key = new LogFileKey();
+      try {
+        key.readFields(in);
+      } catch (EOFException ex) {
+        key = null;
+        return false;
+      }
+      valueLength = in.readInt();
+      if (value.length < valueLength)
+        value = new byte[Math.max(valueLength, value.length * 2)];
+      in.readFully(value, 0, valueLength);
+      return true;
+    }
+
+    LogFileKey getKey() {
+      return key;
+    }
+
+    void readValue(LogFileValue dest) throws IOException {
+      dest.readFields(new DataInputStream(new ByteArrayInputStream(value, 0, valueLength)));
+    }
+
+    void copyTo(Writer writer) throws IOException {
+      writer.append(key, value, valueLength);
+    }
+
+    void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Writes entries, which must be appended in sorted order when an index is written.
+   */
+  static class Writer {
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+    private final DataOutputStream index;
+    private long lastIndexed = -INDEX_INTERVAL;
+    private int lastEventType = -1;
+    private int lastTid = -1;
+    private final ByteArrayOutputStream valueBuffer = new ByteArrayOutputStream();
+
+    /**
+     * @param index
+     *          where to write the index, or null to write no index
+     */
+    Writer(OutputStream out, OutputStream index) {
+      this.counter = new CountingOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+      this.out = new DataOutputStream(counter);
+      this.index = index == null ? null : new DataOutputStream(new BufferedOutputStream(index));
+    }
+
+    void append(LogFileKey key, byte[] value, int length) throws IOException {
+      if (index != null) {
+        // index where each tablet's compactions and mutations start, and every tablet definition, so recovery can go straight to a tablet's entries
+        int eventType = LogFileKey.eventType(key.event);
+        boolean startsGroup = eventType != lastEventType || key.tid != lastTid || key.event == DEFINE_TABLET;
+        if (startsGroup || counter.getCount() - lastIndexed >= INDEX_INTERVAL) {
+          lastIndexed = counter.getCount();
+          index.writeLong(lastIndexed);
+          key.write(index);
+        }
+        lastEventType = eventType;
+        lastTid = key.tid;
+      }
+      key.write(out);
+      out.writeInt(length);
+      out.write(value, 0, length);
+    }
+
+    void append(LogFileKey key, LogFileValue value) throws IOException {
+      valueBuffer.reset();
+      DataOutputStream valueOut = new DataOutputStream(valueBuffer);
+      value.write(valueOut);
+      valueOut.flush();
+      append(key, valueBuffer.toByteArray(), valueBuffer.size());
+    }
+
+    void close() throws IOException {
+      out.close();
+      if (index != null)
+        index.close();
+    }
+  }
+
+  private static class Run {
+    final int number;
+    final EntryReader entries;
+
+    Run(int number, EntryReader entries) {
+      this.number = number;
+      this.entries = entries;
+    }
+  }
+
+  /**
+   * Merges sorted runs into a merged log file in directory. Equal keys are kept in the order of the runs, which is the order they were read from the log.
+   */
+  static void merge(VolumeManager fs, List<Path> runs, Path directory) throws IOException {
+    PriorityQueue<Run> heap = new PriorityQueue<Run>(Math.max(1, runs.size()), new Comparator<Run>() {
+      @Override
+      public int compare(Run o1, Run o2) {
+        int cmp = o1.entries.getKey().compareTo(o2.entries.getKey());
+        if (cmp == 0)
+          return o1.number - o2.number;
+        return cmp;
+      }
+    });
+
+    List<EntryReader> readers = new ArrayList<EntryReader>();
+    try {
+      for (Path run : runs) {
+        EntryReader reader = new EntryReader(fs.open(run));
+        readers.add(reader);
+        if (reader.next())
+          heap.add(new Run(readers.size(), reader));
+      }
+
+      Writer writer = new Writer(fs.create(new Path(directory, DATA_FILE)), fs.create(new Path(directory, INDEX_FILE)));
+      try {
+        while (!heap.isEmpty()) {
+          Run run = heap.remove();
+          run.entries.copyTo(writer);
+          if (run.entries.next())
+            heap.add(run);
+        }
+      } finally {
+        writer.close();
+      }
+    } finally {
+      for (EntryReader reader : readers)
+        reader.close();
+    }
+  }
+
+  /**
+   * The index of a merged log file, which is shared by the readers recovering each tablet from the log.
+   */
+  private static class Index {
+    final ArrayList<Long> offsets = new ArrayList<Long>();
+    final ArrayList<LogFileKey> keys = new ArrayList<LogFileKey>();
+    final List<LogFileKey> definitions = new ArrayList<LogFileKey>();
+
+    Index(VolumeManager fs, Path directory) throws IOException {
+      DataInputStream index = new DataInputStream(new BufferedInputStream(fs.open(new Path(directory, INDEX_FILE))));
+      try {
+        while (true) {
+          long offset;
+          try {
+            offset = index.readLong();
+          } catch (EOFException ex) {
+            break;
+          }
+          LogFileKey key = new LogFileKey();
+          key.readFields(index);
+          offsets.add(offset);
+          keys.add(key);
+          if (key.event == DEFINE_TABLET)
+            definitions.add(key);
+        }
+      } finally {
+        index.close();
+      }
+    }
+  }
+
+  // sorted logs do not change once finished, but are keyed by modification time in case a failed sort is redone
+  private static final Cache<String,Index> indexes = CacheBuilder.newBuilder().maximumSize(INDEX_CACHE_SIZE).expireAfterAccess(10, TimeUnit.MINUTES)
+      .build();
+
+  private static Index getIndex(final VolumeManager fs, final Path directory) throws IOException {
+    long modified = fs.getFileStatus(new Path(directory, DATA_FILE)).getModificationTime();
+    try {
+      return indexes.get(directory + "@" + modified, new Callable<Index>() {
+        @Override
+        public Index call() throws Exception {
+          return new Index(fs, directory);
+        }
+      });
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to read index of " + directory, e.getCause());
+    }
+  }
+
+  private static class Reader implements RecoveryLogReader {
+    private final FSDataInputStream input;
+    private final Index index;
+    private EntryReader entries;
+    private boolean pending = false;
+
+    Reader(VolumeManager fs, Path directory) throws IOException {
+      index = getIndex(fs, directory);
+      input = fs.open(new Path(directory, DATA_FILE));
+      entries = new EntryReader(input);
+    }
+
+    @Override
+    public List<LogFileKey> getTabletDefinitions() {
+      return Collections.unmodifiableList(index.definitions);
+    }
+
+    @Override
+    public boolean next(LogFileKey key, LogFileValue value) throws IOException {
+      if (!pending && !entries.next())
+        return false;
+      pending = false;
+
+      LogFileKey found = entries.getKey();
+      key.event = found.event;
+      key.filename = found.filename;
+      key.tablet = found.tablet;
+      key.seq = found.seq;
+      key.tid = found.tid;
+      key.tserverSession = found.tserverSession;
+      entries.readValue(value);
+      return true;
+    }
+
+    @Override
+    public boolean seek(LogFileKey key) throws IOException {
+      // start from the last indexed entry that sorts before key, earlier entries may be equal to key
+      int low = 0;
+      int high = index.keys.size() - 1;
+      long offset = 0;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        if (index.keys.get(mid).compareTo(key) < 0) {
+          offset = index.offsets.get(mid);
+          low = mid + 1;
+        } else {
+          high = mid - 1;
+        }
+      }
+
+      input.seek(offset);
+      entries = new EntryReader(input);
+      pending = false;
+      while (entries.next()) {
+        int cmp = entries.getKey().compareTo(key);
+        if (cmp >= 0) {
+          pending = true;
+          return cmp == 0;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+      input.close();
+    }
+  }
+
+  /**
+   * Opens a sorted log directory, written either by a parallel sort as a merged log file or as map files.
+   */
+  public static RecoveryLogReader open(VolumeManager fs, Path directory) throws IOException {
+    if (!fs.exists(new Path(directory, DATA_FILE))) {
+      final MultiReader reader = new MultiReader(fs, directory);
+      return new RecoveryLogReader() {
+        @Override
+        public boolean next(LogFileKey key, LogFileValue value) throws IOException {
+          return reader.next(key, value);
+        }
+
+        @Override
+        public boolean seek(LogFileKey key) throws IOException {
+          return reader.seek(key);
+        }
+
+        @Override
+        public List<LogFileKey> getTabletDefinitions() throws IOException {
+          LogFileKey key = new LogFileKey();
+          key.event = OPEN;
+          reader.seek(key);
+          List<LogFileKey> definitions = new ArrayList<LogFileKey>();
+          LogFileValue value = new LogFileValue();
+          while (reader.next(key, value) && LogFileKey.eventType(key.event) <= LogFileKey.eventType(DEFINE_TABLET)) {
+            if (key.event == DEFINE_TABLET) {
+              definitions.add(key);
+              key = new LogFileKey();
+            }
+          }
+          return definitions;
+        }
+
+        @Override
+        public void close() throws IOException {
+          reader.close();
+        }
+      };
+    }
+
+    if (!fs.exists(new Path(directory, "finished")))
+      throw new IOException("Sort \"finished\" flag not found in " + directory);
+    return new Reader(fs, directory);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.log;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.accumulo.tserver.logger.LogFileKey;
+import org.apache.accumulo.tserver.logger.LogFileValue;
+
+/**
+ * Reads the entries of a write-ahead log that was sorted for recovery, in {@link LogFileKey} order.
+ */
+public interface RecoveryLogReader {
+
+  /**
+   * Reads the next entry into key and value.
+   *
+   * @return false if there are no more entries
+   */
+  boolean next(LogFileKey key, LogFileValue value) throws IOException;
+
+  /**
+   * Positions the reader so the next call to {@link #next(LogFileKey, LogFileValue)} returns the first entry greater than or equal to key.
+   *
+   * @return true if an entry equal to key exists
+   */
+  boolean seek(LogFileKey key) throws IOException;
+
+  /**
+   * Reads the DEFINE_TABLET entries of the log, which may move the position of the reader.
+   *
+   * @return the tablet definitions in sorted order
+   */
+  List<LogFileKey> getTabletDefinitions() throws IOException;
+
+  void close() throws IOException;
+}
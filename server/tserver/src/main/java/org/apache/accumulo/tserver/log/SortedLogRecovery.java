@@ -18,7 +18,6 @@ package org.apache.accumulo.tserver.log;
 
 import static org.apache.accumulo.tserver.logger.LogEvents.COMPACTION_FINISH;
 import static org.apache.accumulo.tserver.logger.LogEvents.COMPACTION_START;
-import static org.apache.accumulo.tserver.logger.LogEvents.DEFINE_TABLET;
 import static org.apache.accumulo.tserver.logger.LogEvents.MANY_MUTATIONS;
 import static org.apache.accumulo.tserver.logger.LogEvents.MUTATION;
 import static org.apache.accumulo.tserver.logger.LogEvents.OPEN;
@@ -97,7 +96,7 @@ public class SortedLogRecovery {
     for (int i = 0; i < recoveryLogs.size(); i++) {
       Path logfile = recoveryLogs.get(i);
       log.info("Looking at mutations from " + logfile + " for " + extent);
-      MultiReader reader = new MultiReader(fs, logfile);
+      RecoveryLogReader reader = MergedLogFile.open(fs, logfile);
       try {
         try {
           tids[i] = findLastStartToFinish(reader, i, extent, tabletFiles, lastStartToFinish);
@@ -123,7 +122,7 @@ public class SortedLogRecovery {
     
     for (int i = 0; i < recoveryLogs.size(); i++) {
       Path logfile = recoveryLogs.get(i);
-      MultiReader reader = new MultiReader(fs, logfile);
+      RecoveryLogReader reader = MergedLogFile.open(fs, logfile);
       try {
         playbackMutations(reader, tids[i], lastStartToFinish, mr);
       } finally {
@@ -144,7 +143,7 @@ public class SortedLogRecovery {
     return path.getParent().getName() + "/" + path.getName();
   }
 
-  int findLastStartToFinish(MultiReader reader, int fileno, KeyExtent extent, Set<String> tabletFiles, LastStartToFinish lastStartToFinish) throws IOException, EmptyMapFileException, UnusedException {
+  int findLastStartToFinish(RecoveryLogReader reader, int fileno, KeyExtent extent, Set<String> tabletFiles, LastStartToFinish lastStartToFinish) throws IOException, EmptyMapFileException, UnusedException {
 
     HashSet<String> suffixes = new HashSet<String>();
     for (String path : tabletFiles)
@@ -173,15 +172,11 @@ public class SortedLogRecovery {
     
     // find the maximum tablet id... because a tablet may leave a tserver and then come back, in which case it would have a different tablet id
     // for the maximum tablet id, find the minimum sequence #... may be ok to find the max seq, but just want to make the code behave like it used to
-    while (reader.next(key, value)) {
-      // LogReader.printEntry(entry);
-      if (key.event != DEFINE_TABLET)
-        break;
-      if (key.tablet.equals(extent) || key.tablet.equals(alternative)) {
-        if (tid != key.tid) {
-          tid = key.tid;
-          defineKey = key;
-          key = new LogFileKey();
+    for (LogFileKey define : reader.getTabletDefinitions()) {
+      if (define.tablet.equals(extent) || define.tablet.equals(alternative)) {
+        if (tid != define.tid) {
+          tid = define.tid;
+          defineKey = define;
         }
       }
     }
@@ -191,9 +186,11 @@ public class SortedLogRecovery {
     
     log.debug("Found tid, seq " + tid + " " + defineKey.seq);
     
-    // Scan start/stop events for this tablet
-    key = defineKey;
+    // Scan start/stop events for this tablet, the definitions may be shared with other recoveries so do not modify them
+    key = new LogFileKey();
     key.event = COMPACTION_START;
+    key.tid = defineKey.tid;
+    key.seq = defineKey.seq;
     reader.seek(key);
     while (reader.next(key, value)) {
       // LogFileEntry.printEntry(entry);
@@ -226,7 +223,7 @@ public class SortedLogRecovery {
     return tid;
   }
   
-  private void playbackMutations(MultiReader reader, int tid, LastStartToFinish lastStartToFinish, MutationReceiver mr) throws IOException {
+  private void playbackMutations(RecoveryLogReader reader, int tid, LastStartToFinish lastStartToFinish, MutationReceiver mr) throws IOException {
     LogFileKey key = new LogFileKey();
     LogFileValue value = new LogFileValue();
     
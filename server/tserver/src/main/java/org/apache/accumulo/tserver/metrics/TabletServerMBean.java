@@ -47,4 +47,12 @@ public interface TabletServerMBean {
   String getName();
   
   double getAverageFilesPerTablet();
+  
+  int getOpenFileReaders();
+  
+  long getFileReaderOpens();
+  
+  long getFileReaderReuses();
+  
+  long getFileReaderEvictions();
 }
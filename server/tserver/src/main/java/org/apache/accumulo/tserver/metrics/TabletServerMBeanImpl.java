@@ -193,6 +193,34 @@ public class TabletServerMBeanImpl extends AbstractMetricsImpl implements Tablet
     return 0;
   }
 
+  @Override
+  public int getOpenFileReaders() {
+    if (isEnabled())
+      return server.getFileManager().getOpenReaders();
+    return 0;
+  }
+
+  @Override
+  public long getFileReaderOpens() {
+    if (isEnabled())
+      return server.getFileManager().getReaderOpens();
+    return 0;
+  }
+
+  @Override
+  public long getFileReaderReuses() {
+    if (isEnabled())
+      return server.getFileManager().getReaderReuses();
+    return 0;
+  }
+
+  @Override
+  public long getFileReaderEvictions() {
+    if (isEnabled())
+      return server.getFileManager().getReaderEvictions();
+    return 0;
+  }
+
   @Override
   protected ObjectName getObjectName() {
     return OBJECT_NAME;
@@ -121,6 +121,30 @@ public class TabletServerUpdateMetrics extends AbstractMetricsImpl implements Ta
     return this.getMetricAvg(commitTime);
   }
   
+  public long getWALogSyncCount() {
+    return this.getMetricCount(waLogSyncTime);
+  }
+  
+  public long getWALogSyncAvgBatchSize() {
+    return this.getMetricAvg(waLogSyncBatchSize);
+  }
+  
+  public long getWALogSyncMaxBatchSize() {
+    return this.getMetricMax(waLogSyncBatchSize);
+  }
+  
+  public long getWALogSyncMinTime() {
+    return this.getMetricMin(waLogSyncTime);
+  }
+  
+  public long getWALogSyncMaxTime() {
+    return this.getMetricMax(waLogSyncTime);
+  }
+  
+  public long getWALogSyncAvgTime() {
+    return this.getMetricAvg(waLogSyncTime);
+  }
+  
   public void reset() {
     createMetric(permissionErrors);
     createMetric(unknownTabletErrors);
@@ -129,6 +153,8 @@ public class TabletServerUpdateMetrics extends AbstractMetricsImpl implements Ta
     createMetric(constraintViolations);
     createMetric(waLogWriteTime);
     createMetric(commitTime);
+    createMetric(waLogSyncBatchSize);
+    createMetric(waLogSyncTime);
   }
   
 }
@@ -25,6 +25,8 @@ public interface TabletServerUpdateMetricsMBean {
   final static String constraintViolations = "constraintViolations";
   final static String waLogWriteTime = "waLogWriteTime";
   final static String commitTime = "commitTime";
+  final static String waLogSyncBatchSize = "waLogSyncBatchSize";
+  final static String waLogSyncTime = "waLogSyncTime";
   
   long getPermissionErrorCount();
   
@@ -62,5 +64,17 @@ public interface TabletServerUpdateMetricsMBean {
   
   long getCommitAvgTime();
   
+  long getWALogSyncCount();
+  
+  long getWALogSyncAvgBatchSize();
+  
+  long getWALogSyncMaxBatchSize();
+  
+  long getWALogSyncMinTime();
+  
+  long getWALogSyncMaxTime();
+  
+  long getWALogSyncAvgTime();
+  
   void reset();
 }
@@ -25,6 +25,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import org.apache.accumulo.core.client.impl.PackedKeyValues;
 import org.apache.accumulo.core.client.impl.Translator;
 import org.apache.accumulo.core.client.impl.Translators;
 import org.apache.accumulo.core.conf.Property;
@@ -145,8 +146,13 @@ public class LookupTask extends ScanTask<MultiScanResult> {
 
       // convert everything to thrift before adding result
       List<TKeyValue> retResults = new ArrayList<TKeyValue>();
-      for (KVEntry entry : results)
-        retResults.add(new TKeyValue(entry.getKey().toThrift(), ByteBuffer.wrap(entry.getValue().get())));
+      ByteBuffer packedResults = null;
+      if (session.packResults) {
+        packedResults = PackedKeyValues.pack(results);
+      } else {
+        for (KVEntry entry : results)
+          retResults.add(new TKeyValue(entry.getKey().toThrift(), ByteBuffer.wrap(entry.getValue().get())));
+      }
       Map<TKeyExtent,List<TRange>> retFailures = Translator.translate(failures, Translators.KET, new Translator.ListTranslator<Range,TRange>(Translators.RT));
       List<TKeyExtent> retFullScans = Translator.translate(fullScans, Translators.KET);
       TKeyExtent retPartScan = null;
@@ -155,8 +161,12 @@ public class LookupTask extends ScanTask<MultiScanResult> {
         retPartScan = partScan.toThrift();
         retPartNextKey = partNextKey.toThrift();
       }
+      MultiScanResult scanResult = new MultiScanResult(retResults, retFailures, retFullScans, retPartScan, retPartNextKey, partNextKeyInclusive,
+          session.queries.size() != 0);
+      if (packedResults != null)
+        scanResult.setPackedResults(packedResults);
       // add results to queue
-      addResult(new MultiScanResult(retResults, retFailures, retFullScans, retPartScan, retPartNextKey, partNextKeyInclusive, session.queries.size() != 0));
+      addResult(scanResult);
     } catch (IterationInterruptedException iie) {
       if (!isCancelled()) {
         log.warn("Iteration interrupted, when scan not cancelled", iie);
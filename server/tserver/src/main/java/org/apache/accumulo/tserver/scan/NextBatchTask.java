@@ -20,7 +20,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.iterators.IterationInterruptedException;
 import org.apache.accumulo.tserver.TabletServer;
-import org.apache.accumulo.tserver.TooManyFilesException;
 import org.apache.accumulo.tserver.session.ScanSession;
 import org.apache.accumulo.tserver.tablet.ScanBatch;
 import org.apache.accumulo.tserver.tablet.Tablet;
@@ -82,8 +81,6 @@ public class NextBatchTask extends ScanTask<ScanBatch> {
         log.warn("Iteration interrupted, when scan not cancelled", iie);
         addResult(iie);
       }
-    } catch (TooManyFilesException tmfe) {
-      addResult(tmfe);
     } catch (Throwable e) {
       log.warn("exception while scanning tablet " + (scanSession == null ? "(unknown)" : scanSession.extent), e);
       addResult(e);
@@ -44,8 +44,9 @@ public class ScanSession extends Session {
   public volatile ScanTask<ScanBatch> nextBatchTask;
   public Scanner scanner;
   public final long readaheadThreshold;
+  public final boolean packResults;
   
-  public ScanSession(TCredentials credentials, KeyExtent extent, Set<Column> columnSet, List<IterInfo> ssiList, Map<String,Map<String,String>> ssio, Authorizations authorizations, long readaheadThreshold) {
+  public ScanSession(TCredentials credentials, KeyExtent extent, Set<Column> columnSet, List<IterInfo> ssiList, Map<String,Map<String,String>> ssio, Authorizations authorizations, long readaheadThreshold, boolean packResults) {
     super(credentials);
     this.extent = extent;
     this.columnSet = columnSet;
@@ -53,6 +54,7 @@ public class ScanSession extends Session {
     this.ssio = ssio;
     this.auths = authorizations;
     this.readaheadThreshold = readaheadThreshold;
+    this.packResults = packResults;
   }
 
   @Override
@@ -35,11 +35,13 @@ public class CompactionInfo {
   private final String localityGroup;
   private final long entriesRead;
   private final long entriesWritten;
+  private final long throttledTime;
 
   CompactionInfo(Compactor compactor) {
     this.localityGroup = compactor.getCurrentLocalityGroup();
     this.entriesRead = compactor.getEntriesRead();
     this.entriesWritten = compactor.getEntriesWritten();
+    this.throttledTime = compactor.getThrottledTime();
     this.compactor = compactor;
   }
 
@@ -59,6 +61,13 @@ public class CompactionInfo {
     return entriesWritten;
   }
 
+  /**
+   * @return milliseconds the compaction has waited for its read and write rate limits
+   */
+  public long getThrottledTime() {
+    return throttledTime;
+  }
+
   public Thread getThread() {
     return compactor.thread;
   }
@@ -124,6 +133,6 @@ public class CompactionInfo {
     for (FileRef ref : compactor.getFilesToCompact())
       filesToCompact.add(ref.toString());
     return new ActiveCompaction(compactor.extent.toThrift(), System.currentTimeMillis() - compactor.getStartTime(), filesToCompact,
-        compactor.getOutputFile(), type, reason, localityGroup, entriesRead, entriesWritten, iiList, iterOptions);
+        compactor.getOutputFile(), type, reason, localityGroup, entriesRead, entriesWritten, iiList, iterOptions, throttledTime);
   }
 }
\ No newline at end of file
@@ -16,9 +16,10 @@
  */
 package org.apache.accumulo.tserver.tablet;
 
+import org.apache.accumulo.tserver.CompactionQueue;
 import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
 
-final class CompactionRunner implements Runnable, Comparable<CompactionRunner> {
+final class CompactionRunner implements Runnable, CompactionQueue.Prioritized {
 
   private final Tablet tablet;
   private final MajorCompactionReason reason;
@@ -59,18 +60,31 @@ final class CompactionRunner implements Runnable, Comparable<CompactionRunner> {
   }
 
   @Override
-  public int compareTo(CompactionRunner o) {
-    int cmp = reason.compareTo(o.reason);
-    if (cmp != 0)
-      return cmp;
+  public int getPriorityClass() {
+    return reason.ordinal();
+  }
 
-    if (reason == MajorCompactionReason.USER || reason == MajorCompactionReason.CHOP) {
-      // for these types of compactions want to do the oldest first
-      cmp = (int) (queued - o.queued);
-      if (cmp != 0)
-        return cmp;
-    }
+  @Override
+  public long getQueuedTime() {
+    return queued;
+  }
 
-    return o.getNumFiles() - this.getNumFiles();
+  /**
+   * User and chop compactions are done oldest first. Other compactions are scored by how many files a scan of the tablet has to read, weighted by how
+   * busy the tablet is, plus a point for every minute spent queued so idle tablets are not starved.
+   */
+  @Override
+  public double getScore(long now) {
+    double age = Math.max(0, now - queued) / 60000.0;
+    if (reason == MajorCompactionReason.USER || reason == MajorCompactionReason.CHOP)
+      return age;
+
+    double activity = tablet.scanRate() + tablet.queryRate();
+    return getNumFiles() * (1 + Math.log10(1 + activity)) + age;
+  }
+
+  @Override
+  public String toString() {
+    return tablet.getExtent() + " " + reason;
   }
-}
\ No newline at end of file
+}
@@ -16,10 +16,16 @@
  */
 package org.apache.accumulo.tserver.tablet;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
 public class CompactionStats {
   private long entriesRead;
   private long entriesWritten;
   private long fileSize;
+  private final Map<String,Long> localityGroupTimes = new LinkedHashMap<String,Long>();
   
   CompactionStats(long er, long ew) {
     this.setEntriesRead(er);
@@ -47,6 +53,22 @@ public class CompactionStats {
   public void add(CompactionStats mcs) {
     this.entriesRead += mcs.entriesRead;
     this.entriesWritten += mcs.entriesWritten;
+    for (Entry<String,Long> entry : mcs.localityGroupTimes.entrySet()) {
+      addLocalityGroupTime(entry.getKey(), entry.getValue());
+    }
+  }
+  
+  void addLocalityGroupTime(String localityGroup, long millis) {
+    Long time = localityGroupTimes.get(localityGroup);
+    localityGroupTimes.put(localityGroup, time == null ? millis : time + millis);
+  }
+  
+  /**
+   * @return milliseconds spent compacting each locality group, in the order they were compacted. The default locality group has an empty name. When groups
+   *         are compacted in parallel the times overlap, so they can add up to more than the time the compaction took.
+   */
+  public Map<String,Long> getLocalityGroupTimes() {
+    return Collections.unmodifiableMap(localityGroupTimes);
   }
   
   public void setFileSize(long fileSize) {
@@ -29,17 +29,23 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.FileOperations;
 import org.apache.accumulo.core.file.FileSKVIterator;
 import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
 import org.apache.accumulo.core.iterators.IteratorUtil;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
@@ -61,8 +67,11 @@ import org.apache.accumulo.trace.instrument.Trace;
 import org.apache.accumulo.tserver.InMemoryMap;
 import org.apache.accumulo.tserver.MinorCompactionReason;
 import org.apache.accumulo.tserver.TabletIteratorEnvironment;
+import org.apache.accumulo.tserver.TabletServerResourceManager.TabletResourceManager;
 import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
+import org.apache.accumulo.tserver.compaction.RateLimiter;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.log4j.Logger;
 
 public class Compactor implements Callable<CompactionStats> {
@@ -89,6 +98,10 @@ public class Compactor implements Callable<CompactionStats> {
   private final VolumeManager fs;
   protected final KeyExtent extent;
   private final List<IteratorSetting> iterators;
+  private final TabletResourceManager tabletResources;
+  private final List<RateLimiter> rateLimiters;
+  // set when a compaction ends, so locality groups still being compacted on other threads stop
+  private volatile boolean stopped = false;
 
   // things to report
   private String currentLocalityGroup = "";
@@ -98,6 +111,7 @@ public class Compactor implements Callable<CompactionStats> {
 
   private final AtomicLong entriesRead = new AtomicLong(0);
   private final AtomicLong entriesWritten = new AtomicLong(0);
+  private final AtomicLong throttledTime = new AtomicLong(0);
   private final DateFormat dateFormatter = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss.SSS");
 
   // a unique id to identify a compactor
@@ -117,6 +131,26 @@ public class Compactor implements Callable<CompactionStats> {
   private void clearStats() {
     entriesRead.set(0);
     entriesWritten.set(0);
+    throttledTime.set(0);
+  }
+
+  // bytes read and written between rate limiter calls
+  private static final long THROTTLE_BYTES = 64 * 1024;
+
+  /**
+   * Waits until the table and tablet server compaction rate limits allow the given number of bytes to be read or written.
+   */
+  private void throttle(long bytes) {
+    try {
+      for (RateLimiter limiter : rateLimiters) {
+        long waited = limiter.acquire(bytes);
+        if (waited > 0)
+          throttledTime.addAndGet(waited);
+      }
+    } catch (InterruptedException e) {
+      // let the compaction finish unthrottled, whoever interrupted can check the flag
+      Thread.currentThread().interrupt();
+    }
   }
 
   protected static final Set<Compactor> runningCompactions = Collections.synchronizedSet(new HashSet<Compactor>());
@@ -145,6 +179,8 @@ public class Compactor implements Callable<CompactionStats> {
     this.env = env;
     this.iterators = iterators;
     this.reason = reason;
+    this.tabletResources = tablet.getTabletResources();
+    this.rateLimiters = tabletResources.getCompactionRateLimiters();
 
     startTime = System.currentTimeMillis();
   }
@@ -173,6 +209,7 @@ public class Compactor implements Callable<CompactionStats> {
     boolean remove = runningCompactions.add(this);
 
     clearStats();
+    stopped = false;
 
     String oldThreadName = Thread.currentThread().getName();
     String newThreadName = "MajC compacting " + extent.toString() + " started " + dateFormatter.format(new Date()) + " file: " + outputFile;
@@ -194,16 +231,21 @@ public class Compactor implements Callable<CompactionStats> {
 
       HashSet<ByteSequence> allColumnFamilies = new HashSet<ByteSequence>();
 
-      if (mfw.supportsLocalityGroups()) {
-        for (Entry<String,Set<ByteSequence>> entry : lGroups.entrySet()) {
-          setLocalityGroup(entry.getKey());
-          compactLocalityGroup(entry.getKey(), entry.getValue(), true, mfw, majCStats);
-          allColumnFamilies.addAll(entry.getValue());
+      if (mfw.supportsLocalityGroups() && !lGroups.isEmpty() && imm == null && env.getIteratorScope() == IteratorScope.majc
+          && acuTableConf.getBoolean(Property.TABLE_MAJC_PARALLEL_GROUPS)) {
+        compactLocalityGroupsInParallel(lGroups, mfw, ns, majCStats);
+      } else {
+        if (mfw.supportsLocalityGroups()) {
+          for (Entry<String,Set<ByteSequence>> entry : lGroups.entrySet()) {
+            setLocalityGroup(entry.getKey());
+            majCStats.add(compactLocalityGroup(entry.getKey(), entry.getValue(), true, mfw));
+            allColumnFamilies.addAll(entry.getValue());
+          }
         }
-      }
 
-      setLocalityGroup("");
-      compactLocalityGroup(null, allColumnFamilies, false, mfw, majCStats);
+        setLocalityGroup("");
+        majCStats.add(compactLocalityGroup(null, allColumnFamilies, false, mfw));
+      }
 
       long t2 = System.currentTimeMillis();
 
@@ -222,6 +264,13 @@ public class Compactor implements Callable<CompactionStats> {
 
       log.debug(String.format("Compaction %s %,d read | %,d written | %,6d entries/sec | %6.3f secs", extent, majCStats.getEntriesRead(),
           majCStats.getEntriesWritten(), (int) (majCStats.getEntriesRead() / ((t2 - t1) / 1000.0)), (t2 - t1) / 1000.0));
+      if (log.isDebugEnabled() && majCStats.getLocalityGroupTimes().size() > 1) {
+        StringBuilder times = new StringBuilder();
+        for (Entry<String,Long> entry : majCStats.getLocalityGroupTimes().entrySet()) {
+          times.append(String.format(" %s=%.3f", entry.getKey().isEmpty() ? "<default>" : entry.getKey(), entry.getValue() / 1000.0));
+        }
+        log.debug("Compaction " + extent + " locality group secs :" + times);
+      }
 
       majCStats.setFileSize(fileFactory.getFileSize(outputFile.path().toString(), ns, ns.getConf(), acuTableConf));
       return majCStats;
@@ -232,6 +281,7 @@ public class Compactor implements Callable<CompactionStats> {
       log.error(e, e);
       throw e;
     } finally {
+      stopped = true;
       Thread.currentThread().setName(oldThreadName);
       if (remove) {
         thread = null;
@@ -305,10 +355,133 @@ public class Compactor implements Callable<CompactionStats> {
     return iters;
   }
 
-  private void compactLocalityGroup(String lgName, Set<ByteSequence> columnFamilies, boolean inclusive, FileSKVWriter mfw, CompactionStats majCStats)
+  /**
+   * Compacts the first locality group straight into the output file, while the other groups and the default group are compacted into staged files on other
+   * threads. The staged files are appended to the output file in order as they finish.
+   */
+  private void compactLocalityGroupsInParallel(Map<String,Set<ByteSequence>> lGroups, FileSKVWriter mfw, final FileSystem ns, CompactionStats majCStats)
+      throws IOException, CompactionCanceledException {
+    final FileOperations fileFactory = FileOperations.getInstance();
+    // staged files are rewritten once more, so do not spend time compressing them
+    final ConfigurationCopy stagingConf = new ConfigurationCopy(acuTableConf);
+    stagingConf.set(Property.TABLE_FILE_COMPRESSION_TYPE, "none");
+    stagingConf.set(Property.TABLE_FILE_COMPRESSION_DICTIONARY, "");
+    stagingConf.set(Property.TABLE_BLOOM_ENABLED, "false");
+
+    List<String> names = new ArrayList<String>(lGroups.keySet());
+    HashSet<ByteSequence> allColumnFamilies = new HashSet<ByteSequence>();
+    for (Set<ByteSequence> columnFamilies : lGroups.values())
+      allColumnFamilies.addAll(columnFamilies);
+    // the default group is staged last, under a null name
+    names.add(null);
+
+    List<Path> staged = new ArrayList<Path>();
+    List<Future<CompactionStats>> futures = new ArrayList<Future<CompactionStats>>();
+    try {
+      for (int i = 1; i < names.size(); i++) {
+        final String lgName = names.get(i);
+        final Set<ByteSequence> columnFamilies = lgName == null ? allColumnFamilies : lGroups.get(lgName);
+        // end the name in _tmp, so the staged file is removed when the tablet is next loaded if this server dies mid compaction
+        final Path part = new Path(outputFile.path() + "_lg" + i + "." + RFile.EXTENSION + "_tmp");
+        staged.add(part);
+        futures.add(tabletResources.submitLocalityGroupCompaction(new Callable<CompactionStats>() {
+          @Override
+          public CompactionStats call() throws Exception {
+            FileSKVWriter writer = fileFactory.openWriter(part.toString(), ns, ns.getConf(), stagingConf);
+            try {
+              return compactLocalityGroup(lgName, columnFamilies, lgName != null, writer);
+            } finally {
+              writer.close();
+            }
+          }
+        }));
+      }
+
+      setLocalityGroup(names.get(0));
+      majCStats.add(compactLocalityGroup(names.get(0), lGroups.get(names.get(0)), true, mfw));
+
+      for (int i = 1; i < names.size(); i++) {
+        String lgName = names.get(i);
+        CompactionStats lgStats = getStagedStats(futures.get(i - 1));
+
+        setLocalityGroup(lgName == null ? "" : lgName);
+        long t1 = System.currentTimeMillis();
+        if (lgName == null)
+          mfw.startDefaultLocalityGroup();
+        else
+          mfw.startNewLocalityGroup(lgName, lGroups.get(lgName));
+
+        FileSKVIterator reader = fileFactory.openReader(staged.get(i - 1).toString(), false, ns, ns.getConf(), stagingConf);
+        try {
+          reader.seek(new Range(), Collections.<ByteSequence> emptySet(), false);
+          long bytes = 0;
+          while (reader.hasTop()) {
+            if (!env.isCompactionEnabled())
+              throw new CompactionCanceledException();
+            Key key = reader.getTopKey();
+            Value value = reader.getTopValue();
+            mfw.append(key, value);
+            // the staged entry is read and written again
+            bytes += 2 * (key.getSize() + value.getSize());
+            reader.next();
+            if (bytes >= THROTTLE_BYTES) {
+              throttle(bytes);
+              bytes = 0;
+            }
+          }
+          throttle(bytes);
+        } finally {
+          reader.close();
+        }
+        lgStats.addLocalityGroupTime(lgName == null ? "" : lgName, System.currentTimeMillis() - t1);
+        majCStats.add(lgStats);
+      }
+    } finally {
+      stopped = true;
+      for (Future<CompactionStats> future : futures) {
+        // wait for staged files to be closed before deleting them
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ExecutionException e) {
+          // already reported by getStagedStats, or the compaction failed for another reason
+        }
+      }
+      for (Path part : staged) {
+        try {
+          fs.deleteRecursively(part);
+        } catch (IOException e) {
+          log.warn("Unable to delete staged compaction file " + part, e);
+        }
+      }
+    }
+  }
+
+  private static CompactionStats getStagedStats(Future<CompactionStats> future) throws IOException, CompactionCanceledException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted waiting for locality group compaction", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      if (cause instanceof CompactionCanceledException)
+        throw (CompactionCanceledException) cause;
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      throw new IOException(cause);
+    }
+  }
+
+  private CompactionStats compactLocalityGroup(String lgName, Set<ByteSequence> columnFamilies, boolean inclusive, FileSKVWriter mfw)
       throws IOException, CompactionCanceledException {
     ArrayList<FileSKVIterator> readers = new ArrayList<FileSKVIterator>(filesToCompact.size());
     Span span = Trace.start("compact");
+    long t1 = System.currentTimeMillis();
     try {
       long entriesCompacted = 0;
       List<SortedKeyValueIterator<Key,Value>> iters = openMapDataFiles(lgName, readers);
@@ -342,10 +515,16 @@ public class Compactor implements Callable<CompactionStats> {
         mfw.startNewLocalityGroup(lgName, columnFamilies);
       }
 
+      CompactionStats lgMajcStats;
       Span write = Trace.start("write");
       try {
-        while (itr.hasTop() && env.isCompactionEnabled()) {
-          mfw.append(itr.getTopKey(), itr.getTopValue());
+        long bytesWritten = 0;
+        long bytesThrottled = 0;
+        while (itr.hasTop() && env.isCompactionEnabled() && !stopped) {
+          Key key = itr.getTopKey();
+          Value value = itr.getTopValue();
+          mfw.append(key, value);
+          bytesWritten += key.getSize() + value.getSize();
           itr.next();
           entriesCompacted++;
 
@@ -353,28 +532,26 @@ public class Compactor implements Callable<CompactionStats> {
             // Periodically update stats, do not want to do this too often since its volatile
             entriesWritten.addAndGet(1024);
           }
-        }
 
-        if (itr.hasTop() && !env.isCompactionEnabled()) {
-          // cancel major compaction operation
-          try {
-            try {
-              mfw.close();
-            } catch (IOException e) {
-              log.error(e, e);
-            }
-            fs.deleteRecursively(outputFile.path());
-          } catch (Exception e) {
-            log.warn("Failed to delete Canceled compaction output file " + outputFile, e);
+          long bytes = citr.getBytesRead() + bytesWritten - bytesThrottled;
+          if (bytes >= THROTTLE_BYTES) {
+            throttle(bytes);
+            bytesThrottled += bytes;
           }
+        }
+        throttle(citr.getBytesRead() + bytesWritten - bytesThrottled);
+
+        if (itr.hasTop()) {
+          // cancel major compaction operation, call() closes and deletes the output file
           throw new CompactionCanceledException();
         }
 
       } finally {
-        CompactionStats lgMajcStats = new CompactionStats(citr.getCount(), entriesCompacted);
-        majCStats.add(lgMajcStats);
+        lgMajcStats = new CompactionStats(citr.getCount(), entriesCompacted);
+        lgMajcStats.addLocalityGroupTime(lgName == null ? "" : lgName, System.currentTimeMillis() - t1);
         write.stop();
       }
+      return lgMajcStats;
 
     } finally {
       // close sequence files opened
@@ -409,6 +586,10 @@ public class Compactor implements Callable<CompactionStats> {
     return entriesWritten.get();
   }
 
+  long getThrottledTime() {
+    return throttledTime.get();
+  }
+
   long getStartTime() {
     return startTime;
   }
@@ -30,6 +30,7 @@ import org.apache.accumulo.core.iterators.WrappingIterator;
 public class CountingIterator extends WrappingIterator {
 
   private long count;
+  private long bytes;
   private final ArrayList<CountingIterator> deepCopies;
   private final AtomicLong entriesRead;
 
@@ -60,6 +61,7 @@ public class CountingIterator extends WrappingIterator {
 
   @Override
   public void next() throws IOException {
+    bytes += getTopKey().getSize() + getTopValue().getSize();
     super.next();
     count++;
     if (count % 1024 == 0) {
@@ -75,4 +77,16 @@ public class CountingIterator extends WrappingIterator {
 
     return count + sum;
   }
+
+  /**
+   * @return the size of the keys and values read so far
+   */
+  public long getBytesRead() {
+    long sum = bytes;
+    for (CountingIterator dc : deepCopies) {
+      sum += dc.bytes;
+    }
+
+    return sum;
+  }
 }
\ No newline at end of file
@@ -25,7 +25,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.EnumSet;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -117,7 +117,6 @@ import org.apache.accumulo.tserver.TabletServer;
 import org.apache.accumulo.tserver.TabletServerResourceManager.TabletResourceManager;
 import org.apache.accumulo.tserver.TabletStatsKeeper;
 import org.apache.accumulo.tserver.TabletStatsKeeper.Operation;
-import org.apache.accumulo.tserver.TooManyFilesException;
 import org.apache.accumulo.tserver.TservConstraintEnv;
 import org.apache.accumulo.tserver.compaction.CompactionPlan;
 import org.apache.accumulo.tserver.compaction.CompactionStrategy;
@@ -125,6 +124,7 @@ import org.apache.accumulo.tserver.compaction.DefaultCompactionStrategy;
 import org.apache.accumulo.tserver.compaction.MajorCompactionReason;
 import org.apache.accumulo.tserver.compaction.MajorCompactionRequest;
 import org.apache.accumulo.tserver.compaction.WriteParameters;
+import org.apache.accumulo.tserver.compaction.WriteStatistics;
 import org.apache.accumulo.tserver.constraints.ConstraintChecker;
 import org.apache.accumulo.tserver.log.DfsLogger;
 import org.apache.accumulo.tserver.log.MutationReceiver;
@@ -192,13 +192,15 @@ public class Tablet implements TabletCommitter {
   private volatile CompactionState minorCompactionState = null;
   private volatile CompactionState majorCompactionState = null;
 
-  private final Set<MajorCompactionReason> majorCompactionQueued = Collections.synchronizedSet(EnumSet.noneOf(MajorCompactionReason.class));
+  private final Map<MajorCompactionReason,CompactionRunner> majorCompactionQueued = Collections
+      .synchronizedMap(new EnumMap<MajorCompactionReason,CompactionRunner>(MajorCompactionReason.class));
   
   private final AtomicReference<ConstraintChecker> constraintChecker = new AtomicReference<ConstraintChecker>();
 
   private int writesInProgress = 0;
 
   private final TabletStatsKeeper timer = new TabletStatsKeeper();
+  private final WriteStatistics writeStatistics = new WriteStatistics();
 
   private final Rate queryRate = new Rate(0.2);
   private long queryCount = 0;
@@ -730,11 +732,6 @@ public class Tablet implements TabletCommitter {
           mmfi.next();
         }
 
-      } catch (TooManyFilesException tmfe) {
-        // treat this as a closed tablet, and let the client retry
-        log.warn("Tablet " + getExtent() + " has too many files, batch lookup can not run");
-        handleTabletClosedDuringScan(results, lookupResult, exceededMemoryUsage, range, entriesAdded);
-        tabletClosed = true;
       } catch (IOException ioe) {
         if (shutdownInProgress()) {
           // assume HDFS shutdown hook caused this exception
@@ -937,6 +934,7 @@ public class Tablet implements TabletCommitter {
       } finally {
         span.stop();
       }
+      writeStatistics.minorCompacted(stats.getFileSize());
       return new DataFileValue(stats.getFileSize(), stats.getEntriesWritten());
     } catch (Exception e) {
       failed = true;
@@ -1536,13 +1534,14 @@ public class Tablet implements TabletCommitter {
 
   public synchronized boolean initiateMajorCompaction(MajorCompactionReason reason) {
 
-    if (isClosing() || isClosed() || !needsMajorCompaction(reason) || isMajorCompactionRunning() || majorCompactionQueued.contains(reason)) {
+    if (isClosing() || isClosed() || !needsMajorCompaction(reason) || isMajorCompactionRunning() || majorCompactionQueued.containsKey(reason)) {
       return false;
     }
 
-    majorCompactionQueued.add(reason);
+    CompactionRunner runner = new CompactionRunner(this, reason);
+    majorCompactionQueued.put(reason, runner);
 
-    getTabletResources().executeMajorCompaction(getExtent(), new CompactionRunner(this, reason));
+    getTabletResources().executeMajorCompaction(getExtent(), runner);
 
     return false;
   }
@@ -1556,7 +1555,7 @@ public class Tablet implements TabletCommitter {
       return false;
     if (reason == MajorCompactionReason.CHOP || reason == MajorCompactionReason.USER)
       return true;
-    return getTabletResources().needsMajorCompaction(getDatafileManager().getDatafileSizes(), reason);
+    return getTabletResources().needsMajorCompaction(getDatafileManager().getDatafileSizes(), writeStatistics, reason);
   }
 
   /**
@@ -1603,9 +1602,20 @@ public class Tablet implements TabletCommitter {
 
     SortedMap<Double,Key> keys = null;
 
+    try {
+      // estimate from sampled index entries first, this does not merge the indexes of every file
+      Map<FileRef,DataFileValue> fileSizes = new HashMap<FileRef,DataFileValue>(getDatafileManager().getDatafileSizes());
+      fileSizes.keySet().retainAll(files);
+      keys = FileUtil.findApproximateMidPoint(getTabletServer().getFileSystem(), getTabletServer().getSystemConfiguration(), extent.getPrevEndRow(),
+          extent.getEndRow(), fileSizes, .25);
+    } catch (IOException e) {
+      log.debug("Failed to estimate midpoint, using index files " + e.getMessage());
+    }
+
     try {
       // we should make .25 below configurable
-      keys = FileUtil.findMidPoint(getTabletServer().getFileSystem(), getTabletServer().getSystemConfiguration(), extent.getPrevEndRow(), extent.getEndRow(), FileUtil.toPathStrings(files), .25);
+      if (keys == null)
+        keys = FileUtil.findMidPoint(getTabletServer().getFileSystem(), getTabletServer().getSystemConfiguration(), extent.getPrevEndRow(), extent.getEndRow(), FileUtil.toPathStrings(files), .25);
     } catch (IOException e) {
       log.error("Failed to find midpoint " + e.getMessage());
       return null;
@@ -1747,6 +1757,7 @@ public class Tablet implements TabletCommitter {
     } else if (reason != MajorCompactionReason.USER) {
       MajorCompactionRequest request = new MajorCompactionRequest(extent, reason, getTabletServer().getFileSystem(), tableConfiguration);
       request.setFiles(getDatafileManager().getDatafileSizes());
+      request.setWriteStatistics(writeStatistics);
       strategy.gatherInformation(request);
     }
 
@@ -1792,6 +1803,7 @@ public class Tablet implements TabletCommitter {
       } else {
         MajorCompactionRequest request = new MajorCompactionRequest(extent, reason, fs, tableConfiguration);
         request.setFiles(allFiles);
+        request.setWriteStatistics(writeStatistics);
         plan = strategy.getCompactionPlan(request);
         if (plan != null)
           inputFiles.addAll(plan.inputFiles);
@@ -1898,6 +1910,7 @@ public class Tablet implements TabletCommitter {
           span.data("read", "" + mcs.getEntriesRead());
           span.data("written", "" + mcs.getEntriesWritten());
           majCStats.add(mcs);
+          writeStatistics.majorCompacted(mcs.getFileSize());
 
           if (lastBatch && plan != null && plan.deleteFiles != null) {
             smallestFiles.addAll(plan.deleteFiles);
@@ -2210,6 +2223,10 @@ public class Tablet implements TabletCommitter {
     return ingestRate.rate();
   }
 
+  public double writeAmplification() {
+    return writeStatistics.getWriteAmplification();
+  }
+
   public double ingestByteRate() {
     return ingestByteRate.rate();
   }
@@ -2218,6 +2235,19 @@ public class Tablet implements TabletCommitter {
     return scannedRate.rate();
   }
 
+  /**
+   * @return the highest score of this tablet's queued major compactions, or 0 if none are queued
+   */
+  public double majorCompactionScore() {
+    long now = System.currentTimeMillis();
+    double score = 0;
+    synchronized (majorCompactionQueued) {
+      for (CompactionRunner runner : majorCompactionQueued.values())
+        score = Math.max(score, runner.getScore(now));
+    }
+    return score;
+  }
+
   public long totalQueries() {
     return this.queryCount;
   }
@@ -2448,7 +2478,7 @@ public class Tablet implements TabletCommitter {
       if (lastCompactID >= compactionId)
         return;
 
-      if (isClosing() || isClosed() || majorCompactionQueued.contains(MajorCompactionReason.USER) || isMajorCompactionRunning())
+      if (isClosing() || isClosed() || majorCompactionQueued.containsKey(MajorCompactionReason.USER) || isMajorCompactionRunning())
         return;
 
       if (getDatafileManager().getDatafileSizes().size() == 0) {
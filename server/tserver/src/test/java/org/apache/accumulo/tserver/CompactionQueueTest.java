@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CompactionQueueTest {
+
+  private static class Task implements Runnable, CompactionQueue.Prioritized {
+    final String name;
+    final int priorityClass;
+    final long queued;
+    double score;
+
+    Task(String name, int priorityClass, long queued, double score) {
+      this.name = name;
+      this.priorityClass = priorityClass;
+      this.queued = queued;
+      this.score = score;
+    }
+
+    @Override
+    public void run() {}
+
+    @Override
+    public int getPriorityClass() {
+      return priorityClass;
+    }
+
+    @Override
+    public long getQueuedTime() {
+      return queued;
+    }
+
+    @Override
+    public double getScore(long now) {
+      return score;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private static String drain(CompactionQueue queue) {
+    StringBuilder sb = new StringBuilder();
+    Runnable r;
+    while ((r = queue.poll()) != null)
+      sb.append(r);
+    return sb.toString();
+  }
+
+  @Test
+  public void testOrder() {
+    CompactionQueue queue = new CompactionQueue();
+    queue.add(new Task("a", 2, 1, 15));
+    queue.add(new Task("b", 2, 2, 300));
+    queue.add(new Task("c", 0, 3, 0));
+    queue.add(new Task("d", 2, 0, 15));
+    queue.add(new Task("e", 1, 4, 1));
+    assertEquals(5, queue.size());
+    assertEquals("c", queue.peek().toString());
+    assertEquals("cebda", drain(queue));
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testRescore() {
+    CompactionQueue queue = new CompactionQueue();
+    Task a = new Task("a", 2, 0, 10);
+    Task b = new Task("b", 2, 1, 5);
+    queue.add(a);
+    queue.add(b);
+    assertEquals("a", queue.peek().toString());
+    // scores are computed again each time a task is taken
+    b.score = 20;
+    assertEquals("b", queue.peek().toString());
+
+    Iterator<Runnable> iter = queue.iterator();
+    assertEquals("b", iter.next().toString());
+    assertEquals("a", iter.next().toString());
+  }
+
+  @Test
+  public void testDrainAndIterate() {
+    CompactionQueue queue = new CompactionQueue();
+    queue.add(new Task("a", 2, 0, 1));
+    queue.add(new Task("b", 2, 0, 3));
+    queue.add(new Task("c", 2, 0, 2));
+
+    Iterator<Runnable> iter = queue.iterator();
+    assertEquals("b", iter.next().toString());
+    iter.remove();
+    assertEquals(2, queue.size());
+
+    List<Runnable> drained = new ArrayList<Runnable>();
+    assertEquals(1, queue.drainTo(drained, 1));
+    assertEquals("c", drained.get(0).toString());
+    assertEquals("a", drain(queue));
+  }
+}
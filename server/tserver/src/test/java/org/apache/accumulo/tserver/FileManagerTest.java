@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.server.conf.ServerConfiguration;
+import org.apache.hadoop.io.Text;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileManagerTest {
+
+  private static final Text TABLE = new Text("1");
+
+  // names of files whose readers were closed, in the order they were closed
+  private final List<String> closed = new CopyOnWriteArrayList<String>();
+
+  private class TestReader implements FileSKVIterator {
+    final String file;
+
+    TestReader(String file) {
+      this.file = file;
+    }
+
+    @Override
+    public void close() {
+      closed.add(file);
+    }
+
+    @Override
+    public void closeDeepCopies() {}
+
+    @Override
+    public Key getFirstKey() {
+      return null;
+    }
+
+    @Override
+    public Key getLastKey() {
+      return null;
+    }
+
+    @Override
+    public DataInputStream getMetaStore(String name) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void setInterruptFlag(AtomicBoolean flag) {}
+
+    @Override
+    public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasTop() {
+      return false;
+    }
+
+    @Override
+    public void next() {}
+
+    @Override
+    public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) {}
+
+    @Override
+    public Key getTopKey() {
+      return null;
+    }
+
+    @Override
+    public Value getTopValue() {
+      return null;
+    }
+
+    @Override
+    public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private FileManager fileManager;
+
+  @Before
+  public void setUp() {
+    ServerConfiguration conf = createMock(ServerConfiguration.class);
+    expect(conf.getConfiguration()).andReturn(AccumuloConfiguration.getDefaultConfiguration()).anyTimes();
+    replay(conf);
+
+    fileManager = new FileManager(conf, null, 2, null, null) {
+      @Override
+      FileSKVIterator openReader(String file, Text table) {
+        return new TestReader(file);
+      }
+    };
+  }
+
+  private List<FileSKVIterator> reserve(boolean holdingReaders, String... files) throws IOException {
+    return fileManager.reserveReaders(TABLE, Arrays.asList(files), false, holdingReaders);
+  }
+
+  @Test(timeout = 30000)
+  public void testSoftLimitReclaimsLeastRecentlyUsed() throws Exception {
+    // leave two idle readers, a released before b
+    List<FileSKVIterator> a = reserve(false, "file:/a");
+    List<FileSKVIterator> b = reserve(false, "file:/b");
+    fileManager.releaseReaders(a, false);
+    Thread.sleep(10);
+    fileManager.releaseReaders(b, false);
+    assertEquals(2, fileManager.getOpenReaders());
+
+    // opening c closes the least recently used idle reader
+    List<FileSKVIterator> held = reserve(false, "file:/c");
+    assertEquals(Arrays.asList("file:/a"), closed);
+
+    // a scan not holding readers waits, since two more would go over the limit
+    final AtomicReference<List<FileSKVIterator>> waiterReaders = new AtomicReference<List<FileSKVIterator>>();
+    Thread waiter = new Thread() {
+      @Override
+      public void run() {
+        try {
+          waiterReaders.set(reserve(false, "file:/d", "file:/e"));
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    waiter.start();
+    while (waiter.getState() != Thread.State.WAITING)
+      Thread.sleep(10);
+
+    // a scan already holding readers is not made to wait, and may go over the limit
+    List<FileSKVIterator> more = reserve(true, "file:/f", "file:/g");
+    assertEquals(Arrays.asList("file:/a", "file:/b"), closed);
+    assertEquals(3, fileManager.getOpenReaders());
+    assertEquals(Thread.State.WAITING, waiter.getState());
+
+    // releasing while over the limit closes idle readers to get back under it
+    fileManager.releaseReaders(held, false);
+    assertEquals(Arrays.asList("file:/a", "file:/b", "file:/c"), closed);
+
+    // once enough are released the waiter runs, and its readers replace the idle ones
+    fileManager.releaseReaders(more, false);
+    waiter.join();
+
+    assertEquals(5, closed.size());
+    assertEquals(Arrays.asList("file:/a", "file:/b", "file:/c"), closed.subList(0, 3));
+    assertEquals(new HashSet<String>(Arrays.asList("file:/f", "file:/g")), new HashSet<String>(closed.subList(3, 5)));
+    assertEquals(2, waiterReaders.get().size());
+
+    fileManager.releaseReaders(waiterReaders.get(), false);
+    assertEquals(2, fileManager.getOpenReaders());
+    assertEquals(5, fileManager.getReaderEvictions());
+    assertEquals(7, fileManager.getReaderOpens());
+    assertEquals(0, fileManager.getReaderReuses());
+  }
+
+  @Test(timeout = 30000)
+  public void testIdleReadersReused() throws Exception {
+    List<FileSKVIterator> first = reserve(false, "file:/a");
+    fileManager.releaseReaders(first, false);
+
+    List<FileSKVIterator> second = reserve(false, "file:/a");
+    assertEquals(first, second);
+    fileManager.releaseReaders(second, false);
+
+    assertEquals(1, fileManager.getReaderOpens());
+    assertEquals(1, fileManager.getReaderReuses());
+    assertTrue(closed.isEmpty());
+  }
+}
@@ -378,6 +378,53 @@ public class InMemoryMapTest {
     }
   }
 
+  @Test
+  public void testConcurrentWrites() throws Exception {
+    Map<String,Set<ByteSequence>> lggroups = new HashMap<String,Set<ByteSequence>>();
+    lggroups.put("lg1", newCFSet("cf1"));
+
+    final InMemoryMap imm = new InMemoryMap(lggroups, false, true, tempFolder.newFolder().getAbsolutePath());
+
+    final int numThreads = 4;
+    final int numMutations = 1000;
+    ExecutorService e = Executors.newFixedThreadPool(numThreads);
+    for (int j = 0; j < numThreads; j++) {
+      final int threadId = j;
+      e.execute(new Runnable() {
+        @Override
+        public void run() {
+          for (int k = 0; k < numMutations; k++) {
+            Mutation m = new Mutation(String.format("r%d_%05d", threadId, k));
+            m.put("cf1", "x", 1, "1");
+            m.put("cf2", "y", 1, "2");
+            imm.mutate(Collections.singletonList(m));
+          }
+        }
+      });
+    }
+
+    // every snapshot taken while writers are running must contain whole mutations
+    while (!e.isTerminated()) {
+      MemoryIterator iter = imm.skvIterator();
+      iter.seek(new Range(), LocalityGroupUtil.EMPTY_CF_SET, false);
+      Map<Text,Integer> counts = new HashMap<Text,Integer>();
+      while (iter.hasTop()) {
+        Text row = iter.getTopKey().getRow();
+        Integer count = counts.get(row);
+        counts.put(row, count == null ? 1 : count + 1);
+        iter.next();
+      }
+      for (Integer count : counts.values())
+        assertEquals(2, count.intValue());
+      iter.close();
+      e.shutdown();
+      e.awaitTermination(10, TimeUnit.MILLISECONDS);
+    }
+
+    assertEquals(numThreads * numMutations * 2, imm.getNumEntries());
+    imm.delete(0);
+  }
+
   @Test
   public void testLocalityGroups() throws Exception {
 
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.apache.accumulo.core.data.ColumnUpdate;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.util.LocalityGroupUtil;
+import org.junit.Test;
+
+public class OffHeapMapTest {
+
+  private static void insert(OffHeapMap ohm, TreeMap<Key,Value> expected, Mutation m, int kvCount) {
+    int kv = kvCount;
+    for (ColumnUpdate cvp : m.getUpdates()) {
+      expected.put(new MemKey(m.getRow(), cvp.getColumnFamily(), cvp.getColumnQualifier(), cvp.getColumnVisibility(), cvp.getTimestamp(), cvp.isDeleted(),
+          false, kv++), new Value(cvp.getValue()));
+    }
+    ohm.mutate(Collections.singletonList(m), kvCount);
+  }
+
+  private static void verify(TreeMap<Key,Value> expected, Iterator<Entry<Key,Value>> iter) {
+    for (Entry<Key,Value> entry : expected.entrySet()) {
+      assertTrue(iter.hasNext());
+      Entry<Key,Value> actual = iter.next();
+      assertEquals(entry.getKey(), actual.getKey());
+      assertEquals(((MemKey) entry.getKey()).kvCount, ((MemKey) actual.getKey()).kvCount);
+      assertEquals(entry.getValue(), actual.getValue());
+    }
+    assertFalse(iter.hasNext());
+  }
+
+  @Test
+  public void testRandom() throws Exception {
+    Random rand = new Random(42);
+    OffHeapMap ohm = new OffHeapMap();
+    TreeMap<Key,Value> expected = new TreeMap<Key,Value>(new MemKeyComparator());
+
+    int kvCount = 1;
+    for (int i = 0; i < 5000; i++) {
+      Mutation m = new Mutation("r" + rand.nextInt(100));
+      for (int j = 0; j < 3; j++) {
+        // some values are larger than a chunk
+        byte[] val = new byte[rand.nextInt(100) == 0 ? OffHeapMap.MAX_CHUNK_SIZE + 10 : rand.nextInt(50)];
+        rand.nextBytes(val);
+        if (rand.nextInt(5) == 0)
+          m.putDelete("f" + rand.nextInt(3), "q" + rand.nextInt(5), rand.nextInt(4));
+        else
+          m.put(("f" + rand.nextInt(3)).getBytes(), ("q" + rand.nextInt(5)).getBytes(), rand.nextInt(4), val);
+      }
+      insert(ohm, expected, m, kvCount);
+      kvCount += m.size();
+    }
+
+    assertEquals(expected.size(), ohm.size());
+    verify(expected, ohm.iterator());
+
+    List<Key> keys = new ArrayList<Key>(expected.keySet());
+    for (int i = 0; i < 100; i++) {
+      Key key = keys.get(rand.nextInt(keys.size()));
+      assertEquals(expected.get(key), ohm.get(key));
+      verify(expected.tailMap(key, true), ohm.iterator(key));
+    }
+
+    ohm.delete();
+  }
+
+  @Test
+  public void testSeek() throws Exception {
+    OffHeapMap ohm = new OffHeapMap();
+    TreeMap<Key,Value> expected = new TreeMap<Key,Value>(new MemKeyComparator());
+
+    int kvCount = 1;
+    for (int i = 0; i < 100; i++) {
+      Mutation m = new Mutation(String.format("r%03d", i));
+      m.put("cf", "cq", 1, "v" + i);
+      m.put("cf", "cq", 2, "w" + i);
+      insert(ohm, expected, m, kvCount);
+      kvCount += m.size();
+    }
+
+    SortedKeyValueIterator<Key,Value> iter = ohm.skvIterator();
+    iter.seek(new Range("r010", "r012"), LocalityGroupUtil.EMPTY_CF_SET, false);
+    for (int i = 10; i <= 12; i++) {
+      assertTrue(iter.hasTop());
+      assertEquals(new Key(String.format("r%03d", i), "cf", "cq", 2), iter.getTopKey());
+      assertEquals(new Value(("w" + i).getBytes()), iter.getTopValue());
+      iter.next();
+      assertTrue(iter.hasTop());
+      assertEquals(new Key(String.format("r%03d", i), "cf", "cq", 1), iter.getTopKey());
+      iter.next();
+    }
+    assertFalse(iter.hasTop());
+
+    // a deep copy iterates independently
+    SortedKeyValueIterator<Key,Value> copy = iter.deepCopy(null);
+    copy.seek(new Range(new Key("r099", "cf", "cq", 1), null), LocalityGroupUtil.EMPTY_CF_SET, false);
+    assertTrue(copy.hasTop());
+    assertEquals(new Key("r099", "cf", "cq", 1), copy.getTopKey());
+    copy.next();
+    assertFalse(copy.hasTop());
+
+    ohm.delete();
+  }
+
+  @Test
+  public void testMemoryUsed() throws Exception {
+    OffHeapMap ohm = new OffHeapMap();
+    Mutation m = new Mutation("r1");
+    m.put("cf", "cq", "v");
+    ohm.mutate(Collections.singletonList(m), 1);
+    assertEquals(OffHeapMap.MIN_CHUNK_SIZE, ohm.getMemoryUsed());
+    ohm.delete();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testDeleted() throws Exception {
+    OffHeapMap ohm = new OffHeapMap();
+    ohm.delete();
+    ohm.size();
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.compaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.metadata.schema.DataFileValue;
+import org.apache.accumulo.server.fs.FileRef;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class CostBasedCompactionStrategyTest {
+
+  private static final long MB = 1024 * 1024;
+
+  private static MajorCompactionRequest createRequest(MajorCompactionReason reason, Object... objs) {
+    Map<FileRef,DataFileValue> files = new HashMap<FileRef,DataFileValue>();
+    for (int i = 0; i < objs.length; i += 2) {
+      files.put(new FileRef("hdfs://nn1/accumulo/tables/5/t-0001/" + (String) objs[i]), new DataFileValue(((Number) objs[i + 1]).longValue(), 0));
+    }
+    MajorCompactionRequest request = new MajorCompactionRequest(new KeyExtent(new Text("0"), null, null), reason, null,
+        AccumuloConfiguration.getDefaultConfiguration());
+    request.setFiles(files);
+    return request;
+  }
+
+  private static CostBasedCompactionStrategy createStrategy(String... options) {
+    Map<String,String> opts = new HashMap<String,String>();
+    for (int i = 0; i < options.length; i += 2)
+      opts.put(options[i], options[i + 1]);
+    CostBasedCompactionStrategy strategy = new CostBasedCompactionStrategy();
+    strategy.init(opts);
+    return strategy;
+  }
+
+  private static Set<String> asSet(String... strings) {
+    HashSet<String> result = new HashSet<String>();
+    for (String string : strings)
+      result.add("hdfs://nn1/accumulo/tables/5/t-0001/" + string);
+    return result;
+  }
+
+  private static Set<String> plan(CompactionStrategy strategy, MajorCompactionRequest request) throws IOException {
+    Collection<FileRef> refs = strategy.getCompactionPlan(request).inputFiles;
+    HashSet<String> result = new HashSet<String>();
+    for (FileRef ref : refs)
+      result.add(ref.path().toString());
+    return result;
+  }
+
+  @Test
+  public void testTiered() throws Exception {
+    CompactionStrategy s = createStrategy(CostBasedCompactionStrategy.FANOUT_OPT, "3");
+
+    // three small files are in the same tier
+    MajorCompactionRequest request = createRequest(MajorCompactionReason.NORMAL, "a", MB / 2, "b", MB / 3, "c", MB, "big", 100 * MB);
+    assertTrue(s.shouldCompact(request));
+    assertEquals(asSet("a", "b", "c"), plan(s, request));
+
+    // two files per tier is fine
+    request = createRequest(MajorCompactionReason.NORMAL, "a", MB, "b", MB, "c", 2 * MB, "d", 3 * MB, "big", 100 * MB);
+    assertFalse(s.shouldCompact(request));
+
+    // the smallest full tier is compacted first
+    request = createRequest(MajorCompactionReason.NORMAL, "a", MB, "c", 2 * MB, "d", 3 * MB, "e", 3 * MB);
+    assertEquals(asSet("c", "d", "e"), plan(s, request));
+  }
+
+  @Test
+  public void testLeveled() throws Exception {
+    CompactionStrategy s = createStrategy(CostBasedCompactionStrategy.MODE_OPT, "leveled", CostBasedCompactionStrategy.FANOUT_OPT, "10");
+
+    // each file is at least ten times larger than the files below it
+    MajorCompactionRequest request = createRequest(MajorCompactionReason.NORMAL, "a", 1, "b", 10, "c", 110, "d", 1300);
+    assertFalse(s.shouldCompact(request));
+
+    // c is too small, so everything up to c is compacted
+    request = createRequest(MajorCompactionReason.NORMAL, "a", 1, "b", 10, "c", 100, "d", 1200);
+    assertEquals(asSet("a", "b", "c"), plan(s, request));
+  }
+
+  @Test
+  public void testReadAmplification() throws Exception {
+    CompactionStrategy s = createStrategy(CostBasedCompactionStrategy.MAX_READ_AMP_OPT, "3");
+
+    // every file is in its own tier, but there are too many files so the smallest are merged
+    MajorCompactionRequest request = createRequest(MajorCompactionReason.NORMAL, "a", MB, "b", 5 * MB, "c", 20 * MB, "d", 100 * MB, "e", 1000 * MB);
+    assertEquals(asSet("a", "b", "c"), plan(s, request));
+  }
+
+  @Test
+  public void testWriteAmplification() throws Exception {
+    CompactionStrategy s = createStrategy(CostBasedCompactionStrategy.MAX_WRITE_AMP_OPT, "2", CostBasedCompactionStrategy.MAX_READ_AMP_OPT, "4");
+
+    MajorCompactionRequest request = createRequest(MajorCompactionReason.NORMAL, "a", MB, "b", MB, "c", MB, "d", MB, "e", 100 * MB);
+    assertEquals(4, plan(s, request).size());
+
+    // once the target is reached, only compact enough to stay within the read amplification target
+    WriteStatistics stats = new WriteStatistics();
+    stats.minorCompacted(100);
+    stats.majorCompacted(150);
+    assertEquals(2.5, stats.getWriteAmplification(), 0.001);
+    request.setWriteStatistics(stats);
+    assertEquals(2, plan(s, request).size());
+
+    request = createRequest(MajorCompactionReason.NORMAL, "a", MB, "b", MB, "c", MB, "e", 100 * MB);
+    request.setWriteStatistics(stats);
+    assertFalse(s.shouldCompact(request));
+  }
+
+  @Test
+  public void testUserCompaction() throws Exception {
+    CompactionStrategy s = createStrategy();
+    MajorCompactionRequest request = createRequest(MajorCompactionReason.USER, "a", MB, "b", 100 * MB);
+    assertEquals(asSet("a", "b"), plan(s, request));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadMode() {
+    createStrategy(CostBasedCompactionStrategy.MODE_OPT, "random");
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.compaction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.Property;
+import org.junit.Test;
+
+public class RateLimiterTest {
+
+  @Test
+  public void testUnlimited() throws Exception {
+    ConfigurationCopy conf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    RateLimiter limiter = new RateLimiter(conf, Property.TSERV_COMPACTION_THROUGHPUT);
+    assertEquals(0, limiter.getRate());
+    assertEquals(0, limiter.acquire(1L << 40));
+  }
+
+  @Test
+  public void testLimited() throws Exception {
+    ConfigurationCopy conf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    conf.set(Property.TABLE_COMPACTION_THROUGHPUT, "100K");
+    RateLimiter limiter = new RateLimiter(conf, Property.TABLE_COMPACTION_THROUGHPUT);
+    assertEquals(100 * 1024, limiter.getRate());
+
+    // nothing has been saved up yet, so the caller waits for every byte
+    long start = System.currentTimeMillis();
+    long waited = limiter.acquire(10 * 1024) + limiter.acquire(10 * 1024);
+    long elapsed = System.currentTimeMillis() - start;
+    assertTrue("waited " + waited, waited >= 150);
+    assertTrue("elapsed " + elapsed, elapsed >= 150);
+  }
+
+  @Test
+  public void testRateChange() throws Exception {
+    ConfigurationCopy conf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    conf.set(Property.TSERV_COMPACTION_THROUGHPUT, "1K");
+    RateLimiter limiter = new RateLimiter(conf, Property.TSERV_COMPACTION_THROUGHPUT);
+    assertEquals(1024, limiter.getRate());
+
+    // changes are picked up within a second
+    conf.set(Property.TSERV_COMPACTION_THROUGHPUT, "0");
+    assertEquals(1024, limiter.getRate());
+    Thread.sleep(1100);
+    assertEquals(0, limiter.getRate());
+    assertEquals(0, limiter.acquire(1L << 30));
+  }
+}
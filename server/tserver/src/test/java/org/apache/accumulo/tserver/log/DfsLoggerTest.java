@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.accumulo.tserver.log.DfsLogger.LogWork;
+import org.junit.Test;
+
+public class DfsLoggerTest {
+
+  private static LogWork newWork() {
+    return new LogWork(new CountDownLatch(1));
+  }
+
+  /**
+   * Adds work to the queue from another thread after a delay.
+   */
+  private static Thread addLater(final LinkedBlockingQueue<LogWork> queue, final long delay, final LogWork... work) {
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        for (LogWork w : work)
+          queue.add(w);
+      }
+    };
+    thread.start();
+    return thread;
+  }
+
+  @Test(timeout = 10 * 1000)
+  public void testNoWait() throws Exception {
+    LinkedBlockingQueue<LogWork> queue = new LinkedBlockingQueue<LogWork>();
+    queue.add(newWork());
+    queue.add(newWork());
+
+    List<LogWork> work = new ArrayList<LogWork>();
+    DfsLogger.takeBatch(queue, work, 0, 100);
+    assertEquals(2, work.size());
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test(timeout = 10 * 1000)
+  public void testBatchSize() throws Exception {
+    LinkedBlockingQueue<LogWork> queue = new LinkedBlockingQueue<LogWork>();
+    queue.add(newWork());
+
+    // the batch is complete as soon as it holds three writes, long before the wait is over
+    Thread adder = addLater(queue, 100, newWork(), newWork());
+    List<LogWork> work = new ArrayList<LogWork>();
+    DfsLogger.takeBatch(queue, work, 60 * 1000, 3);
+    adder.join();
+    assertEquals(3, work.size());
+    assertEquals(3, DfsLogger.countWrites(work));
+
+    // writes that are already queued all join the batch, even past the size
+    for (int i = 0; i < 5; i++)
+      queue.add(newWork());
+    work.clear();
+    DfsLogger.takeBatch(queue, work, 60 * 1000, 3);
+    assertEquals(5, work.size());
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test(timeout = 10 * 1000)
+  public void testWaitTimeout() throws Exception {
+    LinkedBlockingQueue<LogWork> queue = new LinkedBlockingQueue<LogWork>();
+    queue.add(newWork());
+
+    List<LogWork> work = new ArrayList<LogWork>();
+    long start = System.currentTimeMillis();
+    DfsLogger.takeBatch(queue, work, 200, 100);
+    assertTrue(System.currentTimeMillis() - start >= 200);
+    assertEquals(1, work.size());
+  }
+
+  @Test(timeout = 10 * 1000)
+  public void testCloseWhileWaiting() throws Exception {
+    LinkedBlockingQueue<LogWork> queue = new LinkedBlockingQueue<LogWork>();
+    queue.add(newWork());
+
+    // closing ends the wait, and the marker does not count toward the batch size
+    Thread adder = addLater(queue, 100, newWork(), DfsLogger.CLOSED_MARKER);
+    List<LogWork> work = new ArrayList<LogWork>();
+    DfsLogger.takeBatch(queue, work, 60 * 1000, 100);
+    adder.join();
+    assertEquals(3, work.size());
+    assertSame(DfsLogger.CLOSED_MARKER, work.get(2));
+    assertEquals(2, DfsLogger.countWrites(work));
+
+    // a batch of only the marker has no writes, and nothing to wait for
+    work.clear();
+    queue.add(DfsLogger.CLOSED_MARKER);
+    DfsLogger.takeBatch(queue, work, 60 * 1000, 1);
+    assertEquals(1, work.size());
+    assertEquals(0, DfsLogger.countWrites(work));
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.log;
+
+import static org.apache.accumulo.tserver.logger.LogEvents.DEFINE_TABLET;
+import static org.apache.accumulo.tserver.logger.LogEvents.MUTATION;
+import static org.apache.accumulo.tserver.logger.LogEvents.OPEN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.server.fs.VolumeManager;
+import org.apache.accumulo.server.fs.VolumeManagerImpl;
+import org.apache.accumulo.tserver.logger.LogFileKey;
+import org.apache.accumulo.tserver.logger.LogFileValue;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.Text;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MergedLogFileTest {
+
+  VolumeManager fs;
+  Path dir;
+  TemporaryFolder root = new TemporaryFolder(new File(System.getProperty("user.dir") + "/target"));
+
+  private static void append(MergedLogFile.Writer writer, int seq) throws IOException {
+    LogFileKey key = new LogFileKey();
+    key.event = MUTATION;
+    key.tid = 1;
+    key.seq = seq;
+    LogFileValue value = new LogFileValue();
+    Mutation m = new Mutation("row" + seq);
+    // large enough that the merged file is indexed more than once
+    m.put("cf", "cq", new String(new char[200]).replace('\0', 'v'));
+    value.mutations = Collections.singletonList(m);
+    writer.append(key, value);
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    root.create();
+    String path = root.getRoot().getAbsolutePath() + "/merged";
+    fs = VolumeManagerImpl.getLocal(path);
+    dir = new Path("file://" + path);
+    fs.mkdirs(dir);
+
+    Path odd = new Path(dir, "_run-00000");
+    MergedLogFile.Writer oddWriter = new MergedLogFile.Writer(fs.create(odd), null);
+    for (int i = 1; i < 1000; i += 2) {
+      append(oddWriter, i);
+    }
+    oddWriter.close();
+
+    Path even = new Path(dir, "_run-00001");
+    MergedLogFile.Writer evenWriter = new MergedLogFile.Writer(fs.create(even), null);
+    for (int i = 0; i < 1000; i += 2) {
+      if (i == 10)
+        continue;
+      append(evenWriter, i);
+    }
+    evenWriter.close();
+
+    MergedLogFile.merge(fs, Arrays.asList(odd, even), dir);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    root.delete();
+  }
+
+  private void scan(RecoveryLogReader reader, int start) throws IOException {
+    LogFileKey key = new LogFileKey();
+    LogFileValue value = new LogFileValue();
+
+    for (int i = start + 1; i < 1000; i++) {
+      if (i == 10)
+        continue;
+      assertTrue(reader.next(key, value));
+      assertEquals(i, key.seq);
+      assertEquals(1, value.mutations.size());
+      assertEquals("row" + i, new String(value.mutations.get(0).getRow()));
+    }
+  }
+
+  @Test
+  public void testSeek() throws Exception {
+    fs.create(new Path(dir, "finished")).close();
+    RecoveryLogReader reader = MergedLogFile.open(fs, dir);
+
+    LogFileKey key = new LogFileKey();
+    key.event = MUTATION;
+    key.tid = 1;
+    scan(reader, -1);
+    assertFalse(reader.next(key, new LogFileValue()));
+
+    key.seq = 500;
+    assertTrue(reader.seek(key));
+    scan(reader, 499);
+
+    key.seq = 10;
+    assertFalse(reader.seek(key));
+    scan(reader, 10);
+
+    key.seq = 1000;
+    assertFalse(reader.seek(key));
+    assertFalse(reader.next(key, new LogFileValue()));
+
+    key.seq = -1;
+    assertFalse(reader.seek(key));
+    scan(reader, -1);
+    reader.close();
+  }
+
+  @Test
+  public void testTabletDefinitions() throws Exception {
+    Path tablets = new Path(dir, "tablets");
+    fs.mkdirs(tablets);
+    Path run = new Path(tablets, "_run-00000");
+    MergedLogFile.Writer writer = new MergedLogFile.Writer(fs.create(run), null);
+    LogFileKey open = new LogFileKey();
+    open.event = OPEN;
+    open.tserverSession = "session";
+    writer.append(open, new LogFileValue());
+    for (int tid = 2; tid < 5; tid++) {
+      LogFileKey define = new LogFileKey();
+      define.event = DEFINE_TABLET;
+      define.tid = tid;
+      define.seq = 0;
+      define.tablet = new KeyExtent(new Text("t" + tid), null, null);
+      writer.append(define, new LogFileValue());
+    }
+    writer.close();
+    MergedLogFile.merge(fs, Arrays.asList(run), tablets);
+    fs.create(new Path(tablets, "finished")).close();
+
+    RecoveryLogReader reader = MergedLogFile.open(fs, tablets);
+    List<LogFileKey> definitions = reader.getTabletDefinitions();
+    assertEquals(3, definitions.size());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i + 2, definitions.get(i).tid);
+      assertEquals(new KeyExtent(new Text("t" + (i + 2)), null, null), definitions.get(i).tablet);
+    }
+
+    LogFileKey key = new LogFileKey();
+    assertTrue(reader.next(key, new LogFileValue()));
+    assertEquals(OPEN, key.event);
+    assertEquals("session", key.tserverSession);
+    reader.close();
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnfinished() throws Exception {
+    MergedLogFile.open(fs, dir);
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.tserver.tablet;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class CompactionStatsTest {
+
+  @Test
+  public void testAdd() {
+    CompactionStats lg1 = new CompactionStats(10, 5);
+    lg1.addLocalityGroupTime("lg1", 100);
+    CompactionStats defaultGroup = new CompactionStats(20, 20);
+    defaultGroup.addLocalityGroupTime("", 200);
+    // time spent copying a staged group into the output file
+    CompactionStats copy = new CompactionStats(0, 0);
+    copy.addLocalityGroupTime("lg1", 50);
+
+    CompactionStats total = new CompactionStats();
+    total.add(lg1);
+    total.add(defaultGroup);
+    total.add(copy);
+
+    assertEquals(30, total.getEntriesRead());
+    assertEquals(25, total.getEntriesWritten());
+    assertEquals(Arrays.asList("lg1", ""), new ArrayList<String>(total.getLocalityGroupTimes().keySet()));
+    assertEquals(150l, total.getLocalityGroupTimes().get("lg1").longValue());
+    assertEquals(200l, total.getLocalityGroupTimes().get("").longValue());
+  }
+}
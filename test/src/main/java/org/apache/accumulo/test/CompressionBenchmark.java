@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.accumulo.core.cli.Help;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.Property;
+import org.apache.accumulo.core.file.FileOperations;
+import org.apache.accumulo.core.file.FileSKVIterator;
+import org.apache.accumulo.core.file.FileSKVWriter;
+import org.apache.accumulo.core.file.rfile.RFile;
+import org.apache.accumulo.core.file.rfile.bcfile.Compression;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import com.beust.jcommander.Parameter;
+
+/**
+ * Rewrites existing RFiles with each compression algorithm, then reports the compression ratio and how fast the rewritten files can be read back.
+ *
+ * Usage : CompressionBenchmark [--algorithms gz,snappy,lz4,zstd] [--dictionary file] [--tmp dir] file { file ... }
+ */
+public class CompressionBenchmark {
+
+  static class Opts extends Help {
+    @Parameter(names = "--algorithms", description = "comma separated compression algorithms to compare, defaults to all supported algorithms")
+    String algorithms = null;
+    @Parameter(names = "--dictionary", description = "dictionary to compress data blocks with, for algorithms that support dictionaries")
+    String dictionary = null;
+    @Parameter(names = "--tmp", description = "directory to write the rewritten files to")
+    String tmp = "/tmp";
+    @Parameter(names = "--iterations", description = "number of times to read each rewritten file, the fastest read is reported")
+    int iterations = 3;
+    @Parameter(description = "<file> { <file> ... }", required = true)
+    List<String> files = new ArrayList<String>();
+  }
+
+  public static void main(String[] args) throws Exception {
+    Opts opts = new Opts();
+    opts.parseArgs(CompressionBenchmark.class.getName(), args);
+
+    Configuration conf = new Configuration();
+    List<String> algorithms = opts.algorithms == null ? Arrays.asList(Compression.getSupportedAlgorithms()) : Arrays.asList(opts.algorithms.split(","));
+
+    System.out.printf("%-40s %-8s %14s %14s %8s %12s\n", "file", "algo", "raw bytes", "file bytes", "ratio", "read MB/sec");
+    for (String file : opts.files) {
+      Path input = new Path(file);
+      FileSystem inputFs = input.getFileSystem(conf);
+      for (String algorithm : algorithms) {
+        ConfigurationCopy acuconf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+        acuconf.set(Property.TABLE_FILE_COMPRESSION_TYPE, algorithm);
+        if (opts.dictionary != null)
+          acuconf.set(Property.TABLE_FILE_COMPRESSION_DICTIONARY, opts.dictionary);
+
+        Path output = new Path(opts.tmp, "compression-benchmark-" + algorithm + "." + RFile.EXTENSION);
+        FileSystem outputFs = output.getFileSystem(conf);
+
+        long rawBytes = 0;
+        FileSKVIterator reader = FileOperations.getInstance().openReader(input.toString(), true, inputFs, conf, acuconf);
+        FileSKVWriter writer = FileOperations.getInstance().openWriter(output.toString(), outputFs, conf, acuconf);
+        try {
+          writer.startDefaultLocalityGroup();
+          while (reader.hasTop()) {
+            rawBytes += reader.getTopKey().getSize() + reader.getTopValue().getSize();
+            writer.append(reader.getTopKey(), reader.getTopValue());
+            reader.next();
+          }
+        } finally {
+          writer.close();
+          reader.close();
+        }
+        long fileBytes = outputFs.getFileStatus(output).getLen();
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < opts.iterations; i++) {
+          long t1 = System.currentTimeMillis();
+          FileSKVIterator scan = FileOperations.getInstance().openReader(output.toString(), true, outputFs, conf, acuconf);
+          try {
+            while (scan.hasTop()) {
+              scan.next();
+            }
+          } finally {
+            scan.close();
+          }
+          best = Math.min(best, System.currentTimeMillis() - t1);
+        }
+        outputFs.delete(output, false);
+
+        double rate = rawBytes / (1024.0 * 1024.0) / (Math.max(best, 1) / 1000.0);
+        System.out.printf("%-40s %-8s %14d %14d %8.2f %12.2f\n", input.getName(), algorithm, rawBytes, fileBytes, rawBytes / (double) fileBytes, rate);
+      }
+    }
+  }
+}
@@ -21,7 +21,9 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.Random;
 
+import org.apache.accumulo.core.client.AsyncFuture;
 import org.apache.accumulo.core.client.ConditionalWriter;
+import org.apache.accumulo.core.client.impl.AsyncFutureImpl;
 import org.apache.accumulo.core.data.ConditionalMutation;
 
 
@@ -72,6 +74,11 @@ public class FaultyConditionalWriter implements ConditionalWriter {
   public Result write(ConditionalMutation mutation) {
     return write(Collections.singleton(mutation).iterator()).next();
   }
+
+  @Override
+  public AsyncFuture<Result> writeAsync(ConditionalMutation mutation) {
+    return AsyncFutureImpl.immediate(write(mutation));
+  }
   
   @Override
   public void close() {
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.util.FastFormat;
+import org.apache.accumulo.core.util.Stat;
+import org.apache.accumulo.tserver.InMemoryMap;
+
+/**
+ * Measures how fast several threads can write to the in memory map of a single tablet, with writes serialized and with concurrent writes enabled.
+ *
+ * Usage : IMMConcurrentWriteBenchmark [max threads] [mutations per thread] [use native map]
+ */
+public class IMMConcurrentWriteBenchmark {
+  public static void main(String[] args) throws Exception {
+    int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+    int numMutations = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+    boolean useNativeMap = args.length > 2 ? Boolean.parseBoolean(args[2]) : false;
+
+    Map<String,Stat> stats = new TreeMap<String,Stat>();
+
+    for (int i = 0; i < 5; i++) {
+      for (int threads = 1; threads <= maxThreads; threads *= 2) {
+        runTest(threads, numMutations, useNativeMap, false, i > 1 ? stats : null);
+        runTest(threads, numMutations, useNativeMap, true, i > 1 ? stats : null);
+      }
+      System.out.println();
+    }
+
+    for (Entry<String,Stat> entry : stats.entrySet()) {
+      System.out.printf("%30s : %10.2f mutations/sec\n", entry.getKey(), entry.getValue().getAverage());
+    }
+  }
+
+  private static void runTest(int numThreads, final int numMutations, boolean useNativeMap, boolean concurrentWrites, Map<String,Stat> stats)
+      throws Exception {
+    final InMemoryMap imm = new InMemoryMap(new HashMap<String,Set<ByteSequence>>(), useNativeMap, concurrentWrites, "/tmp");
+
+    final CountDownLatch startSignal = new CountDownLatch(1);
+    List<Thread> threads = new ArrayList<Thread>();
+
+    for (int t = 0; t < numThreads; t++) {
+      final byte[] prefix = FastFormat.toZeroPaddedString(t, 4, 16, new byte[0]);
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            startSignal.await();
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+
+          List<Mutation> mutations = new ArrayList<Mutation>(1);
+          mutations.add(null);
+          byte[] val = new byte[50];
+          for (int i = 0; i < numMutations; i++) {
+            Mutation m = new Mutation(FastFormat.toZeroPaddedString(i, 8, 16, prefix));
+            for (int c = 0; c < 4; c++) {
+              m.put(FastFormat.toZeroPaddedString(c, 4, 16, new byte[0]), new byte[0], val);
+            }
+            mutations.set(0, m);
+            imm.mutate(mutations);
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    long t1 = System.currentTimeMillis();
+    startSignal.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    long t2 = System.currentTimeMillis();
+
+    imm.delete(0);
+
+    double rate = numThreads * (double) numMutations / ((t2 - t1) / 1000.0);
+    String label = String.format("threads=%02d concurrent=%s", numThreads, concurrentWrites);
+    System.out.printf("%30s : %10.2f mutations/sec\n", label, rate);
+
+    if (stats != null) {
+      Stat stat = stats.get(label);
+      if (stat == null) {
+        stat = new Stat();
+        stats.put(label, stat);
+      }
+      stat.addStat((long) rate);
+    }
+  }
+}
@@ -0,0 +1,243 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.accumulo.core.client.AccumuloException;
+import org.apache.accumulo.core.client.AsyncFuture;
+import org.apache.accumulo.core.client.AsyncScanner;
+import org.apache.accumulo.core.client.AsyncScanner.BatchStream;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.ConditionalWriter;
+import org.apache.accumulo.core.client.ConditionalWriter.Result;
+import org.apache.accumulo.core.client.ConditionalWriter.Status;
+import org.apache.accumulo.core.client.ConditionalWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.Condition;
+import org.apache.accumulo.core.data.ConditionalMutation;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.test.functional.SimpleMacIT;
+import org.apache.accumulo.test.functional.SlowIterator;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class AsyncScannerIT extends SimpleMacIT {
+
+  private static final int NUM_ROWS = 1000;
+
+  private static String row(int i) {
+    return String.format("r%04d", i);
+  }
+
+  private String createTable(boolean split) throws Exception {
+    Connector conn = getConnector();
+    String tableName = getUniqueNames(1)[0];
+    conn.tableOperations().create(tableName);
+
+    if (split) {
+      SortedSet<Text> splits = new TreeSet<Text>();
+      for (int i = 100; i < NUM_ROWS; i += 100)
+        splits.add(new Text(row(i)));
+      conn.tableOperations().addSplits(tableName, splits);
+    }
+
+    BatchWriter bw = conn.createBatchWriter(tableName, new BatchWriterConfig());
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Mutation m = new Mutation(row(i));
+      m.put("cf", "cq", "" + i);
+      bw.addMutation(m);
+    }
+    bw.close();
+    return tableName;
+  }
+
+  /**
+   * Reads the rest of a stream, checking that rows come back in order and without duplicates.
+   */
+  private static List<String> readAll(BatchStream stream, List<String> rows) throws Exception {
+    List<Entry<Key,Value>> batch;
+    while (!(batch = stream.nextBatch().get(60, TimeUnit.SECONDS)).isEmpty()) {
+      for (Entry<Key,Value> entry : batch) {
+        String row = entry.getKey().getRow().toString();
+        if (!rows.isEmpty())
+          assertTrue(rows.get(rows.size() - 1).compareTo(row) < 0);
+        rows.add(row);
+      }
+    }
+    stream.close();
+    return rows;
+  }
+
+  @Test(timeout = 60 * 1000)
+  public void testLookup() throws Exception {
+    Connector conn = getConnector();
+    String tableName = createTable(true);
+    AsyncScanner scanner = conn.createAsyncScanner(tableName, Authorizations.EMPTY);
+
+    List<Entry<Key,Value>> entries = scanner.lookup(new Range(row(250))).get();
+    assertEquals(1, entries.size());
+    assertEquals("250", entries.get(0).getValue().toString());
+
+    assertTrue(scanner.lookup(new Range("x")).get().isEmpty());
+
+    // many lookups outstanding at once
+    List<AsyncFuture<List<Entry<Key,Value>>>> futures = new ArrayList<AsyncFuture<List<Entry<Key,Value>>>>();
+    for (int i = 0; i < NUM_ROWS; i += 7)
+      futures.add(scanner.lookup(new Range(row(i))));
+    for (int i = 0, f = 0; i < NUM_ROWS; i += 7, f++)
+      assertEquals("" + i, futures.get(f).get().get(0).getValue().toString());
+  }
+
+  @Test(timeout = 60 * 1000)
+  public void testScanAcrossTablets() throws Exception {
+    Connector conn = getConnector();
+    String tableName = createTable(true);
+    AsyncScanner scanner = conn.createAsyncScanner(tableName, Authorizations.EMPTY);
+    scanner.setBatchSize(30);
+
+    List<String> rows = readAll(scanner.scan(new Range(row(50), row(949))), new ArrayList<String>());
+    assertEquals(900, rows.size());
+    assertEquals(row(50), rows.get(0));
+    assertEquals(row(949), rows.get(rows.size() - 1));
+  }
+
+  @Test(timeout = 2 * 60 * 1000)
+  public void testScanRetriesAfterSplit() throws Exception {
+    Connector conn = getConnector();
+    String tableName = createTable(false);
+    AsyncScanner scanner = conn.createAsyncScanner(tableName, Authorizations.EMPTY);
+    scanner.setBatchSize(50);
+
+    BatchStream stream = scanner.scan(new Range());
+    List<String> rows = new ArrayList<String>();
+    for (Entry<Key,Value> entry : stream.nextBatch().get())
+      rows.add(entry.getKey().getRow().toString());
+
+    // the tablet holding the open scan session goes away, so the next batch has to relocate and start a new session
+    SortedSet<Text> splits = new TreeSet<Text>();
+    for (int i = 100; i < NUM_ROWS; i += 100)
+      splits.add(new Text(row(i)));
+    conn.tableOperations().addSplits(tableName, splits);
+    conn.tableOperations().offline(tableName, true);
+    conn.tableOperations().online(tableName, true);
+
+    readAll(stream, rows);
+    assertEquals(NUM_ROWS, rows.size());
+  }
+
+  @Test(timeout = 60 * 1000)
+  public void testCloseWithOutstandingBatch() throws Exception {
+    Connector conn = getConnector();
+    String tableName = createTable(false);
+    AsyncScanner scanner = conn.createAsyncScanner(tableName, Authorizations.EMPTY);
+    IteratorSetting is = new IteratorSetting(50, SlowIterator.class);
+    SlowIterator.setSeekSleepTime(is, 3000);
+    scanner.addScanIterator(is);
+
+    // close once the request has reached the tablet server
+    BatchStream stream = scanner.scan(new Range());
+    AsyncFuture<List<Entry<Key,Value>>> batch = stream.nextBatch();
+    Thread.sleep(500);
+    stream.close();
+
+    // the batch still completes, and the stream refuses more requests
+    assertFalse(batch.get(30, TimeUnit.SECONDS).isEmpty());
+    try {
+      stream.nextBatch();
+      fail();
+    } catch (IllegalStateException e) {}
+  }
+
+  @Test(timeout = 60 * 1000)
+  public void testWriteAsync() throws Exception {
+    Connector conn = getConnector();
+    String tableName = getUniqueNames(1)[0];
+    conn.tableOperations().create(tableName);
+
+    ConditionalWriter cw = conn.createConditionalWriter(tableName, new ConditionalWriterConfig());
+
+    List<AsyncFuture<Result>> futures = new ArrayList<AsyncFuture<Result>>();
+    for (int i = 0; i < 100; i++) {
+      ConditionalMutation cm = new ConditionalMutation(row(i), new Condition("tx", "seq"));
+      cm.put("tx", "seq", "1");
+      futures.add(cw.writeAsync(cm));
+    }
+    for (int i = 0; i < 100; i++) {
+      Result result = futures.get(i).get();
+      assertEquals(Status.ACCEPTED, result.getStatus());
+      assertEquals(row(i), new String(result.getMutation().getRow()));
+    }
+
+    ConditionalMutation cm = new ConditionalMutation(row(0), new Condition("tx", "seq"));
+    cm.put("tx", "seq", "2");
+    assertEquals(Status.REJECTED, cw.writeAsync(cm).get().getStatus());
+
+    cw.close();
+  }
+
+  @Test(timeout = 60 * 1000)
+  public void testCloseFailsPendingWrites() throws Exception {
+    Connector conn = getConnector();
+    String tableName = getUniqueNames(1)[0];
+    conn.tableOperations().create(tableName);
+
+    ConditionalWriter cw = conn.createConditionalWriter(tableName, new ConditionalWriterConfig());
+
+    // a slow condition keeps the write outstanding while the writer is closed
+    IteratorSetting is = new IteratorSetting(5, SlowIterator.class);
+    SlowIterator.setSeekSleepTime(is, 5000);
+    ConditionalMutation cm = new ConditionalMutation("r1", new Condition("tx", "seq").setIterators(is));
+    cm.put("tx", "seq", "1");
+    AsyncFuture<Result> future = cw.writeAsync(cm);
+
+    Thread.sleep(500);
+    cw.close();
+
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof AccumuloException);
+    }
+
+    // writes after close fail right away
+    try {
+      cw.writeAsync(cm).get();
+      fail();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof AccumuloException);
+    }
+  }
+}
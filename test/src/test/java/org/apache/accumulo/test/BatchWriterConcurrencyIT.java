@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.test.functional.SimpleMacIT;
+import org.apache.hadoop.io.Text;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Drives one batch writer from many threads, checking that no mutation is lost when flush(), close() and tablet splits race with addMutation().
+ */
+public class BatchWriterConcurrencyIT extends SimpleMacIT {
+
+  private static final int NUM_PRODUCERS = 8;
+
+  private ExecutorService executor;
+
+  @Override
+  protected int defaultTimeoutSeconds() {
+    return 4 * 60;
+  }
+
+  @Before
+  public void createExecutor() {
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void shutdownExecutor() {
+    executor.shutdownNow();
+  }
+
+  private static Mutation newMutation(String row) {
+    Mutation m = new Mutation(row);
+    m.put("cf", "cq", new Value(row.getBytes(StandardCharsets.UTF_8)));
+    return m;
+  }
+
+  private Set<String> readRows(String table) throws Exception {
+    Set<String> rows = new HashSet<String>();
+    Scanner scanner = getConnector().createScanner(table, Authorizations.EMPTY);
+    for (Entry<Key,Value> entry : scanner) {
+      rows.add(entry.getKey().getRow().toString());
+    }
+    return rows;
+  }
+
+  /**
+   * Starts producers that add mutations until stopped or until the writer rejects them, recording every row whose addMutation() returned.
+   */
+  private List<Future<Void>> startProducers(final BatchWriter bw, final AtomicBoolean stop, final Set<String> added) {
+    List<Future<Void>> producers = new ArrayList<Future<Void>>();
+    for (int p = 0; p < NUM_PRODUCERS; p++) {
+      final int producer = p;
+      producers.add(executor.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          for (int i = 0; !stop.get(); i++) {
+            String row = String.format("%02d_%08d", producer, i);
+            try {
+              bw.addMutation(newMutation(row));
+            } catch (IllegalStateException e) {
+              // the writer was closed while this thread was adding
+              return null;
+            }
+            added.add(row);
+          }
+          return null;
+        }
+      }));
+    }
+    return producers;
+  }
+
+  @Test
+  public void testFlushRacingAdds() throws Exception {
+    String table = getUniqueNames(1)[0];
+    Connector c = getConnector();
+    c.tableOperations().create(table);
+
+    BatchWriter bw = c.createBatchWriter(table, new BatchWriterConfig().setMaxMemory(100 * 1024).setMaxWriteThreads(3));
+    AtomicBoolean stop = new AtomicBoolean(false);
+    Set<String> added = new ConcurrentSkipListSet<String>();
+    List<Future<Void>> producers = startProducers(bw, stop, added);
+
+    for (int i = 0; i < 5; i++) {
+      Thread.sleep(200);
+      // everything added before flush() is called must be readable once it returns
+      Set<String> beforeFlush = new HashSet<String>(added);
+      bw.flush();
+      Set<String> rows = readRows(table);
+      assertTrue(rows.containsAll(beforeFlush));
+    }
+
+    stop.set(true);
+    for (Future<Void> producer : producers)
+      producer.get();
+    bw.close();
+
+    assertFalse(added.isEmpty());
+    assertEquals(added, readRows(table));
+  }
+
+  @Test
+  public void testCloseWhileProducersBlocked() throws Exception {
+    String table = getUniqueNames(1)[0];
+    Connector c = getConnector();
+    c.tableOperations().create(table);
+
+    // a tiny buffer keeps most producers waiting for memory
+    BatchWriter bw = c.createBatchWriter(table, new BatchWriterConfig().setMaxMemory(1024).setMaxWriteThreads(1));
+    AtomicBoolean stop = new AtomicBoolean(false);
+    Set<String> added = new ConcurrentSkipListSet<String>();
+    List<Future<Void>> producers = startProducers(bw, stop, added);
+
+    Thread.sleep(1000);
+    bw.close();
+
+    // close() must wake every blocked producer, and all it let in must be written
+    for (Future<Void> producer : producers)
+      producer.get(60, TimeUnit.SECONDS);
+    stop.set(true);
+
+    assertFalse(added.isEmpty());
+    assertEquals(added, readRows(table));
+  }
+
+  @Test
+  public void testFailedMutationsRequeued() throws Exception {
+    String table = getUniqueNames(1)[0];
+    Connector c = getConnector();
+    c.tableOperations().create(table);
+
+    BatchWriter bw = c.createBatchWriter(table, new BatchWriterConfig().setMaxMemory(100 * 1024).setMaxWriteThreads(3));
+    AtomicBoolean stop = new AtomicBoolean(false);
+    Set<String> added = new ConcurrentSkipListSet<String>();
+    List<Future<Void>> producers = startProducers(bw, stop, added);
+
+    // splitting and merging moves the tablets being written, so the tablet servers reject mutations for tablets they no longer serve and the writer
+    // has to requeue them
+    for (int i = 0; i < 3; i++) {
+      SortedSet<Text> splits = new TreeSet<Text>();
+      for (int p = 1; p < NUM_PRODUCERS; p++)
+        splits.add(new Text(String.format("%02d", p)));
+      c.tableOperations().addSplits(table, splits);
+      Thread.sleep(200);
+      c.tableOperations().merge(table, null, null);
+      Thread.sleep(200);
+    }
+
+    stop.set(true);
+    for (Future<Void> producer : producers)
+      producer.get();
+    bw.close();
+
+    assertFalse(added.isEmpty());
+    assertEquals(added, readRows(table));
+  }
+}
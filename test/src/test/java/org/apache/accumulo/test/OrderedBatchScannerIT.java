@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.apache.accumulo.core.client.BatchScanner;
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.client.BatchWriterConfig;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.security.Authorizations;
+import org.apache.accumulo.test.functional.SimpleMacIT;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+/**
+ * Checks that an ordered batch scanner returns the union of its ranges in sorted order, without duplicates, when the ranges overlap, are given out of order
+ * and span many tablets read by several threads.
+ */
+public class OrderedBatchScannerIT extends SimpleMacIT {
+
+  private static final int NUM_ROWS = 10000;
+  private static final int NUM_COLS = 3;
+
+  private static String row(int i) {
+    return String.format("%06d", i);
+  }
+
+  @Override
+  protected int defaultTimeoutSeconds() {
+    return 2 * 60;
+  }
+
+  @Test
+  public void test() throws Exception {
+    Connector c = getConnector();
+    String tableName = getUniqueNames(1)[0];
+    c.tableOperations().create(tableName);
+
+    SortedSet<Text> splits = new TreeSet<Text>();
+    for (int i = 250; i < NUM_ROWS; i += 250)
+      splits.add(new Text(row(i)));
+    c.tableOperations().addSplits(tableName, splits);
+
+    BatchWriter bw = c.createBatchWriter(tableName, new BatchWriterConfig());
+    for (int i = 0; i < NUM_ROWS; i++) {
+      Mutation m = new Mutation(row(i));
+      for (int j = 0; j < NUM_COLS; j++)
+        m.put("cf", "cq" + j, new Value(row(i).getBytes()));
+      bw.addMutation(m);
+    }
+    bw.close();
+
+    Random random = new Random(42);
+    for (int trial = 0; trial < 5; trial++) {
+      List<Range> ranges = new ArrayList<Range>();
+      List<int[]> bounds = new ArrayList<int[]>();
+      for (int i = 0; i < 50; i++) {
+        int start = random.nextInt(NUM_ROWS);
+        int end = Math.min(NUM_ROWS - 1, start + random.nextInt(1000));
+        ranges.add(new Range(row(start), row(end)));
+        bounds.add(new int[] {start, end});
+      }
+      // ranges that straddle two of the ones above, starting between rows
+      for (int i = 0; i < 10; i++) {
+        int[] a = bounds.get(random.nextInt(50));
+        int[] b = bounds.get(random.nextInt(50));
+        int start = Math.min(a[0], b[0]);
+        int end = Math.max(a[1], b[1]);
+        ranges.add(new Range(row(start) + "5", row(end)));
+        bounds.add(new int[] {start + 1, end});
+      }
+
+      // a row inside several overlapping ranges must still be returned only once
+      SortedSet<String> expectedRows = new TreeSet<String>();
+      for (int[] bound : bounds)
+        for (int r = bound[0]; r <= bound[1]; r++)
+          expectedRows.add(row(r));
+      Collections.shuffle(ranges, random);
+
+      BatchScanner bs = c.createBatchScanner(tableName, Authorizations.EMPTY, 4);
+      bs.setOrdered(true);
+      bs.setRanges(ranges);
+
+      Key prev = null;
+      SortedSet<String> foundRows = new TreeSet<String>();
+      int count = 0;
+      for (Entry<Key,Value> entry : bs) {
+        Key key = entry.getKey();
+        if (prev != null)
+          assertTrue("out of order or duplicate: " + prev + " then " + key, prev.compareTo(key) < 0);
+        prev = key;
+        foundRows.add(key.getRow().toString());
+        assertTrue(inAnyRange(ranges, key));
+        count++;
+      }
+      bs.close();
+
+      assertEquals(expectedRows, foundRows);
+      assertEquals(expectedRows.size() * NUM_COLS, count);
+    }
+  }
+
+  private static boolean inAnyRange(List<Range> ranges, Key key) {
+    for (Range range : ranges)
+      if (range.contains(key))
+        return true;
+    return false;
+  }
+}